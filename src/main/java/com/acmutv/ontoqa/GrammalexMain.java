@@ -27,71 +27,75 @@
 package com.acmutv.ontoqa;
 
 import com.acmutv.ontoqa.config.AppConfigurationService;
-import com.acmutv.ontoqa.core.grammar.Grammar;
-import com.acmutv.ontoqa.core.lemon.LexicalEntry;
+import com.acmutv.ontoqa.core.grammar.GrammarBuildReport;
+import com.acmutv.ontoqa.core.grammar.GrammarBuilder;
+import com.acmutv.ontoqa.core.grammar.GrammarFormat;
 import com.acmutv.ontoqa.core.lexicon.LexiconFormat;
-import com.acmutv.ontoqa.core.lexicon.LexiconUsage;
-import com.acmutv.ontoqa.core.semantics.sltag.SerializeSltag;
 import com.acmutv.ontoqa.tool.runtime.RuntimeManager;
 import com.acmutv.ontoqa.tool.runtime.ShutdownHook;
-
-import java.io.File;
-import java.io.IOException;
-import java.nio.file.FileSystems;
-import java.nio.file.Path;
-import java.util.List;
-
-import javax.swing.JFileChooser;
-
+import org.apache.commons.io.FilenameUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import org.apache.commons.io.FilenameUtils;
+import java.io.IOException;
 
 /**
  * The Grammalex application entry-point.
+ * Builds the grammar from a lexicon, compiling only the lexical entries changed since the previous build.
+ * Usage: {@code GrammalexMain [LEXICON-FILE [GRAMMAR-FILE]]}; the grammar format follows the grammar file extension
+ * ({@code .json}, {@code .yaml}, otherwise binary).
  * @author Antonella Botte {@literal <abotte@acm.org>}
  * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
  * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
  * @since 1.0
  * @see AppConfigurationService
  * @see RuntimeManager
+ * @see GrammarBuilder
  */
 class GrammalexMain {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(GrammalexMain.class);
-  
-  private static File fileJson = new File("data/grammar/organization.json");
+
+  /**
+   * The default lexicon.
+   */
+  private static final String DEFAULT_LEXICON = "data/lexicon/organizationWithAmbiguity.rdf";
+
+  /**
+   * The default grammar.
+   */
+  private static final String DEFAULT_GRAMMAR = "data/grammar/organization.json";
+
   /**
    * The app main method, executed when the program is launched.
    * @param args The command line arguments.
- * @throws IllegalAccessException 
- * @throws InstantiationException 
    */
-  public static void main(String[] args) throws InstantiationException, IllegalAccessException {
-    //CliService.handleArguments(args);
+  public static void main(String[] args) {
     RuntimeManager.registerShutdownHooks(new ShutdownHook());
+    final String lexicon = (args.length > 0) ? args[0] : DEFAULT_LEXICON;
+    final String grammar = (args.length > 1) ? args[1] : DEFAULT_GRAMMAR;
     try {
-		
-		Path path = FileSystems.getDefault().getPath("data/lexicon").toAbsolutePath();
-		String currentDirectory = path.toString();
-		final JFileChooser fc = new JFileChooser(currentDirectory);
-
-		int returnVal = fc.showOpenDialog(null);
-	    fc.setFileSelectionMode(JFileChooser.FILES_ONLY);
-		if (returnVal == JFileChooser.OPEN_DIALOG) {
-		    File file = fc.getSelectedFile();
-		    System.out.println("File Select: "+ file.getName()+ "\n\n");
-	    	List<LexicalEntry> lEntries= LexiconUsage.getLexicalEntries(file.getAbsolutePath(),"", LexiconFormat.RDFXML);
-	    	Grammar grammar = SerializeSltag.getAllElementarySltag(lEntries);
-			SerializeSltag.writeGrammarOnFile(grammar, fileJson);
-		}
-
-    	  
-	} catch (IOException e) {
-		// TODO Auto-generated catch block
-		e.printStackTrace();
-	}
+      GrammarBuildReport report = GrammarBuilder.build(lexicon, LexiconFormat.RDFXML, grammar, format(grammar));
+      System.out.format("Grammar %s %s in %d ms (%d added, %d changed, %d removed, %d unchanged lexical entries; " +
+              "%d elementary SLTAGs)\n", grammar, report.isWritten() ? "written" : "up to date", report.getElapsed(),
+          report.getAdded(), report.getChanged(), report.getRemoved(), report.getUnchanged(), report.getSltags());
+    } catch (IOException exc) {
+      LOGGER.error("Cannot build grammar {} from lexicon {}: {}", grammar, lexicon, exc.getMessage());
+      System.exit(-1);
+    }
     System.exit(0);
   }
-}
\ No newline at end of file
+
+  /**
+   * Returns the grammar format of {@code grammar}, from its extension.
+   * @param grammar the grammar file.
+   * @return the grammar format.
+   */
+  private static GrammarFormat format(String grammar) {
+    switch (FilenameUtils.getExtension(grammar).toLowerCase()) {
+      case "json": return GrammarFormat.JSON;
+      case "yaml": case "yml": return GrammarFormat.YAML;
+      default: return GrammarFormat.BINARY;
+    }
+  }
+}
@@ -28,12 +28,16 @@ package com.acmutv.ontoqa;
 
 import com.acmutv.ontoqa.config.AppConfiguration;
 import com.acmutv.ontoqa.config.AppConfigurationService;
+import com.acmutv.ontoqa.config.WebConfigurer;
 import com.acmutv.ontoqa.core.exception.OntoqaFatalException;
+import com.acmutv.ontoqa.core.knowledge.backend.KnowledgeBackendType;
+import com.acmutv.ontoqa.session.WarmupManager;
 import com.acmutv.ontoqa.ui.CliService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
 /**
  * The app starting point.
@@ -53,14 +57,30 @@ public class OntoqaApp {
    */
   public static void main(String[] args) {
     CliService.handleArguments(args);
+    boolean configured = false;
     try {
       AppConfigurationService.configureApp();
       AppConfiguration config = AppConfigurationService.getConfigurations();
-      LOGGER.info("Ontology ({}): {}", config.getOntologyFormat(), config.getOntologyPath());
+      if (config.getKnowledgeBackend() == KnowledgeBackendType.SPARQL) {
+        LOGGER.info("Ontology (SPARQL endpoint): {}", config.getSparqlEndpoint());
+      } else if (config.getKnowledgeBackend() == KnowledgeBackendType.SHARDED) {
+        LOGGER.info("Ontology ({}, {} shards): {}", config.getOntologyFormat(), config.getOntologyShards(),
+            config.getOntologyPath());
+      } else {
+        LOGGER.info("Ontology ({}): {}", config.getOntologyFormat(), config.getOntologyPath());
+      }
       LOGGER.info("Grammar  ({}): {}", config.getGrammarFormat(), config.getGrammarPath());
+      if (config.getTenantsPath() != null) {
+        LOGGER.info("Tenants  ({} MB each, {} MB overall): {}", config.getTenantMemory(), config.getTenantsMemory(),
+            config.getTenantsPath());
+      }
+      configured = true;
     } catch (OntoqaFatalException exc) {
       LOGGER.error(exc.getMessage());
     }
-    SpringApplication.run(OntoqaApp.class, args);
+    ConfigurableApplicationContext ctx = SpringApplication.run(OntoqaApp.class, args);
+    if (configured) {
+      WarmupManager.warmup(ctx.getBean(WebConfigurer.class).getObjectMapper());
+    }
   }
 }
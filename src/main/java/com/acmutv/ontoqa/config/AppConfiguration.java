@@ -28,6 +28,9 @@ package com.acmutv.ontoqa.config;
 
 import com.acmutv.ontoqa.core.grammar.GrammarFormat;
 import com.acmutv.ontoqa.core.knowledge.ontology.OntologyFormat;
+import com.acmutv.ontoqa.core.knowledge.backend.KnowledgeBackendType;
+import com.acmutv.ontoqa.core.knowledge.ontology.ReasoningMode;
+import com.acmutv.ontoqa.model.ResponseVerbosity;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -52,15 +55,168 @@ public class AppConfiguration {
 
   private static final String ONTOLOGY_PATH = "data/knowledge/sample.ontology.ttl";
   private static final OntologyFormat ONTOLOGY_FORMAT = OntologyFormat.TURTLE;
+  private static final int ONTOLOGY_LOAD_THREADS = 0;
+  private static final long ONTOLOGY_LOAD_MEMORY = 256;
+  private static final ReasoningMode REASONING_MODE = ReasoningMode.MATERIALIZATION;
+  private static final KnowledgeBackendType KNOWLEDGE_BACKEND = KnowledgeBackendType.MEMORY;
+  private static final String SPARQL_ENDPOINT = null;
+  private static final int SPARQL_MAX_CONNECTIONS = 16;
+  private static final long SPARQL_TIMEOUT = 10000;
+  private static final int SPARQL_RETRIES = 3;
+  private static final int ONTOLOGY_SHARDS = 4;
 
   private static final String GRAMMAR_PATH = "data/grammar/sample.grammar.json";
   private static final GrammarFormat GRAMMAR_FORMAT = GrammarFormat.JSON;
+  private static final boolean GAZETTEER = false;
+  private static final int GAZETTEER_CACHE = 4096;
+  private static final String AMBIGUITY_TABLE_PATH = null;
+
+  private static final long QUESTION_TIMEOUT = 30000;
+  private static final ResponseVerbosity RESPONSE_VERBOSITY = ResponseVerbosity.QUERY;
+  private static final long SLOW_QUESTION_THRESHOLD = 5000;
+
+  private static final boolean WARMUP = true;
+  private static final String WARMUP_PATH = "data/warmup/benchmark.questions.txt";
+  private static final int WARMUP_ROUNDS = 3;
+
+  private static final String TENANTS_PATH = null;
+  private static final long TENANT_MEMORY = 512;
+  private static final long TENANTS_MEMORY = 2048;
+  private static final long TENANT_IDLE_TIMEOUT = 600000;
+
+  private static final boolean RELOAD_WATCH = false;
+  private static final long RELOAD_DELAY = 2000;
 
   private String ontologyPath = ONTOLOGY_PATH;
   private OntologyFormat ontologyFormat = ONTOLOGY_FORMAT;
+
+  /**
+   * The number of threads parsing the ontology files; 0 means one per available processor.
+   */
+  private int ontologyLoadThreads = ONTOLOGY_LOAD_THREADS;
+
+  /**
+   * The memory budget (megabytes) for the data being parsed while loading the ontology.
+   */
+  private long ontologyLoadMemory = ONTOLOGY_LOAD_MEMORY;
+
+  /**
+   * How RDFS entailment is provided: materializing the closure at load time, or rewriting queries.
+   */
+  private ReasoningMode reasoningMode = REASONING_MODE;
+
+  /**
+   * Where questions are answered: on the ontology loaded in memory, as a whole or partitioned across shards,
+   * or on a remote SPARQL endpoint.
+   */
+  private KnowledgeBackendType knowledgeBackend = KNOWLEDGE_BACKEND;
+
+  /**
+   * The URL of the SPARQL endpoint serving the ontology, for the {@code SPARQL} backend.
+   */
+  private String sparqlEndpoint = SPARQL_ENDPOINT;
+
+  /**
+   * The maximum number of pooled keep-alive connections to the SPARQL endpoint.
+   */
+  private int sparqlMaxConnections = SPARQL_MAX_CONNECTIONS;
+
+  /**
+   * The timeout (milliseconds) for connecting to the SPARQL endpoint and for waiting for its data; 0 means no limit.
+   */
+  private long sparqlTimeout = SPARQL_TIMEOUT;
+
+  /**
+   * The number of times a request failed for transient reasons is retried against the SPARQL endpoint.
+   */
+  private int sparqlRetries = SPARQL_RETRIES;
+
+  /**
+   * The number of shards the ontology is partitioned across, for the {@code SHARDED} backend.
+   */
+  private int ontologyShards = ONTOLOGY_SHARDS;
+
   private String grammarPath = GRAMMAR_PATH;
   private GrammarFormat grammarFormat = GRAMMAR_FORMAT;
 
+  /**
+   * Whether proper nouns of the ontology entities, if missing from the grammar, are matched by an entity gazetteer.
+   */
+  private boolean gazetteer = GAZETTEER;
+
+  /**
+   * The number of entity names whose elementary SLTAGs are kept synthesized by the gazetteer.
+   */
+  private int gazetteerCache = GAZETTEER_CACHE;
+
+  /**
+   * The decision table of the grammar ambiguities, compiled offline; null, if none.
+   */
+  private String ambiguityTablePath = AMBIGUITY_TABLE_PATH;
+
+  /**
+   * The default, and maximum, time budget for processing a question (milliseconds); 0 means no limit.
+   * Questions may ask for a shorter budget.
+   */
+  private long questionTimeout = QUESTION_TIMEOUT;
+
+  /**
+   * The default verbosity level of question-answering responses.
+   */
+  private ResponseVerbosity responseVerbosity = RESPONSE_VERBOSITY;
+
+  /**
+   * The processing time (milliseconds) beyond which the question trace is logged; 0 disables tracing.
+   */
+  private long slowQuestionThreshold = SLOW_QUESTION_THRESHOLD;
+
+  /**
+   * Whether to run the question corpus in {@code warmupPath} before declaring the app ready.
+   */
+  private boolean warmup = WARMUP;
+
+  /**
+   * The question corpus used for warm-up (one question per line).
+   */
+  private String warmupPath = WARMUP_PATH;
+
+  /**
+   * The number of times the warm-up corpus is run.
+   */
+  private int warmupRounds = WARMUP_ROUNDS;
+
+  /**
+   * The directory of named tenants, one sub-directory each, with their own {@code ontology} and {@code grammar};
+   * null, for no tenants but the default one.
+   */
+  private String tenantsPath = TENANTS_PATH;
+
+  /**
+   * The memory budget (MB) of each tenant.
+   */
+  private long tenantMemory = TENANT_MEMORY;
+
+  /**
+   * The memory budget (MB) of all the resident tenants, beyond which the least recently used are evicted.
+   */
+  private long tenantsMemory = TENANTS_MEMORY;
+
+  /**
+   * The time (milliseconds) after which an idle tenant is evicted; 0 means never.
+   */
+  private long tenantIdleTimeout = TENANT_IDLE_TIMEOUT;
+
+  /**
+   * Whether to reload the ontology and the grammar when the files in {@code ontologyPath} and {@code grammarPath}
+   * change.
+   */
+  private boolean reloadWatch = RELOAD_WATCH;
+
+  /**
+   * The time (milliseconds) the watched files must stay unchanged before being reloaded.
+   */
+  private long reloadDelay = RELOAD_DELAY;
+
   /**
    * Constructs a configuration as a copy of the one specified.
    * @param other the configuration to copy.
@@ -76,8 +232,32 @@ public class AppConfiguration {
   public void copy(AppConfiguration other) {
     this.ontologyPath = other.ontologyPath;
     this.ontologyFormat = other.ontologyFormat;
+    this.ontologyLoadThreads = other.ontologyLoadThreads;
+    this.ontologyLoadMemory = other.ontologyLoadMemory;
+    this.reasoningMode = other.reasoningMode;
+    this.knowledgeBackend = other.knowledgeBackend;
+    this.sparqlEndpoint = other.sparqlEndpoint;
+    this.sparqlMaxConnections = other.sparqlMaxConnections;
+    this.sparqlTimeout = other.sparqlTimeout;
+    this.sparqlRetries = other.sparqlRetries;
+    this.ontologyShards = other.ontologyShards;
     this.grammarPath = other.grammarPath;
     this.grammarFormat = other.grammarFormat;
+    this.gazetteer = other.gazetteer;
+    this.gazetteerCache = other.gazetteerCache;
+    this.ambiguityTablePath = other.ambiguityTablePath;
+    this.questionTimeout = other.questionTimeout;
+    this.responseVerbosity = other.responseVerbosity;
+    this.slowQuestionThreshold = other.slowQuestionThreshold;
+    this.warmup = other.warmup;
+    this.warmupPath = other.warmupPath;
+    this.warmupRounds = other.warmupRounds;
+    this.tenantsPath = other.tenantsPath;
+    this.tenantMemory = other.tenantMemory;
+    this.tenantsMemory = other.tenantsMemory;
+    this.tenantIdleTimeout = other.tenantIdleTimeout;
+    this.reloadWatch = other.reloadWatch;
+    this.reloadDelay = other.reloadDelay;
   }
 
   /**
@@ -86,8 +266,32 @@ public class AppConfiguration {
   public void toDefault() {
     this.ontologyPath = ONTOLOGY_PATH;
     this.ontologyFormat = ONTOLOGY_FORMAT;
+    this.ontologyLoadThreads = ONTOLOGY_LOAD_THREADS;
+    this.ontologyLoadMemory = ONTOLOGY_LOAD_MEMORY;
+    this.reasoningMode = REASONING_MODE;
+    this.knowledgeBackend = KNOWLEDGE_BACKEND;
+    this.sparqlEndpoint = SPARQL_ENDPOINT;
+    this.sparqlMaxConnections = SPARQL_MAX_CONNECTIONS;
+    this.sparqlTimeout = SPARQL_TIMEOUT;
+    this.sparqlRetries = SPARQL_RETRIES;
+    this.ontologyShards = ONTOLOGY_SHARDS;
     this.grammarPath = GRAMMAR_PATH;
     this.grammarFormat = GRAMMAR_FORMAT;
+    this.gazetteer = GAZETTEER;
+    this.gazetteerCache = GAZETTEER_CACHE;
+    this.ambiguityTablePath = AMBIGUITY_TABLE_PATH;
+    this.questionTimeout = QUESTION_TIMEOUT;
+    this.responseVerbosity = RESPONSE_VERBOSITY;
+    this.slowQuestionThreshold = SLOW_QUESTION_THRESHOLD;
+    this.warmup = WARMUP;
+    this.warmupPath = WARMUP_PATH;
+    this.warmupRounds = WARMUP_ROUNDS;
+    this.tenantsPath = TENANTS_PATH;
+    this.tenantMemory = TENANT_MEMORY;
+    this.tenantsMemory = TENANTS_MEMORY;
+    this.tenantIdleTimeout = TENANT_IDLE_TIMEOUT;
+    this.reloadWatch = RELOAD_WATCH;
+    this.reloadDelay = RELOAD_DELAY;
   }
 
 }
@@ -30,6 +30,7 @@ import com.acmutv.ontoqa.config.serial.AppConfigurationFormat;
 import com.acmutv.ontoqa.config.serial.AppConfigurationJsonMapper;
 import com.acmutv.ontoqa.config.serial.AppConfigurationYamlMapper;
 import com.acmutv.ontoqa.core.exception.OntoqaFatalException;
+import com.acmutv.ontoqa.core.knowledge.backend.KnowledgeBackendType;
 import com.acmutv.ontoqa.session.SessionManager;
 import com.acmutv.ontoqa.tool.io.IOManager;
 import com.acmutv.ontoqa.tool.runtime.RuntimeManager;
@@ -210,11 +211,20 @@ public class AppConfigurationService {
 
     RuntimeManager.registerShutdownHooks(new ShutdownHook());
 
-    try {
-      SessionManager.loadOntology(config.getOntologyPath(), config.getOntologyFormat());
-    } catch (IOException exc) {
-      throw new OntoqaFatalException("Cannot load ontology in %s format from %s",
-          config.getOntologyFormat(), config.getOntologyPath());
+    if (config.getKnowledgeBackend() == KnowledgeBackendType.SPARQL) {
+      try {
+        SessionManager.connectOntology(config.getSparqlEndpoint(), config.getSparqlMaxConnections(),
+            config.getSparqlTimeout(), config.getSparqlRetries());
+      } catch (IOException exc) {
+        throw new OntoqaFatalException("Cannot connect ontology from SPARQL endpoint %s", config.getSparqlEndpoint());
+      }
+    } else {
+      try {
+        SessionManager.loadOntology(config.getOntologyPath(), config.getOntologyFormat());
+      } catch (IOException exc) {
+        throw new OntoqaFatalException("Cannot load ontology in %s format from %s",
+            config.getOntologyFormat(), config.getOntologyPath());
+      }
     }
 
     try {
@@ -224,5 +234,22 @@ public class AppConfigurationService {
       throw new OntoqaFatalException("Cannot load grammar in %s format from %s",
           config.getGrammarFormat(), config.getGrammarPath());
     }
+
+    if (config.isReloadWatch()) {
+      try {
+        SessionManager.watch(config.getReloadDelay());
+      } catch (IOException exc) {
+        throw new OntoqaFatalException("Cannot watch ontology and grammar for changes: %s", exc.getMessage());
+      }
+    }
+
+    if (config.getTenantsPath() != null) {
+      try {
+        SessionManager.loadTenants(config.getTenantsPath(), config.getTenantMemory(), config.getTenantsMemory(),
+            config.getTenantIdleTimeout());
+      } catch (IOException exc) {
+        throw new OntoqaFatalException("Cannot load tenants from %s", config.getTenantsPath());
+      }
+    }
   }
 }
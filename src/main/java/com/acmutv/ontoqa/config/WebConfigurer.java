@@ -26,6 +26,8 @@
 
 package com.acmutv.ontoqa.config;
 
+import com.acmutv.ontoqa.core.knowledge.answer.Answer;
+import com.acmutv.ontoqa.core.knowledge.answer.serial.AnswerSerializer;
 import com.acmutv.ontoqa.core.semantics.drs.Drs;
 import com.acmutv.ontoqa.core.semantics.drs.serial.DrsDeserializer;
 import com.acmutv.ontoqa.core.semantics.drs.serial.DrsSerializer;
@@ -40,6 +42,9 @@ import com.acmutv.ontoqa.core.syntax.ltag.serial.LtagDeserializer;
 import com.acmutv.ontoqa.core.syntax.ltag.serial.LtagSerializer;
 import com.acmutv.ontoqa.core.syntax.ltag.serial.LtagWebDeserializer;
 import com.acmutv.ontoqa.core.syntax.ltag.serial.LtagWebSerializer;
+import com.acmutv.ontoqa.model.QAResponse;
+import com.acmutv.ontoqa.model.serial.QAResponseSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.HttpMessageConverter;
@@ -61,6 +66,19 @@ import java.util.List;
 @Configuration
 public class WebConfigurer extends WebMvcConfigurerAdapter {
 
+  /**
+   * The mapper used to serialize responses.
+   */
+  private final ObjectMapper mapper = buildMapper();
+
+  /**
+   * Returns the mapper used to serialize responses.
+   * @return the mapper used to serialize responses.
+   */
+  public ObjectMapper getObjectMapper() {
+    return this.mapper;
+  }
+
   @Override
   public void addResourceHandlers(final ResourceHandlerRegistry registry) {
     registry
@@ -74,16 +92,26 @@ public class WebConfigurer extends WebMvcConfigurerAdapter {
 
   @Override
   public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.add(new MappingJackson2HttpMessageConverter(this.mapper));
+  }
+
+  /**
+   * Builds the mapper used to serialize responses.
+   * @return the mapper.
+   */
+  private static ObjectMapper buildMapper() {
     SimpleModule module = new SimpleModule();
     module.addSerializer(Sltag.class, SltagSerializer.getInstance());
     module.addSerializer(Ltag.class, LtagWebSerializer.getInstance());
     module.addSerializer(Dudes.class, DudesSerializer.getInstance());
     module.addSerializer(Drs.class, DrsSerializer.getInstance());
+    module.addSerializer(Answer.class, AnswerSerializer.getInstance());
+    module.addSerializer(QAResponse.class, QAResponseSerializer.getInstance());
     module.addDeserializer(Sltag.class, SltagDeserializer.getInstance());
     module.addDeserializer(Ltag.class, LtagDeserializer.getInstance());
     module.addDeserializer(Dudes.class, DudesDeserializer.getInstance());
     module.addDeserializer(Drs.class, DrsDeserializer.getInstance());
     Jackson2ObjectMapperBuilder builder = new Jackson2ObjectMapperBuilder().modules(module);
-    converters.add(new MappingJackson2HttpMessageConverter(builder.build()));
+    return builder.build();
   }
 }
@@ -29,6 +29,9 @@ package com.acmutv.ontoqa.config.serial;
 import com.acmutv.ontoqa.config.AppConfiguration;
 import com.acmutv.ontoqa.core.grammar.GrammarFormat;
 import com.acmutv.ontoqa.core.knowledge.ontology.OntologyFormat;
+import com.acmutv.ontoqa.core.knowledge.backend.KnowledgeBackendType;
+import com.acmutv.ontoqa.core.knowledge.ontology.ReasoningMode;
+import com.acmutv.ontoqa.model.ResponseVerbosity;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -86,6 +89,51 @@ public class AppConfigurationDeserializer extends StdDeserializer<AppConfigurati
       config.setOntologyFormat(ontologyFormat);
     }
 
+    if (node.hasNonNull("ontologyLoadThreads")) {
+      final int ontologyLoadThreads = node.get("ontologyLoadThreads").asInt();
+      config.setOntologyLoadThreads(ontologyLoadThreads);
+    }
+
+    if (node.hasNonNull("ontologyLoadMemory")) {
+      final long ontologyLoadMemory = node.get("ontologyLoadMemory").asLong();
+      config.setOntologyLoadMemory(ontologyLoadMemory);
+    }
+
+    if (node.hasNonNull("reasoningMode")) {
+      final ReasoningMode reasoningMode = ReasoningMode.valueOf(node.get("reasoningMode").asText());
+      config.setReasoningMode(reasoningMode);
+    }
+
+    if (node.hasNonNull("knowledgeBackend")) {
+      final KnowledgeBackendType knowledgeBackend = KnowledgeBackendType.valueOf(node.get("knowledgeBackend").asText());
+      config.setKnowledgeBackend(knowledgeBackend);
+    }
+
+    if (node.hasNonNull("sparqlEndpoint")) {
+      final String sparqlEndpoint = node.get("sparqlEndpoint").asText();
+      config.setSparqlEndpoint(sparqlEndpoint);
+    }
+
+    if (node.hasNonNull("sparqlMaxConnections")) {
+      final int sparqlMaxConnections = node.get("sparqlMaxConnections").asInt();
+      config.setSparqlMaxConnections(sparqlMaxConnections);
+    }
+
+    if (node.hasNonNull("sparqlTimeout")) {
+      final long sparqlTimeout = node.get("sparqlTimeout").asLong();
+      config.setSparqlTimeout(sparqlTimeout);
+    }
+
+    if (node.hasNonNull("sparqlRetries")) {
+      final int sparqlRetries = node.get("sparqlRetries").asInt();
+      config.setSparqlRetries(sparqlRetries);
+    }
+
+    if (node.hasNonNull("ontologyShards")) {
+      final int ontologyShards = node.get("ontologyShards").asInt();
+      config.setOntologyShards(ontologyShards);
+    }
+
     if (node.hasNonNull("grammarPath")) {
       final String grammarPath = node.get("grammarPath").asText();
       config.setGrammarPath(grammarPath);
@@ -96,6 +144,81 @@ public class AppConfigurationDeserializer extends StdDeserializer<AppConfigurati
       config.setGrammarFormat(grammarFormat);
     }
 
+    if (node.hasNonNull("gazetteer")) {
+      final boolean gazetteer = node.get("gazetteer").asBoolean();
+      config.setGazetteer(gazetteer);
+    }
+
+    if (node.hasNonNull("gazetteerCache")) {
+      final int gazetteerCache = node.get("gazetteerCache").asInt();
+      config.setGazetteerCache(gazetteerCache);
+    }
+
+    if (node.hasNonNull("ambiguityTablePath")) {
+      final String ambiguityTablePath = node.get("ambiguityTablePath").asText();
+      config.setAmbiguityTablePath(ambiguityTablePath);
+    }
+
+    if (node.hasNonNull("questionTimeout")) {
+      final long questionTimeout = node.get("questionTimeout").asLong();
+      config.setQuestionTimeout(questionTimeout);
+    }
+
+    if (node.hasNonNull("responseVerbosity")) {
+      final ResponseVerbosity responseVerbosity = ResponseVerbosity.valueOf(node.get("responseVerbosity").asText());
+      config.setResponseVerbosity(responseVerbosity);
+    }
+
+    if (node.hasNonNull("slowQuestionThreshold")) {
+      final long slowQuestionThreshold = node.get("slowQuestionThreshold").asLong();
+      config.setSlowQuestionThreshold(slowQuestionThreshold);
+    }
+
+    if (node.hasNonNull("warmup")) {
+      final boolean warmup = node.get("warmup").asBoolean();
+      config.setWarmup(warmup);
+    }
+
+    if (node.hasNonNull("warmupPath")) {
+      final String warmupPath = node.get("warmupPath").asText();
+      config.setWarmupPath(warmupPath);
+    }
+
+    if (node.hasNonNull("warmupRounds")) {
+      final int warmupRounds = node.get("warmupRounds").asInt();
+      config.setWarmupRounds(warmupRounds);
+    }
+
+    if (node.hasNonNull("tenantsPath")) {
+      final String tenantsPath = node.get("tenantsPath").asText();
+      config.setTenantsPath(tenantsPath);
+    }
+
+    if (node.hasNonNull("tenantMemory")) {
+      final long tenantMemory = node.get("tenantMemory").asLong();
+      config.setTenantMemory(tenantMemory);
+    }
+
+    if (node.hasNonNull("tenantsMemory")) {
+      final long tenantsMemory = node.get("tenantsMemory").asLong();
+      config.setTenantsMemory(tenantsMemory);
+    }
+
+    if (node.hasNonNull("tenantIdleTimeout")) {
+      final long tenantIdleTimeout = node.get("tenantIdleTimeout").asLong();
+      config.setTenantIdleTimeout(tenantIdleTimeout);
+    }
+
+    if (node.hasNonNull("reloadWatch")) {
+      final boolean reloadWatch = node.get("reloadWatch").asBoolean();
+      config.setReloadWatch(reloadWatch);
+    }
+
+    if (node.hasNonNull("reloadDelay")) {
+      final long reloadDelay = node.get("reloadDelay").asLong();
+      config.setReloadDelay(reloadDelay);
+    }
+
     return config;
   }
 }
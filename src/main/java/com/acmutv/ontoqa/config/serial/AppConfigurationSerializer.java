@@ -29,6 +29,9 @@ package com.acmutv.ontoqa.config.serial;
 import com.acmutv.ontoqa.config.AppConfiguration;
 import com.acmutv.ontoqa.core.grammar.GrammarFormat;
 import com.acmutv.ontoqa.core.knowledge.ontology.OntologyFormat;
+import com.acmutv.ontoqa.core.knowledge.backend.KnowledgeBackendType;
+import com.acmutv.ontoqa.core.knowledge.ontology.ReasoningMode;
+import com.acmutv.ontoqa.model.ResponseVerbosity;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
@@ -79,12 +82,84 @@ public class AppConfigurationSerializer extends StdSerializer<AppConfiguration>
     final OntologyFormat ontologyFormat = value.getOntologyFormat();
     gen.writeStringField("ontologyFormat", ontologyFormat.name());
 
+    final int ontologyLoadThreads = value.getOntologyLoadThreads();
+    gen.writeNumberField("ontologyLoadThreads", ontologyLoadThreads);
+
+    final long ontologyLoadMemory = value.getOntologyLoadMemory();
+    gen.writeNumberField("ontologyLoadMemory", ontologyLoadMemory);
+
+    final ReasoningMode reasoningMode = value.getReasoningMode();
+    gen.writeStringField("reasoningMode", reasoningMode.name());
+
+    final KnowledgeBackendType knowledgeBackend = value.getKnowledgeBackend();
+    gen.writeStringField("knowledgeBackend", knowledgeBackend.name());
+
+    final String sparqlEndpoint = value.getSparqlEndpoint();
+    gen.writeStringField("sparqlEndpoint", sparqlEndpoint);
+
+    final int sparqlMaxConnections = value.getSparqlMaxConnections();
+    gen.writeNumberField("sparqlMaxConnections", sparqlMaxConnections);
+
+    final long sparqlTimeout = value.getSparqlTimeout();
+    gen.writeNumberField("sparqlTimeout", sparqlTimeout);
+
+    final int sparqlRetries = value.getSparqlRetries();
+    gen.writeNumberField("sparqlRetries", sparqlRetries);
+
+    final int ontologyShards = value.getOntologyShards();
+    gen.writeNumberField("ontologyShards", ontologyShards);
+
     final String grammarPath = value.getGrammarPath();
     gen.writeStringField("grammarPath", grammarPath);
 
     final GrammarFormat grammarFormat = value.getGrammarFormat();
     gen.writeStringField("grammarFormat", grammarFormat.name());
 
+    final boolean gazetteer = value.isGazetteer();
+    gen.writeBooleanField("gazetteer", gazetteer);
+
+    final int gazetteerCache = value.getGazetteerCache();
+    gen.writeNumberField("gazetteerCache", gazetteerCache);
+
+    final String ambiguityTablePath = value.getAmbiguityTablePath();
+    gen.writeStringField("ambiguityTablePath", ambiguityTablePath);
+
+    final long questionTimeout = value.getQuestionTimeout();
+    gen.writeNumberField("questionTimeout", questionTimeout);
+
+    final ResponseVerbosity responseVerbosity = value.getResponseVerbosity();
+    gen.writeStringField("responseVerbosity", responseVerbosity.name());
+
+    final long slowQuestionThreshold = value.getSlowQuestionThreshold();
+    gen.writeNumberField("slowQuestionThreshold", slowQuestionThreshold);
+
+    final boolean warmup = value.isWarmup();
+    gen.writeBooleanField("warmup", warmup);
+
+    final String warmupPath = value.getWarmupPath();
+    gen.writeStringField("warmupPath", warmupPath);
+
+    final int warmupRounds = value.getWarmupRounds();
+    gen.writeNumberField("warmupRounds", warmupRounds);
+
+    final String tenantsPath = value.getTenantsPath();
+    gen.writeStringField("tenantsPath", tenantsPath);
+
+    final long tenantMemory = value.getTenantMemory();
+    gen.writeNumberField("tenantMemory", tenantMemory);
+
+    final long tenantsMemory = value.getTenantsMemory();
+    gen.writeNumberField("tenantsMemory", tenantsMemory);
+
+    final long tenantIdleTimeout = value.getTenantIdleTimeout();
+    gen.writeNumberField("tenantIdleTimeout", tenantIdleTimeout);
+
+    final boolean reloadWatch = value.isReloadWatch();
+    gen.writeBooleanField("reloadWatch", reloadWatch);
+
+    final long reloadDelay = value.getReloadDelay();
+    gen.writeNumberField("reloadDelay", reloadDelay);
+
     gen.writeEndObject();
   }
 
@@ -0,0 +1,111 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.controller;
+
+import com.acmutv.ontoqa.core.knowledge.KnowledgeManager;
+import com.acmutv.ontoqa.core.knowledge.ontology.OntologyFormat;
+import com.acmutv.ontoqa.model.OntologyUpdateResponse;
+import com.acmutv.ontoqa.session.SessionManager;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.eclipse.rdf4j.model.Statement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * The ontology update controller.
+ * Accepts batches of statements to remove and to add, serialized as {@code format} (default: TURTLE),
+ * e.g. {@code {"remove": "...", "add": "...", "format": "NTRIPLES"}}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ */
+@RestController
+@RequestMapping(path = "/ontology")
+public class OntologyController {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OntologyController.class);
+
+  private static final String PREFIX = "http://example.org/";
+
+  @RequestMapping(method = RequestMethod.POST)
+  public ResponseEntity update(@RequestBody JsonNode body) {
+    LOGGER.info("Received: body={}", body);
+    final long start = System.currentTimeMillis();
+    final OntologyFormat format;
+    try {
+      format = (body.hasNonNull("format")) ?
+          OntologyFormat.valueOf(body.get("format").asText().toUpperCase()) : OntologyFormat.TURTLE;
+    } catch (IllegalArgumentException exc) {
+      LOGGER.error(exc.getMessage());
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Unknown format: " + body.get("format").asText());
+    }
+    final Set<Statement> additions;
+    final Set<Statement> removals;
+    try {
+      additions = parse(body, "add", format);
+      removals = parse(body, "remove", format);
+    } catch (Exception exc) {
+      LOGGER.error(exc.getMessage());
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(exc.getMessage());
+    }
+    final long version;
+    try {
+      version = SessionManager.updateOntology(additions, removals);
+    } catch (IOException exc) {
+      LOGGER.error(exc.getMessage());
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(exc.getMessage());
+    }
+    final OntologyUpdateResponse response = new OntologyUpdateResponse(version, additions.size(), removals.size(),
+        SessionManager.getOntology().size(), System.currentTimeMillis() - start);
+    return ResponseEntity.status(HttpStatus.OK).body(response);
+  }
+
+  /**
+   * Parses the statements in the {@code field} of {@code body}.
+   * @param body the request body.
+   * @param field the field name.
+   * @param format the statements format.
+   * @return the statements; empty, if the field is missing.
+   * @throws IOException when the statements cannot be parsed.
+   */
+  private static Set<Statement> parse(JsonNode body, String field, OntologyFormat format)
+      throws IOException {
+    if (!body.hasNonNull(field)) {
+      return Collections.emptySet();
+    }
+    return KnowledgeManager.read(new StringReader(body.get(field).asText()), PREFIX, format);
+  }
+}
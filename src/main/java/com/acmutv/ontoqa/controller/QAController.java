@@ -26,9 +26,17 @@
 
 package com.acmutv.ontoqa.controller;
 
+import com.acmutv.ontoqa.config.AppConfigurationService;
 import com.acmutv.ontoqa.core.CoreController;
+import com.acmutv.ontoqa.core.Deadline;
+import com.acmutv.ontoqa.core.exception.OntoqaTimeoutException;
+import com.acmutv.ontoqa.core.knowledge.answer.Answer;
+import com.acmutv.ontoqa.core.knowledge.answer.SimpleAnswer;
 import com.acmutv.ontoqa.core.semantics.sltag.Sltag;
 import com.acmutv.ontoqa.model.QAResponse;
+import com.acmutv.ontoqa.model.ResponseVerbosity;
+import com.acmutv.ontoqa.session.Session;
+import com.acmutv.ontoqa.session.SessionManager;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,6 +44,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
 /**
  * A simple controller to test that app is up and running.
  * @author Antonella Botte {@literal <abotte@acm.org>}
@@ -53,10 +65,73 @@ public class QAController {
   public ResponseEntity submit(@RequestBody JsonNode body) {
     LOGGER.info("Received: body={}", body);
     final String question = body.get("question").asText();
+    final long maxTimeout = AppConfigurationService.getConfigurations().getQuestionTimeout();
+    long timeout = maxTimeout;
+    if (body.hasNonNull("timeout")) {
+      timeout = body.get("timeout").asLong();
+      if (timeout <= 0) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Illegal timeout: " + body.get("timeout").asText());
+      }
+      if (maxTimeout > 0) {
+        timeout = Math.min(timeout, maxTimeout);
+      }
+    }
+    final ResponseVerbosity verbosity;
+    try {
+      verbosity = (body.hasNonNull("verbosity")) ?
+          ResponseVerbosity.valueOf(body.get("verbosity").asText().toUpperCase())
+          : AppConfigurationService.getConfigurations().getResponseVerbosity();
+    } catch (IllegalArgumentException exc) {
+      LOGGER.error(exc.getMessage());
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Unknown verbosity: " + body.get("verbosity").asText());
+    }
+    final String tenant = (body.hasNonNull("tenant")) ? body.get("tenant").asText() : null;
+    final Session session;
+    try {
+      session = SessionManager.getSession(tenant);
+    } catch (IOException exc) {
+      LOGGER.error(exc.getMessage());
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(exc.getMessage());
+    }
+    if (session == null) {
+      return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Unknown tenant: " + tenant);
+    }
+    final int limit = (body.hasNonNull("limit")) ? body.get("limit").asInt() : 0;
+    if (limit < 0) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Illegal limit: " + limit);
+    }
+    long offset = 0;
+    if (body.hasNonNull("cursor")) {
+      final String cursor = body.get("cursor").asText();
+      final long[] position = decodeCursor(cursor);
+      if (position == null) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Malformed cursor: " + cursor);
+      }
+      if (position[0] != session.getVersion()) {
+        return ResponseEntity.status(HttpStatus.GONE).body("Expired cursor: " + cursor);
+      }
+      offset = position[1];
+    }
     QAResponse response = new QAResponse();
+    response.setVerbosity(verbosity);
     final long start = System.currentTimeMillis();
     try {
-      CoreController.process(question, response);
+      final long version = session.getVersion();
+      if (limit > 0) {
+        CoreController.process(session, question, response, Deadline.in(timeout), offset, limit + 1);
+        final Answer answer = response.getAnswer();
+        final SimpleAnswer page = new SimpleAnswer();
+        page.addAll(answer.subList(0, Math.min(limit, answer.size())));
+        response.setAnswer((page.isEmpty() && offset == 0) ? SimpleAnswer.NO_ANSWER : page);
+        if (answer.size() > limit) {
+          response.setNext(encodeCursor(version, offset + limit));
+        }
+      } else {
+        CoreController.process(session, question, response, Deadline.in(timeout), offset, 0);
+      }
+    } catch (OntoqaTimeoutException exc) {
+      LOGGER.warn(exc.getMessage());
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(exc.getMessage());
     } catch (Exception exc) {
       LOGGER.error(exc.getMessage());
       return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(exc.getMessage());
@@ -65,4 +140,34 @@ public class QAController {
     response.setResponseTime(responseTime);
     return ResponseEntity.status(HttpStatus.OK).body(response);
   }
+
+  /**
+   * Encodes the cursor of an answer page.
+   * @param version the session version the page refers to.
+   * @param offset the offset of the page.
+   * @return the cursor.
+   */
+  private static String encodeCursor(long version, long offset) {
+    final String position = version + ":" + offset;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes the cursor of an answer page.
+   * @param cursor the cursor.
+   * @return the session version and offset of the page; null, if the cursor is malformed.
+   */
+  private static long[] decodeCursor(String cursor) {
+    try {
+      final String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      final String[] parts = position.split(":");
+      if (parts.length != 2) {
+        return null;
+      }
+      final long[] decoded = {Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+      return (decoded[1] < 0) ? null : decoded;
+    } catch (IllegalArgumentException exc) {
+      return null;
+    }
+  }
 }
@@ -0,0 +1,57 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.controller;
+
+import com.acmutv.ontoqa.model.ReadinessResponse;
+import com.acmutv.ontoqa.session.WarmupManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * The readiness controller.
+ * Answers 200 once the warm-up has been completed, 503 before.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ */
+@RestController
+@RequestMapping(path = "/ready")
+public class ReadinessController {
+
+  @RequestMapping(method = RequestMethod.GET)
+  public ResponseEntity getReadiness() {
+    final boolean ready = WarmupManager.isReady();
+    final ReadinessResponse response = new ReadinessResponse(ready,
+        WarmupManager.getAnswered(), WarmupManager.getFailed(), WarmupManager.getElapsed());
+    final HttpStatus status = (ready) ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+    return ResponseEntity.status(status).body(response);
+  }
+}
@@ -0,0 +1,79 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.controller;
+
+import com.acmutv.ontoqa.config.AppConfigurationService;
+import com.acmutv.ontoqa.core.knowledge.backend.KnowledgeBackendType;
+import com.acmutv.ontoqa.model.ReloadResponse;
+import com.acmutv.ontoqa.session.SessionManager;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+/**
+ * The reload controller.
+ * Reloads the ontology and/or the grammar from the paths in the app configuration, without downtime,
+ * e.g. {@code {"ontology": false, "grammar": true}} (default: both).
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ */
+@RestController
+@RequestMapping(path = "/admin/reload")
+public class ReloadController {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReloadController.class);
+
+  @RequestMapping(method = RequestMethod.POST)
+  public ResponseEntity reload(@RequestBody(required = false) JsonNode body) {
+    LOGGER.info("Received: body={}", body);
+    final long start = System.currentTimeMillis();
+    final boolean remote = AppConfigurationService.getConfigurations().getKnowledgeBackend()
+        == KnowledgeBackendType.SPARQL;
+    final boolean ontology = !remote && (body == null || !body.hasNonNull("ontology")
+        || body.get("ontology").asBoolean());
+    final boolean grammar = body == null || !body.hasNonNull("grammar") || body.get("grammar").asBoolean();
+    if (!ontology && !grammar) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Nothing to reload");
+    }
+    final long version;
+    try {
+      version = SessionManager.reload(ontology, grammar);
+    } catch (IOException exc) {
+      LOGGER.error(exc.getMessage());
+      return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(exc.getMessage());
+    }
+    final ReloadResponse response = new ReloadResponse(version, ontology, grammar,
+        System.currentTimeMillis() - start);
+    return ResponseEntity.status(HttpStatus.OK).body(response);
+  }
+}
@@ -26,15 +26,22 @@
 
 package com.acmutv.ontoqa.core;
 
+import com.acmutv.ontoqa.config.AppConfigurationService;
 import com.acmutv.ontoqa.core.exception.OntoqaParsingException;
+import com.acmutv.ontoqa.core.exception.OntoqaTimeoutException;
 import com.acmutv.ontoqa.core.exception.QueryException;
 import com.acmutv.ontoqa.core.exception.OntoqaFatalException;
 import com.acmutv.ontoqa.core.exception.QuestionException;
+import com.acmutv.ontoqa.core.grammar.EntityGazetteer;
+import com.acmutv.ontoqa.core.grammar.GazetteerGrammar;
 import com.acmutv.ontoqa.core.grammar.Grammar;
 import com.acmutv.ontoqa.core.knowledge.answer.Answer;
+import com.acmutv.ontoqa.core.knowledge.answer.SimpleAnswer;
+import com.acmutv.ontoqa.core.knowledge.answer.StreamingAnswer;
 import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
 import com.acmutv.ontoqa.core.knowledge.query.QueryResult;
 import com.acmutv.ontoqa.core.parser.AdvancedSltagParser;
+import com.acmutv.ontoqa.core.parser.ParseTrace;
 import com.acmutv.ontoqa.core.parser.ReasoningSltagParser;
 import com.acmutv.ontoqa.core.parser.SimpleSltagParserNew;
 import com.acmutv.ontoqa.core.parser.SltagParser;
@@ -42,6 +49,7 @@ import com.acmutv.ontoqa.core.semantics.dudes.Dudes;
 import com.acmutv.ontoqa.core.knowledge.KnowledgeManager;
 import com.acmutv.ontoqa.core.semantics.sltag.Sltag;
 import com.acmutv.ontoqa.model.QAResponse;
+import com.acmutv.ontoqa.session.Session;
 import com.acmutv.ontoqa.session.SessionManager;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
@@ -49,6 +57,8 @@ import org.apache.jena.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+
 /**
  * The core business logic.
  * @author Antonella Botte {@literal <abotte@acm.org>}
@@ -61,12 +71,27 @@ public class CoreController {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(CoreController.class);
 
+  /**
+   * The logger for slow questions.
+   */
+  private static final Logger SLOW_LOGGER = LoggerFactory.getLogger("com.acmutv.ontoqa.slow");
+
   /**
    * The SLTAG parser.
    */
   //private static SltagParser parser = new SimpleSltagParserNew();
   private static ReasoningSltagParser parser = new AdvancedSltagParser();
 
+  /**
+   * The in-flight questions, keyed by session version and normalized question.
+   */
+  private static final SingleFlight<String,QAResponse> inflight = new SingleFlight<>();
+
+  /**
+   * The number of values of an unpaged answer read before it is returned: longer answers stream the others.
+   */
+  public static final int STREAMING_THRESHOLD = 1024;
+
   /**
    * The core main method.
    * It realizes the question-answering process, retrieving an answer for the given question.
@@ -82,10 +107,11 @@ public class CoreController {
     LOGGER.debug("Question: {}", question);
     final String normalizedQuestion = normalizeQuestion(question);
     LOGGER.debug("Normalized question: {}", normalizedQuestion);
-    Sltag sltag = parser.parse(normalizedQuestion, SessionManager.getGrammar(), SessionManager.getOntology());
+    final Session session = SessionManager.getSession();
+    Sltag sltag = parser.parse(normalizedQuestion, getGrammar(session), session.getOntology());
     Dudes dudes = sltag.getSemantics();
     Query query = dudes.convertToSPARQL();
-    QueryResult qQueryResult = KnowledgeManager.submit(SessionManager.getOntology(), query);
+    QueryResult qQueryResult = KnowledgeManager.submit(session.getOntology(), query);
     return qQueryResult.toAnswer();
   }
 
@@ -101,19 +127,223 @@ public class CoreController {
    * @throws OntoqaParsingException when parsing error occurs.
    */
   public static void process(String question, QAResponse response) throws Exception {
-    LOGGER.debug("Question: {}", question);
+    process(question, response, Deadline.NONE);
+  }
+
+  /**
+   * Realizes the question-answering process, within {@code deadline}.
+   * Fills {@code response} with everything about the process.
+   * The underlying ontology and lexicon are specified in the app configuration.
+   * @param question the question.
+   * @param response the response about the process.
+   * @param deadline the deadline to respect.
+   * @throws QuestionException when question is malformed.
+   * @throws QueryException when the SPARQL query cannot be submitted.
+   * @throws OntoqaFatalException when question cannot be processed.
+   * @throws OntoqaParsingException when parsing error occurs.
+   * @throws OntoqaTimeoutException when {@code deadline} expires.
+   */
+  public static void process(String question, QAResponse response, Deadline deadline) throws Exception {
+    process(SessionManager.getSession(), question, response, deadline);
+  }
+
+  /**
+   * Realizes the question-answering process on {@code session}, within {@code deadline}.
+   * Fills {@code response} with everything about the process.
+   * @param session the session, providing the ontology and the grammar.
+   * @param question the question.
+   * @param response the response about the process.
+   * @param deadline the deadline to respect.
+   * @throws QuestionException when question is malformed.
+   * @throws QueryException when the SPARQL query cannot be submitted.
+   * @throws OntoqaFatalException when question cannot be processed.
+   * @throws OntoqaParsingException when parsing error occurs.
+   * @throws OntoqaTimeoutException when {@code deadline} expires.
+   */
+  public static void process(Session session, String question, QAResponse response, Deadline deadline)
+      throws Exception {
+    LOGGER.debug("Question: {} ({})", question, deadline);
     final String normalizedQuestion = normalizeQuestion(question);
     LOGGER.debug("Normalized question: {}", normalizedQuestion);
-    Sltag sltag = parser.parse(normalizedQuestion, SessionManager.getGrammar(), SessionManager.getOntology());
-    Dudes dudes = sltag.getSemantics();
-    Query query = dudes.convertToSPARQL();
-    QueryResult qQueryResult = KnowledgeManager.submit(SessionManager.getOntology(), query);
-    Answer answer = qQueryResult.toAnswer();
+    final String key = getKey(session) + ":" + normalizedQuestion;
+    QAResponse result = inflight.execute(key, deadline, () -> answer(session, normalizedQuestion, deadline, true));
     if (response != null) {
-      response.setQuestion(normalizedQuestion);
+      response.setQuestion(result.getQuestion());
+      response.setAnswer(result.getAnswer());
+      response.setQuery(result.getQuery());
+      response.setSltag(result.getSltag());
+    }
+  }
+
+  /**
+   * Realizes the question-answering process, within {@code deadline}, paging or streaming the answer.
+   * Fills {@code response} with everything about the process.
+   * When {@code offset} or {@code limit} are positive, they are pushed down into the generated query.
+   * When {@code limit} is positive, the answer is a {@link SimpleAnswer} with at most {@code limit} values,
+   * possibly none, read at once and shared among identical in-flight requests.
+   * Otherwise, the first {@link #STREAMING_THRESHOLD} values are read the same way, so that failures are thrown
+   * here and most answers are read once for identical in-flight requests. A longer answer is a
+   * {@link StreamingAnswer} of the values read, followed by the others, read from the ontology only when consumed;
+   * it must be closed by the caller, and a failure reading it is kept by the answer.
+   * @param question the question.
+   * @param response the response about the process.
+   * @param deadline the deadline to respect.
+   * @param offset the number of values to skip (ignored when not positive).
+   * @param limit the maximum number of values (ignored when not positive).
+   * @throws QuestionException when question is malformed.
+   * @throws QueryException when the SPARQL query cannot be submitted.
+   * @throws OntoqaFatalException when question cannot be processed.
+   * @throws OntoqaParsingException when parsing error occurs.
+   * @throws OntoqaTimeoutException when {@code deadline} expires.
+   */
+  public static void process(String question, QAResponse response, Deadline deadline, long offset, long limit)
+      throws Exception {
+    process(SessionManager.getSession(), question, response, deadline, offset, limit);
+  }
+
+  /**
+   * Realizes the question-answering process on {@code session}, within {@code deadline}, paging or streaming the answer.
+   * @param session the session, providing the ontology and the grammar.
+   * @param question the question.
+   * @param response the response about the process.
+   * @param deadline the deadline to respect.
+   * @param offset the number of values to skip (ignored when not positive).
+   * @param limit the maximum number of values (ignored when not positive).
+   * @throws QuestionException when question is malformed.
+   * @throws QueryException when the SPARQL query cannot be submitted.
+   * @throws OntoqaFatalException when question cannot be processed.
+   * @throws OntoqaParsingException when parsing error occurs.
+   * @throws OntoqaTimeoutException when {@code deadline} expires.
+   * @see #process(String, QAResponse, Deadline, long, long)
+   */
+  public static void process(Session session, String question, QAResponse response, Deadline deadline,
+                             long offset, long limit) throws Exception {
+    LOGGER.debug("Question: {} ({}, offset={}, limit={})", question, deadline, offset, limit);
+    final String normalizedQuestion = normalizeQuestion(question);
+    LOGGER.debug("Normalized question: {}", normalizedQuestion);
+    final long size = (limit > 0) ? limit : STREAMING_THRESHOLD + 1;
+    final String key = "page:" + getKey(session) + ":" + offset + ":" + size + ":" + normalizedQuestion;
+    final QAResponse result = inflight.execute(key, deadline,
+        () -> page(session, normalizedQuestion, deadline, offset, size));
+    response.setQuestion(result.getQuestion());
+    response.setQuery(result.getQuery());
+    response.setSltag(result.getSltag());
+    final Answer answer = result.getAnswer();
+    if (limit > 0) {
       response.setAnswer(answer);
-      response.setQuery(query.toString());
-      response.setSltag(sltag);
+    } else if (answer.size() <= STREAMING_THRESHOLD) {
+      response.setAnswer((answer.isEmpty()) ? SimpleAnswer.NO_ANSWER : answer);
+    } else {
+      Query query = KnowledgeManager.paginate(result.getQuery(), offset + STREAMING_THRESHOLD, 0);
+      LOGGER.debug("SPARQL Query:\n{}", query);
+      response.setAnswer(new StreamingAnswer(new ArrayList<>(answer.subList(0, STREAMING_THRESHOLD)),
+          KnowledgeManager.open(session.getOntology(), query, deadline)));
+    }
+  }
+
+  /**
+   * Parses a normalized question on {@code session}, within {@code deadline}, sharing parsing among identical
+   * in-flight questions.
+   * @param session the session, providing the ontology and the grammar.
+   * @param normalizedQuestion the normalized question.
+   * @param deadline the deadline to respect.
+   * @return the response about the process, without answer.
+   * @throws Exception when the question cannot be processed.
+   */
+  private static QAResponse parse(Session session, String normalizedQuestion, Deadline deadline) throws Exception {
+    final String key = "parse:" + getKey(session) + ":" + normalizedQuestion;
+    return inflight.execute(key, deadline, () -> answer(session, normalizedQuestion, deadline, false));
+  }
+
+  /**
+   * Reads a page of the answer to a normalized question on {@code session}, within {@code deadline}.
+   * @param session the session, providing the ontology and the grammar.
+   * @param normalizedQuestion the normalized question.
+   * @param deadline the deadline to respect.
+   * @param offset the number of values to skip (ignored when not positive).
+   * @param limit the maximum number of values.
+   * @return the response about the process, whose answer has at most {@code limit} values, possibly none.
+   * @throws Exception when the question cannot be processed.
+   */
+  private static QAResponse page(Session session, String normalizedQuestion, Deadline deadline, long offset,
+                                 long limit) throws Exception {
+    final QAResponse parsed = parse(session, normalizedQuestion, deadline);
+    Query query = KnowledgeManager.paginate(parsed.getQuery(), offset, limit);
+    LOGGER.debug("SPARQL Query:\n{}", query);
+    QAResponse result = new QAResponse();
+    result.setQuestion(parsed.getQuestion());
+    result.setQuery(parsed.getQuery());
+    result.setSltag(parsed.getSltag());
+    try (StreamingAnswer answer = KnowledgeManager.open(session.getOntology(), query, deadline).toAnswer()) {
+      result.setAnswer(answer.take((int) Math.min(limit, Integer.MAX_VALUE)));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the grammar to parse questions on {@code session} with: its grammar, extended with its gazetteer, if any.
+   * @param session the session.
+   * @return the grammar.
+   */
+  private static Grammar getGrammar(Session session) {
+    final EntityGazetteer gazetteer = session.getGazetteer();
+    return (gazetteer == null) ? session.getGrammar() : new GazetteerGrammar(session.getGrammar(), gazetteer);
+  }
+
+  /**
+   * Returns the key identifying the version of {@code session} among in-flight questions.
+   * @param session the session.
+   * @return the key.
+   */
+  private static String getKey(Session session) {
+    return (session.getName() == null) ? String.valueOf(session.getVersion())
+        : session.getName() + "@" + session.getVersion();
+  }
+
+  /**
+   * Realizes the question-answering process for a normalized question, within {@code deadline}.
+   * The underlying ontology and lexicon are the session ones, read once, so that the whole process
+   * sees a single version of them even if they are updated meanwhile.
+   * When the process takes longer than the slow question threshold, its trace is written to the slow questions log.
+   * @param session the session, providing the ontology and the grammar.
+   * @param normalizedQuestion the normalized question.
+   * @param deadline the deadline to respect.
+   * @param submit true, to submit the query and fill the answer; false, to stop at the query.
+   * @return the response about the process.
+   * @throws Exception when the question cannot be processed.
+   */
+  private static QAResponse answer(Session session, String normalizedQuestion, Deadline deadline, boolean submit)
+      throws Exception {
+    final long threshold = AppConfigurationService.getConfigurations().getSlowQuestionThreshold();
+    final ParseTrace trace = (threshold > 0) ? ParseTrace.start() : ParseTrace.NONE;
+    final Grammar grammar = getGrammar(session);
+    final Ontology ontology = session.getOntology();
+    try {
+      Sltag sltag = parser.parse(normalizedQuestion, grammar, ontology, deadline, trace, session.getAmbiguities());
+      Dudes dudes = sltag.getSemantics();
+      Query query = dudes.convertToSPARQL();
+      QAResponse result = new QAResponse();
+      if (submit) {
+        trace.record("[QUERY] :: submitting query:\n{}", query);
+        QueryResult qQueryResult = KnowledgeManager.submit(ontology, query, deadline);
+        Answer answer = qQueryResult.toAnswer();
+        trace.record("[QUERY] :: answer:\n{}", answer);
+        result.setAnswer(answer);
+      } else {
+        trace.record("[QUERY] :: generated query:\n{}", query);
+      }
+      result.setQuestion(normalizedQuestion);
+      result.setQuery(query);
+      result.setSltag(sltag);
+      return result;
+    } catch (Exception exc) {
+      trace.record("[ERROR] :: {}", exc.getMessage());
+      throw exc;
+    } finally {
+      if (trace.isEnabled() && trace.elapsed() >= threshold) {
+        SLOW_LOGGER.info("Slow question ({} ms, {} events): {}\n{}",
+            trace.elapsed(), trace.size(), normalizedQuestion, trace.toPrettyString());
+      }
     }
   }
 
@@ -132,16 +362,38 @@ public class CoreController {
    */
   public static Pair<Query,Answer> process(String question, Grammar grammar, Ontology ontology)
       throws Exception {
-    LOGGER.debug("Question: {}", question);
+    return process(question, grammar, ontology, Deadline.NONE);
+  }
+
+  /**
+   * The core main method.
+   * It realizes the question-answering process, retrieving an answer for the given question,
+   * within {@code deadline}.
+   * @param question the question.
+   * @param grammar the SLTAG grammar.
+   * @param ontology the ontology.
+   * @param deadline the deadline to respect.
+   * @return the answer.
+   * @throws QuestionException when question is malformed.
+   * @throws QueryException when the SPARQL query cannot be submitted.
+   * @throws OntoqaFatalException when question cannot be processed.
+   * @throws OntoqaParsingException when parsing error occurs.
+   * @throws OntoqaTimeoutException when {@code deadline} expires.
+   */
+  public static Pair<Query,Answer> process(String question, Grammar grammar, Ontology ontology, Deadline deadline)
+      throws Exception {
+    LOGGER.debug("Question: {} ({})", question, deadline);
     final String normalizedQuestion = normalizeQuestion(question);
     LOGGER.debug("Normalized question: {}", normalizedQuestion);
-    Sltag sltag = parser.parse(normalizedQuestion, grammar, ontology);
+    Sltag sltag = parser.parse(normalizedQuestion, grammar, ontology, deadline);
     Dudes dudes = sltag.getSemantics();
     Query query = dudes.convertToSPARQL();
-    LOGGER.debug("SPARQL Query:\n{}", query.toString());
-    QueryResult qQueryResult = KnowledgeManager.submit(ontology, query);
+    LOGGER.debug("SPARQL Query:\n{}", query);
+    QueryResult qQueryResult = KnowledgeManager.submit(ontology, query, deadline);
     Answer answer = qQueryResult.toAnswer();
-    LOGGER.trace(answer.toPrettyString());
+    if (LOGGER.isTraceEnabled()) {
+      LOGGER.trace(answer.toPrettyString());
+    }
     return new ImmutablePair<>(query, answer);
   }
 
@@ -0,0 +1,135 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core;
+
+import com.acmutv.ontoqa.core.exception.OntoqaTimeoutException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time budget granted to the processing of a question.
+ * It is checked cooperatively by the long-running phases of the question-answering process.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see OntoqaTimeoutException
+ */
+public class Deadline {
+
+  /**
+   * The deadline that never expires.
+   */
+  public static final Deadline NONE = new Deadline(0, Long.MAX_VALUE);
+
+  /**
+   * The time budget (milliseconds).
+   */
+  private final long budget;
+
+  /**
+   * The expiration instant, as returned by {@link System#nanoTime()}.
+   */
+  private final long expiration;
+
+  /**
+   * Creates a new deadline.
+   * @param budget the time budget (milliseconds).
+   * @param expiration the expiration instant (nanoseconds).
+   */
+  private Deadline(long budget, long expiration) {
+    this.budget = budget;
+    this.expiration = expiration;
+  }
+
+  /**
+   * Returns the deadline expiring {@code budget} milliseconds from now.
+   * @param budget the time budget (milliseconds); if not positive, the deadline never expires.
+   * @return the deadline.
+   */
+  public static Deadline in(long budget) {
+    if (budget <= 0) {
+      return NONE;
+    }
+    return new Deadline(budget, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budget));
+  }
+
+  /**
+   * Checks if the deadline can expire.
+   * @return true, if the deadline can expire; false, otherwise.
+   */
+  public boolean isBounded() {
+    return this != NONE;
+  }
+
+  /**
+   * Checks if the deadline is expired.
+   * @return true, if the deadline is expired; false, otherwise.
+   */
+  public boolean isExpired() {
+    return this.isBounded() && System.nanoTime() - this.expiration >= 0;
+  }
+
+  /**
+   * Returns the remaining time (milliseconds).
+   * @return the remaining time (milliseconds); {@link Long#MAX_VALUE}, if the deadline never expires.
+   */
+  public long remaining() {
+    if (!this.isBounded()) {
+      return Long.MAX_VALUE;
+    }
+    return Math.max(0, TimeUnit.NANOSECONDS.toMillis(this.expiration - System.nanoTime()));
+  }
+
+  /**
+   * Returns the remaining time in seconds, rounded up, as expected by RDF4J query operations.
+   * @return the remaining time (seconds); 0, if the deadline never expires.
+   */
+  public int remainingSeconds() {
+    if (!this.isBounded()) {
+      return 0;
+    }
+    long seconds = TimeUnit.MILLISECONDS.toSeconds(this.remaining() + 999);
+    return (int) Math.max(1, Math.min(Integer.MAX_VALUE, seconds));
+  }
+
+  /**
+   * Throws {@link OntoqaTimeoutException} if the deadline is expired.
+   * @param phase the phase being processed, reported in the exception message.
+   * @throws OntoqaTimeoutException when the deadline is expired.
+   */
+  public void check(String phase) throws OntoqaTimeoutException {
+    if (this.isExpired()) {
+      throw new OntoqaTimeoutException("Time budget of %d ms exceeded during %s", this.budget, phase);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return (this.isBounded()) ? String.format("Deadline(budget=%d ms, remaining=%d ms)", this.budget, this.remaining()) : "Deadline(NONE)";
+  }
+}
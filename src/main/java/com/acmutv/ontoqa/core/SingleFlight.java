@@ -0,0 +1,166 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core;
+
+import com.acmutv.ontoqa.core.exception.OntoqaFatalException;
+import com.acmutv.ontoqa.core.exception.OntoqaTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.concurrent.*;
+
+/**
+ * Coalesces concurrent computations for the same key onto a single in-flight computation.
+ * The first caller (the leader) runs the computation in its own thread; concurrent callers
+ * (the followers) wait for its result within their own deadline.
+ * A follower that stops waiting (deadline expiration or interruption) does not affect the others.
+ * A follower whose deadline is still open when the leader times out, or is interrupted or cancelled, retries the
+ * computation.
+ * @param <K> the key type.
+ * @param <V> the result type.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see Deadline
+ */
+public class SingleFlight<K,V> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SingleFlight.class);
+
+  /**
+   * A computation that may fail.
+   * @param <V> the result type.
+   */
+  @FunctionalInterface
+  public interface Computation<V> {
+
+    /**
+     * Computes the result.
+     * @return the result.
+     * @throws Exception when the result cannot be computed.
+     */
+    V compute() throws Exception;
+  }
+
+  /**
+   * The in-flight computations.
+   */
+  private final ConcurrentMap<K,CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the result of {@code computation} for {@code key}, joining the in-flight computation, if any.
+   * @param key the computation key.
+   * @param deadline the caller deadline.
+   * @param computation the computation to run, if no computation for {@code key} is in-flight.
+   * @return the result.
+   * @throws OntoqaTimeoutException when {@code deadline} expires while waiting for the in-flight computation.
+   * @throws InterruptedException when the caller is interrupted while waiting for the in-flight computation.
+   * @throws Exception when the computation fails.
+   */
+  public V execute(K key, Deadline deadline, Computation<V> computation) throws Exception {
+    while (true) {
+      final CompletableFuture<V> flight = new CompletableFuture<>();
+      final CompletableFuture<V> inflight = this.flights.putIfAbsent(key, flight);
+
+      if (inflight == null) {
+        return this.lead(key, flight, computation);
+      }
+
+      LOGGER.debug("Joining in-flight computation for {}", key);
+      try {
+        return inflight.get(deadline.remaining(), TimeUnit.MILLISECONDS);
+      } catch (TimeoutException exc) {
+        throw new OntoqaTimeoutException("Time budget exceeded while waiting for in-flight computation of %s", key);
+      } catch (CancellationException exc) {
+        if (!deadline.isExpired()) {
+          LOGGER.debug("In-flight computation for {} cancelled; retrying within caller deadline", key);
+          continue;
+        }
+        throw new OntoqaTimeoutException("Time budget exceeded while waiting for in-flight computation of %s", key);
+      } catch (ExecutionException exc) {
+        final Throwable cause = exc.getCause();
+        if ((cause instanceof OntoqaTimeoutException || isInterruption(cause)) && !deadline.isExpired()) {
+          LOGGER.debug("In-flight computation for {} timed out or was interrupted; retrying within caller deadline",
+              key);
+          continue;
+        }
+        if (cause instanceof Exception) {
+          throw (Exception) cause;
+        }
+        throw new OntoqaFatalException("In-flight computation for %s failed: %s", key, cause);
+      }
+    }
+  }
+
+  /**
+   * Runs {@code computation} as the leader of {@code flight}, publishing its outcome to the followers.
+   * @param key the computation key.
+   * @param flight the in-flight computation to complete.
+   * @param computation the computation to run.
+   * @return the result.
+   * @throws Exception when the computation fails.
+   */
+  private V lead(K key, CompletableFuture<V> flight, Computation<V> computation) throws Exception {
+    try {
+      final V result = computation.compute();
+      flight.complete(result);
+      return result;
+    } catch (Throwable exc) {
+      flight.completeExceptionally(exc);
+      throw exc;
+    } finally {
+      this.flights.remove(key, flight);
+    }
+  }
+
+  /**
+   * Checks if {@code failure} is due to the interruption or the cancellation of the leader, rather than to the
+   * computation itself.
+   * @param failure the failure of the leader.
+   * @return true, if {@code failure} is an interruption or a cancellation; false, otherwise.
+   */
+  private static boolean isInterruption(Throwable failure) {
+    for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+      if (cause instanceof InterruptedException || cause instanceof InterruptedIOException ||
+          cause instanceof ClosedByInterruptException || cause instanceof CancellationException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of in-flight computations.
+   * @return the number of in-flight computations.
+   */
+  public int size() {
+    return this.flights.size();
+  }
+}
@@ -0,0 +1,491 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.grammar;
+
+import com.acmutv.ontoqa.core.semantics.sltag.ElementarySltag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A read-mostly grammar backed by a memory-mapped binary grammar file.
+ * Only the key index is read when opening; the elementary SLTAGs of a key are decoded the first time the key is
+ * looked up, and the most recently used keys are kept in a bounded cache.
+ * Keys keep the iteration order of the compiled grammar, so matching returns candidates in the same order.
+ * Elementary SLTAGs added after opening are kept in memory, on top of the compiled ones.
+ * Layout (integers are big-endian):
+ * <pre>
+ *   header   magic, version, string count, key count, sltag count, section positions
+ *   offsets  (string count + 1) string offsets in the string data
+ *   strings  UTF-8 strings (entries, labels, IRIs, enum names)
+ *   keys     key count records of (key string, first sltag, sltag count)
+ *   sltags   (sltag count + 1) sltag offsets in the sltag data
+ *   data     encoded elementary SLTAGs, grouped by key (see {@link SltagCodec})
+ * </pre>
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see GrammarFormat#BINARY
+ */
+public class CompiledGrammar implements Grammar {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CompiledGrammar.class);
+
+  /**
+   * The default number of keys whose elementary SLTAGs are kept decoded.
+   */
+  public static final int DEFAULT_CACHE_SIZE = 1024;
+
+  /**
+   * The binary grammar magic number ("OQG1").
+   */
+  private static final int MAGIC = 0x4F514731;
+
+  /**
+   * The binary grammar layout version.
+   */
+  private static final int VERSION = 1;
+
+  private static final int HEADER_SIZE = 5 * 4 + 5 * 8;
+
+  private static final int KEY_RECORD = 3 * 4;
+
+  private final ByteBuffer buffer;
+
+  private final int stringCount;
+
+  private final int offsetsPos;
+
+  private final int stringsPos;
+
+  private final int sltagsPos;
+
+  private final int dataPos;
+
+  private final String[] strings;
+
+  private final String[] keys;
+
+  private final int[] first;
+
+  private final int[] count;
+
+  private final Map<String,Integer> index;
+
+  private final Pattern[] patterns;
+
+  private final int sltagCount;
+
+  private final Map<Integer,List<ElementarySltag>> cache;
+
+  private final SimpleGrammar overlay = new SimpleGrammar();
+
+  private final Set<String> removed = new HashSet<>();
+
+  private long decoded = 0;
+
+  /**
+   * Opens the binary grammar in {@code path} with the default cache size.
+   * @param path the binary grammar.
+   * @throws IOException when the binary grammar cannot be read.
+   */
+  public CompiledGrammar(Path path) throws IOException {
+    this(path, DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Opens the binary grammar in {@code path}.
+   * @param path the binary grammar.
+   * @param cacheSize the number of keys whose elementary SLTAGs are kept decoded.
+   * @throws IOException when the binary grammar cannot be read.
+   */
+  public CompiledGrammar(Path path, int cacheSize) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Binary grammar too large: " + path);
+      }
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      this.buffer = mapped;
+    }
+    if (this.buffer.capacity() < HEADER_SIZE || this.buffer.getInt(0) != MAGIC) {
+      throw new IOException("Not a binary grammar: " + path);
+    }
+    if (this.buffer.getInt(4) != VERSION) {
+      throw new IOException("Unsupported binary grammar version " + this.buffer.getInt(4) + ": " + path);
+    }
+    this.stringCount = this.buffer.getInt(8);
+    final int keyCount = this.buffer.getInt(12);
+    this.sltagCount = this.buffer.getInt(16);
+    this.offsetsPos = (int) this.buffer.getLong(20);
+    this.stringsPos = (int) this.buffer.getLong(28);
+    final int keysPos = (int) this.buffer.getLong(36);
+    this.sltagsPos = (int) this.buffer.getLong(44);
+    this.dataPos = (int) this.buffer.getLong(52);
+
+    this.strings = new String[this.stringCount];
+    this.keys = new String[keyCount];
+    this.first = new int[keyCount];
+    this.count = new int[keyCount];
+    this.index = new HashMap<>(keyCount * 2);
+    this.patterns = new Pattern[keyCount];
+    for (int k = 0; k < keyCount; k++) {
+      final int pos = keysPos + k * KEY_RECORD;
+      this.keys[k] = this.string(this.buffer.getInt(pos));
+      this.first[k] = this.buffer.getInt(pos + 4);
+      this.count[k] = this.buffer.getInt(pos + 8);
+      this.index.put(this.keys[k], k);
+    }
+    this.cache = new LinkedHashMap<Integer,List<ElementarySltag>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer,List<ElementarySltag>> eldest) {
+        return this.size() > cacheSize;
+      }
+    };
+    LOGGER.debug("Opened binary grammar {} ({} keys, {} elementary SLTAGs)", path, keyCount, this.sltagCount);
+  }
+
+  /**
+   * Writes {@code grammar} as a binary grammar on {@code path}.
+   * Keys are written in the order of {@link Grammar#getAllElementarySLTAG()}.
+   * The binary grammar is first written on a temporary file, then moved on {@code path}.
+   * @param grammar the grammar to write.
+   * @param path the binary grammar path.
+   * @throws IOException when the binary grammar cannot be written.
+   */
+  public static void write(Grammar grammar, Path path) throws IOException {
+    final Map<String,List<ElementarySltag>> groups = new LinkedHashMap<>();
+    for (ElementarySltag sltag : grammar.getAllElementarySLTAG()) {
+      groups.computeIfAbsent(sltag.getEntry().toLowerCase(), k -> new ArrayList<>()).add(sltag);
+    }
+
+    final Map<String,Integer> stringIds = new LinkedHashMap<>();
+    final ByteArrayOutputStream data = new ByteArrayOutputStream();
+    final DataOutputStream dataOut = new DataOutputStream(data);
+    final ByteArrayOutputStream keys = new ByteArrayOutputStream();
+    final DataOutputStream keysOut = new DataOutputStream(keys);
+    final ByteArrayOutputStream sltags = new ByteArrayOutputStream();
+    final DataOutputStream sltagsOut = new DataOutputStream(sltags);
+    int sltagCount = 0;
+    for (Map.Entry<String,List<ElementarySltag>> group : groups.entrySet()) {
+      keysOut.writeInt(stringIds.computeIfAbsent(group.getKey(), s -> stringIds.size()));
+      keysOut.writeInt(sltagCount);
+      keysOut.writeInt(group.getValue().size());
+      for (ElementarySltag sltag : group.getValue()) {
+        sltagsOut.writeInt(dataOut.size());
+        SltagCodec.encode(sltag, dataOut, stringIds);
+        sltagCount++;
+      }
+    }
+    sltagsOut.writeInt(dataOut.size());
+
+    final ByteArrayOutputStream strings = new ByteArrayOutputStream();
+    final ByteArrayOutputStream offsets = new ByteArrayOutputStream();
+    final DataOutputStream offsetsOut = new DataOutputStream(offsets);
+    for (String string : stringIds.keySet()) {
+      offsetsOut.writeInt(strings.size());
+      final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+      strings.write(bytes, 0, bytes.length);
+    }
+    offsetsOut.writeInt(strings.size());
+
+    final long offsetsPos = HEADER_SIZE;
+    final long stringsPos = offsetsPos + offsets.size();
+    final long keysPos = stringsPos + strings.size();
+    final long sltagsPos = keysPos + keys.size();
+    final long dataPos = sltagsPos + sltags.size();
+
+    final Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(stringIds.size());
+      out.writeInt(groups.size());
+      out.writeInt(sltagCount);
+      out.writeLong(offsetsPos);
+      out.writeLong(stringsPos);
+      out.writeLong(keysPos);
+      out.writeLong(sltagsPos);
+      out.writeLong(dataPos);
+      offsets.writeTo(out);
+      strings.writeTo(out);
+      keys.writeTo(out);
+      sltags.writeTo(out);
+      data.writeTo(out);
+    }
+    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Returns the number of compiled elementary SLTAGs.
+   * @return the number of compiled elementary SLTAGs.
+   */
+  public int size() {
+    return this.sltagCount;
+  }
+
+  /**
+   * Returns the number of compiled keys.
+   * @return the number of compiled keys.
+   */
+  public int getKeys() {
+    return this.keys.length;
+  }
+
+  /**
+   * Returns the number of elementary SLTAGs currently decoded in the cache.
+   * @return the number of elementary SLTAGs currently decoded in the cache.
+   */
+  public synchronized int getResident() {
+    int resident = 0;
+    for (List<ElementarySltag> sltags : this.cache.values()) {
+      resident += sltags.size();
+    }
+    return resident;
+  }
+
+  /**
+   * Returns the number of elementary SLTAGs decoded so far.
+   * @return the number of elementary SLTAGs decoded so far.
+   */
+  public synchronized long getDecoded() {
+    return this.decoded;
+  }
+
+  @Override
+  public List<ElementarySltag> getAllElementarySLTAG() {
+    final List<ElementarySltag> all = new ArrayList<>();
+    for (int k = 0; k < this.keys.length; k++) {
+      if (this.removed.contains(this.keys[k])) continue;
+      final List<ElementarySltag> cached;
+      synchronized (this) {
+        cached = this.cache.get(k);
+      }
+      if (cached != null) {
+        all.addAll(cached);
+      } else {
+        for (int s = this.first[k]; s < this.first[k] + this.count[k]; s++) {
+          all.add(this.decode(s));
+        }
+      }
+      all.addAll(this.overlay.getAllElementarySLTAG(this.keys[k]));
+    }
+    for (String key : this.overlay.keySet()) {
+      if (!this.index.containsKey(key)) {
+        all.addAll(this.overlay.get(key));
+      }
+    }
+    return all;
+  }
+
+  @Override
+  public synchronized boolean addElementarySLTAG(ElementarySltag sltag) {
+    this.removed.remove(sltag.getEntry().toLowerCase());
+    return this.overlay.addElementarySLTAG(sltag);
+  }
+
+  @Override
+  public List<ElementarySltag> getAllElementarySLTAG(String word) {
+    final String key = word.toLowerCase();
+    final List<ElementarySltag> sltags = new ArrayList<>();
+    final Integer k = this.index.get(key);
+    if (k != null && !this.removed.contains(key)) {
+      sltags.addAll(this.load(k));
+    }
+    sltags.addAll(this.overlay.getAllElementarySLTAG(key));
+    return sltags;
+  }
+
+  @Override
+  public List<ElementarySltag> getAllMatchingElementarySLTAG(String word) {
+    final String lower = word.toLowerCase();
+    final List<ElementarySltag> trees = new ArrayList<>();
+    for (int k = 0; k < this.keys.length; k++) {
+      if (this.pattern(k).matcher(lower).matches()) {
+        trees.addAll(this.getAllElementarySLTAG(this.keys[k]));
+      }
+    }
+    for (String key : this.overlay.keySet()) {
+      if (!this.index.containsKey(key) && lower.matches(key)) {
+        trees.addAll(this.overlay.get(key));
+      }
+    }
+    return trees;
+  }
+
+  @Override
+  public void merge(Grammar other) {
+    other.getAllElementarySLTAG().forEach(this::addElementarySLTAG);
+  }
+
+  @Override
+  public boolean matchStart(String lexicalEntry) {
+    if (lexicalEntry == null) {
+      return false;
+    } else if (lexicalEntry.isEmpty()) {
+      return true;
+    }
+    final String lower = lexicalEntry.toLowerCase();
+    for (int k = 0; k < this.keys.length; k++) {
+      if (this.keys[k].startsWith(lower) && !this.removed.contains(this.keys[k])) {
+        return true;
+      }
+    }
+    return this.overlay.matchStart(lexicalEntry);
+  }
+
+  @Override
+  public boolean match(String lexicalEntry) {
+    if (lexicalEntry != null) {
+      final String lower = lexicalEntry.toLowerCase();
+      for (int k = 0; k < this.keys.length; k++) {
+        if (this.removed.contains(this.keys[k])) continue;
+        Matcher matcher = this.pattern(k).matcher(lower);
+        if (matcher.matches() || matcher.hitEnd()) {
+          return true;
+        }
+      }
+    }
+    return this.overlay.match(lexicalEntry);
+  }
+
+  @Override
+  public GrammarMatchType matchType(String lexicalPattern) {
+    if (lexicalPattern == null) {
+      return GrammarMatchType.NONE;
+    }
+    final String lower = lexicalPattern.toLowerCase();
+    final GrammarMatchType overlayType = this.overlay.matchType(lexicalPattern);
+    if (overlayType == GrammarMatchType.FULL) return overlayType;
+    for (int k = 0; k < this.keys.length; k++) {
+      if (!this.removed.contains(this.keys[k]) && this.pattern(k).matcher(lower).matches()) {
+        return GrammarMatchType.FULL;
+      }
+    }
+    if (overlayType == GrammarMatchType.PART) return overlayType;
+    for (int k = 0; k < this.keys.length; k++) {
+      if (!this.removed.contains(this.keys[k]) && this.keys[k].startsWith(lower)) {
+        return GrammarMatchType.PART;
+      }
+    }
+    if (overlayType == GrammarMatchType.PART_STAR) return overlayType;
+    for (int k = 0; k < this.keys.length; k++) {
+      if (this.removed.contains(this.keys[k])) continue;
+      Matcher matcher = this.pattern(k).matcher(lower);
+      //noinspection ResultOfMethodCallIgnored
+      matcher.matches();
+      if (matcher.hitEnd()) {
+        return GrammarMatchType.PART_STAR;
+      }
+    }
+    return GrammarMatchType.NONE;
+  }
+
+  @Override
+  public synchronized List<ElementarySltag> remove(String entry) {
+    final String key = entry.toLowerCase();
+    final List<ElementarySltag> sltags = this.getAllElementarySLTAG(key);
+    final Integer k = this.index.get(key);
+    if (k != null) {
+      this.removed.add(key);
+      this.cache.remove(k);
+    }
+    this.overlay.remove(key);
+    return sltags.isEmpty() ? null : sltags;
+  }
+
+  /**
+   * Returns the elementary SLTAGs of the {@code k}-th key, decoding them if they are not cached.
+   */
+  private List<ElementarySltag> load(int k) {
+    synchronized (this) {
+      final List<ElementarySltag> cached = this.cache.get(k);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    final List<ElementarySltag> sltags = new ArrayList<>(this.count[k]);
+    for (int s = this.first[k]; s < this.first[k] + this.count[k]; s++) {
+      sltags.add(this.decode(s));
+    }
+    synchronized (this) {
+      final List<ElementarySltag> raced = this.cache.putIfAbsent(k, sltags);
+      return (raced != null) ? raced : sltags;
+    }
+  }
+
+  /**
+   * Decodes the {@code s}-th elementary SLTAG.
+   */
+  private ElementarySltag decode(int s) {
+    synchronized (this) {
+      this.decoded++;
+    }
+    return SltagCodec.decode(this.buffer, this.dataPos + this.buffer.getInt(this.sltagsPos + s * 4), this::string);
+  }
+
+  /**
+   * Returns the {@code id}-th string, decoding it once so that equal labels and IRIs share a single instance.
+   */
+  private String string(int id) {
+    String string = this.strings[id];
+    if (string == null) {
+      final int start = this.buffer.getInt(this.offsetsPos + id * 4);
+      final int end = this.buffer.getInt(this.offsetsPos + (id + 1) * 4);
+      final byte[] bytes = new byte[end - start];
+      for (int i = 0; i < bytes.length; i++) {
+        bytes[i] = this.buffer.get(this.stringsPos + start + i);
+      }
+      string = new String(bytes, StandardCharsets.UTF_8);
+      this.strings[id] = string;
+    }
+    return string;
+  }
+
+  /**
+   * Returns the pattern of the {@code k}-th key, compiling it once.
+   */
+  private Pattern pattern(int k) {
+    Pattern pattern = this.patterns[k];
+    if (pattern == null) {
+      pattern = Pattern.compile(this.keys[k]);
+      this.patterns[k] = pattern;
+    }
+    return pattern;
+  }
+}
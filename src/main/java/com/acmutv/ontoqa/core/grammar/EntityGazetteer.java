@@ -0,0 +1,590 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.grammar;
+
+import com.acmutv.ontoqa.core.knowledge.backend.RemoteOntology;
+import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
+import com.acmutv.ontoqa.core.semantics.dudes.DudesTemplates;
+import com.acmutv.ontoqa.core.semantics.sltag.ElementarySltag;
+import com.acmutv.ontoqa.core.semantics.sltag.SimpleElementarySltag;
+import com.acmutv.ontoqa.core.syntax.ltag.LtagTemplates;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.vocabulary.OWL;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * A gazetteer of the entities of an ontology, synthesizing their proper noun elementary SLTAGs on demand.
+ * Entities are the individuals typed by a non-schema class; their names are their labels and their local names
+ * (with underscores read as spaces). Names are kept in a word trie, matched case-insensitively as grammar
+ * entries are, whose nodes are compacted into sorted arrays once built.
+ * When the ontology changes, the gazetteer of the new version is derived from the previous one, sharing the trie
+ * nodes of the names left unchanged.
+ * The elementary SLTAGs of the most recently matched names are kept in a bounded cache.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see GazetteerGrammar
+ */
+public class EntityGazetteer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(EntityGazetteer.class);
+
+  /**
+   * The default number of names whose elementary SLTAGs are kept synthesized.
+   */
+  public static final int DEFAULT_CACHE_SIZE = 4096;
+
+  private static final String NAMED_INDIVIDUAL = OWL.NAMESPACE + "NamedIndividual";
+
+  private static final String[] NO_WORDS = new String[0];
+
+  private static final Node[] NO_NODES = new Node[0];
+
+  /**
+   * A trie node: the words continuing a name, sorted, with their nodes, and the entities named so far.
+   * A node is changed only by the gazetteer owning it: the others share it as long as they do not change it.
+   */
+  private static final class Node {
+
+    private final EntityGazetteer owner;
+
+    private String[] words = NO_WORDS;
+
+    private Node[] next = NO_NODES;
+
+    private String[] entities = null;
+
+    private Map<String,Node> building = null;
+
+    /**
+     * Creates an empty node.
+     * @param owner the gazetteer owning the node.
+     */
+    private Node(EntityGazetteer owner) {
+      this.owner = owner;
+    }
+
+    /**
+     * Creates a copy of {@code other}, sharing its children.
+     * @param other the compacted node to copy.
+     * @param owner the gazetteer owning the copy.
+     */
+    private Node(Node other, EntityGazetteer owner) {
+      this.owner = owner;
+      this.words = other.words;
+      this.next = other.next;
+      this.entities = other.entities;
+    }
+
+    /**
+     * Returns the node continuing with {@code word}.
+     * @param word the word.
+     * @return the node; null, if none.
+     */
+    private Node get(String word) {
+      final int i = Arrays.binarySearch(this.words, word);
+      return (i < 0) ? null : this.next[i];
+    }
+
+    /**
+     * Returns the node continuing with {@code word}, owned by {@code owner}: it is created, or copied if owned
+     * by another gazetteer.
+     * @param word the word.
+     * @param owner the gazetteer building the node.
+     * @return the node.
+     */
+    private Node getOrCreate(String word, EntityGazetteer owner) {
+      if (this.building == null) {
+        this.building = new HashMap<>();
+        for (int i = 0; i < this.words.length; i++) {
+          this.building.put(this.words[i], this.next[i]);
+        }
+      }
+      final Node node = this.building.get(word);
+      if (node != null && node.owner == owner) {
+        return node;
+      }
+      final Node owned = (node == null) ? new Node(owner) : new Node(node, owner);
+      this.building.put(word, owned);
+      return owned;
+    }
+
+    /**
+     * Adds {@code entity} to the entities named by this node.
+     * @param entity the entity IRI.
+     * @return true, if added; false, if already there.
+     */
+    private boolean addEntity(String entity) {
+      if (this.entities == null) {
+        this.entities = new String[]{entity};
+        return true;
+      }
+      for (String other : this.entities) {
+        if (other.equals(entity)) {
+          return false;
+        }
+      }
+      this.entities = Arrays.copyOf(this.entities, this.entities.length + 1);
+      this.entities[this.entities.length - 1] = entity;
+      return true;
+    }
+
+    /**
+     * Removes {@code entity} from the entities named by this node.
+     * @param entity the entity IRI.
+     * @return true, if removed; false, if not there.
+     */
+    private boolean removeEntity(String entity) {
+      if (this.entities == null) {
+        return false;
+      }
+      for (int i = 0; i < this.entities.length; i++) {
+        if (this.entities[i].equals(entity)) {
+          final String[] entities = new String[this.entities.length - 1];
+          System.arraycopy(this.entities, 0, entities, 0, i);
+          System.arraycopy(this.entities, i + 1, entities, i, entities.length - i);
+          this.entities = (entities.length == 0) ? null : entities;
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Checks if this node names no entity and is continued by no word.
+     * @return true, if this node is useless; false, otherwise.
+     */
+    private boolean isEmpty() {
+      return this.entities == null && ((this.building != null) ? this.building.isEmpty() : this.words.length == 0);
+    }
+
+    /**
+     * Compacts the children built so far into sorted arrays, recursively.
+     */
+    private void compact() {
+      final Deque<Node> stack = new ArrayDeque<>();
+      stack.push(this);
+      while (!stack.isEmpty()) {
+        final Node node = stack.pop();
+        if (node.building == null) {
+          continue;
+        }
+        final String[] words = node.building.keySet().toArray(new String[node.building.size()]);
+        Arrays.sort(words);
+        final Node[] next = new Node[words.length];
+        for (int i = 0; i < words.length; i++) {
+          next[i] = node.building.get(words[i]);
+          stack.push(next[i]);
+        }
+        node.words = words;
+        node.next = next;
+        node.building = null;
+      }
+    }
+  }
+
+  private final Node root;
+
+  private final int cacheSize;
+
+  private final Map<String,List<ElementarySltag>> cache;
+
+  private int names = 0;
+
+  private long synthesized = 0;
+
+  /**
+   * Creates an empty gazetteer with the default cache size.
+   */
+  public EntityGazetteer() {
+    this(DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Creates an empty gazetteer.
+   * @param cacheSize the number of names whose elementary SLTAGs are kept synthesized.
+   */
+  public EntityGazetteer(int cacheSize) {
+    this.root = new Node(this);
+    this.cacheSize = cacheSize;
+    this.cache = new LinkedHashMap<String,List<ElementarySltag>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String,List<ElementarySltag>> eldest) {
+        return this.size() > cacheSize;
+      }
+    };
+  }
+
+  /**
+   * Creates a gazetteer sharing the names of {@code previous}, and its cached elementary SLTAGs.
+   * @param previous the compacted gazetteer to copy.
+   */
+  private EntityGazetteer(EntityGazetteer previous) {
+    this(previous.cacheSize);
+    synchronized (previous) {
+      this.root.words = previous.root.words;
+      this.root.next = previous.root.next;
+      this.names = previous.names;
+      this.synthesized = previous.synthesized;
+      this.cache.putAll(previous.cache);
+    }
+  }
+
+  /**
+   * Builds the gazetteer of the entities in {@code ontology}.
+   * A remote ontology has no entities to read locally, so its gazetteer is empty.
+   * @param ontology the ontology.
+   * @param cacheSize the number of names whose elementary SLTAGs are kept synthesized.
+   * @return the gazetteer.
+   */
+  public static EntityGazetteer build(Ontology ontology, int cacheSize) {
+    final long start = System.currentTimeMillis();
+    final EntityGazetteer gazetteer = new EntityGazetteer(cacheSize);
+    if (ontology == null || ontology instanceof RemoteOntology) {
+      return gazetteer;
+    }
+    final Set<IRI> individuals = new LinkedHashSet<>();
+    for (Statement statement : ontology.filter(null, RDF.TYPE, null)) {
+      if (statement.getSubject() instanceof IRI && isEntityType(statement.getObject())) {
+        individuals.add((IRI) statement.getSubject());
+      }
+    }
+    for (IRI individual : individuals) {
+      for (String name : names(ontology, individual)) {
+        gazetteer.add(name, individual.stringValue());
+      }
+    }
+    gazetteer.compact();
+    LOGGER.info("Entity gazetteer built ({} names of {} entities, {} ms)", gazetteer.size(),
+        individuals.size(), System.currentTimeMillis() - start);
+    return gazetteer;
+  }
+
+  /**
+   * Returns the gazetteer of {@code after}, the ontology obtained from {@code before} by removing {@code removals}
+   * and adding {@code additions}, given {@code previous}, the gazetteer of {@code before}.
+   * Only the names of the resources in the changed statements are read again, from both ontologies:
+   * the new gazetteer shares with {@code previous} the trie nodes, and the cached elementary SLTAGs, of the names
+   * left unchanged. {@code previous} is not changed, as questions in flight may still be matching names on it.
+   * Changes to the class or property hierarchy, or to domains and ranges, may type any entity through reasoning:
+   * the gazetteer is then built again.
+   * @param previous the gazetteer of {@code before}.
+   * @param before the ontology before the changes.
+   * @param after the ontology after the changes.
+   * @param additions the statements added.
+   * @param removals the statements removed.
+   * @return the gazetteer of {@code after}; {@code previous}, if no name changed.
+   */
+  public static EntityGazetteer update(EntityGazetteer previous, Ontology before, Ontology after,
+                                       Collection<? extends Statement> additions,
+                                       Collection<? extends Statement> removals) {
+    final long start = System.currentTimeMillis();
+    final Set<IRI> resources = new LinkedHashSet<>();
+    if (!collect(additions, resources) || !collect(removals, resources)) {
+      return build(after, previous.cacheSize);
+    }
+    EntityGazetteer gazetteer = previous;
+    final Set<String> changed = new HashSet<>();
+    for (IRI resource : resources) {
+      final Set<String> removed = keys(before, resource);
+      final Set<String> added = keys(after, resource);
+      final Set<String> kept = new HashSet<>(removed);
+      kept.retainAll(added);
+      removed.removeAll(kept);
+      added.removeAll(kept);
+      if (removed.isEmpty() && added.isEmpty()) {
+        continue;
+      }
+      if (gazetteer == previous) {
+        gazetteer = new EntityGazetteer(previous);
+      }
+      for (String key : removed) {
+        gazetteer.remove(key, resource.stringValue());
+      }
+      for (String key : added) {
+        gazetteer.add(key, resource.stringValue());
+      }
+      changed.addAll(removed);
+      changed.addAll(added);
+    }
+    if (gazetteer != previous) {
+      synchronized (gazetteer) {
+        gazetteer.root.compact();
+        gazetteer.cache.keySet().removeAll(changed);
+      }
+      LOGGER.info("Entity gazetteer updated ({} names changed of {} resources, {} ms)", changed.size(),
+          resources.size(), System.currentTimeMillis() - start);
+    }
+    return gazetteer;
+  }
+
+  /**
+   * Adds {@code name} for {@code entity}.
+   * Names added after the gazetteer has been compacted are matched once compacted again.
+   * @param name the entity name.
+   * @param entity the entity IRI.
+   */
+  public synchronized void add(String name, String entity) {
+    final String[] words = split(name);
+    if (words.length == 0) {
+      return;
+    }
+    Node node = this.root;
+    for (String word : words) {
+      node = node.getOrCreate(word, this);
+    }
+    if (node.addEntity(entity)) {
+      this.names++;
+    }
+  }
+
+  /**
+   * Removes {@code name} for {@code entity}, with the trie nodes left useless.
+   * @param name the entity name.
+   * @param entity the entity IRI.
+   */
+  private synchronized void remove(String name, String entity) {
+    final String[] words = split(name);
+    if (words.length == 0) {
+      return;
+    }
+    final Node[] path = new Node[words.length + 1];
+    path[0] = this.root;
+    for (int i = 0; i < words.length; i++) {
+      path[i + 1] = path[i].getOrCreate(words[i], this);
+    }
+    if (path[words.length].removeEntity(entity)) {
+      this.names--;
+    }
+    for (int i = words.length; i > 0 && path[i].isEmpty(); i--) {
+      path[i - 1].building.remove(words[i - 1]);
+    }
+  }
+
+  /**
+   * Compacts the names added so far.
+   */
+  public synchronized void compact() {
+    this.root.compact();
+    this.cache.clear();
+  }
+
+  /**
+   * Returns the number of names, counted once per entity they name.
+   * @return the number of names.
+   */
+  public synchronized int size() {
+    return this.names;
+  }
+
+  /**
+   * Returns the number of elementary SLTAGs synthesized so far.
+   * @return the number of elementary SLTAGs synthesized.
+   */
+  public synchronized long getSynthesized() {
+    return this.synthesized;
+  }
+
+  /**
+   * Returns the number of names whose elementary SLTAGs are currently cached.
+   * @return the number of cached names.
+   */
+  public synchronized int getCached() {
+    return this.cache.size();
+  }
+
+  /**
+   * Returns the gazetteer matching type for {@code lexicalPattern}.
+   * @param lexicalPattern the lexical pattern to match.
+   * @return {@code FULL}, if it is a name; {@code PART}, if it is the beginning of a name; {@code NONE}, otherwise.
+   */
+  public GrammarMatchType matchType(String lexicalPattern) {
+    final Node node = this.find(lexicalPattern);
+    if (node == null) {
+      return GrammarMatchType.NONE;
+    }
+    return (node.entities != null) ? GrammarMatchType.FULL
+        : (node.words.length > 0) ? GrammarMatchType.PART : GrammarMatchType.NONE;
+  }
+
+  /**
+   * Returns the entities named {@code lexicalPattern}.
+   * @param lexicalPattern the name.
+   * @return the entity IRIs; empty, if none.
+   */
+  public List<String> getEntities(String lexicalPattern) {
+    final Node node = this.find(lexicalPattern);
+    return (node == null || node.entities == null) ? Collections.emptyList() : Arrays.asList(node.entities);
+  }
+
+  /**
+   * Returns the proper noun elementary SLTAGs of the entities named {@code lexicalPattern},
+   * synthesizing them if not cached.
+   * @param lexicalPattern the name.
+   * @return the elementary SLTAGs; empty, if none.
+   */
+  public List<ElementarySltag> getElementarySLTAG(String lexicalPattern) {
+    if (lexicalPattern == null) {
+      return Collections.emptyList();
+    }
+    final String key = String.join(" ", split(lexicalPattern));
+    synchronized (this) {
+      final List<ElementarySltag> cached = this.cache.get(key);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    final List<String> named = this.getEntities(key);
+    if (named.isEmpty()) {
+      return Collections.emptyList();
+    }
+    final List<ElementarySltag> sltags = new ArrayList<>(named.size());
+    for (String entity : named) {
+      sltags.add(new SimpleElementarySltag(lexicalPattern, LtagTemplates.properNoun(lexicalPattern),
+          DudesTemplates.properNoun(entity)));
+    }
+    final List<ElementarySltag> result = Collections.unmodifiableList(sltags);
+    synchronized (this) {
+      this.synthesized += result.size();
+      this.cache.put(key, result);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the trie node reached by {@code lexicalPattern}.
+   * @param lexicalPattern the lexical pattern.
+   * @return the node; null, if none.
+   */
+  private Node find(String lexicalPattern) {
+    if (lexicalPattern == null) {
+      return null;
+    }
+    Node node = this.root;
+    for (String word : split(lexicalPattern)) {
+      node = node.get(word);
+      if (node == null) {
+        return null;
+      }
+    }
+    return (node == this.root) ? null : node;
+  }
+
+  /**
+   * Splits {@code name} into its lower-case words.
+   * @param name the name.
+   * @return the words.
+   */
+  private static String[] split(String name) {
+    final String trimmed = name.trim().toLowerCase();
+    return (trimmed.isEmpty()) ? NO_WORDS : trimmed.split("\\s+");
+  }
+
+  /**
+   * Returns the names of {@code individual} in {@code ontology}: its local name and its labels.
+   * @param ontology the ontology.
+   * @param individual the individual.
+   * @return the names.
+   */
+  private static List<String> names(Ontology ontology, IRI individual) {
+    final List<String> names = new ArrayList<>();
+    names.add(individual.getLocalName().replace('_', ' '));
+    for (Statement statement : ontology.filter(individual, RDFS.LABEL, null)) {
+      if (statement.getObject() instanceof Literal) {
+        names.add(statement.getObject().stringValue());
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Returns the names of {@code resource} in {@code ontology}, as matched, if it is an entity.
+   * @param ontology the ontology.
+   * @param resource the resource.
+   * @return the matched names; empty, if {@code resource} is not an entity.
+   */
+  private static Set<String> keys(Ontology ontology, IRI resource) {
+    final Set<String> keys = new HashSet<>();
+    for (Statement statement : ontology.filter(resource, RDF.TYPE, null)) {
+      if (isEntityType(statement.getObject())) {
+        for (String name : names(ontology, resource)) {
+          final String[] words = split(name);
+          if (words.length > 0) {
+            keys.add(String.join(" ", words));
+          }
+        }
+        break;
+      }
+    }
+    return keys;
+  }
+
+  /**
+   * Collects the resources in {@code statements}, whose names may have changed.
+   * @param statements the changed statements.
+   * @param resources the resources collected so far.
+   * @return true, if collected; false, if a statement may type any entity through reasoning.
+   */
+  private static boolean collect(Collection<? extends Statement> statements, Set<IRI> resources) {
+    for (Statement statement : statements) {
+      final IRI predicate = statement.getPredicate();
+      if (RDFS.SUBCLASSOF.equals(predicate) || RDFS.SUBPROPERTYOF.equals(predicate)
+          || RDFS.DOMAIN.equals(predicate) || RDFS.RANGE.equals(predicate)) {
+        return false;
+      }
+      if (statement.getSubject() instanceof IRI) {
+        resources.add((IRI) statement.getSubject());
+      }
+      if (statement.getObject() instanceof IRI) {
+        resources.add((IRI) statement.getObject());
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks if {@code type} types entities, rather than schema resources.
+   * @param type the type.
+   * @return true, if {@code type} is a class of entities; false, otherwise.
+   */
+  private static boolean isEntityType(Value type) {
+    if (!(type instanceof IRI)) {
+      return false;
+    }
+    final String namespace = ((IRI) type).getNamespace();
+    return NAMED_INDIVIDUAL.equals(type.stringValue()) || !(RDF.NAMESPACE.equals(namespace)
+        || RDFS.NAMESPACE.equals(namespace) || OWL.NAMESPACE.equals(namespace));
+  }
+}
@@ -0,0 +1,126 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.grammar;
+
+import com.acmutv.ontoqa.core.semantics.sltag.ElementarySltag;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A grammar extended with the proper nouns of an entity gazetteer.
+ * Lexical patterns are matched against the grammar first; the gazetteer is consulted when the grammar has no full
+ * match, so that the elementary SLTAGs of the grammar always win, and proper nouns need not be in the grammar.
+ * Changes are applied to the grammar; the gazetteer is read-only.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see EntityGazetteer
+ */
+@Getter
+public class GazetteerGrammar implements Grammar {
+
+  /**
+   * The grammar.
+   */
+  private final Grammar grammar;
+
+  /**
+   * The entity gazetteer.
+   */
+  private final EntityGazetteer gazetteer;
+
+  /**
+   * Creates the grammar {@code grammar} extended with the proper nouns in {@code gazetteer}.
+   * @param grammar the grammar.
+   * @param gazetteer the entity gazetteer.
+   */
+  public GazetteerGrammar(Grammar grammar, EntityGazetteer gazetteer) {
+    this.grammar = grammar;
+    this.gazetteer = gazetteer;
+  }
+
+  @Override
+  public List<ElementarySltag> getAllElementarySLTAG() {
+    return this.grammar.getAllElementarySLTAG();
+  }
+
+  @Override
+  public boolean addElementarySLTAG(ElementarySltag sltag) {
+    return this.grammar.addElementarySLTAG(sltag);
+  }
+
+  @Override
+  public List<ElementarySltag> getAllElementarySLTAG(String word) {
+    final List<ElementarySltag> sltags = this.grammar.getAllElementarySLTAG(word);
+    return (sltags.isEmpty()) ? this.gazetteer.getElementarySLTAG(word) : sltags;
+  }
+
+  @Override
+  public List<ElementarySltag> getAllMatchingElementarySLTAG(String word) {
+    final List<ElementarySltag> sltags = this.grammar.getAllMatchingElementarySLTAG(word);
+    return (sltags.isEmpty()) ? this.gazetteer.getElementarySLTAG(word) : sltags;
+  }
+
+  @Override
+  public void merge(Grammar other) {
+    this.grammar.merge(other);
+  }
+
+  @Override
+  public boolean matchStart(String lexicalEntry) {
+    return this.grammar.matchStart(lexicalEntry)
+        || this.gazetteer.matchType(lexicalEntry) != GrammarMatchType.NONE;
+  }
+
+  @Override
+  public boolean match(String lexicalEntry) {
+    return this.grammar.match(lexicalEntry)
+        || this.gazetteer.matchType(lexicalEntry) != GrammarMatchType.NONE;
+  }
+
+  /**
+   * Returns the grammar matching type for {@code lexicalPattern}: the grammar one, unless the grammar has no full
+   * match and the gazetteer has a better one.
+   * @param lexicalPattern the lexical pattern to match.
+   * @return the matching type for {@code lexicalPattern}.
+   */
+  @Override
+  public GrammarMatchType matchType(String lexicalPattern) {
+    final GrammarMatchType type = this.grammar.matchType(lexicalPattern);
+    if (type == GrammarMatchType.FULL) {
+      return type;
+    }
+    final GrammarMatchType named = this.gazetteer.matchType(lexicalPattern);
+    return (named == GrammarMatchType.FULL || type == GrammarMatchType.NONE) ? named : type;
+  }
+
+  @Override
+  public List<ElementarySltag> remove(String entry) {
+    return this.grammar.remove(entry);
+  }
+}
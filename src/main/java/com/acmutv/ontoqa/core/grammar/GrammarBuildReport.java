@@ -0,0 +1,83 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.grammar;
+
+import lombok.Data;
+
+/**
+ * The outcome of an incremental grammar build.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see GrammarBuilder
+ */
+@Data
+public class GrammarBuildReport {
+
+  /**
+   * The number of lexical entries compiled for the first time.
+   */
+  private int added = 0;
+
+  /**
+   * The number of lexical entries compiled again, as they changed.
+   */
+  private int changed = 0;
+
+  /**
+   * The number of lexical entries no longer in the lexicon.
+   */
+  private int removed = 0;
+
+  /**
+   * The number of lexical entries reused from the manifest.
+   */
+  private int unchanged = 0;
+
+  /**
+   * The number of elementary SLTAGs in the grammar.
+   */
+  private int sltags = 0;
+
+  /**
+   * Whether the grammar has been written.
+   */
+  private boolean written = false;
+
+  /**
+   * The build time (ms).
+   */
+  private long elapsed = 0;
+
+  /**
+   * Returns true if some lexical entry has been added, changed or removed.
+   * @return true if some lexical entry has been added, changed or removed; false, otherwise.
+   */
+  public boolean isModified() {
+    return this.added + this.changed + this.removed > 0;
+  }
+}
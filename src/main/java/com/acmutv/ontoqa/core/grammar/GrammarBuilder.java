@@ -0,0 +1,237 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.grammar;
+
+import com.acmutv.ontoqa.core.lemon.*;
+import com.acmutv.ontoqa.core.lexicon.LexiconFormat;
+import com.acmutv.ontoqa.core.lexicon.LexiconUsage;
+import com.acmutv.ontoqa.core.semantics.sltag.ElementarySltag;
+import com.acmutv.ontoqa.core.semantics.sltag.SerializeSltag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * This class realizes the incremental grammar build.
+ * Every lexical entry is fingerprinted on the data its compilation depends on; the build manifest records the
+ * elementary SLTAGs each lexical entry produced, so that a rebuild only compiles new and changed lexical entries,
+ * drops the ones removed from the lexicon and reuses the others.
+ * The grammar is the same that {@link SerializeSltag#getAllElementarySltag(List)} would produce from scratch.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see GrammarManifest
+ * @see GrammarBuildReport
+ */
+public class GrammarBuilder {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(GrammarBuilder.class);
+
+  /**
+   * The suffix of the build manifest, next to the grammar.
+   */
+  public static final String MANIFEST_SUFFIX = ".manifest";
+
+  /**
+   * Builds the grammar {@code grammar} as {@code format} from the lexicon {@code lexicon}, keeping the build
+   * manifest next to the grammar.
+   * @param lexicon the lexicon.
+   * @param lexiconFormat the lexicon format.
+   * @param grammar the grammar to build.
+   * @param format the grammar format.
+   * @return the build report.
+   * @throws IOException when the lexicon cannot be read, or the grammar cannot be written.
+   */
+  public static GrammarBuildReport build(String lexicon, LexiconFormat lexiconFormat, String grammar,
+                                         GrammarFormat format) throws IOException {
+    final List<LexicalEntry> entries = LexiconUsage.getLexicalEntries(lexicon, "", lexiconFormat);
+    return build(entries, grammar, format, Paths.get(grammar + MANIFEST_SUFFIX),
+        Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Builds the grammar {@code grammar} as {@code format} from {@code entries}.
+   * @param entries the lexical entries.
+   * @param grammar the grammar to build.
+   * @param format the grammar format.
+   * @param manifest the build manifest.
+   * @param parallelism the number of threads compiling lexical entries.
+   * @return the build report.
+   * @throws IOException when the grammar or the manifest cannot be written.
+   */
+  public static GrammarBuildReport build(List<LexicalEntry> entries, String grammar, GrammarFormat format,
+                                         Path manifest, int parallelism) throws IOException {
+    final long start = System.currentTimeMillis();
+    final GrammarBuildReport report = new GrammarBuildReport();
+    final GrammarManifest previous = GrammarManifest.read(manifest);
+    final GrammarManifest current = new GrammarManifest();
+
+    final Map<String,LexicalEntry> stale = new LinkedHashMap<>();
+    for (LexicalEntry entry : entries) {
+      final String key = key(entry, current.getEntries());
+      final String fingerprint = fingerprint(entry);
+      final GrammarManifest.Entry known = previous.getEntries().get(key);
+      if (known != null && known.getFingerprint().equals(fingerprint)) {
+        current.getEntries().put(key, known);
+        report.setUnchanged(report.getUnchanged() + 1);
+      } else {
+        current.getEntries().put(key, new GrammarManifest.Entry(fingerprint, null));
+        stale.put(key, entry);
+        if (known == null) {
+          report.setAdded(report.getAdded() + 1);
+        } else {
+          report.setChanged(report.getChanged() + 1);
+        }
+      }
+    }
+    for (String key : previous.getEntries().keySet()) {
+      if (!current.getEntries().containsKey(key)) {
+        report.setRemoved(report.getRemoved() + 1);
+      }
+    }
+
+    final List<List<ElementarySltag>> compiled = compile(new ArrayList<>(stale.values()), parallelism);
+    final Iterator<List<ElementarySltag>> iter = compiled.iterator();
+    for (String key : stale.keySet()) {
+      current.getEntries().get(key).setSltags(iter.next());
+    }
+
+    if (report.isModified() || !Files.exists(Paths.get(grammar))) {
+      final Grammar result = new SimpleGrammar();
+      current.getEntries().values().forEach(e -> e.getSltags().forEach(result::addElementarySLTAG));
+      SerializeSltag.getClosedClassSltag().forEach(result::addElementarySLTAG);
+      GrammarManager.write(result, grammar, format);
+      current.write(manifest);
+      report.setSltags(result.getAllElementarySLTAG().size());
+      report.setWritten(true);
+    } else {
+      report.setSltags(current.getEntries().values().stream().mapToInt(e -> e.getSltags().size()).sum() +
+          SerializeSltag.getClosedClassSltag().size());
+    }
+
+    report.setElapsed(System.currentTimeMillis() - start);
+    LOGGER.info("Built grammar {} in {} ms: {} added, {} changed, {} removed, {} unchanged lexical entries",
+        grammar, report.getElapsed(), report.getAdded(), report.getChanged(), report.getRemoved(),
+        report.getUnchanged());
+    return report;
+  }
+
+  /**
+   * Compiles {@code entries} on a fork-join pool.
+   * @param entries the lexical entries to compile.
+   * @param parallelism the number of threads.
+   * @return the elementary SLTAGs of each lexical entry, in the order of {@code entries}.
+   * @throws IOException when a lexical entry cannot be compiled.
+   */
+  private static List<List<ElementarySltag>> compile(List<LexicalEntry> entries, int parallelism)
+      throws IOException {
+    if (entries.isEmpty()) {
+      return Collections.emptyList();
+    }
+    final ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+    try {
+      return pool.submit(() -> entries.parallelStream()
+          .map(SerializeSltag::getElementarySltag)
+          .collect(Collectors.toList())).get();
+    } catch (InterruptedException exc) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while compiling lexical entries");
+    } catch (ExecutionException exc) {
+      throw new IOException("Cannot compile lexical entries: " + exc.getCause(), exc.getCause());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Returns the manifest key of {@code entry}: its URI, disambiguated when the lexicon repeats it.
+   * @param entry the lexical entry.
+   * @param keys the keys assigned so far.
+   * @return the manifest key of {@code entry}.
+   */
+  private static String key(LexicalEntry entry, Map<String,?> keys) {
+    final String base = (entry.getURI() != null) ? entry.getURI() : entry.getCanonicalForm();
+    String key = base;
+    for (int i = 2; keys.containsKey(key); i++) {
+      key = base + "#" + i;
+    }
+    return key;
+  }
+
+  /**
+   * Returns the fingerprint of {@code entry}, computed on everything its compilation depends on.
+   * @param entry the lexical entry.
+   * @return the fingerprint of {@code entry}.
+   */
+  static String fingerprint(LexicalEntry entry) {
+    final StringBuilder data = new StringBuilder();
+    data.append(entry.getURI()).append('\n')
+        .append(entry.getPOS()).append('\n')
+        .append(entry.getCanonicalForm()).append('\n')
+        .append(entry.isCovariantScalar()).append('\n');
+    if (entry.getForms() != null) {
+      for (Form form : entry.getForms()) {
+        data.append("form:").append(form.getWrittenRep()).append('\n');
+      }
+    }
+    for (Map.Entry<Sense,HashSet<SyntacticBehaviour>> sense : entry.getSenseBehaviours().entrySet()) {
+      data.append("sense:").append(sense.getKey());
+      final Reference reference = sense.getKey().getReference();
+      if (reference instanceof Restriction) {
+        final Restriction restriction = (Restriction) reference;
+        data.append(restriction.getURI()).append(' ').append(restriction.getProperty()).append(' ')
+            .append(restriction.getValue()).append('\n');
+      }
+      for (SyntacticBehaviour behaviour : sense.getValue()) {
+        data.append("behaviour:").append(behaviour);
+      }
+    }
+    data.append("references:").append(entry.getReferences()).append('\n');
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-256")
+          .digest(data.toString().getBytes(StandardCharsets.UTF_8));
+      final StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException exc) {
+      throw new IllegalStateException(exc);
+    }
+  }
+}
@@ -39,5 +39,6 @@ import lombok.Getter;
 public enum GrammarFormat {
 
   JSON,
-  YAML
+  YAML,
+  BINARY
 }
\ No newline at end of file
@@ -33,8 +33,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * This class realizes the grammar management services.
@@ -49,6 +57,7 @@ public class GrammarManager {
 
   /**
    * Reads all the SLTAG inside {@code directory} serializaed as {@code format}.
+   * Files are parsed in parallel, then merged in order.
    * @param directory the directory.
    * @param format the grammar format.
    * @return the grammar produced by merging all grammars inside {@code directory}
@@ -56,11 +65,51 @@ public class GrammarManager {
    * @throws IOException when grammar cannot be read.
    */
   public static Grammar readAll(String directory, GrammarFormat format) throws IOException {
+    return readAll(directory, format, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Reads all the SLTAG inside {@code directory} serializaed as {@code format}, parsing up to
+   * {@code parallelism} files at a time.
+   * @param directory the directory.
+   * @param format the grammar format.
+   * @param parallelism the number of files parsed at a time.
+   * @return the grammar produced by merging all grammars inside {@code directory}
+   * serializaed as {@code format}
+   * @throws IOException when grammar cannot be read.
+   */
+  public static Grammar readAll(String directory, GrammarFormat format, int parallelism) throws IOException {
     List<Path> partials = IOManager.allFiles(directory, "*.sltag");
     Grammar grammar = new SimpleGrammar();
-    for (Path file : partials) {
-      grammar.merge(GrammarManager.read(file.toString(), format));
+    if (parallelism <= 1 || partials.size() <= 1) {
+      for (Path file : partials) {
+        grammar.merge(GrammarManager.read(file.toString(), format));
+      }
+      return grammar;
     }
+    final long start = System.currentTimeMillis();
+    final ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, partials.size()));
+    try {
+      final List<Future<Grammar>> reads = new ArrayList<>(partials.size());
+      for (Path file : partials) {
+        reads.add(pool.submit(() -> GrammarManager.read(file.toString(), format)));
+      }
+      for (Future<Grammar> read : reads) {
+        grammar.merge(read.get());
+      }
+    } catch (InterruptedException exc) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while reading grammar " + directory);
+    } catch (ExecutionException exc) {
+      if (exc.getCause() instanceof IOException) {
+        throw (IOException) exc.getCause();
+      }
+      throw new IOException("Cannot read grammar " + directory, exc.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+    LOGGER.debug("Read {} grammar files from {} in {} ms", partials.size(), directory,
+        System.currentTimeMillis() - start);
     return grammar;
   }
 
@@ -77,11 +126,75 @@ public class GrammarManager {
     switch (format) {
       case JSON: grammar = readJson(resource); break;
       case YAML: grammar = readYaml(resource); break;
+      case BINARY: grammar = new CompiledGrammar(Paths.get(resource)); break;
       default: throw new IOException("Unrecognized Grammar format");
     }
     return grammar;
   }
 
+  /**
+   * Canonicalizes {@code grammar}, sharing the structure of its elementary SLTAGs among the structurally
+   * identical ones. Binary grammars are returned as they are, as they are already kept encoded.
+   * @param grammar the grammar.
+   * @return the canonical grammar.
+   * @see TemplateGrammar
+   */
+  public static Grammar canonicalize(Grammar grammar) {
+    if (grammar instanceof CompiledGrammar || grammar instanceof TemplateGrammar) {
+      return grammar;
+    }
+    final long start = System.currentTimeMillis();
+    final TemplateGrammar canonical = new TemplateGrammar(grammar);
+    LOGGER.info("Grammar canonicalized ({} elementary SLTAGs on {} templates, {} not shared, {} KB, {} ms)",
+        canonical.size(), canonical.getTemplates(), canonical.getUnshared(), canonical.getBytes() >> 10,
+        System.currentTimeMillis() - start);
+    return canonical;
+  }
+
+  /**
+   * Compiles the grammar in {@code source} as {@code format} into the binary grammar {@code target}.
+   * When {@code source} is a directory, all the SLTAG inside it are compiled together.
+   * @param source the grammar file or directory.
+   * @param format the grammar format.
+   * @param target the binary grammar path.
+   * @return the compiled grammar.
+   * @throws IOException when grammar cannot be read or compiled.
+   */
+  public static CompiledGrammar compile(String source, GrammarFormat format, Path target) throws IOException {
+    LOGGER.trace("source={} format={} target={}", source, format, target);
+    final Grammar grammar = (Files.isDirectory(Paths.get(source))) ?
+        readAll(source, format) : read(source, format);
+    CompiledGrammar.write(grammar, target);
+    return new CompiledGrammar(target);
+  }
+
+  /**
+   * Writes {@code grammar} on {@code resource} as {@code format}.
+   * The grammar is first written on a temporary file, then moved on {@code resource}, so that readers never see
+   * a partially written grammar.
+   * @param grammar the grammar to write.
+   * @param resource the resource to write.
+   * @param format the grammar format.
+   * @throws IOException when grammar cannot be written.
+   */
+  public static void write(Grammar grammar, String resource, GrammarFormat format) throws IOException {
+    LOGGER.trace("resource={} format={}", resource, format);
+    final Path target = Paths.get(resource);
+    if (format == GrammarFormat.BINARY) {
+      CompiledGrammar.write(grammar, target);
+      return;
+    }
+    final Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+    try (OutputStream out = Files.newOutputStream(tmp)) {
+      switch (format) {
+        case JSON: new GrammarJsonMapper().writeValue(out, grammar); break;
+        case YAML: new GrammarYamlMapper().writeValue(out, grammar); break;
+        default: throw new IOException("Unrecognized Grammar format");
+      }
+    }
+    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
   /**
    * Reads a grammar from {@code resource} as JSON.
    * @param resource the resource to read.
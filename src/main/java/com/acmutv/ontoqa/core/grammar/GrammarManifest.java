@@ -0,0 +1,125 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.grammar;
+
+import com.acmutv.ontoqa.core.semantics.sltag.ElementarySltag;
+import com.acmutv.ontoqa.core.semantics.sltag.serial.ElementarySltagJsonMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The manifest of an incremental grammar build.
+ * It maps every lexical entry to the fingerprint it had when it was compiled and to the elementary SLTAGs it
+ * produced, so that unchanged lexical entries do not need to be compiled again.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see GrammarBuilder
+ */
+@Data
+@NoArgsConstructor
+public class GrammarManifest {
+
+  /**
+   * The manifest version.
+   * It must be increased whenever the compilation of lexical entries changes, so that stale manifests are
+   * discarded.
+   */
+  public static final int VERSION = 1;
+
+  /**
+   * The manifest version.
+   */
+  private int version = VERSION;
+
+  /**
+   * The compiled lexical entries, by key.
+   */
+  private Map<String,Entry> entries = new LinkedHashMap<>();
+
+  /**
+   * Reads the manifest in {@code path}.
+   * @param path the manifest.
+   * @return the manifest; an empty manifest if {@code path} does not exist or has a different version.
+   * @throws IOException when the manifest cannot be read.
+   */
+  public static GrammarManifest read(Path path) throws IOException {
+    if (!Files.exists(path)) {
+      return new GrammarManifest();
+    }
+    final GrammarManifest manifest;
+    try (InputStream in = Files.newInputStream(path)) {
+      manifest = new ElementarySltagJsonMapper().readValue(in, GrammarManifest.class);
+    }
+    return (manifest.getVersion() == VERSION) ? manifest : new GrammarManifest();
+  }
+
+  /**
+   * Writes the manifest on {@code path}.
+   * The manifest is first written on a temporary file, then moved on {@code path}.
+   * @param path the manifest.
+   * @throws IOException when the manifest cannot be written.
+   */
+  public void write(Path path) throws IOException {
+    final Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (OutputStream out = Files.newOutputStream(tmp)) {
+      new ElementarySltagJsonMapper().writeValue(out, this);
+    }
+    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * A compiled lexical entry.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Entry {
+
+    /**
+     * The lexical entry fingerprint.
+     */
+    private String fingerprint;
+
+    /**
+     * The elementary SLTAGs compiled from the lexical entry.
+     */
+    private List<ElementarySltag> sltags = new ArrayList<>();
+  }
+}
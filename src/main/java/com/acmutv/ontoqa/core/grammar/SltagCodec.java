@@ -0,0 +1,329 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.grammar;
+
+import com.acmutv.ontoqa.core.semantics.base.slot.Slot;
+import com.acmutv.ontoqa.core.semantics.base.statement.*;
+import com.acmutv.ontoqa.core.semantics.base.term.*;
+import com.acmutv.ontoqa.core.semantics.drs.Drs;
+import com.acmutv.ontoqa.core.semantics.drs.SimpleDrs;
+import com.acmutv.ontoqa.core.semantics.dudes.Dudes;
+import com.acmutv.ontoqa.core.semantics.dudes.SimpleDudes;
+import com.acmutv.ontoqa.core.semantics.sltag.ElementarySltag;
+import com.acmutv.ontoqa.core.semantics.sltag.SimpleElementarySltag;
+import com.acmutv.ontoqa.core.syntax.SyntaxCategory;
+import com.acmutv.ontoqa.core.syntax.ltag.*;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * The fixed-layout binary encoding of an {@link ElementarySltag}, used by {@link CompiledGrammar}.
+ * All fields are big-endian integers (bytes for tags); strings are ids in the grammar string table.
+ * <pre>
+ *   sltag     entry, node count, nodes, edge count, edges, dudes
+ *   node      type, id, category (or -1), marker (or -1), label (or -1)
+ *   edge      lhs node index, rhs node index (node 0 is the root)
+ *   dudes     main variable (or -1), main drs, select, projection terms, drs, slots
+ *   drs       label, variables, statements
+ *   slot      variable, anchor, label
+ *   term      tag, then variable index | constant value and type | function type and term
+ *   statement tag, then proposition | operator | replace | negation | disjunction fields
+ * </pre>
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see CompiledGrammar
+ */
+class SltagCodec {
+
+  private static final byte VARIABLE = 0;
+  private static final byte CONSTANT = 1;
+  private static final byte FUNCTION = 2;
+
+  private static final byte PROPOSITION = 0;
+  private static final byte OPERATOR = 1;
+  private static final byte REPLACE = 2;
+  private static final byte NEGATION = 3;
+  private static final byte DISJUNCTION = 4;
+
+  private static final LtagNodeType[] NODE_TYPES = LtagNodeType.values();
+  private static final LtagNodeMarker[] MARKERS = LtagNodeMarker.values();
+
+  private SltagCodec() { /* hidden */ }
+
+  /**
+   * Encodes {@code sltag} on {@code out}, registering its strings in {@code strings}.
+   * @param sltag the elementary SLTAG.
+   * @param out the output.
+   * @param strings the string table (string to id).
+   * @throws IOException when {@code sltag} contains an unsupported term or statement.
+   */
+  static void encode(ElementarySltag sltag, DataOutputStream out, Map<String,Integer> strings) throws IOException {
+    out.writeInt(id(sltag.getEntry(), strings));
+
+    final List<LtagNode> nodes = new ArrayList<>();
+    final Map<LtagNode,Integer> indexes = new IdentityHashMap<>();
+    final List<int[]> edges = new ArrayList<>();
+    final LtagNode root = sltag.getRoot();
+    nodes.add(root);
+    indexes.put(root, 0);
+    final Queue<LtagNode> frontier = new ArrayDeque<>();
+    frontier.add(root);
+    while (!frontier.isEmpty()) {
+      LtagNode curr = frontier.poll();
+      List<LtagNode> children = sltag.getRhs(curr);
+      if (children == null) continue;
+      for (LtagNode child : children) {
+        Integer index = indexes.get(child);
+        if (index == null) {
+          index = nodes.size();
+          nodes.add(child);
+          indexes.put(child, index);
+        }
+        edges.add(new int[]{indexes.get(curr), index});
+        frontier.add(child);
+      }
+    }
+    out.writeInt(nodes.size());
+    for (LtagNode node : nodes) {
+      out.writeByte(node.getType().ordinal());
+      out.writeInt(node.getId());
+      out.writeInt((node.getCategory() == null) ? -1 : id(node.getCategory().name(), strings));
+      out.writeByte((node.getMarker() == null) ? -1 : node.getMarker().ordinal());
+      out.writeInt((node.getLabel() == null) ? -1 : id(node.getLabel(), strings));
+    }
+    out.writeInt(edges.size());
+    for (int[] edge : edges) {
+      out.writeInt(edge[0]);
+      out.writeInt(edge[1]);
+    }
+
+    final Dudes dudes = sltag.getSemantics();
+    out.writeInt((dudes.getMainVariable() == null) ? -1 : dudes.getMainVariable().getI());
+    out.writeInt(dudes.getMainDrs());
+    out.writeByte(dudes.isSelect() ? 1 : 0);
+    out.writeInt(dudes.getProjection().size());
+    for (Term term : dudes.getProjection()) {
+      encode(term, out, strings);
+    }
+    encode(dudes.getDrs(), out, strings);
+    out.writeInt(dudes.getSlots().size());
+    for (Slot slot : dudes.getSlots()) {
+      out.writeInt(slot.getVariable().getI());
+      out.writeInt(id(slot.getAnchor(), strings));
+      out.writeInt(slot.getLabel());
+    }
+  }
+
+  /**
+   * Decodes the elementary SLTAG at {@code position} of {@code buffer}.
+   * @param buffer the buffer.
+   * @param position the absolute position of the encoded SLTAG.
+   * @param strings the string table (id to string).
+   * @return the elementary SLTAG.
+   */
+  static ElementarySltag decode(ByteBuffer buffer, int position, IntFunction<String> strings) {
+    final Cursor in = new Cursor(buffer, position);
+    final String entry = strings.apply(in.getInt());
+
+    final LtagNode[] nodes = new LtagNode[in.getInt()];
+    for (int i = 0; i < nodes.length; i++) {
+      final LtagNodeType type = NODE_TYPES[in.get()];
+      final int id = in.getInt();
+      final int category = in.getInt();
+      final byte marker = in.get();
+      final int label = in.getInt();
+      if (type == LtagNodeType.TERMINAL) {
+        nodes[i] = new TerminalNode(id, strings.apply(label));
+      } else {
+        nodes[i] = new NonTerminalNode(id, SyntaxCategory.valueOf(strings.apply(category)),
+            (marker < 0) ? null : MARKERS[marker], (label < 0) ? null : strings.apply(label));
+      }
+    }
+    final Ltag ltag = new SimpleLtag(nodes[0]);
+    final int edges = in.getInt();
+    for (int i = 0; i < edges; i++) {
+      ltag.addEdge(nodes[in.getInt()], nodes[in.getInt()]);
+    }
+
+    final Dudes dudes = new SimpleDudes();
+    final int mainVariable = in.getInt();
+    if (mainVariable >= 0) {
+      dudes.setMainVariable(new Variable(mainVariable));
+    }
+    dudes.setMainDrs(in.getInt());
+    dudes.setSelect(in.get() != 0);
+    final int projections = in.getInt();
+    for (int i = 0; i < projections; i++) {
+      dudes.getProjection().add(decodeTerm(in, strings));
+    }
+    dudes.setDrs(decodeDrs(in, strings));
+    final int slots = in.getInt();
+    for (int i = 0; i < slots; i++) {
+      dudes.getSlots().add(new Slot(new Variable(in.getInt()), strings.apply(in.getInt()), in.getInt()));
+    }
+
+    return new SimpleElementarySltag(entry, ltag, dudes);
+  }
+
+  private static void encode(Term term, DataOutputStream out, Map<String,Integer> strings) throws IOException {
+    if (term instanceof Variable) {
+      out.writeByte(VARIABLE);
+      out.writeInt(((Variable) term).getI());
+    } else if (term instanceof Constant) {
+      out.writeByte(CONSTANT);
+      out.writeInt(id(((Constant) term).getValue(), strings));
+      out.writeInt(id(((Constant) term).getType().name(), strings));
+    } else if (term instanceof Function) {
+      out.writeByte(FUNCTION);
+      out.writeInt(id(((Function) term).getFuncType().name(), strings));
+      encode(((Function) term).getTerm(), out, strings);
+    } else {
+      throw new IOException("Cannot encode term " + term);
+    }
+  }
+
+  private static Term decodeTerm(Cursor in, IntFunction<String> strings) {
+    final byte tag = in.get();
+    switch (tag) {
+      case VARIABLE: return new Variable(in.getInt());
+      case CONSTANT: return new Constant(strings.apply(in.getInt()), ConstantType.valueOf(strings.apply(in.getInt())));
+      case FUNCTION: return new Function(FunctionType.valueOf(strings.apply(in.getInt())), decodeTerm(in, strings));
+      default: throw new IllegalStateException("Unknown term tag " + tag);
+    }
+  }
+
+  private static void encode(Drs drs, DataOutputStream out, Map<String,Integer> strings) throws IOException {
+    out.writeInt(drs.getLabel());
+    out.writeInt(drs.getVariables().size());
+    for (Variable variable : drs.getVariables()) {
+      out.writeInt(variable.getI());
+    }
+    out.writeInt(drs.getStatements().size());
+    for (Statement statement : drs.getStatements()) {
+      encode(statement, out, strings);
+    }
+  }
+
+  private static Drs decodeDrs(Cursor in, IntFunction<String> strings) {
+    final Drs drs = new SimpleDrs(in.getInt());
+    final int variables = in.getInt();
+    for (int i = 0; i < variables; i++) {
+      drs.getVariables().add(new Variable(in.getInt()));
+    }
+    final int statements = in.getInt();
+    for (int i = 0; i < statements; i++) {
+      drs.getStatements().add(decodeStatement(in, strings));
+    }
+    return drs;
+  }
+
+  private static void encode(Statement statement, DataOutputStream out, Map<String,Integer> strings) throws IOException {
+    if (statement instanceof Proposition) {
+      out.writeByte(PROPOSITION);
+      encode(((Proposition) statement).getPredicate(), out, strings);
+      final List<Term> arguments = ((Proposition) statement).getArguments();
+      out.writeInt(arguments.size());
+      for (Term argument : arguments) {
+        encode(argument, out, strings);
+      }
+    } else if (statement instanceof OperatorStatement) {
+      out.writeByte(OPERATOR);
+      out.writeInt(id(((OperatorStatement) statement).getOperator().name(), strings));
+      encode(((OperatorStatement) statement).getLeft(), out, strings);
+      encode(((OperatorStatement) statement).getRight(), out, strings);
+    } else if (statement instanceof Replace) {
+      out.writeByte(REPLACE);
+      encode(((Replace) statement).getSource(), out, strings);
+      encode(((Replace) statement).getTarget(), out, strings);
+    } else if (statement instanceof Negation) {
+      out.writeByte(NEGATION);
+      encode(((Negation) statement).getDrs(), out, strings);
+    } else if (statement instanceof Disjunction) {
+      out.writeByte(DISJUNCTION);
+      encode(((Disjunction) statement).getLeft(), out, strings);
+      encode(((Disjunction) statement).getRight(), out, strings);
+    } else {
+      throw new IOException("Cannot encode statement " + statement);
+    }
+  }
+
+  private static Statement decodeStatement(Cursor in, IntFunction<String> strings) {
+    final byte tag = in.get();
+    switch (tag) {
+      case PROPOSITION: {
+        final Term predicate = decodeTerm(in, strings);
+        final Term[] arguments = new Term[in.getInt()];
+        for (int i = 0; i < arguments.length; i++) {
+          arguments[i] = decodeTerm(in, strings);
+        }
+        return new Proposition(predicate, arguments);
+      }
+      case OPERATOR:
+        return new OperatorStatement(OperatorType.valueOf(strings.apply(in.getInt())),
+            decodeTerm(in, strings), decodeTerm(in, strings));
+      case REPLACE: return new Replace(decodeTerm(in, strings), decodeTerm(in, strings));
+      case NEGATION: return new Negation(decodeDrs(in, strings));
+      case DISJUNCTION: return new Disjunction(decodeDrs(in, strings), decodeDrs(in, strings));
+      default: throw new IllegalStateException("Unknown statement tag " + tag);
+    }
+  }
+
+  /**
+   * Returns the id of {@code string} in {@code strings}, registering it if needed.
+   */
+  private static int id(String string, Map<String,Integer> strings) {
+    return strings.computeIfAbsent(string, s -> strings.size());
+  }
+
+  /**
+   * A read cursor using absolute accesses, so that a buffer can be shared among threads.
+   */
+  private static final class Cursor {
+    private final ByteBuffer buffer;
+    private int position;
+
+    private Cursor(ByteBuffer buffer, int position) {
+      this.buffer = buffer;
+      this.position = position;
+    }
+
+    private byte get() {
+      return this.buffer.get(this.position++);
+    }
+
+    private int getInt() {
+      final int value = this.buffer.getInt(this.position);
+      this.position += Integer.BYTES;
+      return value;
+    }
+  }
+}
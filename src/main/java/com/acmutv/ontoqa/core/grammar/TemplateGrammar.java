@@ -0,0 +1,325 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.grammar;
+
+import com.acmutv.ontoqa.core.semantics.sltag.ElementarySltag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A grammar sharing the structure of its elementary SLTAGs.
+ * Generated grammars are made of a few kinds of elementary SLTAGs (e.g. every proper noun, every class noun),
+ * structurally identical but for their strings: lexical anchors, labels and IRIs.
+ * Each elementary SLTAG is kept as an immutable template, shared by all the structurally identical ones,
+ * and the few strings it is instantiated with; elementary SLTAGs are instantiated only when looked up,
+ * and every lookup returns new instances.
+ * Templates are the binary encoding of elementary SLTAGs (see {@link SltagCodec}), with string ids local to each.
+ * Matching is the same of {@link SimpleGrammar}; entries keep the order they are added with, so that a grammar
+ * built from another one returns candidates in the same order.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see GrammarManager#canonicalize(Grammar)
+ */
+public class TemplateGrammar implements Grammar {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TemplateGrammar.class);
+
+  /**
+   * The estimated memory (bytes) of an object header.
+   */
+  private static final long HEADER_BYTES = 16;
+
+  /**
+   * The estimated memory (bytes) of a reference.
+   */
+  private static final long REFERENCE_BYTES = 8;
+
+  /**
+   * An elementary SLTAG: its template and the strings it is instantiated with.
+   * Elementary SLTAGs that cannot be encoded are kept as they are.
+   */
+  private static final class Instance {
+
+    private final byte[] template;
+
+    private final String[] strings;
+
+    private final ElementarySltag sltag;
+
+    private Instance(byte[] template, String[] strings, ElementarySltag sltag) {
+      this.template = template;
+      this.strings = strings;
+      this.sltag = sltag;
+    }
+
+    private ElementarySltag instantiate() {
+      if (this.sltag != null) {
+        return this.sltag;
+      }
+      final String[] strings = this.strings;
+      return SltagCodec.decode(ByteBuffer.wrap(this.template), 0, id -> strings[id]);
+    }
+  }
+
+  private final Map<String,List<Instance>> entries = new LinkedHashMap<>();
+
+  private final Map<String,Pattern> patterns = new ConcurrentHashMap<>();
+
+  private final Map<ByteBuffer,byte[]> templates = new HashMap<>();
+
+  private final Map<String,String> strings = new HashMap<>();
+
+  private int size = 0;
+
+  private int unshared = 0;
+
+  /**
+   * Creates an empty grammar.
+   */
+  public TemplateGrammar() {
+  }
+
+  /**
+   * Creates the grammar with the elementary SLTAGs of {@code grammar}.
+   * @param grammar the grammar.
+   */
+  public TemplateGrammar(Grammar grammar) {
+    grammar.getAllElementarySLTAG().forEach(this::addElementarySLTAG);
+  }
+
+  /**
+   * Returns the number of elementary SLTAGs.
+   * @return the number of elementary SLTAGs.
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the number of distinct templates.
+   * @return the number of distinct templates.
+   */
+  public int getTemplates() {
+    return this.templates.size();
+  }
+
+  /**
+   * Returns the number of elementary SLTAGs kept as they are, as they cannot be encoded.
+   * @return the number of elementary SLTAGs kept as they are.
+   */
+  public int getUnshared() {
+    return this.unshared;
+  }
+
+  /**
+   * Returns the estimated memory (bytes) of the templates and of the strings elementary SLTAGs refer to.
+   * Shared strings are counted once; elementary SLTAGs kept as they are, are not counted.
+   * @return the estimated memory (bytes).
+   */
+  public long getBytes() {
+    long bytes = 0;
+    for (byte[] template : this.templates.values()) {
+      bytes += HEADER_BYTES + template.length;
+    }
+    for (String string : this.strings.keySet()) {
+      bytes += 2 * HEADER_BYTES + 2 * string.length();
+    }
+    for (List<Instance> instances : this.entries.values()) {
+      for (Instance instance : instances) {
+        bytes += 2 * HEADER_BYTES + 3 * REFERENCE_BYTES
+            + ((instance.strings == null) ? 0 : instance.strings.length * REFERENCE_BYTES);
+      }
+    }
+    return bytes;
+  }
+
+  @Override
+  public List<ElementarySltag> getAllElementarySLTAG() {
+    final List<ElementarySltag> all = new ArrayList<>(this.size);
+    for (List<Instance> instances : this.entries.values()) {
+      instantiate(instances, all);
+    }
+    return all;
+  }
+
+  @Override
+  public boolean addElementarySLTAG(ElementarySltag sltag) {
+    final String key = sltag.getEntry().toLowerCase();
+    final Instance instance = this.canonicalize(sltag);
+    this.entries.computeIfAbsent(key, k -> new ArrayList<>(1)).add(instance);
+    this.size++;
+    return true;
+  }
+
+  @Override
+  public List<ElementarySltag> getAllElementarySLTAG(String word) {
+    final List<Instance> instances = this.entries.get(word.toLowerCase());
+    return (instances == null) ? new ArrayList<>() : instantiate(instances, new ArrayList<>(instances.size()));
+  }
+
+  @Override
+  public List<ElementarySltag> getAllMatchingElementarySLTAG(String word) {
+    final String lower = word.toLowerCase();
+    final List<ElementarySltag> trees = new ArrayList<>();
+    for (Map.Entry<String,List<Instance>> entry : this.entries.entrySet()) {
+      if (this.pattern(entry.getKey()).matcher(lower).matches()) {
+        instantiate(entry.getValue(), trees);
+      }
+    }
+    return trees;
+  }
+
+  @Override
+  public void merge(Grammar other) {
+    other.getAllElementarySLTAG().forEach(this::addElementarySLTAG);
+  }
+
+  @Override
+  public boolean matchStart(String lexicalEntry) {
+    if (lexicalEntry == null) {
+      return false;
+    } else if (lexicalEntry.isEmpty()) {
+      return true;
+    }
+    final String lower = lexicalEntry.toLowerCase();
+    for (String key : this.entries.keySet()) {
+      if (key.startsWith(lower)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean match(String lexicalEntry) {
+    if (lexicalEntry != null) {
+      final String lower = lexicalEntry.toLowerCase();
+      for (String key : this.entries.keySet()) {
+        Matcher matcher = this.pattern(key).matcher(lower);
+        if (matcher.matches() || matcher.hitEnd()) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public GrammarMatchType matchType(String lexicalPattern) {
+    if (lexicalPattern == null) {
+      return GrammarMatchType.NONE;
+    }
+    final String lower = lexicalPattern.toLowerCase();
+    for (String key : this.entries.keySet()) {
+      if (this.pattern(key).matcher(lower).matches()) {
+        return GrammarMatchType.FULL;
+      }
+    }
+    for (String key : this.entries.keySet()) {
+      if (key.startsWith(lower)) {
+        return GrammarMatchType.PART;
+      }
+    }
+    for (String key : this.entries.keySet()) {
+      Matcher matcher = this.pattern(key).matcher(lower);
+      //noinspection ResultOfMethodCallIgnored
+      matcher.matches();
+      if (matcher.hitEnd()) {
+        return GrammarMatchType.PART_STAR;
+      }
+    }
+    return GrammarMatchType.NONE;
+  }
+
+  @Override
+  public List<ElementarySltag> remove(String entry) {
+    final List<Instance> instances = this.entries.remove(entry.toLowerCase());
+    if (instances == null) {
+      return null;
+    }
+    this.size -= instances.size();
+    this.patterns.remove(entry.toLowerCase());
+    return instantiate(instances, new ArrayList<>(instances.size()));
+  }
+
+  /**
+   * Returns the template and strings of {@code sltag}, sharing the template and the strings already seen.
+   * @param sltag the elementary SLTAG.
+   * @return the canonical instance.
+   */
+  private Instance canonicalize(ElementarySltag sltag) {
+    final Map<String,Integer> ids = new LinkedHashMap<>();
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      SltagCodec.encode(sltag, out, ids);
+    } catch (IOException exc) {
+      LOGGER.debug("Cannot share elementary SLTAG {}: {}", sltag.getEntry(), exc.getMessage());
+      this.unshared++;
+      return new Instance(null, null, sltag);
+    }
+    final byte[] encoded = bytes.toByteArray();
+    final byte[] template = this.templates.computeIfAbsent(ByteBuffer.wrap(encoded), k -> encoded);
+    final String[] strings = new String[ids.size()];
+    int i = 0;
+    for (String string : ids.keySet()) {
+      strings[i++] = this.strings.computeIfAbsent(string, s -> s);
+    }
+    return new Instance(template, strings, null);
+  }
+
+  /**
+   * Returns the pattern of {@code key}, compiling it the first time.
+   * @param key the key.
+   * @return the pattern.
+   */
+  private Pattern pattern(String key) {
+    return this.patterns.computeIfAbsent(key, Pattern::compile);
+  }
+
+  /**
+   * Adds the instantiation of {@code instances} to {@code sltags}.
+   * @param instances the instances.
+   * @param sltags the elementary SLTAGs.
+   * @return {@code sltags}.
+   */
+  private static List<ElementarySltag> instantiate(List<Instance> instances, List<ElementarySltag> sltags) {
+    for (Instance instance : instances) {
+      sltags.add(instance.instantiate());
+    }
+    return sltags;
+  }
+}
@@ -30,15 +30,15 @@ import com.acmutv.ontoqa.core.grammar.Grammar;
 import com.acmutv.ontoqa.core.grammar.SimpleGrammar;
 import com.acmutv.ontoqa.core.semantics.sltag.ElementarySltag;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 
 import java.io.IOException;
-import java.util.Iterator;
 
 /**
  * The JSON deserializer for {@link Grammar}.
+ * Elementary SLTAGs are read one at a time from the token stream, without building the JSON tree of the grammar.
  * @author Antonella Botte {@literal <abotte@acm.org>}
  * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
  * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
@@ -74,14 +74,14 @@ public class GrammarDeserializer extends StdDeserializer<Grammar> {
 
   @Override
   public Grammar deserialize(JsonParser parser, DeserializationContext ctx) throws IOException {
-    JsonNode node = parser.getCodec().readTree(parser);
+    if (!parser.isExpectedStartArrayToken()) {
+      throw new IOException("Cannot read grammar: expected array of elementary SLTAG.");
+    }
 
     Grammar grammar = new SimpleGrammar();
 
-    Iterator<JsonNode> iter = node.elements();
-    while(iter.hasNext()) {
-      JsonNode n = iter.next();
-      ElementarySltag sltag = ctx.readValue(n.traverse(parser.getCodec()), ElementarySltag.class);
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      ElementarySltag sltag = ctx.readValue(parser, ElementarySltag.class);
       grammar.addElementarySLTAG(sltag);
     }
 
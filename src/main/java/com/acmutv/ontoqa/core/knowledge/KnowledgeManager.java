@@ -26,14 +26,19 @@
 
 package com.acmutv.ontoqa.core.knowledge;
 
+import com.acmutv.ontoqa.core.Deadline;
+import com.acmutv.ontoqa.core.exception.OntoqaTimeoutException;
 import com.acmutv.ontoqa.core.exception.QueryException;
 import com.acmutv.ontoqa.core.knowledge.answer.Answer;
 import com.acmutv.ontoqa.core.knowledge.answer.SimpleAnswer;
+import com.acmutv.ontoqa.core.knowledge.backend.KnowledgeBackend;
+import com.acmutv.ontoqa.core.knowledge.backend.MemoryKnowledgeBackend;
+import com.acmutv.ontoqa.core.knowledge.backend.RemoteOntology;
+import com.acmutv.ontoqa.core.knowledge.backend.ShardedKnowledgeBackend;
 import com.acmutv.ontoqa.core.knowledge.ontology.*;
-import com.acmutv.ontoqa.core.knowledge.query.AskQuerySubmitter;
+import com.acmutv.ontoqa.core.knowledge.query.QueryCursor;
+import com.acmutv.ontoqa.core.knowledge.query.QueryOptimizer;
 import com.acmutv.ontoqa.core.knowledge.query.QueryResult;
-import com.acmutv.ontoqa.core.knowledge.query.SelectQuerySubmitter;
-import com.acmutv.ontoqa.core.knowledge.query.SimpleQueryResult;
 import com.sun.javafx.binding.StringFormatter;
 import org.apache.commons.lang3.text.StrSubstitutor;
 import org.apache.jena.graph.Node;
@@ -45,12 +50,12 @@ import org.apache.jena.sparql.syntax.ElementPathBlock;
 import org.apache.jena.sparql.syntax.ElementVisitorBase;
 import org.apache.jena.sparql.syntax.ElementWalker;
 import org.eclipse.rdf4j.model.Model;
-import org.eclipse.rdf4j.repository.Repository;
-import org.eclipse.rdf4j.repository.sail.SailRepository;
-import org.eclipse.rdf4j.repository.util.Repositories;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.query.QueryInterruptedException;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.RDFParser;
 import org.eclipse.rdf4j.rio.Rio;
-import org.eclipse.rdf4j.sail.inferencer.fc.ForwardChainingRDFSInferencer;
-import org.eclipse.rdf4j.sail.memory.MemoryStore;
+import org.eclipse.rdf4j.rio.helpers.AbstractRDFHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -76,6 +81,30 @@ public class KnowledgeManager {
 
   public static final String RDFS_RANGE = "http://www.w3.org/2000/01/rdf-schema#range";
 
+  /**
+   * The backend querying ontologies in memory.
+   */
+  private static final KnowledgeBackend MEMORY_BACKEND = new MemoryKnowledgeBackend();
+
+  /**
+   * The backend querying sharded ontologies in memory.
+   */
+  private static final KnowledgeBackend SHARDED_BACKEND = new ShardedKnowledgeBackend();
+
+  /**
+   * Returns the backend queries on {@code ontology} are submitted to:
+   * the one of a {@link RemoteOntology}, the sharded one for a {@link ShardedOntology},
+   * or the in-memory one for any other ontology.
+   * @param ontology the ontology to address.
+   * @return the backend.
+   */
+  public static KnowledgeBackend getBackend(Ontology ontology) {
+    if (ontology instanceof RemoteOntology) {
+      return ((RemoteOntology) ontology).getBackend();
+    }
+    return (ontology instanceof ShardedOntology) ? SHARDED_BACKEND : MEMORY_BACKEND;
+  }
+
   /**
    * Reads an ontology from a resource.
    * @param resource the resource to read.
@@ -86,8 +115,11 @@ public class KnowledgeManager {
    */
   public static Ontology read(String resource, String prefix, OntologyFormat format) throws IOException {
     LOGGER.trace("resource={} prefix={} format={}", resource, prefix, format);
-    Ontology ontology = new SimpleOntology();
     Path path = FileSystems.getDefault().getPath(resource).toAbsolutePath();
+    if (format == OntologyFormat.SNAPSHOT) {
+      return OntologySnapshot.open(path);
+    }
+    Ontology ontology = new SimpleOntology();
     try (InputStream in = Files.newInputStream(path)) {
       Model model = Rio.parse(in, prefix, format.getFormat());
       ontology.merge(model);
@@ -105,12 +137,62 @@ public class KnowledgeManager {
    */
   public static Ontology read(Reader reader, String prefix, OntologyFormat format) throws IOException {
     LOGGER.trace("reader={} prefix={} format={}", reader, prefix, format);
+    requireRdfFormat(format);
     Ontology ontology = new SimpleOntology();
     Model model = Rio.parse(reader, prefix, format.getFormat());
     ontology.merge(model);
     return ontology;
   }
 
+  /**
+   * Reads an ontology from a resource into a dictionary-encoded {@link CompactOntology}.
+   * Statements are streamed from the parser straight into the ontology, without an intermediate model.
+   * @param resource the resource to read.
+   * @param prefix the default prefix for the ontology.
+   * @param format the ontology format.
+   * @return the ontology.
+   * @throws IOException when ontology cannot be read.
+   */
+  public static CompactOntology readCompact(String resource, String prefix, OntologyFormat format)
+      throws IOException {
+    LOGGER.trace("resource={} prefix={} format={}", resource, prefix, format);
+    Path path = FileSystems.getDefault().getPath(resource).toAbsolutePath();
+    if (format == OntologyFormat.SNAPSHOT) {
+      return OntologySnapshot.open(path);
+    }
+    try (InputStream in = Files.newInputStream(path)) {
+      return readCompact(in, prefix, format);
+    }
+  }
+
+  /**
+   * Reads an ontology from an input stream into a dictionary-encoded {@link CompactOntology}.
+   * @param in the input stream to read.
+   * @param prefix the default prefix for the ontology.
+   * @param format the ontology format.
+   * @return the ontology.
+   * @throws IOException when ontology cannot be read.
+   */
+  public static CompactOntology readCompact(InputStream in, String prefix, OntologyFormat format)
+      throws IOException {
+    requireRdfFormat(format);
+    final CompactOntology ontology = new CompactOntology();
+    RDFParser parser = Rio.createParser(format.getFormat());
+    parser.setRDFHandler(new AbstractRDFHandler() {
+      @Override
+      public void handleNamespace(String nsPrefix, String uri) throws RDFHandlerException {
+        ontology.setNamespace(nsPrefix, uri);
+      }
+
+      @Override
+      public void handleStatement(Statement st) throws RDFHandlerException {
+        ontology.add(st.getSubject(), st.getPredicate(), st.getObject());
+      }
+    });
+    parser.parse(in, prefix);
+    return ontology;
+  }
+
   /**
    * Writes an ontology on a resource.
    * @param resource the resource to write on.
@@ -121,6 +203,10 @@ public class KnowledgeManager {
   public static void write(String resource, Ontology ontology, OntologyFormat format) throws IOException {
     LOGGER.trace("resource={} ontology={} format={}", resource, ontology, format);
     Path path = FileSystems.getDefault().getPath(resource).toAbsolutePath();
+    if (format == OntologyFormat.SNAPSHOT) {
+      OntologySnapshot.write(toCompact(ontology), path);
+      return;
+    }
     try (OutputStream out = Files.newOutputStream(path)) {
       Rio.write(ontology, out, format.getFormat());
     }
@@ -135,9 +221,54 @@ public class KnowledgeManager {
    */
   public static void write(Writer writer, Ontology ontology, OntologyFormat format) throws IOException {
     LOGGER.trace("writer={} ontology={} format={}", writer, ontology, format);
+    requireRdfFormat(format);
     Rio.write(ontology, writer, format.getFormat());
   }
 
+  /**
+   * Compiles the ontology in {@code source} into a binary snapshot, with its precomputed RDFS closure.
+   * @param source the ontology to compile.
+   * @param prefix the default prefix for the ontology.
+   * @param format the {@code source} format.
+   * @param target the snapshot to write.
+   * @return the compiled ontology.
+   * @throws IOException when the ontology cannot be read or the snapshot cannot be written.
+   */
+  public static CompactOntology compileSnapshot(String source, String prefix, OntologyFormat format, String target)
+      throws IOException {
+    LOGGER.trace("source={} prefix={} format={} target={}", source, prefix, format, target);
+    CompactOntology ontology = readCompact(source, prefix, format);
+    OntologySnapshot.write(ontology, FileSystems.getDefault().getPath(target).toAbsolutePath());
+    return ontology;
+  }
+
+  /**
+   * Returns {@code ontology} as a {@link CompactOntology}, copying it if needed.
+   * @param ontology the ontology.
+   * @return the compact ontology.
+   */
+  private static CompactOntology toCompact(Ontology ontology) {
+    if (ontology instanceof CompactOntology) {
+      return (CompactOntology) ontology;
+    }
+    CompactOntology compact = new CompactOntology(ontology.getName());
+    ontology.getNamespaces().forEach(compact::setNamespace);
+    compact.merge(ontology);
+    return compact;
+  }
+
+  /**
+   * Checks that {@code format} is an RDF serialization, i.e. can be streamed.
+   * @param format the ontology format.
+   * @throws IOException when {@code format} is not an RDF serialization.
+   */
+  private static void requireRdfFormat(OntologyFormat format) throws IOException {
+    if (format.getFormat() == null) {
+      throw new IOException(String.format("The %s ontology format can only be read from and written to files",
+          format.getName()));
+    }
+  }
+
   /**
    * Submits a SPARQL query to an ontology and retrieves the result.
    * @param ontology the ontology to address.
@@ -156,27 +287,108 @@ public class KnowledgeManager {
   }
 
   /**
-   * Submits a {@code ASK} SPARQL query to an ontology and retrieves the result.
-   * @param query the query to submit.
+   * Submits a SPARQL query to an ontology and retrieves the result, within {@code deadline}.
+   * The remaining time budget is enforced as the query maximum execution time.
    * @param ontology the ontology to address.
+   * @param query the query to submit.
+   * @param deadline the deadline to respect.
    * @return the query result.
+   * @throws QueryException when the query cannot be submitted.
+   * @throws OntoqaTimeoutException when the deadline expires before the query completes.
    */
-  public static QueryResult submitAsk(Ontology ontology, Query query) {
-    LOGGER.trace("query={}", query);
-
-    QueryResult result = new SimpleQueryResult();
-
-    Repository repo = new SailRepository(new ForwardChainingRDFSInferencer(new MemoryStore()));
+  public static QueryResult submit(Ontology ontology, Query query, Deadline deadline)
+      throws QueryException, OntoqaTimeoutException {
+    deadline.check("query submission");
+    try {
+      if (query.isAskType()) {
+        return submitAsk(ontology, query, deadline);
+      } else if (query.isSelectType()) {
+        return submitSelect(ontology, query, deadline);
+      } else {
+        throw new QueryException("Unrecognized query type.");
+      }
+    } catch (QueryInterruptedException exc) {
+      throw new OntoqaTimeoutException("Time budget exceeded during query evaluation: %s", exc.getMessage());
+    }
+  }
 
-    repo.initialize();
+  /**
+   * Submits a SPARQL query to an ontology, returning a lazy cursor over its result, within {@code deadline}.
+   * Values are pulled from the ontology as the cursor is consumed; the remaining time budget is enforced
+   * as the query maximum execution time, also while consuming it.
+   * @param ontology the ontology to address.
+   * @param query the query to submit.
+   * @param deadline the deadline to respect.
+   * @return the cursor, to be closed unless exhausted.
+   * @throws QueryException when the query cannot be submitted.
+   * @throws OntoqaTimeoutException when the deadline expires before the query is submitted, or while it is evaluated.
+   */
+  public static QueryCursor open(Ontology ontology, Query query, Deadline deadline)
+      throws QueryException, OntoqaTimeoutException {
+    deadline.check("query submission");
+    if (!query.isAskType() && !query.isSelectType()) {
+      throw new QueryException("Unrecognized query type.");
+    }
+    LOGGER.trace("query={} deadline={}", query, deadline);
+    try {
+      if (query.isAskType()) {
+        return new QueryCursor(submitAsk(ontology, query, deadline));
+      }
+      return getBackend(ontology).open(ontology, optimize(ontology, query).toString(), getVariableName(query),
+          deadline);
+    } catch (QueryInterruptedException exc) {
+      throw new OntoqaTimeoutException("Time budget exceeded during query evaluation: %s", exc.getMessage());
+    }
+  }
 
-    Repositories.consume(repo, new OntologyFiller(ontology));
+  /**
+   * Returns a copy of a {@code SELECT} query restricted to the page of solutions from {@code offset},
+   * at most {@code limit} long, combined with the query own {@code OFFSET} and {@code LIMIT}.
+   * Any other query is returned as is.
+   * @param query the query.
+   * @param offset the page offset.
+   * @param limit the page size; 0 or less, for no limit.
+   * @return the paginated query.
+   */
+  public static Query paginate(Query query, long offset, long limit) {
+    if (!query.isSelectType() || (offset <= 0 && limit <= 0)) {
+      return query;
+    }
+    Query paginated = query.cloneQuery();
+    final long baseOffset = query.hasOffset() ? query.getOffset() : 0;
+    paginated.setOffset(baseOffset + Math.max(offset, 0));
+    long pageLimit = (limit > 0) ? limit : Long.MAX_VALUE;
+    if (query.hasLimit()) {
+      pageLimit = Math.min(pageLimit, Math.max(query.getLimit() - Math.max(offset, 0), 0));
+    }
+    if (pageLimit != Long.MAX_VALUE) {
+      paginated.setLimit(pageLimit);
+    }
+    return paginated;
+  }
 
-    Repositories.consume(repo, new AskQuerySubmitter(query.toString(), result));
+  /**
+   * Submits a {@code ASK} SPARQL query to an ontology and retrieves the result.
+   * @param query the query to submit.
+   * @param ontology the ontology to address.
+   * @return the query result.
+   */
+  public static QueryResult submitAsk(Ontology ontology, Query query) {
+    return submitAsk(ontology, query, Deadline.NONE);
+  }
 
-    repo.shutDown();
+  /**
+   * Submits a {@code ASK} SPARQL query to an ontology and retrieves the result.
+   * @param query the query to submit.
+   * @param ontology the ontology to address.
+   * @param deadline the deadline to respect, enforced as the query maximum execution time.
+   * @return the query result.
+   * @throws QueryInterruptedException when the query exceeds {@code deadline}.
+   */
+  private static QueryResult submitAsk(Ontology ontology, Query query, Deadline deadline) {
+    LOGGER.trace("query={} deadline={}", query, deadline);
 
-    return result;
+    return getBackend(ontology).submitAsk(ontology, optimize(ontology, query).toString(), deadline);
   }
 
   /**
@@ -186,25 +398,42 @@ public class KnowledgeManager {
    * @return the query result.
    */
   public static QueryResult submitSelect(Ontology ontology, Query query) {
-    LOGGER.trace("query={}", query);
-
-    QueryResult result = new SimpleQueryResult();
-
-    Repository repo = new SailRepository(new ForwardChainingRDFSInferencer(new MemoryStore()));
-
-    repo.initialize();
+    return submitSelect(ontology, query, Deadline.NONE);
+  }
 
-    Repositories.consume(repo, new OntologyFiller(ontology));
+  /**
+   * Submits a {@code SELECT} SPARQL query to an ontology and retrieves the result.
+   * @param query the query to submit.
+   * @param ontology the ontology to address.
+   * @param deadline the deadline to respect, enforced as the query maximum execution time.
+   * @return the query result.
+   * @throws QueryInterruptedException when the query exceeds {@code deadline}.
+   */
+  private static QueryResult submitSelect(Ontology ontology, Query query, Deadline deadline) {
+    LOGGER.trace("query={} deadline={}", query, deadline);
 
     String variable = getVariableName(query);
 
     LOGGER.trace("Variable: {}", variable);
 
-    Repositories.consume(repo, new SelectQuerySubmitter(query.toString(), result, variable));
-
-    repo.shutDown();
+    return getBackend(ontology).submitSelect(ontology, optimize(ontology, query).toString(), variable, deadline);
+  }
 
-    return result;
+  /**
+   * Returns {@code query} optimized on the statistics of {@code ontology}, if available.
+   * @param ontology the ontology to address.
+   * @param query the query to submit.
+   * @return the optimized query.
+   * @see QueryOptimizer
+   */
+  private static Query optimize(Ontology ontology, Query query) {
+    OntologyStatistics statistics = null;
+    if (ontology instanceof CompactOntology) {
+      statistics = ((CompactOntology) ontology).getStatistics();
+    } else if (ontology instanceof ShardedOntology) {
+      statistics = ((ShardedOntology) ontology).getStatistics();
+    }
+    return QueryOptimizer.optimize(query, statistics);
   }
 
   /**
@@ -239,12 +468,80 @@ public class KnowledgeManager {
    * @return true, if the query is feasible with the ontology; false, otherwise.
    */
   public static boolean checkFeasibility2(Ontology ontology, Query query) {
-    final Set<Node> subjects = new HashSet<>();
-    final Set<Node> predicates = new HashSet<>();
-    final Set<Node> objects = new HashSet<>();
+    try {
+      return checkFeasibility2(ontology, query, Deadline.NONE);
+    } catch (OntoqaTimeoutException exc) {
+      LOGGER.warn(exc.getMessage());
+      return false;
+    }
+  }
 
-    final Map<Node, Node> predicateSubjects = new HashMap<>();
-    final Map<Node, Node> predicateObjects = new HashMap<>();
+  /**
+   * Checks the query feasibility against ontology, within {@code deadline}.
+   * @param ontology the ontology.
+   * @param query the query.
+   * @param deadline the deadline to respect.
+   * @return true, if the query is feasible with the ontology; false, otherwise.
+   * @throws OntoqaTimeoutException when the deadline expires before the check completes.
+   */
+  public static boolean checkFeasibility2(Ontology ontology, Query query, Deadline deadline)
+      throws OntoqaTimeoutException {
+    Query consistencyQuery = getFeasibilityProbe(query);
+
+    QueryResult qQueryResult;
+    try {
+      qQueryResult = KnowledgeManager.submit(ontology, consistencyQuery, deadline);
+    } catch (com.acmutv.ontoqa.core.exception.QueryException exc) {
+      LOGGER.warn(exc.getMessage());
+      return false;
+    }
+    Answer answer = qQueryResult.toAnswer();
+
+    if (SimpleAnswer.FALSE.equals(answer)) {
+      return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Checks the feasibility of several queries against ontology, within {@code deadline}.
+   * The feasibility probes are submitted to the backend as a single batch.
+   * @param ontology the ontology.
+   * @param queries the queries.
+   * @param deadline the deadline to respect.
+   * @return the feasibility of each query, in the same order.
+   * @throws OntoqaTimeoutException when the deadline expires before the check completes.
+   */
+  public static boolean[] checkFeasibility2(Ontology ontology, List<Query> queries, Deadline deadline)
+      throws OntoqaTimeoutException {
+    if (queries.isEmpty()) {
+      return new boolean[0];
+    }
+    deadline.check("query submission");
+    List<Query> probes = queries.stream()
+        .map(query -> optimize(ontology, getFeasibilityProbe(query)))
+        .collect(Collectors.toList());
+    try {
+      return getBackend(ontology).probe(ontology, probes, deadline);
+    } catch (QueryInterruptedException exc) {
+      throw new OntoqaTimeoutException("Time budget exceeded during query evaluation: %s", exc.getMessage());
+    }
+  }
+
+  /**
+   * Returns the {@code ASK} query checking that the triple patterns of {@code query} are consistent
+   * with the domain and range of their predicates.
+   * @param query the query.
+   * @return the feasibility probe.
+   */
+  private static Query getFeasibilityProbe(Query query) {
+    final Set<Node> subjects = new LinkedHashSet<>();
+    final Set<Node> predicates = new LinkedHashSet<>();
+    final Set<Node> objects = new LinkedHashSet<>();
+
+    final Map<Node, Node> predicateSubjects = new LinkedHashMap<>();
+    final Map<Node, Node> predicateObjects = new LinkedHashMap<>();
 
     ElementWalker.walk(query.getQueryPattern(),
         new ElementVisitorBase() {
@@ -269,8 +566,8 @@ public class KnowledgeManager {
     LOGGER.debug("predicateObjects: {}", predicateObjects);
 
     //int i = 0;
-    Set<String> statements = new HashSet<>();
-    Map<String,String> resourceToClassVar = new HashMap<>();
+    Set<String> statements = new LinkedHashSet<>();
+    Map<String,String> resourceToClassVar = new LinkedHashMap<>();
     for (Node predicate : predicates) {
       String subj_iri = predicateSubjects.get(predicate).toString();
       String obj_iri = predicateObjects.get(predicate).toString();
@@ -321,19 +618,6 @@ public class KnowledgeManager {
 
     LOGGER.debug("consistency query: {}", consistencyQuery);
 
-    QueryResult qQueryResult;
-    try {
-      qQueryResult = KnowledgeManager.submit(ontology, consistencyQuery);
-    } catch (com.acmutv.ontoqa.core.exception.QueryException exc) {
-      LOGGER.warn(exc.getMessage());
-      return false;
-    }
-    Answer answer = qQueryResult.toAnswer();
-
-    if (SimpleAnswer.FALSE.equals(answer)) {
-      return false;
-    }
-
-    return true;
+    return consistencyQuery;
   }
 }
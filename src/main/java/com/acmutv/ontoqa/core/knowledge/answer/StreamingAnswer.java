@@ -0,0 +1,230 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.answer;
+
+import com.acmutv.ontoqa.core.knowledge.query.QueryCursor;
+import org.eclipse.rdf4j.model.Value;
+
+import java.util.*;
+
+/**
+ * A lazy {@link Answer}, rendering the values of a {@link QueryCursor} as they are iterated,
+ * possibly after some values already read.
+ * Values are not retained while iterating: the answer can be iterated once, in a streaming way;
+ * any other list operation first drains the cursor into memory, and is only allowed before iteration.
+ * A failure reading the cursor while iterating, such as an expired deadline, ends the iteration, and is kept
+ * to be reported after the values already streamed.
+ * As {@link SimpleAnswer#NO_ANSWER}, an empty answer has the single value {@code "No answer"}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see QueryCursor
+ */
+public class StreamingAnswer extends AbstractList<String> implements Answer, AutoCloseable {
+
+  /**
+   * The values already read, rendered first.
+   */
+  private final List<String> head;
+
+  /**
+   * The values to render.
+   */
+  private final QueryCursor cursor;
+
+  /**
+   * The drained values; null, until some list operation requires them.
+   */
+  private List<String> values = null;
+
+  /**
+   * True, if the answer has already been iterated in a streaming way.
+   */
+  private boolean streamed = false;
+
+  /**
+   * The failure that ended the iteration; null, if none.
+   */
+  private RuntimeException failure = null;
+
+  /**
+   * Creates a lazy answer over {@code cursor}.
+   * @param cursor the values to render.
+   */
+  public StreamingAnswer(QueryCursor cursor) {
+    this(Collections.emptyList(), cursor);
+  }
+
+  /**
+   * Creates a lazy answer over {@code head}, then {@code cursor}.
+   * @param head the values already read, rendered first.
+   * @param cursor the values to render after {@code head}.
+   */
+  public StreamingAnswer(List<String> head, QueryCursor cursor) {
+    this.head = head;
+    this.cursor = cursor;
+  }
+
+  @Override
+  public Iterator<String> iterator() {
+    if (this.values != null) {
+      return this.values.iterator();
+    }
+    if (this.streamed) {
+      throw new IllegalStateException("The answer has already been streamed");
+    }
+    this.streamed = true;
+    return new Iterator<String>() {
+
+      private final Iterator<String> first = head.iterator();
+
+      private boolean empty = true;
+
+      @Override
+      public boolean hasNext() {
+        return this.first.hasNext() || this.more() || (this.empty && failure == null);
+      }
+
+      @Override
+      public String next() {
+        if (this.first.hasNext()) {
+          this.empty = false;
+          return this.first.next();
+        }
+        if (this.more()) {
+          this.empty = false;
+          return cursor.next().stringValue();
+        }
+        if (this.empty && failure == null) {
+          this.empty = false;
+          return SimpleAnswer.NO_ANSWER.get(0);
+        }
+        throw new NoSuchElementException();
+      }
+
+      /**
+       * Checks if the cursor has values left, keeping the failure reading it.
+       * @return true, if the cursor has values left; false, otherwise.
+       */
+      private boolean more() {
+        if (failure != null) {
+          return false;
+        }
+        try {
+          return cursor.hasNext();
+        } catch (RuntimeException exc) {
+          failure = exc;
+          return false;
+        }
+      }
+    };
+  }
+
+  /**
+   * Returns the failure that ended the iteration before the cursor was exhausted.
+   * @return the failure; null, if none.
+   */
+  public RuntimeException getFailure() {
+    return this.failure;
+  }
+
+  /**
+   * Reads at most {@code limit} values, in a streaming way.
+   * Unlike iteration, an empty page has no values.
+   * @param limit the maximum number of values to read.
+   * @return the page of values.
+   */
+  public SimpleAnswer take(int limit) {
+    if (this.streamed) {
+      throw new IllegalStateException("The answer has already been streamed");
+    }
+    this.streamed = true;
+    SimpleAnswer page = new SimpleAnswer();
+    page.addAll(this.head.subList(0, Math.min(limit, this.head.size())));
+    while (page.size() < limit && this.cursor.hasNext()) {
+      page.add(this.cursor.next().stringValue());
+    }
+    return page;
+  }
+
+  /**
+   * Checks if values remain to be read.
+   * @return true, if values remain to be read; false, otherwise.
+   */
+  public boolean hasMore() {
+    return this.cursor.hasNext();
+  }
+
+  @Override
+  public String get(int index) {
+    return this.drain().get(index);
+  }
+
+  @Override
+  public int size() {
+    return this.drain().size();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return this.drain().equals(other);
+  }
+
+  @Override
+  public int hashCode() {
+    return this.drain().hashCode();
+  }
+
+  @Override
+  public String toPrettyString() {
+    StringBuilder sb = new StringBuilder();
+    this.drain().forEach(e -> sb.append(e).append("\n"));
+    return sb.toString();
+  }
+
+  @Override
+  public void close() {
+    this.cursor.close();
+  }
+
+  /**
+   * Drains the cursor into memory, unless already done.
+   * @return the drained values.
+   */
+  private List<String> drain() {
+    if (this.values == null) {
+      if (this.streamed) {
+        throw new IllegalStateException("The answer has already been streamed");
+      }
+      List<String> drained = new ArrayList<>(this.head);
+      this.cursor.forEachRemaining(value -> drained.add(value.stringValue()));
+      this.values = drained.isEmpty() ? SimpleAnswer.NO_ANSWER : drained;
+    }
+    return this.values;
+  }
+}
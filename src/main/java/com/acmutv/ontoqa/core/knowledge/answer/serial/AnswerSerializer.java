@@ -0,0 +1,96 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.answer.serial;
+
+import com.acmutv.ontoqa.core.knowledge.answer.Answer;
+import com.acmutv.ontoqa.core.knowledge.answer.StreamingAnswer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * The streaming JSON serializer for {@link Answer}.
+ * Values are written one at a time, flushing the generator every {@link #FLUSH_THRESHOLD} values,
+ * so that answers with many values are sent while they are rendered.
+ * A {@link StreamingAnswer} is pulled from its query while written, and closed afterwards.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see Answer
+ */
+public class AnswerSerializer extends StdSerializer<Answer> {
+
+  /**
+   * The number of values written between two flushes.
+   */
+  public static final int FLUSH_THRESHOLD = 1024;
+
+  /**
+   * The singleton of {@link AnswerSerializer}.
+   */
+  private static AnswerSerializer instance;
+
+  /**
+   * Returns the singleton of {@link AnswerSerializer}.
+   * @return the singleton.
+   */
+  public static AnswerSerializer getInstance() {
+    if (instance == null) {
+      instance = new AnswerSerializer();
+    }
+    return instance;
+  }
+
+  /**
+   * Initializes the singleton of {@link AnswerSerializer}.
+   */
+  private AnswerSerializer() {
+    super((Class<Answer>) null);
+  }
+
+  @Override
+  public void serialize(Answer value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+    gen.writeStartArray();
+    int written = 0;
+    try {
+      for (String elem : value) {
+        gen.writeString(elem);
+        if (++written % FLUSH_THRESHOLD == 0) {
+          gen.flush();
+        }
+      }
+    } finally {
+      if (value instanceof StreamingAnswer) {
+        ((StreamingAnswer) value).close();
+      }
+    }
+    gen.writeEndArray();
+  }
+}
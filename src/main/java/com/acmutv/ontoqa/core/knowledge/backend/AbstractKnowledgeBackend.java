@@ -0,0 +1,166 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.backend;
+
+import com.acmutv.ontoqa.core.Deadline;
+import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
+import com.acmutv.ontoqa.core.knowledge.query.AskQuerySubmitter;
+import com.acmutv.ontoqa.core.knowledge.query.QueryCursor;
+import com.acmutv.ontoqa.core.knowledge.query.QueryResult;
+import com.acmutv.ontoqa.core.knowledge.query.SelectQuerySubmitter;
+import com.acmutv.ontoqa.core.knowledge.query.SimpleQueryResult;
+import org.apache.jena.query.Query;
+import org.eclipse.rdf4j.query.BooleanQuery;
+import org.eclipse.rdf4j.query.TupleQuery;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.RepositoryException;
+import org.eclipse.rdf4j.repository.base.RepositoryConnectionWrapper;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A {@link KnowledgeBackend} submitting queries through repository connections.
+ * Subclasses provide the connections, and may wrap every submission (e.g. to retry it).
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see KnowledgeBackend
+ */
+public abstract class AbstractKnowledgeBackend implements KnowledgeBackend {
+
+  /**
+   * Opens a connection to a repository entailing the RDFS closure of {@code ontology}.
+   * Closing the connection releases the repository.
+   * @param ontology the ontology to address.
+   * @return the connection.
+   */
+  protected abstract RepositoryConnection connect(Ontology ontology);
+
+  /**
+   * Opens a connection to the initialized repository {@code repo}, shutting it down when the connection is closed.
+   * @param repo the repository.
+   * @return the connection.
+   */
+  protected static RepositoryConnection connect(Repository repo) {
+    try {
+      return new RepositoryConnectionWrapper(repo, repo.getConnection()) {
+        @Override
+        public void close() throws RepositoryException {
+          try {
+            super.close();
+          } finally {
+            repo.shutDown();
+          }
+        }
+      };
+    } catch (RuntimeException exc) {
+      repo.shutDown();
+      throw exc;
+    }
+  }
+
+  /**
+   * Runs a submission, within {@code deadline}.
+   * The submission is self-contained, so that it can be run more than once; it reads the remaining time
+   * of {@code deadline} when run, so that every run gets only the time left.
+   * @param deadline the deadline to respect.
+   * @param submission the submission to run.
+   * @param <T> the type of the submission result.
+   * @return the submission result.
+   */
+  protected <T> T attempt(Deadline deadline, Supplier<T> submission) {
+    return submission.get();
+  }
+
+  @Override
+  public QueryResult submitSelect(Ontology ontology, String query, String variable, Deadline deadline) {
+    return this.attempt(deadline, () -> {
+      QueryResult result = new SimpleQueryResult();
+      SelectQuerySubmitter submitter = new SelectQuerySubmitter(query, result, variable);
+      submitter.setMaxExecutionTime(deadline.remainingSeconds());
+      try (RepositoryConnection conn = this.connect(ontology)) {
+        submitter.accept(conn);
+      }
+      return result;
+    });
+  }
+
+  @Override
+  public QueryResult submitAsk(Ontology ontology, String query, Deadline deadline) {
+    return this.attempt(deadline, () -> {
+      QueryResult result = new SimpleQueryResult();
+      AskQuerySubmitter submitter = new AskQuerySubmitter(query, result);
+      submitter.setMaxExecutionTime(deadline.remainingSeconds());
+      try (RepositoryConnection conn = this.connect(ontology)) {
+        submitter.accept(conn);
+      }
+      return result;
+    });
+  }
+
+  @Override
+  public QueryCursor open(Ontology ontology, String query, String variable, Deadline deadline) {
+    return this.attempt(deadline, () -> {
+      RepositoryConnection conn = this.connect(ontology);
+      try {
+        TupleQuery tupleQuery = conn.prepareTupleQuery(query);
+        tupleQuery.setIncludeInferred(true);
+        tupleQuery.setMaxExecutionTime(deadline.remainingSeconds());
+        return new QueryCursor(conn, tupleQuery.evaluate(), variable);
+      } catch (RuntimeException exc) {
+        conn.close();
+        throw exc;
+      }
+    });
+  }
+
+  /**
+   * Evaluates a batch of {@code ASK} SPARQL queries one after the other, on the same connection.
+   * @param ontology the ontology to address.
+   * @param probes the queries to evaluate.
+   * @param deadline the deadline to respect, enforced as the maximum execution time of the whole batch.
+   * @return the result of each query, in the same order.
+   */
+  @Override
+  public boolean[] probe(Ontology ontology, List<Query> probes, Deadline deadline) {
+    return this.attempt(deadline, () -> {
+      final boolean[] results = new boolean[probes.size()];
+      try (RepositoryConnection conn = this.connect(ontology)) {
+        for (int i = 0; i < results.length; i++) {
+          BooleanQuery query = conn.prepareBooleanQuery(probes.get(i).toString());
+          query.setIncludeInferred(true);
+          query.setMaxExecutionTime(deadline.remainingSeconds());
+          results[i] = query.evaluate();
+        }
+      }
+      return results;
+    });
+  }
+}
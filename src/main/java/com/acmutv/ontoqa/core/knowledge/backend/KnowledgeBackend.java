@@ -0,0 +1,94 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.backend;
+
+import com.acmutv.ontoqa.core.Deadline;
+import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
+import com.acmutv.ontoqa.core.knowledge.query.QueryCursor;
+import com.acmutv.ontoqa.core.knowledge.query.QueryResult;
+import org.apache.jena.query.Query;
+
+import java.util.List;
+
+/**
+ * A store answering SPARQL queries on the RDFS closure of an ontology.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see MemoryKnowledgeBackend
+ * @see SparqlKnowledgeBackend
+ */
+public interface KnowledgeBackend {
+
+  /**
+   * Submits a {@code SELECT} SPARQL query and retrieves the values of {@code variable}.
+   * @param ontology the ontology to address.
+   * @param query the query to submit.
+   * @param variable the variable to retrieve.
+   * @param deadline the deadline to respect, enforced as the query maximum execution time.
+   * @return the query result.
+   * @throws org.eclipse.rdf4j.query.QueryInterruptedException when the query exceeds {@code deadline}.
+   */
+  QueryResult submitSelect(Ontology ontology, String query, String variable, Deadline deadline);
+
+  /**
+   * Submits a {@code ASK} SPARQL query and retrieves the result.
+   * @param ontology the ontology to address.
+   * @param query the query to submit.
+   * @param deadline the deadline to respect, enforced as the query maximum execution time.
+   * @return the query result.
+   * @throws org.eclipse.rdf4j.query.QueryInterruptedException when the query exceeds {@code deadline}.
+   */
+  QueryResult submitAsk(Ontology ontology, String query, Deadline deadline);
+
+  /**
+   * Submits a {@code SELECT} SPARQL query, returning a lazy cursor over the values of {@code variable}.
+   * @param ontology the ontology to address.
+   * @param query the query to submit.
+   * @param variable the variable to retrieve.
+   * @param deadline the deadline to respect, enforced as the query maximum execution time.
+   * @return the cursor, to be closed unless exhausted.
+   * @throws org.eclipse.rdf4j.query.QueryInterruptedException when the query exceeds {@code deadline}.
+   */
+  QueryCursor open(Ontology ontology, String query, String variable, Deadline deadline);
+
+  /**
+   * Evaluates a batch of {@code ASK} SPARQL queries (e.g. feasibility probes) at once.
+   * @param ontology the ontology to address.
+   * @param probes the queries to evaluate.
+   * @param deadline the deadline to respect, enforced as the maximum execution time of the whole batch.
+   * @return the result of each query, in the same order.
+   * @throws org.eclipse.rdf4j.query.QueryInterruptedException when the batch exceeds {@code deadline}.
+   */
+  boolean[] probe(Ontology ontology, List<Query> probes, Deadline deadline);
+
+  /**
+   * Releases the resources held by the backend.
+   */
+  void shutDown();
+}
@@ -0,0 +1,86 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.backend;
+
+import com.acmutv.ontoqa.core.knowledge.ontology.CompactOntology;
+import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
+import com.acmutv.ontoqa.core.knowledge.ontology.OntologyFiller;
+import com.acmutv.ontoqa.core.knowledge.ontology.ReasoningMode;
+import com.acmutv.ontoqa.core.knowledge.sail.CompactSail;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.util.Repositories;
+import org.eclipse.rdf4j.sail.inferencer.fc.ForwardChainingRDFSInferencer;
+import org.eclipse.rdf4j.sail.memory.MemoryStore;
+
+/**
+ * A {@link KnowledgeBackend} querying the ontology in the app heap.
+ * A {@link CompactOntology} is queried in place, as set by its {@link ReasoningMode}: on its cached closure,
+ * or on its asserted triples rewriting patterns against its schema hierarchy; any other ontology
+ * is loaded into a fresh in-memory store with forward-chaining RDFS inference.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see KnowledgeBackend
+ */
+public class MemoryKnowledgeBackend extends AbstractKnowledgeBackend {
+
+  @Override
+  protected RepositoryConnection connect(Ontology ontology) {
+    return connect(getRepository(ontology));
+  }
+
+  @Override
+  public void shutDown() {
+    /* nothing to release: repositories are released with their connections */
+  }
+
+  /**
+   * Returns an initialized repository entailing the RDFS closure of {@code ontology}.
+   * @param ontology the ontology to address.
+   * @return the initialized repository.
+   */
+  private static Repository getRepository(Ontology ontology) {
+    Repository repo;
+    if (ontology instanceof CompactOntology) {
+      CompactOntology compact = (CompactOntology) ontology;
+      if (compact.getReasoningMode() == ReasoningMode.REWRITING) {
+        repo = new SailRepository(new CompactSail(compact, true));
+      } else {
+        repo = new SailRepository(new CompactSail(compact.getRdfsClosure()));
+      }
+      repo.initialize();
+    } else {
+      repo = new SailRepository(new ForwardChainingRDFSInferencer(new MemoryStore()));
+      repo.initialize();
+      Repositories.consume(repo, new OntologyFiller(ontology));
+    }
+    return repo;
+  }
+}
@@ -0,0 +1,65 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.backend;
+
+import com.acmutv.ontoqa.core.knowledge.ontology.SimpleOntology;
+import lombok.EqualsAndHashCode;
+
+/**
+ * An ontology served by a remote SPARQL endpoint.
+ * No statement is held locally: queries on it are submitted to the endpoint by its {@link SparqlKnowledgeBackend}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see SparqlKnowledgeBackend
+ */
+@EqualsAndHashCode(callSuper = true)
+public class RemoteOntology extends SimpleOntology {
+
+  /**
+   * The backend querying the endpoint.
+   */
+  private final SparqlKnowledgeBackend backend;
+
+  /**
+   * Creates the ontology served by the endpoint of {@code backend}.
+   * @param backend the backend querying the endpoint.
+   */
+  public RemoteOntology(SparqlKnowledgeBackend backend) {
+    super(backend.getEndpoint());
+    this.backend = backend;
+  }
+
+  /**
+   * Returns the backend querying the endpoint.
+   * @return the backend.
+   */
+  public SparqlKnowledgeBackend getBackend() {
+    return this.backend;
+  }
+}
@@ -0,0 +1,285 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.knowledge.backend;
+
+import com.acmutv.ontoqa.core.Deadline;
+import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
+import com.acmutv.ontoqa.core.knowledge.ontology.ShardedOntology;
+import com.acmutv.ontoqa.core.knowledge.query.AskQuerySubmitter;
+import com.acmutv.ontoqa.core.knowledge.query.QueryResult;
+import com.acmutv.ontoqa.core.knowledge.query.SelectQuerySubmitter;
+import com.acmutv.ontoqa.core.knowledge.query.SimpleQueryResult;
+import com.acmutv.ontoqa.core.knowledge.sail.CompactSail;
+import com.acmutv.ontoqa.core.knowledge.sail.ShardedTripleSource;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.sparql.core.TriplePath;
+import org.apache.jena.sparql.expr.Expr;
+import org.apache.jena.sparql.expr.ExprFunction;
+import org.apache.jena.sparql.expr.ExprFunctionOp;
+import org.apache.jena.sparql.syntax.*;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.impl.BooleanLiteral;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A {@link KnowledgeBackend} querying a {@link ShardedOntology} in the app heap, evaluating its shards in parallel.
+ * Queries whose patterns all share the same subject (i.e. star-shaped basic graph patterns, as
+ * the ones produced for most questions) are evaluated as a whole on the shards: on the only shard
+ * homing a constant subject, or on every shard in parallel, gathering their solutions, for a variable subject.
+ * Any other query is evaluated on a {@link ShardedTripleSource}, so that joins across shards are correct.
+ * Feasibility probes are evaluated in parallel.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see ShardedOntology
+ */
+public class ShardedKnowledgeBackend extends AbstractKnowledgeBackend {
+
+  @Override
+  protected RepositoryConnection connect(Ontology ontology) {
+    final ShardedOntology sharded = asSharded(ontology);
+    return connect(sharded, new ShardedTripleSource(sharded));
+  }
+
+  @Override
+  public QueryResult submitSelect(Ontology ontology, String query, String variable, Deadline deadline) {
+    final ShardedOntology sharded = asSharded(ontology);
+    final Query parsed = QueryFactory.create(query);
+    final Node subject = getStarSubject(parsed);
+    if (subject == null || (parsed.isDistinct() && parsed.getProjectVars().size() != 1)) {
+      return super.submitSelect(ontology, query, variable, deadline);
+    }
+    if (subject.isURI()) {
+      final int shard = sharded.shardOf(SimpleValueFactory.getInstance().createIRI(subject.getURI()));
+      return (shard < 0) ? new SimpleQueryResult() : select(sharded, shard, query, variable, deadline);
+    }
+    final List<QueryResult> gathered = IntStream.range(0, sharded.getShardCount()).parallel()
+        .mapToObj(i -> select(sharded, i, query, variable, deadline))
+        .collect(Collectors.toList());
+    final QueryResult result = new SimpleQueryResult();
+    if (parsed.isDistinct()) {
+      final Set<Value> distinct = new LinkedHashSet<>();
+      gathered.forEach(distinct::addAll);
+      result.addAll(distinct);
+    } else {
+      gathered.forEach(result::addAll);
+    }
+    return result;
+  }
+
+  @Override
+  public QueryResult submitAsk(Ontology ontology, String query, Deadline deadline) {
+    final QueryResult result = new SimpleQueryResult();
+    result.add(BooleanLiteral.valueOf(this.ask(asSharded(ontology), QueryFactory.create(query), deadline)));
+    return result;
+  }
+
+  @Override
+  public boolean[] probe(Ontology ontology, List<Query> probes, Deadline deadline) {
+    final ShardedOntology sharded = asSharded(ontology);
+    final boolean[] results = new boolean[probes.size()];
+    IntStream.range(0, results.length).parallel()
+        .forEach(i -> results[i] = this.ask(sharded, probes.get(i), deadline));
+    return results;
+  }
+
+  @Override
+  public void shutDown() {
+    /* nothing to release: repositories are released with their connections */
+  }
+
+  /**
+   * Evaluates an {@code ASK} query, on the shards when its patterns all share the same subject.
+   * @param ontology the ontology to address.
+   * @param query the query.
+   * @param deadline the deadline to respect.
+   * @return the query result.
+   */
+  private boolean ask(ShardedOntology ontology, Query query, Deadline deadline) {
+    final String sparql = query.toString();
+    final Node subject = getStarSubject(query);
+    if (subject == null) {
+      return ask(connect(ontology, new ShardedTripleSource(ontology)), sparql, deadline);
+    }
+    if (subject.isURI()) {
+      final int shard = ontology.shardOf(SimpleValueFactory.getInstance().createIRI(subject.getURI()));
+      return shard >= 0 && ask(connect(ontology, new ShardedTripleSource(ontology, shard)), sparql, deadline);
+    }
+    return IntStream.range(0, ontology.getShardCount()).parallel()
+        .anyMatch(i -> ask(connect(ontology, new ShardedTripleSource(ontology, i)), sparql, deadline));
+  }
+
+  /**
+   * Evaluates a {@code SELECT} query on a single shard.
+   * @param ontology the ontology to address.
+   * @param shard the shard index.
+   * @param query the query.
+   * @param variable the variable to collect.
+   * @param deadline the deadline to respect.
+   * @return the query result.
+   */
+  private static QueryResult select(ShardedOntology ontology, int shard, String query, String variable,
+                                    Deadline deadline) {
+    final QueryResult result = new SimpleQueryResult();
+    final SelectQuerySubmitter submitter = new SelectQuerySubmitter(query, result, variable);
+    submitter.setMaxExecutionTime(deadline.remainingSeconds());
+    try (RepositoryConnection conn = connect(ontology, new ShardedTripleSource(ontology, shard))) {
+      submitter.accept(conn);
+    }
+    return result;
+  }
+
+  /**
+   * Evaluates an {@code ASK} query on {@code conn}, closing it.
+   * @param conn the connection.
+   * @param query the query.
+   * @param deadline the deadline to respect.
+   * @return the query result.
+   */
+  private static boolean ask(RepositoryConnection conn, String query, Deadline deadline) {
+    final QueryResult result = new SimpleQueryResult();
+    final AskQuerySubmitter submitter = new AskQuerySubmitter(query, result);
+    submitter.setMaxExecutionTime(deadline.remainingSeconds());
+    try (RepositoryConnection c = conn) {
+      submitter.accept(c);
+    }
+    return ((BooleanLiteral) result.get(0)).booleanValue();
+  }
+
+  /**
+   * Opens a connection to a repository evaluating queries on {@code tripleSource}.
+   * Join ordering relies on the cardinalities counted on the shards.
+   * @param ontology the ontology to address.
+   * @param tripleSource the triple source reading the shards.
+   * @return the connection.
+   */
+  private static RepositoryConnection connect(ShardedOntology ontology, ShardedTripleSource tripleSource) {
+    final Repository repo = new SailRepository(new CompactSail(ontology.getOntology(), tripleSource,
+        ontology::count));
+    repo.initialize();
+    return connect(repo);
+  }
+
+  /**
+   * Returns the subject shared by all the patterns of {@code query}, if they can be evaluated shard by shard.
+   * That is the case when the query pattern is a conjunction of triple patterns with the same subject
+   * (a variable or an IRI) and of filters not nesting other patterns, and its solutions need no further
+   * processing across shards (no aggregation, ordering, slicing or inline data).
+   * @param query the query.
+   * @return the shared subject; null, if the query cannot be evaluated shard by shard.
+   */
+  static Node getStarSubject(Query query) {
+    if (!(query.isSelectType() || query.isAskType()) || query.hasAggregators() || query.hasGroupBy()
+        || query.hasHaving() || query.hasOrderBy() || query.hasLimit() || query.hasOffset() || query.hasValues()
+        || query.getQueryPattern() == null) {
+      return null;
+    }
+    final List<Node> subjects = new ArrayList<>();
+    if (!collectSubjects(query.getQueryPattern(), subjects) || subjects.isEmpty()) {
+      return null;
+    }
+    final Node subject = subjects.get(0);
+    if (!(subject.isVariable() || subject.isURI()) || subjects.stream().anyMatch(s -> !s.equals(subject))) {
+      return null;
+    }
+    return subject;
+  }
+
+  /**
+   * Collects the subjects of the triple patterns in {@code element}.
+   * @param element the query pattern element.
+   * @param subjects the subjects collected so far.
+   * @return true, if {@code element} is a conjunction of triple patterns and simple filters; false, otherwise.
+   */
+  private static boolean collectSubjects(Element element, List<Node> subjects) {
+    if (element instanceof ElementGroup) {
+      for (Element child : ((ElementGroup) element).getElements()) {
+        if (!collectSubjects(child, subjects)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (element instanceof ElementPathBlock) {
+      for (TriplePath path : ((ElementPathBlock) element).getPattern().getList()) {
+        if (!path.isTriple()) {
+          return false;
+        }
+        subjects.add(path.getSubject());
+      }
+      return true;
+    }
+    if (element instanceof ElementTriplesBlock) {
+      for (Triple triple : ((ElementTriplesBlock) element).getPattern().getList()) {
+        subjects.add(triple.getSubject());
+      }
+      return true;
+    }
+    return element instanceof ElementFilter && isSimple(((ElementFilter) element).getExpr());
+  }
+
+  /**
+   * Checks if {@code expr} nests no graph pattern (e.g. {@code EXISTS}).
+   * @param expr the expression.
+   * @return true, if {@code expr} nests no graph pattern; false, otherwise.
+   */
+  private static boolean isSimple(Expr expr) {
+    if (expr instanceof ExprFunctionOp) {
+      return false;
+    }
+    if (expr instanceof ExprFunction) {
+      return ((ExprFunction) expr).getArgs().stream().allMatch(ShardedKnowledgeBackend::isSimple);
+    }
+    return true;
+  }
+
+  /**
+   * Returns {@code ontology} as a {@link ShardedOntology}.
+   * @param ontology the ontology.
+   * @return the sharded ontology.
+   * @throws IllegalArgumentException when {@code ontology} is not sharded.
+   */
+  private static ShardedOntology asSharded(Ontology ontology) {
+    if (!(ontology instanceof ShardedOntology)) {
+      throw new IllegalArgumentException("The sharded backend can only query sharded ontologies");
+    }
+    return (ShardedOntology) ontology;
+  }
+}
@@ -0,0 +1,285 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.backend;
+
+import com.acmutv.ontoqa.core.Deadline;
+import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.sparql.core.Var;
+import org.apache.jena.sparql.expr.NodeValue;
+import org.apache.jena.sparql.syntax.ElementGroup;
+import org.apache.jena.sparql.syntax.ElementSubQuery;
+import org.apache.jena.sparql.syntax.ElementUnion;
+import org.eclipse.rdf4j.http.protocol.UnauthorizedException;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.QueryInterruptedException;
+import org.eclipse.rdf4j.query.TupleQuery;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.RepositoryException;
+import org.eclipse.rdf4j.repository.sparql.SPARQLRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A {@link KnowledgeBackend} querying a remote SPARQL 1.1 endpoint, which serves the ontology
+ * and provides its RDFS entailment.
+ * Requests share a pool of keep-alive HTTP connections and are bounded by a timeout; those failing
+ * for transient reasons (e.g. connection errors, server errors) are retried with exponential backoff,
+ * as long as the deadline of the request leaves time for the backoff and a further attempt.
+ * Feasibility probes are batched into a single request per {@link #BATCH_SIZE} probes.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see KnowledgeBackend
+ */
+public class SparqlKnowledgeBackend extends AbstractKnowledgeBackend {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SparqlKnowledgeBackend.class);
+
+  /**
+   * The maximum number of probes submitted in a single request.
+   */
+  public static final int BATCH_SIZE = 32;
+
+  /**
+   * The delay (milliseconds) before the first retry, doubled at every further retry.
+   */
+  public static final long RETRY_BACKOFF = 100;
+
+  /**
+   * The minimum time (milliseconds) worth a retry, as query execution times are bounded in seconds.
+   */
+  public static final long MIN_ATTEMPT_TIME = 1000;
+
+  /**
+   * The variable binding the index of satisfied probes in a batch.
+   */
+  private static final String PROBE_VARIABLE = "probe";
+
+  /**
+   * The endpoint URL.
+   */
+  private final String endpoint;
+
+  /**
+   * The HTTP client, pooling connections to the endpoint.
+   */
+  private final CloseableHttpClient client;
+
+  /**
+   * The repository proxying the endpoint.
+   */
+  private final SPARQLRepository repository;
+
+  /**
+   * The number of times a failed request is retried.
+   */
+  private final int retries;
+
+  /**
+   * Creates a backend querying the SPARQL endpoint at {@code endpoint}.
+   * @param endpoint the endpoint URL.
+   * @param maxConnections the maximum number of pooled connections.
+   * @param timeout the timeout (milliseconds) for connecting and for waiting for data; 0 means no limit.
+   * @param retries the number of times a failed request is retried.
+   */
+  public SparqlKnowledgeBackend(String endpoint, int maxConnections, long timeout, int retries) {
+    this.endpoint = endpoint;
+    this.retries = retries;
+    PoolingHttpClientConnectionManager pool = new PoolingHttpClientConnectionManager();
+    pool.setMaxTotal(maxConnections);
+    pool.setDefaultMaxPerRoute(maxConnections);
+    RequestConfig config = RequestConfig.custom()
+        .setConnectTimeout((int) timeout)
+        .setConnectionRequestTimeout((int) timeout)
+        .setSocketTimeout((int) timeout)
+        .build();
+    this.client = HttpClients.custom()
+        .setConnectionManager(pool)
+        .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+        .setDefaultRequestConfig(config)
+        .build();
+    this.repository = new SPARQLRepository(endpoint);
+    this.repository.setHttpClient(this.client);
+    this.repository.initialize();
+  }
+
+  /**
+   * Returns the endpoint URL.
+   * @return the endpoint URL.
+   */
+  public String getEndpoint() {
+    return this.endpoint;
+  }
+
+  /**
+   * Opens a connection to the endpoint; {@code ontology} is not used, as the endpoint serves its own.
+   * @param ontology the ontology to address.
+   * @return the connection.
+   */
+  @Override
+  protected RepositoryConnection connect(Ontology ontology) {
+    return this.repository.getConnection();
+  }
+
+  /**
+   * Runs a submission within {@code deadline}, retrying it with exponential backoff when it fails for transient
+   * reasons. Every attempt gets the time left to {@code deadline}; no retry is made when that time cannot cover
+   * the backoff and {@link #MIN_ATTEMPT_TIME}.
+   * @param deadline the deadline to respect.
+   * @param submission the submission to run.
+   * @param <T> the type of the submission result.
+   * @return the submission result.
+   */
+  @Override
+  protected <T> T attempt(Deadline deadline, Supplier<T> submission) {
+    for (int attempt = 0; ; attempt++) {
+      try {
+        return submission.get();
+      } catch (RuntimeException exc) {
+        if (attempt >= this.retries || !isTransient(exc)) {
+          throw exc;
+        }
+        final long backoff = RETRY_BACKOFF << attempt;
+        if (deadline.remaining() < backoff + MIN_ATTEMPT_TIME) {
+          LOGGER.warn("Request to {} failed (attempt {} of {}), no time left to retry: {}",
+              this.endpoint, attempt + 1, this.retries + 1, exc.getMessage());
+          throw exc;
+        }
+        LOGGER.warn("Request to {} failed (attempt {} of {}), retrying in {} ms: {}",
+            this.endpoint, attempt + 1, this.retries + 1, backoff, exc.getMessage());
+        try {
+          Thread.sleep(backoff);
+        } catch (InterruptedException interrupt) {
+          Thread.currentThread().interrupt();
+          throw exc;
+        }
+      }
+    }
+  }
+
+  /**
+   * Evaluates a batch of {@code ASK} SPARQL queries, submitting them {@link #BATCH_SIZE} at a time.
+   * Every request is a single {@code SELECT} query, whose union branches bind the index of each satisfied probe.
+   * @param ontology the ontology to address.
+   * @param probes the queries to evaluate.
+   * @param deadline the deadline to respect, enforced as the maximum execution time of every request.
+   * @return the result of each query, in the same order.
+   */
+  @Override
+  public boolean[] probe(Ontology ontology, List<Query> probes, Deadline deadline) {
+    final boolean[] results = new boolean[probes.size()];
+    for (int from = 0; from < results.length; from += BATCH_SIZE) {
+      final int offset = from;
+      final Query batch = batch(probes.subList(from, Math.min(from + BATCH_SIZE, results.length)));
+      LOGGER.trace("Probing {}: {}", this.endpoint, batch);
+      this.attempt(deadline, () -> {
+        try (RepositoryConnection conn = this.connect(ontology)) {
+          TupleQuery query = conn.prepareTupleQuery(batch.toString());
+          query.setIncludeInferred(true);
+          query.setMaxExecutionTime(deadline.remainingSeconds());
+          try (TupleQueryResult solutions = query.evaluate()) {
+            while (solutions.hasNext()) {
+              BindingSet solution = solutions.next();
+              results[offset + ((Literal) solution.getValue(PROBE_VARIABLE)).intValue()] = true;
+            }
+          }
+        }
+        return results;
+      });
+    }
+    return results;
+  }
+
+  @Override
+  public void shutDown() {
+    try {
+      this.repository.shutDown();
+    } finally {
+      try {
+        this.client.close();
+      } catch (IOException exc) {
+        LOGGER.warn(exc.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Merges {@code ASK} queries into a single {@code SELECT} query, binding the index of each satisfied query.
+   * Each query becomes a union branch: a sub-query on its pattern, limited to one solution.
+   * @param probes the queries to merge.
+   * @return the merged query.
+   */
+  private static Query batch(List<Query> probes) {
+    Query batch = QueryFactory.make();
+    batch.setQuerySelectType();
+    batch.setDistinct(true);
+    batch.addResultVar(PROBE_VARIABLE);
+    ElementUnion union = new ElementUnion();
+    for (int i = 0; i < probes.size(); i++) {
+      Query probe = probes.get(i);
+      Query branch = QueryFactory.make();
+      branch.setQuerySelectType();
+      branch.addResultVar(Var.alloc(PROBE_VARIABLE), NodeValue.makeInteger(i));
+      branch.setQueryPattern(probe.getQueryPattern());
+      branch.setLimit(1);
+      union.addElement(new ElementSubQuery(branch));
+      batch.getPrefixMapping().setNsPrefixes(probe.getPrefixMapping());
+    }
+    ElementGroup pattern = new ElementGroup();
+    pattern.addElement(union);
+    batch.setQueryPattern(pattern);
+    return batch;
+  }
+
+  /**
+   * Checks if a request failed for transient reasons, so that it is worth retrying.
+   * Malformed queries, unauthorized requests and expired execution times are not transient.
+   * @param exc the request failure.
+   * @return true, if the failure is transient; false, otherwise.
+   */
+  private static boolean isTransient(RuntimeException exc) {
+    if (exc instanceof QueryInterruptedException || exc instanceof UnauthorizedException) {
+      return false;
+    }
+    return exc instanceof QueryEvaluationException || exc instanceof RepositoryException;
+  }
+}
@@ -0,0 +1,782 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.ontology;
+
+import org.eclipse.rdf4j.model.*;
+import org.eclipse.rdf4j.model.impl.AbstractModel;
+import org.eclipse.rdf4j.model.impl.LinkedHashModel;
+import org.eclipse.rdf4j.model.impl.SimpleNamespace;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+
+import java.nio.IntBuffer;
+import java.util.*;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * This class realizes an ontology as a dictionary-encoded triple store.
+ * Terms are encoded once in a {@link TermDictionary}; triples are kept as integer rows in the sorted
+ * permutations of a {@link TripleIndex}, which also keeps the sequence number of every triple.
+ * Patterns are matched in index order; only iterating the whole model follows insertion order.
+ * Changes are buffered and merged into a new index on the next read, so readers always work on an immutable index.
+ * Only the default graph is kept: statement contexts are ignored.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see TermDictionary
+ * @see TripleIndex
+ */
+public class CompactOntology extends AbstractModel implements Ontology {
+
+  private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+  private String name = null;
+
+  /**
+   * The term dictionary.
+   */
+  private final TermDictionary dictionary;
+
+  /**
+   * The namespaces.
+   */
+  private final Set<Namespace> namespaces = new LinkedHashSet<>();
+
+  /**
+   * The current index.
+   */
+  private volatile TripleIndex index;
+
+  /**
+   * The next sequence number; -1, until the first addition, when it is taken from the index.
+   */
+  private int sequence = -1;
+
+  /**
+   * The triples added since the last merge, with their sequence numbers.
+   */
+  private final IntList pendingAdds = new IntList();
+
+  /**
+   * The open-addressing hash table of the pending additions, as row numbers + 1; null, until first needed.
+   */
+  private int[] pendingSlots = null;
+
+  /**
+   * The number of pending additions in {@link #pendingSlots}.
+   */
+  private int pendingIndexed = 0;
+
+  /**
+   * The triples removed since the last merge.
+   */
+  private final IntList pendingRemoves = new IntList();
+
+  /**
+   * The RDFS closure, computed on demand.
+   */
+  private volatile CompactOntology closure = null;
+
+  /**
+   * The RDFS schema hierarchy, computed on demand.
+   */
+  private volatile RdfsSchema schema = null;
+
+  /**
+   * The statistics for query optimization, computed on demand.
+   */
+  private volatile OntologyStatistics statistics = null;
+
+  /**
+   * How RDFS entailment is provided when this ontology is queried.
+   */
+  private volatile ReasoningMode reasoningMode = ReasoningMode.MATERIALIZATION;
+
+  public CompactOntology() {
+    this(null);
+  }
+
+  public CompactOntology(String name) {
+    this(name, new TermDictionary(), TripleIndex.EMPTY);
+  }
+
+  /**
+   * Creates an ontology over an existing dictionary and index.
+   * @param name the ontology name.
+   * @param dictionary the term dictionary.
+   * @param index the triple index, encoded with {@code dictionary}.
+   */
+  public CompactOntology(String name, TermDictionary dictionary, TripleIndex index) {
+    this.name = name;
+    this.dictionary = dictionary;
+    this.index = index;
+  }
+
+  @Override
+  public String getName() {
+    return this.name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Returns the term dictionary.
+   * @return the term dictionary.
+   */
+  public TermDictionary getDictionary() {
+    return this.dictionary;
+  }
+
+  /**
+   * Returns the current index, merging pending changes first.
+   * @return the current index.
+   */
+  public TripleIndex getIndex() {
+    TripleIndex current = this.index;
+    if (this.pendingAdds.size() == 0 && this.pendingRemoves.size() == 0) {
+      return current;
+    }
+    synchronized (this) {
+      this.flush();
+      return this.index;
+    }
+  }
+
+  /**
+   * Merges pending changes into a new index.
+   */
+  private synchronized void flush() {
+    if (this.pendingAdds.size() == 0 && this.pendingRemoves.size() == 0) {
+      return;
+    }
+    this.index = this.index.apply(this.pendingAdds.array(), this.pendingAdds.size() / TripleIndex.SEQUENCED_ROW,
+        this.pendingRemoves.array(), this.pendingRemoves.size() / TripleIndex.ROW);
+    this.pendingAdds.clear();
+    this.pendingRemoves.clear();
+    this.pendingSlots = null;
+    this.pendingIndexed = 0;
+  }
+
+  /**
+   * Checks if a triple is among the pending additions, hashing the ones added since the last check.
+   * @param s the subject id.
+   * @param p the predicate id.
+   * @param o the object id.
+   * @return true, if the triple is pending; false, otherwise.
+   */
+  private boolean isPending(int s, int p, int o) {
+    final int rows = this.pendingAdds.size() / TripleIndex.SEQUENCED_ROW;
+    if (rows == 0) {
+      return false;
+    }
+    if (this.pendingSlots == null || rows * 2 > this.pendingSlots.length) {
+      int capacity = 64;
+      while (capacity < rows * 4) capacity <<= 1;
+      this.pendingSlots = new int[capacity];
+      this.pendingIndexed = 0;
+    }
+    final int[] adds = this.pendingAdds.array();
+    final int mask = this.pendingSlots.length - 1;
+    for (; this.pendingIndexed < rows; this.pendingIndexed++) {
+      final int row = this.pendingIndexed * TripleIndex.SEQUENCED_ROW;
+      int slot = hash(adds[row], adds[row + 1], adds[row + 2]) & mask;
+      while (this.pendingSlots[slot] != 0) slot = (slot + 1) & mask;
+      this.pendingSlots[slot] = this.pendingIndexed + 1;
+    }
+    for (int slot = hash(s, p, o) & mask; this.pendingSlots[slot] != 0; slot = (slot + 1) & mask) {
+      final int row = (this.pendingSlots[slot] - 1) * TripleIndex.SEQUENCED_ROW;
+      if (adds[row] == s && adds[row + 1] == p && adds[row + 2] == o) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int hash(int s, int p, int o) {
+    final int h = (s * 31 + p) * 31 + o;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Returns the RDFS closure of this ontology, computed once and cached until the next change.
+   * The closure shares the dictionary of this ontology.
+   * @return the RDFS closure.
+   */
+  public CompactOntology getRdfsClosure() {
+    CompactOntology current = this.closure;
+    if (current == null) {
+      synchronized (this) {
+        current = this.closure;
+        if (current == null) {
+          current = this.computeRdfsClosure();
+          this.closure = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Returns the RDFS schema hierarchy of this ontology, computed once and cached until the next change.
+   * @return the RDFS schema hierarchy.
+   */
+  public RdfsSchema getRdfsSchema() {
+    RdfsSchema current = this.schema;
+    if (current == null) {
+      synchronized (this) {
+        current = this.schema;
+        if (current == null) {
+          current = RdfsSchema.build(this.dictionary, this.getIndex());
+          this.schema = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Returns the statistics for query optimization, computed once and cached until the next change:
+   * on the RDFS closure when materializing, on the asserted triples and the schema hierarchy when rewriting.
+   * @return the statistics.
+   */
+  public OntologyStatistics getStatistics() {
+    OntologyStatistics current = this.statistics;
+    if (current == null) {
+      synchronized (this) {
+        current = this.statistics;
+        if (current == null) {
+          if (this.reasoningMode == ReasoningMode.REWRITING) {
+            current = OntologyStatistics.build(this.dictionary, this.getIndex(), this.getRdfsSchema(), false);
+          } else {
+            current = OntologyStatistics.build(this.dictionary, this.getRdfsClosure().getIndex(),
+                this.getRdfsSchema(), true);
+          }
+          this.statistics = current;
+        }
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Returns how RDFS entailment is provided when this ontology is queried.
+   * @return the reasoning mode.
+   */
+  public ReasoningMode getReasoningMode() {
+    return this.reasoningMode;
+  }
+
+  /**
+   * Sets how RDFS entailment is provided when this ontology is queried.
+   * @param reasoningMode the reasoning mode.
+   */
+  public void setReasoningMode(ReasoningMode reasoningMode) {
+    this.reasoningMode = reasoningMode;
+    this.statistics = null;
+  }
+
+  /**
+   * Prepares the reasoning structures of the current reasoning mode, so that the first query does not pay for them:
+   * the RDFS closure when materializing, the schema hierarchy when rewriting, and the statistics in both cases.
+   */
+  public void prepareReasoning() {
+    if (this.reasoningMode == ReasoningMode.REWRITING) {
+      this.getRdfsSchema();
+    } else {
+      this.getRdfsClosure();
+    }
+    this.getStatistics();
+  }
+
+  /**
+   * Sets a precomputed RDFS closure, sharing the dictionary of this ontology.
+   * @param closure the RDFS closure.
+   */
+  synchronized void setRdfsClosure(CompactOntology closure) {
+    this.closure = closure;
+  }
+
+  /**
+   * Computes the RDFS closure, starting from the asserted triples and adding their entailments batch by batch.
+   * @return the RDFS closure.
+   */
+  private CompactOntology computeRdfsClosure() {
+    final CompactOntology result = RdfsClosureMaintainer.compute(this);
+    result.namespaces.addAll(this.getNamespaces());
+    return result;
+  }
+
+  /**
+   * Returns a copy of this ontology, sharing its dictionary and its current index.
+   * Since indexes are immutable, later changes to either ontology are not seen by the other one.
+   * @return the copy.
+   */
+  public CompactOntology copy() {
+    CompactOntology result = new CompactOntology(this.name, this.dictionary, this.getIndex());
+    result.namespaces.addAll(this.getNamespaces());
+    result.reasoningMode = this.reasoningMode;
+    return result;
+  }
+
+  /**
+   * Returns a new version of this ontology, with {@code removals} removed and then {@code additions} added.
+   * This version is left untouched, so that readers holding it keep seeing a consistent ontology.
+   * Changes go in the overlays of the index (see {@link TripleIndex#apply(int[], int, int[], int)}).
+   * Unless they touch the schema, the RDFS closure and the statistics (if already computed) are maintained
+   * incrementally, and the schema hierarchy is reused; otherwise all of them are computed again on demand.
+   * @param additions the statements to add.
+   * @param removals the statements to remove.
+   * @return the new version.
+   */
+  public CompactOntology update(Collection<? extends Statement> additions, Collection<? extends Statement> removals) {
+    final List<Statement> added = new ArrayList<>();
+    final List<Statement> removed = new ArrayList<>();
+    final CompactOntology result = this.apply(additions, removals, added, removed);
+    boolean schemaChanged = false;
+    for (Statement st : added) {
+      schemaChanged |= RdfsClosureMaintainer.isSchema(st);
+    }
+    for (Statement st : removed) {
+      schemaChanged |= RdfsClosureMaintainer.isSchema(st);
+    }
+    if (!schemaChanged) {
+      final CompactOntology currentClosure = this.closure;
+      final OntologyStatistics currentStatistics = this.statistics;
+      result.schema = this.schema;
+      if (currentClosure != null) {
+        final List<Statement> entailed = new ArrayList<>();
+        final List<Statement> retracted = new ArrayList<>();
+        result.closure = RdfsClosureMaintainer.maintain(currentClosure, result, added, removed, entailed, retracted);
+        if (currentStatistics != null && this.reasoningMode == ReasoningMode.MATERIALIZATION) {
+          result.statistics = currentStatistics.update(currentClosure.getIndex(), result.closure.getIndex(),
+              entailed, retracted);
+        }
+      }
+      if (currentStatistics != null && this.reasoningMode == ReasoningMode.REWRITING) {
+        result.statistics = currentStatistics.update(this.getIndex(), result.getIndex(), added, removed);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns a new version of this ontology, with {@code removals} removed and then {@code additions} added,
+   * in a single change of the index.
+   * @param additions the statements to add.
+   * @param removals the statements to remove.
+   * @param added the list to fill with the statements added, not already asserted.
+   * @param removed the list to fill with the statements removed, previously asserted.
+   * @return the new version.
+   */
+  CompactOntology apply(Collection<? extends Statement> additions, Collection<? extends Statement> removals,
+                        List<Statement> added, List<Statement> removed) {
+    final TripleIndex before = this.getIndex();
+    final IntList removes = new IntList();
+    final Set<Statement> removedTriples = new HashSet<>();
+    for (Statement st : removals) {
+      final int s = this.id(st.getSubject());
+      final int p = this.id(st.getPredicate());
+      final int o = this.id(st.getObject());
+      if (s == TermDictionary.UNKNOWN || p == TermDictionary.UNKNOWN || o == TermDictionary.UNKNOWN
+          || !before.contains(s, p, o)) {
+        continue;
+      }
+      if (removedTriples.add(VF.createStatement(st.getSubject(), st.getPredicate(), st.getObject()))) {
+        removes.add(s, p, o);
+        removed.add(st);
+      }
+    }
+
+    final IntList adds = new IntList();
+    final Set<Statement> addedTriples = new HashSet<>();
+    int sequence;
+    synchronized (this) {
+      sequence = Math.max(this.sequence, before.nextSequence());
+    }
+    for (Statement st : additions) {
+      final Statement triple = VF.createStatement(st.getSubject(), st.getPredicate(), st.getObject());
+      final int s = this.dictionary.encode(st.getSubject());
+      final int p = this.dictionary.encode(st.getPredicate());
+      final int o = this.dictionary.encode(st.getObject());
+      if (before.contains(s, p, o) && !removedTriples.contains(triple)) {
+        continue;
+      }
+      if (addedTriples.add(triple)) {
+        adds.add(s, p, o, sequence++);
+        added.add(st);
+      }
+    }
+
+    final CompactOntology result = new CompactOntology(this.name, this.dictionary,
+        before.apply(adds.array(), adds.size() / TripleIndex.SEQUENCED_ROW,
+            removes.array(), removes.size() / TripleIndex.ROW));
+    result.sequence = sequence;
+    result.namespaces.addAll(this.getNamespaces());
+    result.reasoningMode = this.reasoningMode;
+    return result;
+  }
+
+  @Override
+  public synchronized boolean add(Resource subj, IRI pred, Value obj, Resource... contexts) {
+    if (this.pendingRemoves.size() > 0) {
+      this.flush();
+    }
+    if (this.sequence < 0) {
+      this.sequence = this.index.nextSequence();
+    }
+    final int s = this.dictionary.encode(subj);
+    final int p = this.dictionary.encode(pred);
+    final int o = this.dictionary.encode(obj);
+    if (this.index.contains(s, p, o) || this.isPending(s, p, o)) {
+      return false;
+    }
+    this.pendingAdds.add(s, p, o, this.sequence++);
+    this.closure = null;
+    this.schema = null;
+    this.statistics = null;
+    return true;
+  }
+
+  /**
+   * Adds a batch of triples already encoded with the dictionary of this ontology.
+   * The batch is numbered after the triples already added, in the given order.
+   * @param triples the SPO rows (3 integers each).
+   * @param count the number of triples.
+   */
+  public synchronized void addEncoded(int[] triples, int count) {
+    if (this.pendingRemoves.size() > 0) {
+      this.flush();
+    }
+    if (this.sequence < 0) {
+      this.sequence = this.index.nextSequence();
+    }
+    this.pendingAdds.ensureCapacity(this.pendingAdds.size() + count * TripleIndex.SEQUENCED_ROW);
+    for (int i = 0; i < count * 3; i += 3) {
+      this.pendingAdds.add(triples[i], triples[i + 1], triples[i + 2], this.sequence++);
+    }
+    this.closure = null;
+    this.schema = null;
+    this.statistics = null;
+  }
+
+  @Override
+  public boolean contains(Resource subj, IRI pred, Value obj, Resource... contexts) {
+    if (!isDefaultContext(contexts)) {
+      return false;
+    }
+    final int s = this.id(subj);
+    final int p = this.id(pred);
+    final int o = this.id(obj);
+    if (s == TermDictionary.UNKNOWN || p == TermDictionary.UNKNOWN || o == TermDictionary.UNKNOWN) {
+      return false;
+    }
+    return this.getIndex().count(s, p, o) > 0;
+  }
+
+  @Override
+  public synchronized boolean remove(Resource subj, IRI pred, Value obj, Resource... contexts) {
+    if (!isDefaultContext(contexts)) {
+      return false;
+    }
+    final int s = this.id(subj);
+    final int p = this.id(pred);
+    final int o = this.id(obj);
+    if (s == TermDictionary.UNKNOWN || p == TermDictionary.UNKNOWN || o == TermDictionary.UNKNOWN) {
+      return false;
+    }
+    this.flush();
+    TripleIndex.Cursor cursor = this.index.match(s, p, o);
+    boolean removed = false;
+    while (cursor.next()) {
+      this.pendingRemoves.add(cursor.subject(), cursor.predicate(), cursor.object());
+      removed = true;
+    }
+    if (removed) {
+      this.closure = null;
+      this.schema = null;
+      this.statistics = null;
+    }
+    return removed;
+  }
+
+  /**
+   * Returns the statements in insertion order, as a {@link LinkedHashModel} does, so that exporting an ontology
+   * keeps the order it was read in.
+   * @return the statements.
+   */
+  @Override
+  public Iterator<Statement> iterator() {
+    return this.matchInInsertionOrder(null, null, null);
+  }
+
+  /**
+   * Returns the statements matching a pattern, in index order.
+   * This replaces {@link #match(Resource, IRI, Value, Resource...)}, deprecated by {@link AbstractModel}, which
+   * copies the matches through {@link #filter(Resource, IRI, Value, Resource...)}.
+   * @param subj the subject, or null.
+   * @param pred the predicate, or null.
+   * @param obj the object, or null.
+   * @param contexts the contexts; only the default context holds statements.
+   * @return the matching statements.
+   */
+  public Iterable<Statement> getStatements(Resource subj, IRI pred, Value obj, Resource... contexts) {
+    if (!isDefaultContext(contexts)) {
+      return Collections.emptyList();
+    }
+    final int s = this.id(subj);
+    final int p = this.id(pred);
+    final int o = this.id(obj);
+    if (s == TermDictionary.UNKNOWN || p == TermDictionary.UNKNOWN || o == TermDictionary.UNKNOWN) {
+      return Collections.emptyList();
+    }
+    final TripleIndex index = this.getIndex();
+    return () -> new StatementIterator(index.match(s, p, o), null);
+  }
+
+  /**
+   * Returns the statements matching a pattern in insertion order.
+   * Unlike {@link #getStatements(Resource, IRI, Value, Resource...)}, which returns them in index order, this sorts
+   * the matches: it is meant for exports, whose order is observable, not for query evaluation.
+   * @param subj the subject, or null.
+   * @param pred the predicate, or null.
+   * @param obj the object, or null.
+   * @param contexts the contexts; only the default context holds statements.
+   * @return the matching statements.
+   */
+  public Iterator<Statement> matchInInsertionOrder(Resource subj, IRI pred, Value obj, Resource... contexts) {
+    if (!isDefaultContext(contexts)) {
+      return Collections.emptyIterator();
+    }
+    final int s = this.id(subj);
+    final int p = this.id(pred);
+    final int o = this.id(obj);
+    if (s == TermDictionary.UNKNOWN || p == TermDictionary.UNKNOWN || o == TermDictionary.UNKNOWN) {
+      return Collections.emptyIterator();
+    }
+    return new StatementIterator(this.getIndex().matchInInsertionOrder(s, p, o), null);
+  }
+
+  /**
+   * Returns the statements matching a pattern whose subject id is accepted by {@code subjects}, in index order.
+   * Subjects are filtered by id, so that rejected statements are never decoded.
+   * @param pred the predicate, or null.
+   * @param obj the object, or null.
+   * @param subjects the filter on subject ids.
+   * @return the matching statements.
+   */
+  Iterator<Statement> matchSubjects(IRI pred, Value obj, IntPredicate subjects) {
+    final int p = this.id(pred);
+    final int o = this.id(obj);
+    if (p == TermDictionary.UNKNOWN || o == TermDictionary.UNKNOWN) {
+      return Collections.emptyIterator();
+    }
+    return new StatementIterator(this.getIndex().match(TripleIndex.ANY, p, o), subjects);
+  }
+
+  /**
+   * Counts the statements matching a pattern, without materializing them.
+   * @param subj the subject, or null.
+   * @param pred the predicate, or null.
+   * @param obj the object, or null.
+   * @return the number of matching statements.
+   */
+  public int count(Resource subj, IRI pred, Value obj) {
+    final int s = this.id(subj);
+    final int p = this.id(pred);
+    final int o = this.id(obj);
+    if (s == TermDictionary.UNKNOWN || p == TermDictionary.UNKNOWN || o == TermDictionary.UNKNOWN) {
+      return 0;
+    }
+    return this.getIndex().count(s, p, o);
+  }
+
+  @Override
+  public int size() {
+    return this.getIndex().size();
+  }
+
+  @Override
+  public Model filter(Resource subj, IRI pred, Value obj, Resource... contexts) {
+    Model model = new LinkedHashModel(this.getNamespaces());
+    this.getStatements(subj, pred, obj, contexts).forEach(model::add);
+    return model;
+  }
+
+  @Override
+  public void removeTermIteration(Iterator<Statement> iter, Resource subj, IRI pred, Value obj, Resource... contexts) {
+    this.remove(subj, pred, obj, contexts);
+  }
+
+  @Override
+  public synchronized Set<Namespace> getNamespaces() {
+    return new LinkedHashSet<>(this.namespaces);
+  }
+
+  @Override
+  public synchronized void setNamespace(Namespace namespace) {
+    this.removeNamespace(namespace.getPrefix());
+    this.namespaces.add(new SimpleNamespace(namespace.getPrefix(), namespace.getName()));
+  }
+
+  @Override
+  public synchronized Optional<Namespace> removeNamespace(String prefix) {
+    Optional<Namespace> namespace = this.namespaces.stream().filter(ns -> ns.getPrefix().equals(prefix)).findFirst();
+    namespace.ifPresent(this.namespaces::remove);
+    return namespace;
+  }
+
+  @Override
+  public void merge(Collection<? extends Statement> other) {
+    super.addAll(other);
+  }
+
+  @Override
+  public String toPrettyString() {
+    return super.stream().map(Statement::toString).collect(Collectors.joining("\n"));
+  }
+
+  /**
+   * Returns the id of {@code value}.
+   * @param value the value, or null.
+   * @return the id of {@code value}; {@link TripleIndex#ANY}, if null; {@link TermDictionary#UNKNOWN}, if not encoded.
+   */
+  private int id(Value value) {
+    return (value == null) ? TripleIndex.ANY : this.dictionary.lookup(value);
+  }
+
+  private static boolean isDefaultContext(Resource... contexts) {
+    if (contexts == null || contexts.length == 0) {
+      return true;
+    }
+    for (Resource context : contexts) {
+      if (context == null) return true;
+    }
+    return false;
+  }
+
+  /**
+   * An iterator decoding the triples of a cursor as statements.
+   */
+  private class StatementIterator implements Iterator<Statement> {
+
+    private final TripleIndex.Cursor cursor;
+
+    /**
+     * The filter on subject ids; null, to accept every triple.
+     */
+    private final IntPredicate subjects;
+
+    private Statement next = null;
+
+    private Statement last = null;
+
+    private StatementIterator(TripleIndex.Cursor cursor, IntPredicate subjects) {
+      this.cursor = cursor;
+      this.subjects = subjects;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (this.next == null && this.cursor.next()) {
+        if (this.subjects != null && !this.subjects.test(this.cursor.subject())) {
+          continue;
+        }
+        this.next = VF.createStatement(
+            (Resource) dictionary.decode(this.cursor.subject()),
+            (IRI) dictionary.decode(this.cursor.predicate()),
+            dictionary.decode(this.cursor.object()));
+      }
+      return this.next != null;
+    }
+
+    @Override
+    public Statement next() {
+      if (!this.hasNext()) {
+        throw new NoSuchElementException();
+      }
+      this.last = this.next;
+      this.next = null;
+      return this.last;
+    }
+
+    @Override
+    public void remove() {
+      if (this.last == null) {
+        throw new IllegalStateException();
+      }
+      CompactOntology.this.remove(this.last.getSubject(), this.last.getPredicate(), this.last.getObject());
+      this.last = null;
+    }
+  }
+
+  /**
+   * A growable list of primitive integers.
+   */
+  private static class IntList {
+
+    private int[] elements = new int[48];
+
+    private int size = 0;
+
+    void add(int a, int b, int c) {
+      this.ensureCapacity(this.size + 3);
+      this.elements[this.size++] = a;
+      this.elements[this.size++] = b;
+      this.elements[this.size++] = c;
+    }
+
+    void add(int a, int b, int c, int d) {
+      this.ensureCapacity(this.size + 4);
+      this.elements[this.size++] = a;
+      this.elements[this.size++] = b;
+      this.elements[this.size++] = c;
+      this.elements[this.size++] = d;
+    }
+
+    void ensureCapacity(int capacity) {
+      if (capacity > this.elements.length) {
+        this.elements = Arrays.copyOf(this.elements, Math.max(capacity, this.elements.length * 2));
+      }
+    }
+
+    int size() {
+      return this.size;
+    }
+
+    int[] array() {
+      return this.elements;
+    }
+
+    void clear() {
+      this.elements = new int[48];
+      this.size = 0;
+    }
+  }
+}
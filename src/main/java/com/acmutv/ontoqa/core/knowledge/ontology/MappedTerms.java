@@ -0,0 +1,196 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.ontology;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A read-only term table backed by the buffers of an ontology snapshot.
+ * Terms are decoded on first access and cached; lookups probe an open-addressing hash table of ids.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see OntologySnapshot
+ * @see TermDictionary
+ */
+final class MappedTerms {
+
+  static final byte IRI_TERM = 0;
+
+  static final byte BNODE_TERM = 1;
+
+  static final byte LANG_LITERAL_TERM = 2;
+
+  static final byte TYPED_LITERAL_TERM = 3;
+
+  private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+  /**
+   * The term offsets in {@code data}: term {@code i} spans {@code [offsets[i], offsets[i+1])}.
+   */
+  private final IntBuffer offsets;
+
+  /**
+   * The encoded terms.
+   */
+  private final ByteBuffer data;
+
+  /**
+   * The hash table: slots hold {@code id + 1}, or 0 if empty.
+   */
+  private final IntBuffer slots;
+
+  /**
+   * The decoded terms.
+   */
+  private final AtomicReferenceArray<Value> cache;
+
+  private final int size;
+
+  MappedTerms(int size, IntBuffer offsets, ByteBuffer data, IntBuffer slots) {
+    this.size = size;
+    this.offsets = offsets;
+    this.data = data;
+    this.slots = slots;
+    this.cache = new AtomicReferenceArray<>(size);
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the id of {@code value}.
+   * @param value the term to look up.
+   * @return the id of {@code value}; {@link TermDictionary#UNKNOWN}, if not in the table.
+   */
+  int lookup(Value value) {
+    final int mask = this.slots.capacity() - 1;
+    int slot = hash(value) & mask;
+    while (true) {
+      final int entry = this.slots.get(slot);
+      if (entry == 0) {
+        return TermDictionary.UNKNOWN;
+      }
+      if (this.decode(entry - 1).equals(value)) {
+        return entry - 1;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  /**
+   * Returns the term with id {@code id}.
+   * @param id the term id.
+   * @return the term.
+   */
+  Value decode(int id) {
+    Value value = this.cache.get(id);
+    if (value == null) {
+      value = this.read(id);
+      this.cache.lazySet(id, value);
+    }
+    return value;
+  }
+
+  private Value read(int id) {
+    ByteBuffer term = this.data.duplicate();
+    term.position(this.offsets.get(id));
+    final byte kind = term.get();
+    final String first = readString(term);
+    switch (kind) {
+      case IRI_TERM: return VF.createIRI(first);
+      case BNODE_TERM: return VF.createBNode(first);
+      case LANG_LITERAL_TERM: return VF.createLiteral(first, readString(term));
+      default: return VF.createLiteral(first, VF.createIRI(readString(term)));
+    }
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    final int length = buffer.getInt();
+    final byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Returns the stable hash of a term, used to place it in the hash table.
+   * @param value the term.
+   * @return the hash.
+   */
+  static int hash(Value value) {
+    int h = value.stringValue().hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Encodes a term as a kind byte followed by one or two length-prefixed UTF-8 strings.
+   * @param value the term to encode.
+   * @return the encoded term.
+   */
+  static byte[] encode(Value value) {
+    byte kind;
+    String first;
+    String second = null;
+    if (value instanceof IRI) {
+      kind = IRI_TERM;
+      first = value.stringValue();
+    } else if (value instanceof BNode) {
+      kind = BNODE_TERM;
+      first = ((BNode) value).getID();
+    } else {
+      Literal literal = (Literal) value;
+      first = literal.getLabel();
+      if (literal.getLanguage().isPresent()) {
+        kind = LANG_LITERAL_TERM;
+        second = literal.getLanguage().get();
+      } else {
+        kind = TYPED_LITERAL_TERM;
+        second = literal.getDatatype().stringValue();
+      }
+    }
+    byte[] a = first.getBytes(StandardCharsets.UTF_8);
+    byte[] b = (second != null) ? second.getBytes(StandardCharsets.UTF_8) : null;
+    ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + a.length + ((b != null) ? 4 + b.length : 0));
+    buffer.put(kind).putInt(a.length).put(a);
+    if (b != null) {
+      buffer.putInt(b.length).put(b);
+    }
+    return buffer.array();
+  }
+}
@@ -37,6 +37,7 @@ import java.util.function.Consumer;
 
 /**
  * This class realizes the task of filling a {@link Repository} with an {@link Ontology}.
+ * Statements are added in bulk, within a single transaction.
  * @author Antonella Botte {@literal <abotte@acm.org>}
  * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
  * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
@@ -55,10 +56,18 @@ public class OntologyFiller implements Consumer<RepositoryConnection> {
 
   @Override
   public void accept(RepositoryConnection repoConn) {
+    final boolean local = !repoConn.isActive();
+    if (local) {
+      repoConn.begin();
+    }
+
     this.getOntology().getNamespaces().forEach(ns ->
         repoConn.setNamespace(ns.getPrefix(), ns.getName()));
 
-    this.getOntology().forEach(statement ->
-        repoConn.add(statement));
+    repoConn.add(this.getOntology());
+
+    if (local) {
+      repoConn.commit();
+    }
   }
 }
@@ -31,6 +31,7 @@ import org.eclipse.rdf4j.rio.RDFFormat;
 
 /**
  * This enum enumerates ontology file formats.
+ * {@code SNAPSHOT} is the binary format of {@link OntologySnapshot}, and has no RDF format.
  * @author Antonella Botte {@literal <abotte@acm.org>}
  * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
  * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
@@ -40,7 +41,10 @@ import org.eclipse.rdf4j.rio.RDFFormat;
 public enum OntologyFormat {
 
   TURTLE ("TURTLE", RDFFormat.TURTLE),
-  RDFXML ("RDFXML", RDFFormat.RDFXML);
+  RDFXML ("RDFXML", RDFFormat.RDFXML),
+  NTRIPLES ("NTRIPLES", RDFFormat.NTRIPLES),
+  NQUADS ("NQUADS", RDFFormat.NQUADS),
+  SNAPSHOT ("SNAPSHOT", null);
 
   private final String name;
   private final RDFFormat format;
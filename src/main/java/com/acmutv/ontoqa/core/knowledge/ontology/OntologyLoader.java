@@ -0,0 +1,422 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.ontology;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.Namespace;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleNamespace;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.rio.*;
+import org.eclipse.rdf4j.rio.helpers.AbstractRDFHandler;
+import org.eclipse.rdf4j.rio.helpers.BasicParserSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * This class realizes the parallel loading of ontology files into a {@link CompactOntology}.
+ * Files are resolved from a path, a directory or a glob. Line-based files (N-Triples, N-Quads) are split into
+ * chunks on line boundaries; any other file is a single chunk. Chunks are parsed and dictionary-encoded in
+ * parallel, then added to the ontology in file order as large pre-sized batches, so that the result is the same
+ * as a sequential load. The chunks being parsed or waiting to be added are kept within a memory budget.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see OntologyLoadStatistics
+ */
+public class OntologyLoader {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(OntologyLoader.class);
+
+  /**
+   * The default chunk size (bytes).
+   */
+  public static final int CHUNK_SIZE = 4 << 20;
+
+  /**
+   * The estimated heap bytes held per input byte while a chunk is parsed and encoded.
+   */
+  private static final int EXPANSION = 4;
+
+  /**
+   * The estimated number of input bytes per term, used to pre-size the dictionary.
+   */
+  private static final int BYTES_PER_TERM = 64;
+
+  private static final int MAX_INITIAL_TERMS = 1 << 22;
+
+  private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+  /**
+   * The number of parsing threads.
+   */
+  private final int threads;
+
+  /**
+   * The memory budget (bytes).
+   */
+  private final long memoryBudget;
+
+  /**
+   * The chunk size (bytes).
+   */
+  private final int chunkSize;
+
+  /**
+   * Creates a loader.
+   * @param threads the number of parsing threads; 0 means one per available processor.
+   * @param memoryBudget the memory budget (bytes) for the chunks in flight.
+   */
+  public OntologyLoader(int threads, long memoryBudget) {
+    this(threads, memoryBudget, CHUNK_SIZE);
+  }
+
+  /**
+   * Creates a loader.
+   * @param threads the number of parsing threads; 0 means one per available processor.
+   * @param memoryBudget the memory budget (bytes) for the chunks in flight.
+   * @param chunkSize the size (bytes) of the chunks line-based files are split into.
+   */
+  public OntologyLoader(int threads, long memoryBudget, int chunkSize) {
+    this.threads = (threads > 0) ? threads : Runtime.getRuntime().availableProcessors();
+    this.memoryBudget = Math.max(memoryBudget, 1 << 20);
+    this.chunkSize = (int) Math.max(1, Math.min(chunkSize, this.memoryBudget / EXPANSION / 2));
+  }
+
+  /**
+   * Loads the ontology files matching {@code pattern} into a new ontology.
+   * @param pattern a file, a directory or a glob.
+   * @param prefix the default prefix for the ontology.
+   * @param format the ontology format; files in a directory or matched by a glob are detected from their
+   *               name, falling back to {@code format}.
+   * @return the ontology.
+   * @throws IOException when the files cannot be read or parsed.
+   */
+  public CompactOntology load(String pattern, String prefix, OntologyFormat format) throws IOException {
+    final List<Path> files = resolve(pattern);
+    long bytes = 0;
+    for (Path file : files) {
+      bytes += Files.size(file);
+    }
+    int terms = (int) Math.min(MAX_INITIAL_TERMS, bytes / BYTES_PER_TERM);
+    CompactOntology ontology = new CompactOntology(null, new TermDictionary(terms), TripleIndex.EMPTY);
+    this.load(files, !isSingleFile(pattern), prefix, format, ontology);
+    return ontology;
+  }
+
+  /**
+   * Loads ontology files into {@code ontology}.
+   * @param files the files to load.
+   * @param detect whether to detect the format of each file from its name.
+   * @param prefix the default prefix for the ontology.
+   * @param format the ontology format, used when {@code detect} is false or detection fails.
+   * @param ontology the ontology to load into.
+   * @return the load statistics.
+   * @throws IOException when the files cannot be read or parsed.
+   */
+  public OntologyLoadStatistics load(List<Path> files, boolean detect, String prefix, OntologyFormat format,
+                                     CompactOntology ontology) throws IOException {
+    final long start = System.currentTimeMillis();
+    final List<Chunk> chunks = new ArrayList<>();
+    long bytes = 0;
+    for (int i = 0; i < files.size(); i++) {
+      final Path file = files.get(i);
+      RDFFormat rdfFormat = (detect) ?
+          Rio.getParserFormatForFileName(file.toString()).orElse(format.getFormat()) : format.getFormat();
+      if (rdfFormat == null) {
+        throw new IOException(String.format("Cannot load %s as %s", file, format.getName()));
+      }
+      chunks.addAll(this.split(file, (files.size() > 1) ? i : -1, rdfFormat));
+      bytes += Files.size(file);
+    }
+
+    final int permits = (int) Math.min(Integer.MAX_VALUE, this.memoryBudget >> 10);
+    final Semaphore budget = new Semaphore(permits);
+    final Deque<Future<Batch>> inFlight = new ArrayDeque<>();
+    final ExecutorService pool = Executors.newFixedThreadPool(Math.min(this.threads, chunks.size() + 1), r -> {
+      Thread thread = new Thread(r, "ontology-loader");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long triples = 0;
+    try {
+      for (Chunk chunk : chunks) {
+        final int cost = (int) Math.max(1, Math.min(permits, chunk.length() * EXPANSION >> 10));
+        while (!budget.tryAcquire(cost)) {
+          triples += commit(inFlight.poll(), ontology, budget);
+        }
+        inFlight.add(pool.submit(() -> parse(chunk, prefix, ontology.getDictionary(), cost)));
+      }
+      while (!inFlight.isEmpty()) {
+        triples += commit(inFlight.poll(), ontology, budget);
+      }
+      ontology.getIndex();
+    } finally {
+      pool.shutdownNow();
+    }
+
+    OntologyLoadStatistics statistics = new OntologyLoadStatistics(files.size(), chunks.size(), bytes, triples,
+        System.currentTimeMillis() - start);
+    LOGGER.info("Loaded {} triples from {} files ({} chunks, {} bytes) in {} ms ({} triples/s)",
+        statistics.getTriples(), statistics.getFiles(), statistics.getChunks(), statistics.getBytes(),
+        statistics.getElapsed(), String.format("%.0f", statistics.getTriplesPerSecond()));
+    return statistics;
+  }
+
+  /**
+   * Resolves the files matching a pattern.
+   * @param pattern a file, a directory (whose RDF files are taken, recursively) or a glob.
+   * @return the matching files, sorted by path.
+   * @throws IOException when no file matches {@code pattern}.
+   */
+  public static List<Path> resolve(String pattern) throws IOException {
+    final int glob = indexOfGlob(pattern);
+    final List<Path> files;
+    if (glob < 0) {
+      Path path = FileSystems.getDefault().getPath(pattern).toAbsolutePath();
+      if (!Files.isDirectory(path)) {
+        if (!Files.isRegularFile(path)) {
+          throw new NoSuchFileException(path.toString());
+        }
+        return Collections.singletonList(path);
+      }
+      try (Stream<Path> walk = Files.walk(path)) {
+        files = walk.filter(Files::isRegularFile)
+            .filter(file -> Rio.getParserFormatForFileName(file.toString()).isPresent())
+            .sorted()
+            .collect(Collectors.toList());
+      }
+    } else {
+      final int separator = pattern.lastIndexOf('/', glob);
+      final Path base = FileSystems.getDefault()
+          .getPath((separator < 0) ? "." : pattern.substring(0, separator + 1)).toAbsolutePath().normalize();
+      final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern.substring(separator + 1));
+      try (Stream<Path> walk = Files.walk(base)) {
+        files = walk.filter(Files::isRegularFile)
+            .filter(file -> matcher.matches(base.relativize(file)))
+            .sorted()
+            .collect(Collectors.toList());
+      }
+    }
+    if (files.isEmpty()) {
+      throw new NoSuchFileException(pattern, null, "no ontology file matches");
+    }
+    return files;
+  }
+
+  private static boolean isSingleFile(String pattern) {
+    return indexOfGlob(pattern) < 0 && !Files.isDirectory(FileSystems.getDefault().getPath(pattern));
+  }
+
+  private static int indexOfGlob(String pattern) {
+    for (int i = 0; i < pattern.length(); i++) {
+      if ("*?[{".indexOf(pattern.charAt(i)) >= 0) return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Splits a file into chunks: line-based files on line boundaries, any other file as a whole.
+   */
+  private List<Chunk> split(Path file, int fileIndex, RDFFormat format) throws IOException {
+    final long size = Files.size(file);
+    final boolean lineBased = RDFFormat.NTRIPLES.equals(format) || RDFFormat.NQUADS.equals(format);
+    if (!lineBased || size <= this.chunkSize) {
+      return Collections.singletonList(new Chunk(file, fileIndex, format, 0, size));
+    }
+    final List<Chunk> chunks = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long position = 0;
+      while (position < size) {
+        long end = nextLine(channel, Math.min(size, position + this.chunkSize), size);
+        chunks.add(new Chunk(file, fileIndex, format, position, end));
+        position = end;
+      }
+    }
+    return chunks;
+  }
+
+  /**
+   * Returns the position following the first line break at or after {@code position}.
+   */
+  private static long nextLine(FileChannel channel, long position, long size) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate(4096);
+    while (position < size) {
+      buffer.clear();
+      final int read = channel.read(buffer, position);
+      if (read <= 0) break;
+      for (int i = 0; i < read; i++) {
+        if (buffer.get(i) == '\n') return position + i + 1;
+      }
+      position += read;
+    }
+    return size;
+  }
+
+  /**
+   * Parses and encodes a chunk.
+   */
+  private static Batch parse(Chunk chunk, String prefix, TermDictionary dictionary, int cost) throws IOException {
+    if (chunk.length() > Integer.MAX_VALUE - 8) {
+      throw new IOException(String.format("Cannot load %s: files larger than 2 GB must be N-Triples or N-Quads",
+          chunk.file));
+    }
+    final byte[] bytes = new byte[(int) chunk.length()];
+    try (FileChannel channel = FileChannel.open(chunk.file, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, chunk.start + buffer.position()) < 0) break;
+      }
+    }
+    final Batch batch = new Batch(cost, Math.max(16, bytes.length / 32));
+    RDFParser parser = Rio.createParser(chunk.format);
+    parser.getParserConfig().set(BasicParserSettings.PRESERVE_BNODE_IDS, true);
+    parser.setRDFHandler(new AbstractRDFHandler() {
+      @Override
+      public void handleNamespace(String nsPrefix, String uri) throws RDFHandlerException {
+        batch.namespaces.add(new SimpleNamespace(nsPrefix, uri));
+      }
+
+      @Override
+      public void handleStatement(Statement st) throws RDFHandlerException {
+        batch.add(dictionary.encode(scoped(st.getSubject(), chunk.fileIndex)),
+            dictionary.encode(st.getPredicate()),
+            dictionary.encode(scoped(st.getObject(), chunk.fileIndex)));
+      }
+    });
+    try {
+      parser.parse(new ByteArrayInputStream(bytes), prefix);
+    } catch (RDFParseException | RDFHandlerException exc) {
+      throw new IOException(String.format("Cannot parse %s (bytes %d-%d): %s",
+          chunk.file, chunk.start, chunk.end, exc.getMessage()), exc);
+    }
+    return batch;
+  }
+
+  /**
+   * Scopes blank node labels to their file, when loading several files.
+   */
+  private static Value scoped(Value value, int fileIndex) {
+    if (fileIndex >= 0 && value instanceof BNode) {
+      return VF.createBNode("f" + fileIndex + "_" + ((BNode) value).getID());
+    }
+    return value;
+  }
+
+  /**
+   * Adds a parsed batch to the ontology, then releases its share of the memory budget.
+   */
+  private static long commit(Future<Batch> future, CompactOntology ontology, Semaphore budget) throws IOException {
+    final Batch batch;
+    try {
+      batch = future.get();
+    } catch (InterruptedException exc) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Ontology loading interrupted");
+    } catch (ExecutionException exc) {
+      if (exc.getCause() instanceof IOException) {
+        throw (IOException) exc.getCause();
+      }
+      throw new IOException(exc.getCause());
+    }
+    batch.namespaces.forEach(ontology::setNamespace);
+    ontology.addEncoded(batch.triples, batch.count);
+    budget.release(batch.cost);
+    return batch.count;
+  }
+
+  /**
+   * A byte range of an ontology file.
+   */
+  private static class Chunk {
+
+    private final Path file;
+
+    private final int fileIndex;
+
+    private final RDFFormat format;
+
+    private final long start;
+
+    private final long end;
+
+    private Chunk(Path file, int fileIndex, RDFFormat format, long start, long end) {
+      this.file = file;
+      this.fileIndex = fileIndex;
+      this.format = format;
+      this.start = start;
+      this.end = end;
+    }
+
+    private long length() {
+      return this.end - this.start;
+    }
+  }
+
+  /**
+   * The encoded triples of a chunk.
+   */
+  private static class Batch {
+
+    private final int cost;
+
+    private final List<Namespace> namespaces = new ArrayList<>();
+
+    private int[] triples;
+
+    private int count = 0;
+
+    private Batch(int cost, int capacity) {
+      this.cost = cost;
+      this.triples = new int[capacity * 3];
+    }
+
+    private void add(int s, int p, int o) {
+      if ((this.count + 1) * 3 > this.triples.length) {
+        this.triples = Arrays.copyOf(this.triples, this.triples.length * 2);
+      }
+      this.triples[this.count * 3] = s;
+      this.triples[this.count * 3 + 1] = p;
+      this.triples[this.count * 3 + 2] = o;
+      this.count++;
+    }
+  }
+}
@@ -0,0 +1,275 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.ontology;
+
+import org.eclipse.rdf4j.model.Namespace;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+/**
+ * The binary snapshot of a {@link CompactOntology}: its dictionary, its triple indexes and the indexes of its
+ * precomputed RDFS closure.
+ * A snapshot is opened by memory-mapping its sections, so that opening takes no parsing nor inference, data is
+ * paged in lazily, and JVMs opening the same snapshot share the page cache.
+ * Layout (integers are little-endian, sections are 8-byte aligned):
+ * <pre>
+ *   header     magic, version, term count, slot count, triple count, closure triple count, section positions
+ *   offsets    (term count + 1) term offsets in the term data
+ *   terms      encoded terms (kind byte, length-prefixed UTF-8 strings)
+ *   slots      open-addressing hash table of term ids + 1
+ *   index      SPO, POS, OSP permutations of the ontology, then its sequence numbers
+ *   closure    SPO, POS, OSP permutations of the RDFS closure, then its sequence numbers
+ *   namespaces namespace count, then prefix/name pairs
+ * </pre>
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see CompactOntology
+ * @see OntologyFormat#SNAPSHOT
+ */
+public class OntologySnapshot {
+
+  /**
+   * The snapshot magic number ("OQS1").
+   */
+  private static final int MAGIC = 0x4F515331;
+
+  /**
+   * The snapshot layout version.
+   */
+  private static final int VERSION = 2;
+
+  private static final int HEADER_SIZE = 6 * 4 + 7 * 8;
+
+  private static final int CHUNK_SIZE = 1 << 16;
+
+  /**
+   * Writes the snapshot of {@code ontology} on {@code path}, computing its RDFS closure if needed.
+   * The snapshot is first written on a temporary file, then moved on {@code path}.
+   * @param ontology the ontology to write.
+   * @param path the snapshot path.
+   * @throws IOException when the snapshot cannot be written.
+   */
+  public static void write(CompactOntology ontology, Path path) throws IOException {
+    final TripleIndex index = ontology.getIndex();
+    final TripleIndex closure = ontology.getRdfsClosure().getIndex();
+    final TermDictionary dictionary = ontology.getDictionary();
+    final int termCount = dictionary.size();
+
+    final ByteArrayOutputStream terms = new ByteArrayOutputStream();
+    final int[] offsets = new int[termCount + 1];
+    for (int id = 0; id < termCount; id++) {
+      offsets[id] = terms.size();
+      byte[] term = MappedTerms.encode(dictionary.decode(id));
+      terms.write(term, 0, term.length);
+    }
+    offsets[termCount] = terms.size();
+
+    int slotCount = 2;
+    while (slotCount < termCount * 2) slotCount <<= 1;
+    final int[] slots = new int[slotCount];
+    for (int id = 0; id < termCount; id++) {
+      int slot = MappedTerms.hash(dictionary.decode(id)) & (slotCount - 1);
+      while (slots[slot] != 0) slot = (slot + 1) & (slotCount - 1);
+      slots[slot] = id + 1;
+    }
+
+    final Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      channel.position(HEADER_SIZE);
+      final long offsetsPos = align(channel);
+      writeInts(channel, IntBuffer.wrap(offsets));
+      final long termsPos = align(channel);
+      channel.write(ByteBuffer.wrap(terms.toByteArray()));
+      final long slotsPos = align(channel);
+      writeInts(channel, IntBuffer.wrap(slots));
+      final long indexPos = align(channel);
+      writeIndex(channel, index);
+      final long closurePos = align(channel);
+      writeIndex(channel, closure);
+      final long namespacesPos = align(channel);
+      writeNamespaces(channel, ontology.getNamespaces());
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      header.putInt(MAGIC).putInt(VERSION)
+          .putInt(termCount).putInt(slotCount).putInt(index.size()).putInt(closure.size())
+          .putLong(offsetsPos).putLong(termsPos).putLong(terms.size()).putLong(slotsPos)
+          .putLong(indexPos).putLong(closurePos).putLong(namespacesPos);
+      header.flip();
+      channel.write(header, 0);
+      channel.force(true);
+    }
+    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Opens the snapshot on {@code path}.
+   * The returned ontology answers from the mapped snapshot, and can still be changed: changes are kept on heap.
+   * @param path the snapshot path.
+   * @return the ontology, with its precomputed RDFS closure.
+   * @throws IOException when the snapshot cannot be read.
+   */
+  public static CompactOntology open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      while (header.hasRemaining()) {
+        if (channel.read(header) < 0) break;
+      }
+      header.flip();
+      if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+        throw new IOException(String.format("%s is not an ontology snapshot", path));
+      }
+      final int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException(String.format("Unsupported ontology snapshot version %d in %s", version, path));
+      }
+      final int termCount = header.getInt();
+      final int slotCount = header.getInt();
+      final int size = header.getInt();
+      final int closureSize = header.getInt();
+      final long offsetsPos = header.getLong();
+      final long termsPos = header.getLong();
+      final long termsLength = header.getLong();
+      final long slotsPos = header.getLong();
+      final long indexPos = header.getLong();
+      final long closurePos = header.getLong();
+      final long namespacesPos = header.getLong();
+
+      MappedTerms terms = new MappedTerms(termCount,
+          mapInts(channel, offsetsPos, termCount + 1),
+          map(channel, termsPos, termsLength),
+          mapInts(channel, slotsPos, slotCount));
+      TermDictionary dictionary = new TermDictionary(terms);
+
+      CompactOntology ontology = new CompactOntology(null, dictionary, mapIndex(channel, indexPos, size));
+      CompactOntology closure = new CompactOntology(null, dictionary, mapIndex(channel, closurePos, closureSize));
+
+      ByteBuffer namespaces = map(channel, namespacesPos, channel.size() - namespacesPos)
+          .order(ByteOrder.LITTLE_ENDIAN);
+      final int namespaceCount = namespaces.getInt();
+      for (int i = 0; i < namespaceCount; i++) {
+        String prefix = readString(namespaces);
+        String name = readString(namespaces);
+        ontology.setNamespace(prefix, name);
+        closure.setNamespace(prefix, name);
+      }
+
+      ontology.setRdfsClosure(closure);
+      return ontology;
+    }
+  }
+
+  private static long align(FileChannel channel) throws IOException {
+    final long position = (channel.position() + 7) & ~7L;
+    channel.position(position);
+    return position;
+  }
+
+  private static void writeInts(FileChannel channel, IntBuffer ints) throws IOException {
+    ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    while (ints.hasRemaining()) {
+      chunk.clear();
+      while (ints.hasRemaining() && chunk.remaining() >= 4) {
+        chunk.putInt(ints.get());
+      }
+      chunk.flip();
+      while (chunk.hasRemaining()) {
+        channel.write(chunk);
+      }
+    }
+  }
+
+  private static void writeIndex(FileChannel channel, TripleIndex index) throws IOException {
+    final TripleIndex merged = index.compact();
+    for (int order = TripleIndex.SPO; order <= TripleIndex.OSP; order++) {
+      IntBuffer rows = merged.getOrder(order);
+      rows.limit(merged.size() * TripleIndex.ROW);
+      writeInts(channel, rows);
+    }
+    IntBuffer sequences = merged.getSequences();
+    sequences.limit(merged.size());
+    writeInts(channel, sequences);
+  }
+
+  private static void writeNamespaces(FileChannel channel, Set<Namespace> namespaces) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(toBytes(namespaces.size()), 0, 4);
+    for (Namespace namespace : namespaces) {
+      for (String string : new String[]{namespace.getPrefix(), namespace.getName()}) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.write(toBytes(bytes.length), 0, 4);
+        out.write(bytes, 0, bytes.length);
+      }
+    }
+    channel.write(ByteBuffer.wrap(out.toByteArray()));
+  }
+
+  private static byte[] toBytes(int value) {
+    return ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array();
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static MappedByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException(String.format("Ontology snapshot section too large (%d bytes)", length));
+    }
+    return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+  }
+
+  private static IntBuffer mapInts(FileChannel channel, long position, long count) throws IOException {
+    return map(channel, position, count * 4).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+  }
+
+  private static TripleIndex mapIndex(FileChannel channel, long position, int size) throws IOException {
+    final long length = (long) size * TripleIndex.ROW;
+    return new TripleIndex(
+        mapInts(channel, position, length),
+        mapInts(channel, position + length * 4, length),
+        mapInts(channel, position + 2 * length * 4, length),
+        mapInts(channel, position + 3 * length * 4, size),
+        size);
+  }
+}
@@ -0,0 +1,420 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.knowledge.ontology;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+
+import java.nio.IntBuffer;
+import java.util.*;
+
+/**
+ * The statistics of an ontology used to estimate the selectivity of triple patterns:
+ * the number of triples, distinct subjects and distinct objects of every predicate, the number of
+ * instances of every class, and the classes every predicate implies for its subjects and objects
+ * by its domains and ranges.
+ * Statistics are collected by a linear scan of the index permutations, on the RDFS closure
+ * when materialized; otherwise, counts are inherited along the schema hierarchy, as estimates, when looked up.
+ * Changes not touching the schema update the counts of a copy, without scanning the index again.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see CompactOntology#getStatistics()
+ */
+public class OntologyStatistics {
+
+  /**
+   * The term dictionary.
+   */
+  private final TermDictionary dictionary;
+
+  /**
+   * The schema hierarchy.
+   */
+  private final RdfsSchema schema;
+
+  /**
+   * True, if the counts are on the RDFS closure; false, if they must be inherited along the schema hierarchy.
+   */
+  private final boolean entailed;
+
+  /**
+   * The number of triples, distinct subjects and distinct objects.
+   */
+  private long triples, subjects, objects;
+
+  /**
+   * The number of triples of every predicate.
+   */
+  private final Map<Integer, Long> predicateTriples = new HashMap<>();
+
+  /**
+   * The number of distinct subjects of every predicate.
+   */
+  private final Map<Integer, Long> predicateSubjects = new HashMap<>();
+
+  /**
+   * The number of distinct objects of every predicate.
+   */
+  private final Map<Integer, Long> predicateObjects = new HashMap<>();
+
+  /**
+   * The predicates having literal objects.
+   */
+  private final Set<Integer> literalPredicates = new HashSet<>();
+
+  /**
+   * The number of instances of every class.
+   */
+  private final Map<Integer, Long> classInstances = new HashMap<>();
+
+  private OntologyStatistics(TermDictionary dictionary, RdfsSchema schema, boolean entailed) {
+    this.dictionary = dictionary;
+    this.schema = schema;
+    this.entailed = entailed;
+  }
+
+  /**
+   * Collects the statistics of {@code index}.
+   * @param dictionary the term dictionary.
+   * @param index the triple index, encoded with {@code dictionary}.
+   * @param schema the schema hierarchy.
+   * @param entailed true, if {@code index} is the RDFS closure; false, if counts must be inherited
+   *                 along the schema hierarchy.
+   * @return the statistics.
+   */
+  public static OntologyStatistics build(TermDictionary dictionary, TripleIndex index, RdfsSchema schema,
+                                         boolean entailed) {
+    final OntologyStatistics stats = new OntologyStatistics(dictionary, schema, entailed);
+    final TripleIndex merged = index.compact();
+    final int size = merged.size();
+    stats.triples = size;
+    final int type = schema.getType();
+
+    final IntBuffer spo = merged.getOrder(TripleIndex.SPO);
+    for (int i = 0; i < size; i++) {
+      final int row = i * TripleIndex.ROW;
+      final int s = spo.get(row);
+      final int p = spo.get(row + 1);
+      final boolean newSubject = (i == 0) || s != spo.get(row - TripleIndex.ROW);
+      if (newSubject) {
+        stats.subjects++;
+      }
+      if (newSubject || p != spo.get(row - TripleIndex.ROW + 1)) {
+        stats.predicateSubjects.merge(p, 1L, Long::sum);
+      }
+    }
+
+    final IntBuffer pos = merged.getOrder(TripleIndex.POS);
+    for (int i = 0; i < size; i++) {
+      final int row = i * TripleIndex.ROW;
+      final int p = pos.get(row);
+      final int o = pos.get(row + 1);
+      stats.predicateTriples.merge(p, 1L, Long::sum);
+      if (i == 0 || p != pos.get(row - TripleIndex.ROW) || o != pos.get(row - TripleIndex.ROW + 1)) {
+        stats.predicateObjects.merge(p, 1L, Long::sum);
+        if (dictionary.decode(o) instanceof Literal) {
+          stats.literalPredicates.add(p);
+        }
+      }
+      if (p == type) {
+        stats.classInstances.merge(o, 1L, Long::sum);
+      }
+    }
+
+    final IntBuffer osp = merged.getOrder(TripleIndex.OSP);
+    for (int i = 0; i < size; i++) {
+      if (i == 0 || osp.get(i * TripleIndex.ROW) != osp.get((i - 1) * TripleIndex.ROW)) {
+        stats.objects++;
+      }
+    }
+
+    return stats;
+  }
+
+  /**
+   * Returns the statistics after a change not touching the schema, adjusting a copy of these counts.
+   * Distinct subjects and objects are counted again only for the terms of the changed triples.
+   * @param before the triple index these statistics were collected on.
+   * @param after the triple index after the change.
+   * @param added the triples added, not in {@code before}.
+   * @param removed the triples removed, in {@code before}.
+   * @return the statistics of {@code after}.
+   */
+  public OntologyStatistics update(TripleIndex before, TripleIndex after, Collection<Statement> added,
+                                   Collection<Statement> removed) {
+    return this.update(before::count, after::count, after.size(), added, removed);
+  }
+
+  /**
+   * Returns the statistics after a change not touching the schema, counting on triples that need not be held
+   * by a single index (e.g. partitioned across shards).
+   * The counters only need to tell whether a pattern has matches.
+   * @param before the counter of the triples these statistics were collected on.
+   * @param after the counter of the triples after the change.
+   * @param triples the number of triples after the change.
+   * @param added the triples added, not counted by {@code before}.
+   * @param removed the triples removed, counted by {@code before}.
+   * @return the statistics after the change.
+   */
+  OntologyStatistics update(PatternCounter before, PatternCounter after, long triples, Collection<Statement> added,
+                            Collection<Statement> removed) {
+    final OntologyStatistics stats = new OntologyStatistics(this.dictionary, this.schema, this.entailed);
+    stats.triples = triples;
+    stats.subjects = this.subjects;
+    stats.objects = this.objects;
+    stats.predicateTriples.putAll(this.predicateTriples);
+    stats.predicateSubjects.putAll(this.predicateSubjects);
+    stats.predicateObjects.putAll(this.predicateObjects);
+    stats.literalPredicates.addAll(this.literalPredicates);
+    stats.classInstances.putAll(this.classInstances);
+
+    final int type = this.schema.getType();
+    final Set<Integer> subjects = new HashSet<>();
+    final Set<Integer> objects = new HashSet<>();
+    final Set<Long> subjectPredicates = new HashSet<>();
+    final Set<Long> predicateObjects = new HashSet<>();
+    for (Collection<Statement> statements : Arrays.asList(added, removed)) {
+      final long delta = (statements == added) ? 1L : -1L;
+      for (Statement st : statements) {
+        final int s = this.dictionary.lookup(st.getSubject());
+        final int p = this.dictionary.lookup(st.getPredicate());
+        final int o = this.dictionary.lookup(st.getObject());
+        merge(stats.predicateTriples, p, delta);
+        if (p == type) {
+          merge(stats.classInstances, o, delta);
+        }
+        if (delta > 0 && st.getObject() instanceof Literal) {
+          stats.literalPredicates.add(p);
+        }
+        subjects.add(s);
+        objects.add(o);
+        subjectPredicates.add(pair(s, p));
+        predicateObjects.add(pair(p, o));
+      }
+    }
+    for (int s : subjects) {
+      stats.subjects += occurs(before.count(s, TripleIndex.ANY, TripleIndex.ANY),
+          after.count(s, TripleIndex.ANY, TripleIndex.ANY));
+    }
+    for (int o : objects) {
+      stats.objects += occurs(before.count(TripleIndex.ANY, TripleIndex.ANY, o),
+          after.count(TripleIndex.ANY, TripleIndex.ANY, o));
+    }
+    for (long pair : subjectPredicates) {
+      final int s = (int) (pair >>> 32);
+      final int p = (int) pair;
+      merge(stats.predicateSubjects, p,
+          occurs(before.count(s, p, TripleIndex.ANY), after.count(s, p, TripleIndex.ANY)));
+    }
+    for (long pair : predicateObjects) {
+      final int p = (int) (pair >>> 32);
+      final int o = (int) pair;
+      merge(stats.predicateObjects, p,
+          occurs(before.count(TripleIndex.ANY, p, o), after.count(TripleIndex.ANY, p, o)));
+    }
+    return stats;
+  }
+
+  /**
+   * Returns the number of triples.
+   * @return the number of triples.
+   */
+  public long getTriples() {
+    return this.triples;
+  }
+
+  /**
+   * Returns the number of distinct subjects.
+   * @return the number of distinct subjects.
+   */
+  public long getSubjects() {
+    return this.subjects;
+  }
+
+  /**
+   * Returns the number of distinct objects.
+   * @return the number of distinct objects.
+   */
+  public long getObjects() {
+    return this.objects;
+  }
+
+  /**
+   * Checks if {@code value} occurs in the ontology.
+   * @param value the value.
+   * @return true, if {@code value} occurs in the ontology; false, if it surely does not.
+   */
+  public boolean isKnown(Value value) {
+    return this.dictionary.lookup(value) != TermDictionary.UNKNOWN;
+  }
+
+  /**
+   * Returns the number of triples of {@code predicate}.
+   * @param predicate the predicate.
+   * @return the number of triples.
+   */
+  public long getTriples(IRI predicate) {
+    return this.getPropertyCount(this.predicateTriples, this.dictionary.lookup(predicate));
+  }
+
+  /**
+   * Returns the number of distinct subjects of {@code predicate}.
+   * @param predicate the predicate.
+   * @return the number of distinct subjects.
+   */
+  public long getSubjects(IRI predicate) {
+    return this.getPropertyCount(this.predicateSubjects, this.dictionary.lookup(predicate));
+  }
+
+  /**
+   * Returns the number of distinct objects of {@code predicate}.
+   * @param predicate the predicate.
+   * @return the number of distinct objects.
+   */
+  public long getObjects(IRI predicate) {
+    return this.getPropertyCount(this.predicateObjects, this.dictionary.lookup(predicate));
+  }
+
+  /**
+   * Returns the number of instances of {@code clazz}.
+   * @param clazz the class.
+   * @return the number of instances.
+   */
+  public long getInstances(Value clazz) {
+    final int id = this.dictionary.lookup(clazz);
+    if (this.entailed) {
+      return this.classInstances.getOrDefault(id, 0L);
+    }
+    long count = 0;
+    for (int c : this.schema.getClassAndSubClasses(id)) {
+      count += this.classInstances.getOrDefault(c, 0L);
+    }
+    return count;
+  }
+
+  /**
+   * Checks if the subjects of {@code predicate} are entailed to be instances of {@code clazz},
+   * by a domain of the predicate (or of one of its super-properties) or one of its sub-classes.
+   * @param predicate the predicate.
+   * @param clazz the class.
+   * @return true, if the subjects of {@code predicate} are instances of {@code clazz}; false, otherwise.
+   */
+  public boolean impliesDomain(IRI predicate, Value clazz) {
+    return this.implies(this.schema.getDomains(this.dictionary.lookup(predicate)), clazz);
+  }
+
+  /**
+   * Checks if the objects of {@code predicate} are entailed to be instances of {@code clazz},
+   * by a range of the predicate (or of one of its super-properties) or one of its sub-classes.
+   * Predicates with literal objects imply nothing, since no type is entailed for literals.
+   * @param predicate the predicate.
+   * @param clazz the class.
+   * @return true, if the objects of {@code predicate} are instances of {@code clazz}; false, otherwise.
+   */
+  public boolean impliesRange(IRI predicate, Value clazz) {
+    final int id = this.dictionary.lookup(predicate);
+    return !this.hasLiterals(id) && this.implies(this.schema.getRanges(id), clazz);
+  }
+
+  /**
+   * Checks if one of {@code classes} is {@code clazz} or one of its sub-classes.
+   */
+  private boolean implies(Set<Integer> classes, Value clazz) {
+    final int id = this.dictionary.lookup(clazz);
+    if (id == TermDictionary.UNKNOWN) {
+      return false;
+    }
+    for (int c : classes) {
+      if (this.schema.getClassAndSuperClasses(c).contains(id)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the count of {@code property}, adding the ones of its sub-properties when not entailed.
+   */
+  private long getPropertyCount(Map<Integer, Long> counts, int property) {
+    if (this.entailed) {
+      return counts.getOrDefault(property, 0L);
+    }
+    long count = 0;
+    for (int p : this.schema.getPropertyAndSubProperties(property)) {
+      count += counts.getOrDefault(p, 0L);
+    }
+    return count;
+  }
+
+  /**
+   * Checks if {@code property} has literal objects, or one of its sub-properties when not entailed.
+   */
+  private boolean hasLiterals(int property) {
+    if (this.entailed) {
+      return this.literalPredicates.contains(property);
+    }
+    for (int p : this.schema.getPropertyAndSubProperties(property)) {
+      if (this.literalPredicates.contains(p)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the change in the number of distinct terms when a term (or pair) goes from {@code before} triples
+   * to {@code after} triples: 1, if it appears; -1, if it disappears; 0, otherwise.
+   */
+  private static long occurs(int before, int after) {
+    return Integer.signum(after) - Integer.signum(before);
+  }
+
+  private static long pair(int a, int b) {
+    return ((long) a << 32) | (b & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Adds {@code delta} to the count of {@code key}, dropping counts reaching zero.
+   */
+  private static void merge(Map<Integer, Long> counts, int key, long delta) {
+    if (delta != 0) {
+      counts.merge(key, delta, (a, b) -> (a + b == 0) ? null : a + b);
+    }
+  }
+
+  /**
+   * A counter of the triples matching a pattern of term ids, with {@link TripleIndex#ANY} as wildcard.
+   */
+  @FunctionalInterface
+  interface PatternCounter {
+
+    int count(int s, int p, int o);
+  }
+}
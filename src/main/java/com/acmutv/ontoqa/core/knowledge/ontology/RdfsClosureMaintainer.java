@@ -0,0 +1,243 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.ontology;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.RepositoryResult;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.sail.inferencer.fc.ForwardChainingRDFSInferencer;
+import org.eclipse.rdf4j.sail.memory.MemoryStore;
+
+import java.util.*;
+
+/**
+ * Computation and incremental maintenance of the RDFS closure of a {@link CompactOntology}.
+ * With a fixed schema, every RDFS entailment follows from one asserted triple and the schema triples, so:
+ * <ul>
+ *   <li>the closure is the union of the closures of the schema and each batch of asserted triples;</li>
+ *   <li>additions entail the closure of the schema and the added triples;</li>
+ *   <li>removals over-delete the entailments of the removed triples, then re-derive the ones still entailed
+ *   by the remaining triples about the same resources (delete and re-derive).</li>
+ * </ul>
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see CompactOntology#update(Collection, Collection)
+ */
+final class RdfsClosureMaintainer {
+
+  private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+  /**
+   * The predicates of schema triples.
+   */
+  private static final IRI[] SCHEMA_PREDICATES = {RDFS.SUBCLASSOF, RDFS.SUBPROPERTYOF, RDFS.DOMAIN, RDFS.RANGE};
+
+  /**
+   * The classes whose instances are involved in the RDFS rules.
+   */
+  private static final IRI[] SCHEMA_TYPES = {RDFS.CLASS, RDF.PROPERTY, RDFS.DATATYPE, RDFS.CONTAINERMEMBERSHIPPROPERTY};
+
+  /**
+   * The number of asserted triples entailed together when computing a closure.
+   */
+  private static final int BATCH_SIZE = 1 << 14;
+
+  private RdfsClosureMaintainer() {
+  }
+
+  /**
+   * Checks if {@code st} belongs to the schema, so that changing it requires a full closure computation.
+   * @param st the statement.
+   * @return true, if {@code st} belongs to the schema; false, otherwise.
+   */
+  static boolean isSchema(Statement st) {
+    final IRI pred = st.getPredicate();
+    return RDFS.SUBCLASSOF.equals(pred) || RDFS.SUBPROPERTYOF.equals(pred)
+        || RDFS.DOMAIN.equals(pred) || RDFS.RANGE.equals(pred)
+        || isVocabulary(st.getSubject()) || isVocabulary(pred)
+        || (RDF.TYPE.equals(pred) && isVocabulary(st.getObject()));
+  }
+
+  /**
+   * Computes the RDFS closure of {@code base}, as a new ontology sharing its dictionary and starting from its index,
+   * so that asserted triples keep their sequence numbers and entailed ones follow.
+   * Asserted triples are entailed in batches with the schema, in insertion order, so that the inferencer never holds
+   * the whole ontology while entailments follow the order it would give them.
+   * @param base the ontology.
+   * @return the RDFS closure.
+   */
+  static CompactOntology compute(CompactOntology base) {
+    final TripleIndex index = base.getIndex();
+    final CompactOntology result = new CompactOntology(base.getName(), base.getDictionary(), index);
+    final List<Statement> schema = getSchema(base);
+    final List<Statement> batch = new ArrayList<>(Math.min(BATCH_SIZE, index.size()));
+    final Iterator<Statement> statements = base.iterator();
+    do {
+      batch.clear();
+      while (statements.hasNext() && batch.size() < BATCH_SIZE) {
+        batch.add(statements.next());
+      }
+      for (Statement st : entail(schema, batch)) {
+        result.add(st.getSubject(), st.getPredicate(), st.getObject());
+      }
+    } while (statements.hasNext());
+    result.getIndex();
+    return result;
+  }
+
+  /**
+   * Returns the closure of {@code closure} after the changes of {@code base}, as a new ontology.
+   * @param closure the RDFS closure before the changes; it is not modified.
+   * @param base the ontology after the changes.
+   * @param additions the statements added to the ontology, not already asserted.
+   * @param removals the statements removed from the ontology, previously asserted.
+   * @param entailed the list to fill with the statements added to the closure.
+   * @param retracted the list to fill with the statements removed from the closure.
+   * @return the RDFS closure after the changes.
+   */
+  static CompactOntology maintain(CompactOntology closure, CompactOntology base,
+                                  Collection<Statement> additions, Collection<Statement> removals,
+                                  List<Statement> entailed, List<Statement> retracted) {
+    final List<Statement> entailments = new ArrayList<>();
+    final List<Statement> unentailed = new ArrayList<>();
+    derive(base, additions, removals, entailments, unentailed);
+    return closure.apply(entailments, unentailed, entailed, retracted);
+  }
+
+  /**
+   * Derives the changes of the RDFS closure after the changes of {@code base}, without reading the closure:
+   * the statements to add, possibly already in the closure, and the ones to remove, possibly not in it.
+   * @param base the ontology after the changes.
+   * @param additions the statements added to the ontology, not already asserted.
+   * @param removals the statements removed from the ontology, previously asserted.
+   * @param entailments the list to fill with the statements to add to the closure.
+   * @param unentailed the list to fill with the statements to remove from the closure.
+   */
+  static void derive(CompactOntology base, Collection<Statement> additions, Collection<Statement> removals,
+                     List<Statement> entailments, List<Statement> unentailed) {
+    final List<Statement> schema = getSchema(base);
+
+    if (!removals.isEmpty()) {
+      final Set<Statement> candidates = entail(schema, removals);
+      candidates.removeAll(entail(schema, Collections.emptyList()));
+      final Set<Statement> support = new LinkedHashSet<>();
+      for (Statement candidate : candidates) {
+        collectSupport(base, candidate.getSubject(), support);
+      }
+      final Set<Statement> rederived = entail(schema, support);
+      for (Statement candidate : candidates) {
+        if (!rederived.contains(candidate)) {
+          unentailed.add(candidate);
+        }
+      }
+    }
+
+    if (!additions.isEmpty()) {
+      entailments.addAll(entail(schema, additions));
+    }
+  }
+
+  /**
+   * Collects the asserted triples an entailment with {@code subject} as subject may follow from:
+   * the ones having it as subject or object, and one using it as predicate.
+   * @param base the ontology.
+   * @param subject the subject.
+   * @param support the triples collected so far.
+   */
+  private static void collectSupport(CompactOntology base, Resource subject, Set<Statement> support) {
+    base.getStatements(subject, null, null).forEach(support::add);
+    base.getStatements(null, null, subject).forEach(support::add);
+    if (subject instanceof IRI) {
+      Iterator<Statement> usages = base.getStatements(null, (IRI) subject, null).iterator();
+      if (usages.hasNext()) {
+        support.add(usages.next());
+      }
+    }
+  }
+
+  /**
+   * Returns the schema triples of {@code base} the RDFS rules may join with other triples.
+   * @param base the ontology.
+   * @return the schema triples.
+   */
+  private static List<Statement> getSchema(CompactOntology base) {
+    final List<Statement> schema = new ArrayList<>();
+    for (IRI predicate : SCHEMA_PREDICATES) {
+      base.getStatements(null, predicate, null).forEach(schema::add);
+    }
+    for (IRI type : SCHEMA_TYPES) {
+      base.getStatements(null, RDF.TYPE, type).forEach(schema::add);
+    }
+    return schema;
+  }
+
+  /**
+   * Computes the RDFS closure of {@code schema} and {@code statements}, with the RDF4J forward-chaining inferencer.
+   * @param schema the schema triples.
+   * @param statements the other triples.
+   * @return the RDFS closure.
+   */
+  private static Set<Statement> entail(Collection<Statement> schema, Collection<Statement> statements) {
+    final Set<Statement> result = new LinkedHashSet<>();
+    Repository repo = new SailRepository(new ForwardChainingRDFSInferencer(new MemoryStore()));
+    repo.initialize();
+    try (RepositoryConnection conn = repo.getConnection()) {
+      conn.begin();
+      conn.add(statements);
+      conn.add(schema);
+      conn.commit();
+      try (RepositoryResult<Statement> closure = conn.getStatements(null, null, null, true)) {
+        while (closure.hasNext()) {
+          Statement st = closure.next();
+          result.add(VF.createStatement(st.getSubject(), st.getPredicate(), st.getObject()));
+        }
+      }
+    } finally {
+      repo.shutDown();
+    }
+    return result;
+  }
+
+  private static boolean isVocabulary(Value value) {
+    if (!(value instanceof IRI)) {
+      return false;
+    }
+    final String namespace = ((IRI) value).getNamespace();
+    return RDF.NAMESPACE.equals(namespace) || RDFS.NAMESPACE.equals(namespace);
+  }
+}
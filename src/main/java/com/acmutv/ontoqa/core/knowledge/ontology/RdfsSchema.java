@@ -0,0 +1,321 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.ontology;
+
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+
+import java.util.*;
+
+/**
+ * The RDFS schema hierarchy of a {@link CompactOntology}, on dictionary ids.
+ * It holds the transitive closures of {@code rdfs:subClassOf} and {@code rdfs:subPropertyOf}, and
+ * the domains and ranges of every property, inherited from its super-properties.
+ * It is what query-time rewriting needs in place of the materialized RDFS closure.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see ReasoningMode
+ */
+public class RdfsSchema {
+
+  /**
+   * The id of {@code rdf:type}, {@code rdfs:subClassOf}, {@code rdfs:subPropertyOf}, {@code rdfs:domain}
+   * and {@code rdfs:range}; {@link TermDictionary#UNKNOWN}, if not encoded.
+   */
+  private final int type, subClassOf, subPropertyOf, domain, range;
+
+  /**
+   * The transitive super-classes of every class.
+   */
+  private final Map<Integer, Set<Integer>> superClasses = new LinkedHashMap<>();
+
+  /**
+   * The transitive sub-classes of every class.
+   */
+  private final Map<Integer, Set<Integer>> subClasses = new LinkedHashMap<>();
+
+  /**
+   * The transitive super-properties of every property.
+   */
+  private final Map<Integer, Set<Integer>> superProperties = new LinkedHashMap<>();
+
+  /**
+   * The transitive sub-properties of every property.
+   */
+  private final Map<Integer, Set<Integer>> subProperties = new LinkedHashMap<>();
+
+  /**
+   * The domains of every property, including the ones of its super-properties.
+   */
+  private final Map<Integer, Set<Integer>> domains = new LinkedHashMap<>();
+
+  /**
+   * The ranges of every property, including the ones of its super-properties.
+   */
+  private final Map<Integer, Set<Integer>> ranges = new LinkedHashMap<>();
+
+  /**
+   * The properties having each class in their domains.
+   */
+  private final Map<Integer, Set<Integer>> domainProperties = new LinkedHashMap<>();
+
+  /**
+   * The properties having each class in their ranges.
+   */
+  private final Map<Integer, Set<Integer>> rangeProperties = new LinkedHashMap<>();
+
+  private RdfsSchema(TermDictionary dictionary) {
+    this.type = dictionary.lookup(RDF.TYPE);
+    this.subClassOf = dictionary.lookup(RDFS.SUBCLASSOF);
+    this.subPropertyOf = dictionary.lookup(RDFS.SUBPROPERTYOF);
+    this.domain = dictionary.lookup(RDFS.DOMAIN);
+    this.range = dictionary.lookup(RDFS.RANGE);
+  }
+
+  /**
+   * Computes the schema hierarchy asserted in {@code index}.
+   * @param dictionary the term dictionary.
+   * @param index the triple index, encoded with {@code dictionary}.
+   * @return the schema hierarchy.
+   */
+  public static RdfsSchema build(TermDictionary dictionary, TripleIndex index) {
+    RdfsSchema schema = new RdfsSchema(dictionary);
+    closure(edges(index, schema.subClassOf), schema.superClasses, schema.subClasses);
+    closure(edges(index, schema.subPropertyOf), schema.superProperties, schema.subProperties);
+    schema.inherit(edges(index, schema.domain), schema.domains, schema.domainProperties);
+    schema.inherit(edges(index, schema.range), schema.ranges, schema.rangeProperties);
+    return schema;
+  }
+
+  /**
+   * Returns the id of {@code rdf:type}.
+   * @return the id of {@code rdf:type}; {@link TermDictionary#UNKNOWN}, if not encoded.
+   */
+  public int getType() {
+    return this.type;
+  }
+
+  /**
+   * Checks if {@code predicate} is one of the schema predicates answered by the hierarchy itself,
+   * that is {@code rdf:type}, {@code rdfs:subClassOf} or {@code rdfs:subPropertyOf}.
+   * @param predicate the predicate id.
+   * @return true, if {@code predicate} is a schema predicate; false, otherwise.
+   */
+  public boolean isHierarchical(int predicate) {
+    return predicate != TermDictionary.UNKNOWN
+        && (predicate == this.type || predicate == this.subClassOf || predicate == this.subPropertyOf);
+  }
+
+  /**
+   * Returns the transitive super-classes of every class.
+   * @return the super-classes, by class.
+   */
+  public Map<Integer, Set<Integer>> getSuperClasses() {
+    return Collections.unmodifiableMap(this.superClasses);
+  }
+
+  /**
+   * Returns the transitive sub-classes of every class.
+   * @return the sub-classes, by class.
+   */
+  public Map<Integer, Set<Integer>> getSubClasses() {
+    return Collections.unmodifiableMap(this.subClasses);
+  }
+
+  /**
+   * Returns the transitive super-properties of every property.
+   * @return the super-properties, by property.
+   */
+  public Map<Integer, Set<Integer>> getSuperProperties() {
+    return Collections.unmodifiableMap(this.superProperties);
+  }
+
+  /**
+   * Returns the transitive sub-properties of every property.
+   * @return the sub-properties, by property.
+   */
+  public Map<Integer, Set<Integer>> getSubProperties() {
+    return Collections.unmodifiableMap(this.subProperties);
+  }
+
+  /**
+   * Returns the properties with an entailed domain.
+   * @return the properties with a domain.
+   */
+  public Set<Integer> getDomainedProperties() {
+    return Collections.unmodifiableSet(this.domains.keySet());
+  }
+
+  /**
+   * Returns the properties with an entailed range.
+   * @return the properties with a range.
+   */
+  public Set<Integer> getRangedProperties() {
+    return Collections.unmodifiableSet(this.ranges.keySet());
+  }
+
+  /**
+   * Returns the domains of {@code property}, including the ones of its super-properties.
+   * @param property the property id.
+   * @return the domains.
+   */
+  public Set<Integer> getDomains(int property) {
+    return this.domains.getOrDefault(property, Collections.emptySet());
+  }
+
+  /**
+   * Returns the ranges of {@code property}, including the ones of its super-properties.
+   * @param property the property id.
+   * @return the ranges.
+   */
+  public Set<Integer> getRanges(int property) {
+    return this.ranges.getOrDefault(property, Collections.emptySet());
+  }
+
+  /**
+   * Returns the properties having {@code clazz} in their domains.
+   * @param clazz the class id.
+   * @return the properties.
+   */
+  public Set<Integer> getDomainProperties(int clazz) {
+    return this.domainProperties.getOrDefault(clazz, Collections.emptySet());
+  }
+
+  /**
+   * Returns the properties having {@code clazz} in their ranges.
+   * @param clazz the class id.
+   * @return the properties.
+   */
+  public Set<Integer> getRangeProperties(int clazz) {
+    return this.rangeProperties.getOrDefault(clazz, Collections.emptySet());
+  }
+
+  /**
+   * Returns {@code clazz} with its transitive super-classes.
+   * @param clazz the class id.
+   * @return the class and its super-classes.
+   */
+  public Set<Integer> getClassAndSuperClasses(int clazz) {
+    return withSelf(clazz, this.superClasses);
+  }
+
+  /**
+   * Returns {@code clazz} with its transitive sub-classes.
+   * @param clazz the class id.
+   * @return the class and its sub-classes.
+   */
+  public Set<Integer> getClassAndSubClasses(int clazz) {
+    return withSelf(clazz, this.subClasses);
+  }
+
+  /**
+   * Returns {@code property} with its transitive sub-properties.
+   * @param property the property id.
+   * @return the property and its sub-properties.
+   */
+  public Set<Integer> getPropertyAndSubProperties(int property) {
+    return withSelf(property, this.subProperties);
+  }
+
+  /**
+   * Returns {@code property} with its transitive super-properties.
+   * @param property the property id.
+   * @return the property and its super-properties.
+   */
+  public Set<Integer> getPropertyAndSuperProperties(int property) {
+    return withSelf(property, this.superProperties);
+  }
+
+  /**
+   * Collects the domain (or range) {@code edges} of every property, inheriting them to sub-properties.
+   * @param edges the asserted edges, from property to class.
+   * @param byProperty the map to fill, from property to classes.
+   * @param byClass the inverse map to fill, from class to properties.
+   */
+  private void inherit(Map<Integer, Set<Integer>> edges, Map<Integer, Set<Integer>> byProperty,
+                       Map<Integer, Set<Integer>> byClass) {
+    for (Map.Entry<Integer, Set<Integer>> edge : edges.entrySet()) {
+      for (int property : this.getPropertyAndSubProperties(edge.getKey())) {
+        for (int clazz : edge.getValue()) {
+          byProperty.computeIfAbsent(property, k -> new LinkedHashSet<>()).add(clazz);
+          byClass.computeIfAbsent(clazz, k -> new LinkedHashSet<>()).add(property);
+        }
+      }
+    }
+  }
+
+  /**
+   * Collects the asserted edges of {@code predicate}, in index order.
+   * @param index the triple index.
+   * @param predicate the predicate id.
+   * @return the edges, from subject to objects.
+   */
+  private static Map<Integer, Set<Integer>> edges(TripleIndex index, int predicate) {
+    Map<Integer, Set<Integer>> edges = new LinkedHashMap<>();
+    if (predicate == TermDictionary.UNKNOWN) {
+      return edges;
+    }
+    TripleIndex.Cursor cursor = index.match(TripleIndex.ANY, predicate, TripleIndex.ANY);
+    while (cursor.next()) {
+      edges.computeIfAbsent(cursor.subject(), k -> new LinkedHashSet<>()).add(cursor.object());
+    }
+    return edges;
+  }
+
+  /**
+   * Computes the transitive closure of {@code edges} and its inverse.
+   * @param edges the asserted edges.
+   * @param up the map to fill, from node to its transitive successors.
+   * @param down the map to fill, from node to its transitive predecessors.
+   */
+  private static void closure(Map<Integer, Set<Integer>> edges, Map<Integer, Set<Integer>> up,
+                              Map<Integer, Set<Integer>> down) {
+    for (int node : edges.keySet()) {
+      Set<Integer> reached = new LinkedHashSet<>();
+      Deque<Integer> frontier = new ArrayDeque<>(edges.get(node));
+      while (!frontier.isEmpty()) {
+        int next = frontier.poll();
+        if (reached.add(next)) {
+          frontier.addAll(edges.getOrDefault(next, Collections.emptySet()));
+        }
+      }
+      up.put(node, reached);
+      for (int successor : reached) {
+        down.computeIfAbsent(successor, k -> new LinkedHashSet<>()).add(node);
+      }
+    }
+  }
+
+  private static Set<Integer> withSelf(int node, Map<Integer, Set<Integer>> closure) {
+    Set<Integer> result = new LinkedHashSet<>();
+    result.add(node);
+    result.addAll(closure.getOrDefault(node, Collections.emptySet()));
+    return result;
+  }
+}
@@ -0,0 +1,477 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.knowledge.ontology;
+
+import org.eclipse.rdf4j.model.*;
+import org.eclipse.rdf4j.model.impl.AbstractModel;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+
+import java.util.*;
+
+/**
+ * An ontology whose RDFS closure is hash-partitioned by subject across in-process shards.
+ * Every shard holds the closure statements whose subject hashes to it, together with a replica of the schema
+ * (see {@link RdfsClosureMaintainer#isSchema(Statement)}): so, each statement is homed at the shard of its subject,
+ * and all the statements about a subject can be found on that shard alone.
+ * The closure is only held by the shards: it is not retained as a whole, and queries are served from the shards only.
+ * Shards share the dictionary and the namespaces of the partitioned ontology. Updates not touching the schema
+ * change only the shards homing the changed closure statements, in their overlays; schema changes partition again.
+ * As a model, the ontology is the read-only view of its asserted statements.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see CompactOntology
+ */
+public class ShardedOntology extends AbstractModel implements Ontology {
+
+  private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+  /**
+   * The asserted statements, without their RDFS closure.
+   */
+  private final CompactOntology ontology;
+
+  /**
+   * The shards.
+   */
+  private final CompactOntology[] shards;
+
+  /**
+   * The statistics of the RDFS closure.
+   */
+  private final OntologyStatistics statistics;
+
+  /**
+   * Partitions the RDFS closure of {@code ontology} across {@code shards} shards.
+   * The closure is not retained as a whole, neither by this ontology nor by the asserted statements it keeps.
+   * @param ontology the ontology to partition.
+   * @param shards the number of shards.
+   */
+  public ShardedOntology(CompactOntology ontology, int shards) {
+    if (shards < 1) {
+      throw new IllegalArgumentException("The number of shards must be positive");
+    }
+    final CompactOntology closure = ontology.getRdfsClosure();
+    this.ontology = ontology.copy();
+    this.shards = partition(closure, shards);
+    this.statistics = (ontology.getReasoningMode() == ReasoningMode.MATERIALIZATION) ? ontology.getStatistics()
+        : OntologyStatistics.build(closure.getDictionary(), closure.getIndex(), ontology.getRdfsSchema(), true);
+  }
+
+  private ShardedOntology(CompactOntology ontology, CompactOntology[] shards, OntologyStatistics statistics) {
+    this.ontology = ontology;
+    this.shards = shards;
+    this.statistics = statistics;
+  }
+
+  /**
+   * Returns the asserted statements, as a compact ontology not holding their RDFS closure.
+   * @return the asserted statements.
+   */
+  public CompactOntology getOntology() {
+    return this.ontology;
+  }
+
+  /**
+   * Returns the statistics of the RDFS closure, for query optimization.
+   * @return the statistics.
+   */
+  public OntologyStatistics getStatistics() {
+    return this.statistics;
+  }
+
+  /**
+   * Returns the asserted statements together with their RDFS closure, reassembled from the shards with the same
+   * sequence numbers (e.g. to write a snapshot). The result is not retained.
+   * @return the asserted statements, holding their RDFS closure.
+   */
+  public CompactOntology toCompact() {
+    final int count = this.shards.length;
+    int size = 0;
+    for (CompactOntology shard : this.shards) {
+      size += shard.getIndex().size();
+    }
+    final int[] rows = new int[size * TripleIndex.SEQUENCED_ROW];
+    int length = 0;
+    for (int i = 0; i < count; i++) {
+      final TripleIndex.Cursor cursor = this.shards[i].getIndex()
+          .match(TripleIndex.ANY, TripleIndex.ANY, TripleIndex.ANY);
+      while (cursor.next()) {
+        if (shardOf(cursor.subject(), count) == i) {
+          rows[length++] = cursor.subject();
+          rows[length++] = cursor.predicate();
+          rows[length++] = cursor.object();
+          rows[length++] = cursor.sequence();
+        }
+      }
+    }
+    final CompactOntology result = this.ontology.copy();
+    final CompactOntology closure = new CompactOntology(result.getName(), result.getDictionary(),
+        TripleIndex.build(rows, length / TripleIndex.SEQUENCED_ROW));
+    result.getNamespaces().forEach(closure::setNamespace);
+    result.setRdfsClosure(closure);
+    return result;
+  }
+
+  /**
+   * Counts the statements of the RDFS closure matching a pattern, on the shards.
+   * With no subject, replicated schema statements are counted once per shard: the count is an estimate,
+   * as needed for join ordering.
+   * @param subj the subject, or null.
+   * @param pred the predicate, or null.
+   * @param obj the object, or null.
+   * @return the number of matching statements.
+   */
+  public int count(Resource subj, IRI pred, Value obj) {
+    if (subj != null) {
+      final int shard = this.shardOf(subj);
+      return (shard < 0) ? 0 : this.shards[shard].count(subj, pred, obj);
+    }
+    int count = 0;
+    for (CompactOntology shard : this.shards) {
+      count += shard.count(null, pred, obj);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of shards.
+   * @return the number of shards.
+   */
+  public int getShardCount() {
+    return this.shards.length;
+  }
+
+  /**
+   * Returns a shard.
+   * @param shard the shard index.
+   * @return the shard.
+   */
+  public CompactOntology getShard(int shard) {
+    return this.shards[shard];
+  }
+
+  /**
+   * Returns the shard where the statements about {@code subject} are homed.
+   * @param subject the subject.
+   * @return the shard index; -1, if {@code subject} does not occur in the ontology.
+   */
+  public int shardOf(Resource subject) {
+    final int id = this.ontology.getDictionary().lookup(subject);
+    return (id == TermDictionary.UNKNOWN) ? -1 : shardOf(id, this.shards.length);
+  }
+
+  /**
+   * Returns the statements of {@code shard} matching a pattern with no subject, restricted to the ones
+   * homed at the shard, so that replicated schema statements are returned by one shard only.
+   * @param shard the shard index.
+   * @param pred the predicate, or null.
+   * @param obj the object, or null.
+   * @return the matching statements.
+   */
+  public Iterator<Statement> matchHomed(int shard, IRI pred, Value obj) {
+    final int count = this.shards.length;
+    return this.shards[shard].matchSubjects(pred, obj, s -> shardOf(s, count) == shard);
+  }
+
+  /**
+   * Returns a new version of this ontology, with {@code removals} removed and then {@code additions} added.
+   * This version is left untouched (see {@link CompactOntology#update(Collection, Collection)}).
+   * Unless they touch the schema, the changes of the RDFS closure are derived from the changed statements
+   * (see {@link RdfsClosureMaintainer#derive(CompactOntology, Collection, Collection, List, List)}), checked against
+   * the shards homing them and applied to their indexes only, and the statistics are updated with them;
+   * otherwise, the closure is computed and partitioned again.
+   * @param additions the statements to add.
+   * @param removals the statements to remove.
+   * @return the new version.
+   */
+  public ShardedOntology update(Collection<? extends Statement> additions, Collection<? extends Statement> removals) {
+    final List<Statement> added = new ArrayList<>();
+    final List<Statement> removed = new ArrayList<>();
+    final CompactOntology updated = this.ontology.apply(additions, removals, added, removed);
+    boolean schemaChanged = false;
+    for (Statement st : added) {
+      schemaChanged |= RdfsClosureMaintainer.isSchema(st);
+    }
+    for (Statement st : removed) {
+      schemaChanged |= RdfsClosureMaintainer.isSchema(st);
+    }
+    if (schemaChanged) {
+      return new ShardedOntology(updated, this.shards.length);
+    }
+    if (added.isEmpty() && removed.isEmpty()) {
+      return new ShardedOntology(updated, this.shards, this.statistics);
+    }
+
+    final List<Statement> entailments = new ArrayList<>();
+    final List<Statement> unentailed = new ArrayList<>();
+    RdfsClosureMaintainer.derive(updated, added, removed, entailments, unentailed);
+
+    final int count = this.shards.length;
+    final TermDictionary dictionary = updated.getDictionary();
+    final TripleIndex[] before = new TripleIndex[count];
+    int sequence = 0;
+    for (int i = 0; i < count; i++) {
+      before[i] = this.shards[i].getIndex();
+      sequence = Math.max(sequence, before[i].nextSequence());
+    }
+    final int[][] adds = new int[count][TripleIndex.SEQUENCED_ROW * 16];
+    final int[] addSizes = new int[count];
+    final int[][] removes = new int[count][TripleIndex.ROW * 16];
+    final int[] removeSizes = new int[count];
+    final List<Statement> entailed = new ArrayList<>();
+    final List<Statement> retracted = new ArrayList<>();
+
+    final Set<Statement> retractedTriples = new HashSet<>();
+    for (Statement st : unentailed) {
+      final int s = dictionary.lookup(st.getSubject());
+      final int p = dictionary.lookup(st.getPredicate());
+      final int o = dictionary.lookup(st.getObject());
+      if (s == TermDictionary.UNKNOWN || p == TermDictionary.UNKNOWN || o == TermDictionary.UNKNOWN
+          || !before[home(st, s, count)].contains(s, p, o)) {
+        continue;
+      }
+      if (retractedTriples.add(VF.createStatement(st.getSubject(), st.getPredicate(), st.getObject()))) {
+        retracted.add(st);
+        for (int i : targets(st, s, count)) {
+          append(removes, removeSizes, i, TripleIndex.ROW, s, p, o, 0);
+        }
+      }
+    }
+
+    final Set<Statement> entailedTriples = new HashSet<>();
+    for (Statement st : entailments) {
+      final Statement triple = VF.createStatement(st.getSubject(), st.getPredicate(), st.getObject());
+      final int s = dictionary.encode(st.getSubject());
+      final int p = dictionary.encode(st.getPredicate());
+      final int o = dictionary.encode(st.getObject());
+      if (before[home(st, s, count)].contains(s, p, o) && !retractedTriples.contains(triple)) {
+        continue;
+      }
+      if (entailedTriples.add(triple)) {
+        entailed.add(st);
+        for (int i : targets(st, s, count)) {
+          append(adds, addSizes, i, TripleIndex.SEQUENCED_ROW, s, p, o, sequence);
+        }
+        sequence++;
+      }
+    }
+
+    final CompactOntology[] shards = new CompactOntology[count];
+    final TripleIndex[] after = new TripleIndex[count];
+    for (int i = 0; i < count; i++) {
+      if (addSizes[i] == 0 && removeSizes[i] == 0) {
+        shards[i] = this.shards[i];
+        after[i] = before[i];
+      } else {
+        after[i] = before[i].apply(adds[i], addSizes[i] / TripleIndex.SEQUENCED_ROW,
+            removes[i], removeSizes[i] / TripleIndex.ROW);
+        shards[i] = new CompactOntology(this.shards[i].getName(), dictionary, after[i]);
+      }
+    }
+    final OntologyStatistics statistics = this.statistics.update(
+        (s, p, o) -> count(before, s, p, o), (s, p, o) -> count(after, s, p, o),
+        this.statistics.getTriples() + entailed.size() - retracted.size(), entailed, retracted);
+    return new ShardedOntology(updated, shards, statistics);
+  }
+
+  @Override
+  public String getName() {
+    return this.ontology.getName();
+  }
+
+  @Override
+  public void merge(Collection<? extends Statement> other) {
+    throw new UnsupportedOperationException("Sharded ontologies can only be updated as a whole");
+  }
+
+  @Override
+  public String toPrettyString() {
+    return this.ontology.toPrettyString();
+  }
+
+  @Override
+  public boolean add(Resource subj, IRI pred, Value obj, Resource... contexts) {
+    throw new UnsupportedOperationException("Sharded ontologies can only be updated as a whole");
+  }
+
+  @Override
+  public boolean contains(Resource subj, IRI pred, Value obj, Resource... contexts) {
+    return this.ontology.contains(subj, pred, obj, contexts);
+  }
+
+  @Override
+  public boolean remove(Resource subj, IRI pred, Value obj, Resource... contexts) {
+    throw new UnsupportedOperationException("Sharded ontologies can only be updated as a whole");
+  }
+
+  @Override
+  public Iterator<Statement> iterator() {
+    return this.ontology.copy().iterator();
+  }
+
+  @Override
+  public int size() {
+    return this.ontology.size();
+  }
+
+  @Override
+  public Model filter(Resource subj, IRI pred, Value obj, Resource... contexts) {
+    return this.ontology.filter(subj, pred, obj, contexts);
+  }
+
+  @Override
+  public void removeTermIteration(Iterator<Statement> iter, Resource subj, IRI pred, Value obj, Resource... contexts) {
+    throw new UnsupportedOperationException("Sharded ontologies can only be updated as a whole");
+  }
+
+  @Override
+  public Set<Namespace> getNamespaces() {
+    return this.ontology.getNamespaces();
+  }
+
+  @Override
+  public void setNamespace(Namespace namespace) {
+    throw new UnsupportedOperationException("Sharded ontologies can only be updated as a whole");
+  }
+
+  @Override
+  public Optional<Namespace> removeNamespace(String prefix) {
+    throw new UnsupportedOperationException("Sharded ontologies can only be updated as a whole");
+  }
+
+  /**
+   * Returns the shard where the statements about the subject with id {@code id} are homed.
+   * Ids are scrambled first, so that consecutive ids spread across shards.
+   * @param id the subject id.
+   * @param shards the number of shards.
+   * @return the shard index.
+   */
+  private static int shardOf(int id, int shards) {
+    int hash = id * 0x9E3779B1;
+    hash ^= hash >>> 16;
+    return Math.floorMod(hash, shards);
+  }
+
+  /**
+   * Partitions {@code closure} by subject, replicating its schema statements to every shard.
+   * Statements keep their sequence numbers, so that every shard matches them in the order of the closure.
+   * @param closure the RDFS closure.
+   * @param count the number of shards.
+   * @return the shards.
+   */
+  private static CompactOntology[] partition(CompactOntology closure, int count) {
+    final TermDictionary dictionary = closure.getDictionary();
+    final int[][] rows = new int[count][];
+    final int[] sizes = new int[count];
+    final int capacity = Math.max(16, closure.size() / count + closure.size() / (4 * count)) * TripleIndex.SEQUENCED_ROW;
+    for (int i = 0; i < count; i++) {
+      rows[i] = new int[capacity];
+    }
+    final TripleIndex.Cursor cursor = closure.getIndex().match(TripleIndex.ANY, TripleIndex.ANY, TripleIndex.ANY);
+    while (cursor.next()) {
+      final Statement st = VF.createStatement((Resource) dictionary.decode(cursor.subject()),
+          (IRI) dictionary.decode(cursor.predicate()), dictionary.decode(cursor.object()));
+      if (RdfsClosureMaintainer.isSchema(st)) {
+        for (int i = 0; i < count; i++) {
+          append(rows, sizes, i, cursor);
+        }
+      } else {
+        append(rows, sizes, shardOf(cursor.subject(), count), cursor);
+      }
+    }
+    final CompactOntology[] shards = new CompactOntology[count];
+    for (int i = 0; i < count; i++) {
+      shards[i] = new CompactOntology(closure.getName(), dictionary,
+          TripleIndex.build(rows[i], sizes[i] / TripleIndex.SEQUENCED_ROW));
+    }
+    return shards;
+  }
+
+  /**
+   * Appends the triple under {@code cursor} to the rows of {@code shard}.
+   */
+  private static void append(int[][] rows, int[] sizes, int shard, TripleIndex.Cursor cursor) {
+    append(rows, sizes, shard, TripleIndex.SEQUENCED_ROW, cursor.subject(), cursor.predicate(), cursor.object(),
+        cursor.sequence());
+  }
+
+  /**
+   * Appends a triple to the rows of {@code shard}, followed by its sequence number if {@code width} is
+   * {@link TripleIndex#SEQUENCED_ROW}.
+   */
+  private static void append(int[][] rows, int[] sizes, int shard, int width, int s, int p, int o, int sequence) {
+    if (sizes[shard] + width > rows[shard].length) {
+      rows[shard] = Arrays.copyOf(rows[shard], rows[shard].length * 2);
+    }
+    final int[] target = rows[shard];
+    int i = sizes[shard];
+    target[i++] = s;
+    target[i++] = p;
+    target[i++] = o;
+    if (width == TripleIndex.SEQUENCED_ROW) {
+      target[i++] = sequence;
+    }
+    sizes[shard] = i;
+  }
+
+  /**
+   * Returns a shard holding {@code st} if it is in the RDFS closure: the first one, for replicated schema
+   * statements; the home shard of its subject, otherwise.
+   */
+  private static int home(Statement st, int subject, int count) {
+    return RdfsClosureMaintainer.isSchema(st) ? 0 : shardOf(subject, count);
+  }
+
+  /**
+   * Returns the shards holding {@code st} if it is in the RDFS closure: all of them, for replicated schema
+   * statements; the home shard of its subject, otherwise.
+   */
+  private static int[] targets(Statement st, int subject, int count) {
+    if (RdfsClosureMaintainer.isSchema(st)) {
+      final int[] all = new int[count];
+      Arrays.setAll(all, i -> i);
+      return all;
+    }
+    return new int[]{shardOf(subject, count)};
+  }
+
+  /**
+   * Counts the triples matching a pattern of term ids on the shards: on the home shard, if the subject is bound;
+   * on every shard, counting replicated schema statements once per shard, otherwise.
+   */
+  private static int count(TripleIndex[] shards, int s, int p, int o) {
+    if (s != TripleIndex.ANY) {
+      return shards[shardOf(s, shards.length)].count(s, p, o);
+    }
+    int count = 0;
+    for (TripleIndex shard : shards) {
+      count += shard.count(s, p, o);
+    }
+    return count;
+  }
+}
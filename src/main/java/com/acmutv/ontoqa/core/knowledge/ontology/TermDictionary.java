@@ -0,0 +1,185 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.ontology;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An append-only dictionary encoding RDF terms as dense integer ids.
+ * Terms are stored once, as plain {@link SimpleValueFactory} values, so that no store-specific
+ * value implementation is retained. Lookups are lock-free; encoding is serialized.
+ * A dictionary opened from a snapshot keeps the snapshot terms mapped, and encodes new terms after them.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see CompactOntology
+ */
+public class TermDictionary {
+
+  /**
+   * The id returned for unknown terms.
+   */
+  public static final int UNKNOWN = -2;
+
+  private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+  private final Map<Value,Integer> ids;
+
+  private volatile Value[] values;
+
+  /**
+   * The snapshot terms, holding ids in {@code [0, base.size())}; null, if none.
+   */
+  private final MappedTerms base;
+
+  /**
+   * The number of snapshot terms.
+   */
+  private final int baseSize;
+
+  private volatile int size;
+
+  public TermDictionary() {
+    this(null, 1024);
+  }
+
+  /**
+   * Creates a dictionary pre-sized for {@code capacity} terms.
+   * @param capacity the expected number of terms.
+   */
+  public TermDictionary(int capacity) {
+    this(null, capacity);
+  }
+
+  /**
+   * Creates a dictionary extending the terms of a snapshot.
+   * @param base the snapshot terms.
+   */
+  TermDictionary(MappedTerms base) {
+    this(base, 1024);
+  }
+
+  private TermDictionary(MappedTerms base, int capacity) {
+    this.ids = new ConcurrentHashMap<>(Math.max(capacity, 16));
+    this.values = new Value[Math.max(capacity, 16)];
+    this.base = base;
+    this.baseSize = (base != null) ? base.size() : 0;
+    this.size = this.baseSize;
+  }
+
+  /**
+   * Returns the id of {@code value}.
+   * @param value the term to look up.
+   * @return the id of {@code value}; {@link #UNKNOWN}, if not encoded.
+   */
+  public int lookup(Value value) {
+    if (this.base != null) {
+      int id = this.base.lookup(value);
+      if (id != UNKNOWN) {
+        return id;
+      }
+    }
+    Integer id = this.ids.get(value);
+    return (id != null) ? id : UNKNOWN;
+  }
+
+  /**
+   * Returns the id of {@code value}, encoding it if needed.
+   * @param value the term to encode.
+   * @return the id of {@code value}.
+   */
+  public int encode(Value value) {
+    Integer id = this.lookup(value);
+    if (id != UNKNOWN) {
+      return id;
+    }
+    synchronized (this) {
+      id = this.ids.get(value);
+      if (id != null) {
+        return id;
+      }
+      final int newId = this.size;
+      final int slot = newId - this.baseSize;
+      Value[] current = this.values;
+      if (slot == current.length) {
+        current = Arrays.copyOf(current, current.length * 2);
+      }
+      current[slot] = plain(value);
+      this.values = current;
+      this.size = newId + 1;
+      this.ids.put(current[slot], newId);
+      return newId;
+    }
+  }
+
+  /**
+   * Returns the term with id {@code id}.
+   * @param id the term id.
+   * @return the term.
+   */
+  public Value decode(int id) {
+    return (id < this.baseSize) ? this.base.decode(id) : this.values[id - this.baseSize];
+  }
+
+  /**
+   * Returns the number of encoded terms.
+   * @return the number of encoded terms.
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns a plain copy of {@code value}, detached from any store-specific implementation.
+   * @param value the value to copy.
+   * @return the plain copy.
+   */
+  private static Value plain(Value value) {
+    if (value instanceof IRI) {
+      return VF.createIRI(value.stringValue());
+    } else if (value instanceof BNode) {
+      return VF.createBNode(((BNode) value).getID());
+    } else if (value instanceof Literal) {
+      Literal literal = (Literal) value;
+      if (literal.getLanguage().isPresent()) {
+        return VF.createLiteral(literal.getLabel(), literal.getLanguage().get());
+      }
+      return VF.createLiteral(literal.getLabel(), VF.createIRI(literal.getDatatype().stringValue()));
+    }
+    return value;
+  }
+}
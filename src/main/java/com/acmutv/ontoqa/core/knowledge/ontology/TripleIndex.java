@@ -0,0 +1,846 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.ontology;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * An immutable set of dictionary-encoded triples, stored as three sorted permutations (SPO, POS, OSP)
+ * of fixed-width integer rows, plus the sequence number of every triple, i.e. its insertion rank.
+ * Every triple pattern is answered by a binary search for a prefix of one permutation, and its matches are read
+ * in index order, without copying them; only exports, whose order is observable, ask for insertion order.
+ * Changes do not rebuild the permutations: they go in two small sorted overlays on the base index, the added
+ * triples and the removed ones (tombstones), which are merged into the base once they outgrow a fraction of it.
+ * Permutations and sequence numbers are kept in {@link IntBuffer}s, so that they can live either on heap or in
+ * mapped files.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see CompactOntology
+ */
+public final class TripleIndex {
+
+  /**
+   * The subject-predicate-object permutation.
+   */
+  public static final int SPO = 0;
+
+  /**
+   * The predicate-object-subject permutation.
+   */
+  public static final int POS = 1;
+
+  /**
+   * The object-subject-predicate permutation.
+   */
+  public static final int OSP = 2;
+
+  /**
+   * The wildcard id, matching any term.
+   */
+  public static final int ANY = -1;
+
+  /**
+   * The number of integers in a row: the three term ids.
+   */
+  public static final int ROW = 3;
+
+  /**
+   * The number of integers in an added triple: the three term ids and the sequence number.
+   */
+  public static final int SEQUENCED_ROW = ROW + 1;
+
+  /**
+   * The empty index.
+   */
+  public static final TripleIndex EMPTY = new TripleIndex(new int[0], new int[0], new int[0], new int[0], 0);
+
+  /**
+   * The number of overlay triples always allowed before merging them into the base.
+   */
+  private static final int MERGE_THRESHOLD = 1 << 12;
+
+  /**
+   * The overlays are merged into the base when they hold more than {@code 1 / MERGE_RATIO} of its triples.
+   */
+  private static final int MERGE_RATIO = 16;
+
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  /**
+   * The permutations; null, if layered.
+   */
+  private final IntBuffer[] orders;
+
+  /**
+   * The sequence numbers, aligned with the SPO permutation; null, if layered.
+   */
+  private final IntBuffer sequences;
+
+  /**
+   * The base index, the added triples and the removed ones; null, if not layered.
+   */
+  private final TripleIndex base, additions, removals;
+
+  private final int size;
+
+  /**
+   * The sequence number following the ones in this index; -1, until computed.
+   */
+  private volatile int nextSequence = -1;
+
+  /**
+   * Creates an index from its permutations.
+   * @param spo the SPO permutation, sorted.
+   * @param pos the POS permutation, sorted.
+   * @param osp the OSP permutation, sorted.
+   * @param sequences the sequence numbers, aligned with the SPO permutation.
+   * @param size the number of triples.
+   */
+  public TripleIndex(IntBuffer spo, IntBuffer pos, IntBuffer osp, IntBuffer sequences, int size) {
+    this.orders = new IntBuffer[]{spo, pos, osp};
+    this.sequences = sequences;
+    this.base = null;
+    this.additions = null;
+    this.removals = null;
+    this.size = size;
+  }
+
+  private TripleIndex(int[] spo, int[] pos, int[] osp, int[] sequences, int size) {
+    this(IntBuffer.wrap(spo), IntBuffer.wrap(pos), IntBuffer.wrap(osp), IntBuffer.wrap(sequences), size);
+  }
+
+  /**
+   * Creates a layered index.
+   * @param base the base index, not layered.
+   * @param additions the added triples, not in the base unless removed from it.
+   * @param removals the removed triples of the base.
+   */
+  private TripleIndex(TripleIndex base, TripleIndex additions, TripleIndex removals) {
+    this.orders = null;
+    this.sequences = null;
+    this.base = base;
+    this.additions = additions;
+    this.removals = removals;
+    this.size = base.size - removals.size + additions.size;
+  }
+
+  /**
+   * Returns the number of triples.
+   * @return the number of triples.
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the sequence number following the ones in this index, i.e. the one of the next added triple.
+   * @return the next sequence number.
+   */
+  public int nextSequence() {
+    int next = this.nextSequence;
+    if (next < 0) {
+      if (this.isLayered()) {
+        next = Math.max(this.base.nextSequence(), this.additions.nextSequence());
+      } else {
+        int max = -1;
+        for (int i = 0; i < this.size; i++) {
+          max = Math.max(max, this.sequences.get(i));
+        }
+        next = max + 1;
+      }
+      this.nextSequence = next;
+    }
+    return next;
+  }
+
+  /**
+   * Returns this index with its overlays merged into the base.
+   * @return the merged index; this index, if it has no overlays.
+   */
+  public TripleIndex compact() {
+    if (!this.isLayered()) {
+      return this;
+    }
+    return this.base.rebuild(this.additions.toSequencedRows(), this.additions.size,
+        this.removals.toRows(), this.removals.size);
+  }
+
+  /**
+   * Returns a read-only view of a permutation.
+   * Overlays are merged first, without keeping the result: call {@link #compact()} once to scan more permutations.
+   * @param order the permutation ({@link #SPO}, {@link #POS} or {@link #OSP}).
+   * @return the permutation, as {@code ROW * size()} integers.
+   */
+  public IntBuffer getOrder(int order) {
+    return this.isLayered() ? this.compact().getOrder(order) : this.orders[order].asReadOnlyBuffer();
+  }
+
+  /**
+   * Returns a read-only view of the sequence numbers.
+   * Overlays are merged first, without keeping the result (see {@link #getOrder(int)}).
+   * @return the sequence numbers, aligned with the SPO permutation.
+   */
+  public IntBuffer getSequences() {
+    return this.isLayered() ? this.compact().getSequences() : this.sequences.asReadOnlyBuffer();
+  }
+
+  /**
+   * Returns the triples matching a pattern, in index order: the base ones and the added ones are merged as they are
+   * read, so that the order does not depend on the overlays.
+   * @param s the subject id, or {@link #ANY}.
+   * @param p the predicate id, or {@link #ANY}.
+   * @param o the object id, or {@link #ANY}.
+   * @return the cursor over the matching triples.
+   */
+  public Cursor match(int s, int p, int o) {
+    if (this.isLayered()) {
+      final Cursor cursor = new Cursor(this.base.match(s, p, o), (this.removals.size == 0) ? null : this.removals);
+      return (this.additions.size == 0) ? cursor : new Cursor(cursor, this.additions.match(s, p, o));
+    }
+    final int order = order(s, p, o);
+    final int[] key = key(order, s, p, o);
+    final int k = prefix(key);
+    final IntBuffer rows = this.orders[order];
+    final int from = (k == 0) ? 0 : lowerBound(rows, this.size, k, key);
+    final int to = (k == 0) ? this.size : upperBound(rows, this.size, k, key);
+    return new Cursor(this, rows, order, from, to, null);
+  }
+
+  /**
+   * Returns the triples matching a pattern, in insertion order.
+   * Sorting the matches by sequence number costs a copy and a sort per call, so it is meant for exports (e.g. model
+   * iteration), not for scans or query evaluation, which read {@link #match(int, int, int)}.
+   * @param s the subject id, or {@link #ANY}.
+   * @param p the predicate id, or {@link #ANY}.
+   * @param o the object id, or {@link #ANY}.
+   * @return the cursor over the matching triples.
+   */
+  public Cursor matchInInsertionOrder(int s, int p, int o) {
+    final int n = this.count(s, p, o);
+    final Cursor cursor = this.match(s, p, o);
+    if (n < 2) {
+      return cursor;
+    }
+    final int[] triples = new int[n * ROW];
+    final long[] keys = new long[n];
+    for (int i = 0; i < n && cursor.next(); i++) {
+      triples[i * ROW] = cursor.subject();
+      triples[i * ROW + 1] = cursor.predicate();
+      triples[i * ROW + 2] = cursor.object();
+      keys[i] = ((long) cursor.sequence() << 32) | i;
+    }
+    Arrays.sort(keys);
+    final int[] sorted = new int[n * ROW];
+    final int[] sequences = new int[n];
+    for (int i = 0; i < n; i++) {
+      final int j = (int) keys[i];
+      System.arraycopy(triples, j * ROW, sorted, i * ROW, ROW);
+      sequences[i] = (int) (keys[i] >>> 32);
+    }
+    return new Cursor(null, IntBuffer.wrap(sorted), SPO, 0, n, sequences);
+  }
+
+  /**
+   * Counts the triples matching a pattern.
+   * @param s the subject id, or {@link #ANY}.
+   * @param p the predicate id, or {@link #ANY}.
+   * @param o the object id, or {@link #ANY}.
+   * @return the number of matching triples.
+   */
+  public int count(int s, int p, int o) {
+    if (this.isLayered()) {
+      return this.base.count(s, p, o) - this.removals.count(s, p, o) + this.additions.count(s, p, o);
+    }
+    final int order = order(s, p, o);
+    final int[] key = key(order, s, p, o);
+    final int k = prefix(key);
+    if (k == 0) {
+      return this.size;
+    }
+    final IntBuffer rows = this.orders[order];
+    return upperBound(rows, this.size, k, key) - lowerBound(rows, this.size, k, key);
+  }
+
+  /**
+   * Checks if a triple is in the index.
+   * @param s the subject id.
+   * @param p the predicate id.
+   * @param o the object id.
+   * @return true, if the triple is in the index; false, otherwise.
+   */
+  public boolean contains(int s, int p, int o) {
+    return this.count(s, p, o) > 0;
+  }
+
+  /**
+   * Returns a new index with {@code removes} removed and then {@code adds} added.
+   * Additions are SPO rows followed by their sequence number ({@link #SEQUENCED_ROW} integers each); removals are
+   * plain SPO rows ({@link #ROW} integers each). Neither needs to be sorted nor distinct: a triple already in the
+   * index, or added twice, keeps its first sequence number.
+   * Changes are merged into the overlays, in time linear in their size; the overlays are merged into the base
+   * when they outgrow a fraction of it.
+   * @param adds the triples to add.
+   * @param addCount the number of triples to add.
+   * @param removes the triples to remove.
+   * @param removeCount the number of triples to remove.
+   * @return the new index.
+   */
+  public TripleIndex apply(int[] adds, int addCount, int[] removes, int removeCount) {
+    final TripleIndex base = this.isLayered() ? this.base : this;
+    TripleIndex additions = this.isLayered() ? this.additions : EMPTY;
+    TripleIndex removals = this.isLayered() ? this.removals : EMPTY;
+
+    if (removeCount > 0) {
+      final int[] unadded = new int[removeCount * ROW];
+      final int[] tombstones = new int[removeCount * SEQUENCED_ROW];
+      int nu = 0;
+      int nt = 0;
+      for (int i = 0; i < removeCount * ROW; i += ROW) {
+        final int s = removes[i];
+        final int p = removes[i + 1];
+        final int o = removes[i + 2];
+        if (additions.contains(s, p, o)) {
+          System.arraycopy(removes, i, unadded, nu++ * ROW, ROW);
+        } else if (base.contains(s, p, o) && !removals.contains(s, p, o)) {
+          System.arraycopy(removes, i, tombstones, nt++ * SEQUENCED_ROW, ROW);
+        }
+      }
+      additions = additions.rebuild(new int[0], 0, unadded, nu);
+      removals = removals.rebuild(tombstones, nt, new int[0], 0);
+    }
+
+    if (addCount > 0) {
+      final int[] added = new int[addCount * SEQUENCED_ROW];
+      int na = 0;
+      for (int i = 0; i < addCount * SEQUENCED_ROW; i += SEQUENCED_ROW) {
+        if (!base.contains(adds[i], adds[i + 1], adds[i + 2])
+            || removals.contains(adds[i], adds[i + 1], adds[i + 2])) {
+          System.arraycopy(adds, i, added, na++ * SEQUENCED_ROW, SEQUENCED_ROW);
+        }
+      }
+      additions = additions.rebuild(added, na, new int[0], 0);
+    }
+
+    if (removals.size == 0 && (additions.size == 0 || base.size == 0)) {
+      return (additions.size == 0) ? base : additions;
+    }
+    if (additions.size + removals.size > Math.max(MERGE_THRESHOLD, base.size / MERGE_RATIO)) {
+      return base.rebuild(additions.toSequencedRows(), additions.size, removals.toRows(), removals.size);
+    }
+    return new TripleIndex(base, additions, removals);
+  }
+
+  /**
+   * Builds an index from SPO rows followed by their sequence number.
+   * @param triples the triples.
+   * @param count the number of triples.
+   * @return the index.
+   */
+  public static TripleIndex build(int[] triples, int count) {
+    return EMPTY.rebuild(triples, count, new int[0], 0);
+  }
+
+  private boolean isLayered() {
+    return this.base != null;
+  }
+
+  /**
+   * Returns a new index, not layered, with {@code removes} removed from this one and then {@code adds} added.
+   * Each permutation is rebuilt by a linear merge, after sorting the changes.
+   */
+  private TripleIndex rebuild(int[] adds, int addCount, int[] removes, int removeCount) {
+    if (addCount == 0 && removeCount == 0) {
+      return this;
+    }
+    final int[][] merged = new int[3][];
+    final int[] sequences = new int[this.size + addCount];
+    int size = 0;
+    for (int order = SPO; order <= OSP; order++) {
+      final int width = (order == SPO) ? SEQUENCED_ROW : ROW;
+      int[] a = permute(adds, SEQUENCED_ROW, addCount, order, width);
+      sortRows(a, width, 0, addCount);
+      int na = dedup(a, width, addCount);
+      int[] r = permute(removes, ROW, removeCount, order, ROW);
+      sortRows(r, ROW, 0, removeCount);
+      int nr = dedup(r, ROW, removeCount);
+      merged[order] = new int[(this.size + na) * ROW];
+      size = merge(this.orders[order], (order == SPO) ? this.sequences : null, this.size, a, width, na, r, nr,
+          merged[order], (order == SPO) ? sequences : null);
+    }
+    for (int order = SPO; order <= OSP; order++) {
+      if (merged[order].length != size * ROW) {
+        merged[order] = Arrays.copyOf(merged[order], size * ROW);
+      }
+    }
+    final TripleIndex result = new TripleIndex(merged[SPO], merged[POS], merged[OSP],
+        (sequences.length == size) ? sequences : Arrays.copyOf(sequences, size), size);
+    int next = (this.nextSequence < 0) ? 0 : this.nextSequence;
+    for (int i = 0; i < size; i++) {
+      next = Math.max(next, sequences[i] + 1);
+    }
+    result.nextSequence = next;
+    return result;
+  }
+
+  /**
+   * Returns the SPO rows of this index, not layered, followed by their sequence number.
+   */
+  private int[] toSequencedRows() {
+    final int[] rows = new int[this.size * SEQUENCED_ROW];
+    for (int i = 0; i < this.size; i++) {
+      for (int c = 0; c < ROW; c++) {
+        rows[i * SEQUENCED_ROW + c] = this.orders[SPO].get(i * ROW + c);
+      }
+      rows[i * SEQUENCED_ROW + ROW] = this.sequences.get(i);
+    }
+    return rows;
+  }
+
+  /**
+   * Returns the SPO rows of this index, not layered.
+   */
+  private int[] toRows() {
+    final int[] rows = new int[this.size * ROW];
+    this.orders[SPO].duplicate().get(rows);
+    return rows;
+  }
+
+  /**
+   * Returns the sequence number of a row of a permutation of this index, not layered.
+   * Rows of the SPO permutation are aligned with the sequence numbers; other rows are first looked up there.
+   */
+  private int sequence(int order, int row) {
+    if (order == SPO) {
+      return this.sequences.get(row);
+    }
+    final IntBuffer rows = this.orders[order];
+    final int base = row * ROW;
+    final int[] key;
+    switch (order) {
+      case POS: key = new int[]{rows.get(base + 2), rows.get(base), rows.get(base + 1)}; break;
+      default: key = new int[]{rows.get(base + 1), rows.get(base + 2), rows.get(base)}; break;
+    }
+    return this.sequences.get(lowerBound(this.orders[SPO], this.size, 3, key));
+  }
+
+  /**
+   * Chooses the permutation whose prefix covers the bound terms of a pattern.
+   */
+  private static int order(int s, int p, int o) {
+    if (s != ANY) {
+      return (p == ANY && o != ANY) ? OSP : SPO;
+    } else if (p != ANY) {
+      return POS;
+    } else if (o != ANY) {
+      return OSP;
+    }
+    return SPO;
+  }
+
+  private static int[] key(int order, int s, int p, int o) {
+    switch (order) {
+      case POS: return new int[]{p, o, s};
+      case OSP: return new int[]{o, s, p};
+      default: return new int[]{s, p, o};
+    }
+  }
+
+  private static int prefix(int[] key) {
+    int k = 0;
+    while (k < 3 && key[k] != ANY) k++;
+    return k;
+  }
+
+  private static int compare(IntBuffer rows, int row, int k, int[] key) {
+    final int base = row * ROW;
+    for (int i = 0; i < k; i++) {
+      int d = Integer.compare(rows.get(base + i), key[i]);
+      if (d != 0) return d;
+    }
+    return 0;
+  }
+
+  private static int lowerBound(IntBuffer rows, int n, int k, int[] key) {
+    int lo = 0;
+    int hi = n;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (compare(rows, mid, k, key) < 0) lo = mid + 1; else hi = mid;
+    }
+    return lo;
+  }
+
+  private static int upperBound(IntBuffer rows, int n, int k, int[] key) {
+    int lo = 0;
+    int hi = n;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (compare(rows, mid, k, key) <= 0) lo = mid + 1; else hi = mid;
+    }
+    return lo;
+  }
+
+  /**
+   * Permutes SPO rows of {@code width} integers into {@code order}, as rows of {@code outWidth} integers,
+   * keeping the sequence number when {@code outWidth} is {@link #SEQUENCED_ROW}.
+   */
+  private static int[] permute(int[] spo, int width, int count, int order, int outWidth) {
+    int[] rows = new int[count * outWidth];
+    for (int i = 0; i < count; i++) {
+      final int in = i * width;
+      final int out = i * outWidth;
+      final int s = spo[in];
+      final int p = spo[in + 1];
+      final int o = spo[in + 2];
+      switch (order) {
+        case POS: rows[out] = p; rows[out + 1] = o; rows[out + 2] = s; break;
+        case OSP: rows[out] = o; rows[out + 1] = s; rows[out + 2] = p; break;
+        default: rows[out] = s; rows[out + 1] = p; rows[out + 2] = o; break;
+      }
+      if (outWidth == SEQUENCED_ROW) {
+        rows[out + 3] = spo[in + 3];
+      }
+    }
+    return rows;
+  }
+
+  /**
+   * Compares the terms of two rows.
+   */
+  private static int compareTerms(int[] a, int ia, int[] b, int jb) {
+    int d = Integer.compare(a[ia], b[jb]);
+    if (d != 0) return d;
+    d = Integer.compare(a[ia + 1], b[jb + 1]);
+    if (d != 0) return d;
+    return Integer.compare(a[ia + 2], b[jb + 2]);
+  }
+
+  /**
+   * Compares two rows of {@code width} integers by terms, then by sequence number.
+   */
+  private static int compareRows(int[] a, int i, int[] b, int j, int width) {
+    int d = compareTerms(a, i * width, b, j * width);
+    return (d != 0 || width == ROW) ? d : Integer.compare(a[i * width + 3], b[j * width + 3]);
+  }
+
+  private static int compareTerms(IntBuffer a, int i, int[] b, int jb) {
+    int ia = i * ROW;
+    int d = Integer.compare(a.get(ia), b[jb]);
+    if (d != 0) return d;
+    d = Integer.compare(a.get(ia + 1), b[jb + 1]);
+    if (d != 0) return d;
+    return Integer.compare(a.get(ia + 2), b[jb + 2]);
+  }
+
+  private static void swap(int[] a, int width, int i, int j) {
+    for (int c = 0; c < width; c++) {
+      int tmp = a[i * width + c];
+      a[i * width + c] = a[j * width + c];
+      a[j * width + c] = tmp;
+    }
+  }
+
+  /**
+   * Sorts the rows of {@code width} integers in {@code [lo, hi)} lexicographically (quicksort, insertion sort on
+   * small ranges).
+   */
+  private static void sortRows(int[] a, int width, int lo, int hi) {
+    final int[] pivot = new int[width];
+    while (hi - lo > INSERTION_SORT_THRESHOLD) {
+      int mid = (lo + hi) >>> 1;
+      if (compareRows(a, mid, a, lo, width) < 0) swap(a, width, mid, lo);
+      if (compareRows(a, hi - 1, a, lo, width) < 0) swap(a, width, hi - 1, lo);
+      if (compareRows(a, hi - 1, a, mid, width) < 0) swap(a, width, hi - 1, mid);
+      System.arraycopy(a, mid * width, pivot, 0, width);
+      int i = lo;
+      int j = hi - 1;
+      while (i <= j) {
+        while (compareRows(a, i, pivot, 0, width) < 0) i++;
+        while (compareRows(a, j, pivot, 0, width) > 0) j--;
+        if (i <= j) {
+          swap(a, width, i, j);
+          i++;
+          j--;
+        }
+      }
+      if (j + 1 - lo < hi - i) {
+        sortRows(a, width, lo, j + 1);
+        lo = i;
+      } else {
+        sortRows(a, width, i, hi);
+        hi = j + 1;
+      }
+    }
+    for (int i = lo + 1; i < hi; i++) {
+      for (int j = i; j > lo && compareRows(a, j, a, j - 1, width) < 0; j--) {
+        swap(a, width, j, j - 1);
+      }
+    }
+  }
+
+  /**
+   * Drops rows of {@code width} integers with the same terms as the previous one, keeping the first.
+   */
+  private static int dedup(int[] a, int width, int n) {
+    if (n == 0) return 0;
+    int w = 1;
+    for (int r = 1; r < n; r++) {
+      if (compareTerms(a, r * width, a, (w - 1) * width) != 0) {
+        if (w != r) System.arraycopy(a, r * width, a, w * width, width);
+        w++;
+      }
+    }
+    return w;
+  }
+
+  /**
+   * Merges sorted existing rows with sorted additions of {@code width} integers, skipping the existing rows
+   * in the sorted removals, into {@code out}; when {@code sequences} is given, the sequence numbers go in
+   * {@code outSequences}.
+   * Existing rows win over additions with the same terms, unless removed.
+   * @return the number of merged rows.
+   */
+  private static int merge(IntBuffer existing, IntBuffer sequences, int n, int[] adds, int width, int na,
+                           int[] removes, int nr, int[] out, int[] outSequences) {
+    int w = 0;
+    int i = 0;
+    int j = 0;
+    int r = 0;
+    final int[] row = new int[ROW];
+    int sequence = 0;
+    while (i < n || j < na) {
+      if (j >= na || (i < n && compareTerms(existing, i, adds, j * width) <= 0)) {
+        for (int c = 0; c < ROW; c++) {
+          row[c] = existing.get(i * ROW + c);
+        }
+        while (r < nr && compareTerms(removes, r * ROW, row, 0) < 0) r++;
+        if (r < nr && compareTerms(removes, r * ROW, row, 0) == 0) {
+          i++;
+          continue;
+        }
+        if (j < na && compareTerms(existing, i, adds, j * width) == 0) j++;
+        if (sequences != null) {
+          sequence = sequences.get(i);
+        }
+        i++;
+      } else {
+        System.arraycopy(adds, j * width, row, 0, ROW);
+        if (sequences != null) {
+          sequence = adds[j * width + 3];
+        }
+        j++;
+      }
+      System.arraycopy(row, 0, out, w * ROW, ROW);
+      if (outSequences != null) {
+        outSequences[w] = sequence;
+      }
+      w++;
+    }
+    return w;
+  }
+
+  /**
+   * A cursor over matching triples: a range of a permutation, possibly skipping removed triples, the merge of two
+   * cursors on the same permutation, or a list of sorted triples.
+   */
+  public static final class Cursor {
+
+    /**
+     * The index whose permutation is scanned; null, if scanning a list of triples.
+     */
+    private final TripleIndex index;
+
+    /**
+     * The scanned rows; null, if merging two cursors.
+     */
+    private final IntBuffer rows;
+
+    private final int order;
+
+    private final int to;
+
+    /**
+     * The sequence numbers of a list of triples; null, if scanning a permutation.
+     */
+    private final int[] sequences;
+
+    /**
+     * The triples to skip; null, if none.
+     */
+    private final TripleIndex removals;
+
+    /**
+     * The merged cursors; null, if scanning rows.
+     */
+    private final Cursor first, second;
+
+    private int next;
+
+    private int row = -1;
+
+    /**
+     * Whether the merged cursors have been started, and whether they are positioned on a triple not yet returned.
+     */
+    private boolean started = false, firstReady = false, secondReady = false;
+
+    /**
+     * The merged cursor positioned on the current triple.
+     */
+    private Cursor current = null;
+
+    private Cursor(TripleIndex index, IntBuffer rows, int order, int from, int to, int[] sequences) {
+      this.index = index;
+      this.rows = rows;
+      this.order = order;
+      this.next = from;
+      this.to = to;
+      this.sequences = sequences;
+      this.removals = null;
+      this.first = null;
+      this.second = null;
+    }
+
+    private Cursor(Cursor cursor, TripleIndex removals) {
+      this.index = cursor.index;
+      this.rows = cursor.rows;
+      this.order = cursor.order;
+      this.next = cursor.next;
+      this.to = cursor.to;
+      this.sequences = cursor.sequences;
+      this.removals = removals;
+      this.first = null;
+      this.second = null;
+    }
+
+    private Cursor(Cursor first, Cursor second) {
+      this.index = null;
+      this.rows = null;
+      this.order = first.order;
+      this.to = 0;
+      this.sequences = null;
+      this.removals = null;
+      this.first = first;
+      this.second = second;
+    }
+
+    /**
+     * Advances to the next triple.
+     * @return true, if there is a next triple; false, otherwise.
+     */
+    public boolean next() {
+      if (this.rows == null) {
+        return this.merge();
+      }
+      while (this.next < this.to) {
+        this.row = this.next++;
+        if (this.removals == null || !this.removals.contains(this.subject(), this.predicate(), this.object())) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Advances the merged cursor the current triple came from, then picks the lower of the two positioned triples.
+     */
+    private boolean merge() {
+      if (!this.started) {
+        this.firstReady = this.first.next();
+        this.secondReady = this.second.next();
+        this.started = true;
+      } else if (this.current == this.first) {
+        this.firstReady = this.first.next();
+      } else if (this.current == this.second) {
+        this.secondReady = this.second.next();
+      }
+      if (this.firstReady && (!this.secondReady || this.first.compareTo(this.second) <= 0)) {
+        this.current = this.first;
+      } else if (this.secondReady) {
+        this.current = this.second;
+      } else {
+        this.current = null;
+      }
+      return this.current != null;
+    }
+
+    /**
+     * Compares the current triples of two cursors on the same permutation, in its order.
+     */
+    private int compareTo(Cursor other) {
+      for (int i = 0; i < ROW; i++) {
+        int d = Integer.compare(this.term(i), other.term(i));
+        if (d != 0) return d;
+      }
+      return 0;
+    }
+
+    /**
+     * Returns a term of the current triple, in the order of the permutation.
+     */
+    private int term(int i) {
+      return (this.rows == null) ? this.current.term(i) : this.rows.get(this.row * ROW + i);
+    }
+
+    public int subject() {
+      if (this.rows == null) return this.current.subject();
+      final int base = this.row * ROW;
+      switch (this.order) {
+        case POS: return this.rows.get(base + 2);
+        case OSP: return this.rows.get(base + 1);
+        default: return this.rows.get(base);
+      }
+    }
+
+    public int predicate() {
+      if (this.rows == null) return this.current.predicate();
+      final int base = this.row * ROW;
+      switch (this.order) {
+        case POS: return this.rows.get(base);
+        case OSP: return this.rows.get(base + 2);
+        default: return this.rows.get(base + 1);
+      }
+    }
+
+    public int object() {
+      if (this.rows == null) return this.current.object();
+      final int base = this.row * ROW;
+      switch (this.order) {
+        case POS: return this.rows.get(base + 1);
+        case OSP: return this.rows.get(base);
+        default: return this.rows.get(base + 2);
+      }
+    }
+
+    public int sequence() {
+      if (this.rows == null) return this.current.sequence();
+      return (this.sequences != null) ? this.sequences[this.row] : this.index.sequence(this.order, this.row);
+    }
+  }
+}
@@ -63,6 +63,11 @@ public class AskQuerySubmitter implements Consumer<RepositoryConnection> {
   @NonNull
   private QueryResult result;
 
+  /**
+   * The maximum query execution time (seconds); 0 means no limit.
+   */
+  private int maxExecutionTime = 0;
+
   /**
    * Submits the {@code ASK} SPARQL query to the ontology.
    * @param repoConn the connection to the ontology.
@@ -71,6 +76,7 @@ public class AskQuerySubmitter implements Consumer<RepositoryConnection> {
   public void accept(RepositoryConnection repoConn) {
     BooleanQuery query = repoConn.prepareBooleanQuery(this.getQuery());
     query.setIncludeInferred(true);
+    query.setMaxExecutionTime(this.maxExecutionTime);
     boolean bool = query.evaluate();
     Value value = BooleanLiteral.valueOf(bool);
     this.result.add(value);
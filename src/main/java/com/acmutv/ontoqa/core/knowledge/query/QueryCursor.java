@@ -0,0 +1,163 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.query;
+
+import com.acmutv.ontoqa.core.knowledge.answer.StreamingAnswer;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A lazy SPARQL query result, pulling values from the repository only as they are consumed.
+ * The repository connection stays open until the cursor is exhausted or closed.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see QueryResult
+ */
+public class QueryCursor implements Iterator<Value>, AutoCloseable {
+
+  /**
+   * The connection to close on close; null, if none.
+   */
+  private final RepositoryConnection connection;
+
+  /**
+   * The solutions to read; null, for a fixed result.
+   */
+  private final TupleQueryResult solutions;
+
+  /**
+   * The variable to retrieve from solutions.
+   */
+  private final String variable;
+
+  /**
+   * The fixed result values.
+   */
+  private final Iterator<Value> values;
+
+  /**
+   * The next value; null, if not read yet.
+   */
+  private Value next = null;
+
+  /**
+   * True, if the cursor has been closed.
+   */
+  private boolean closed = false;
+
+  /**
+   * Creates a cursor over the {@code variable} bindings of {@code solutions}.
+   * @param connection the connection to close on close, releasing the repository.
+   * @param solutions the solutions to read.
+   * @param variable the variable to retrieve.
+   */
+  public QueryCursor(RepositoryConnection connection, TupleQueryResult solutions, String variable) {
+    this.connection = connection;
+    this.solutions = solutions;
+    this.variable = variable;
+    this.values = Collections.emptyIterator();
+  }
+
+  /**
+   * Creates a cursor over already computed values, as the result of an {@code ASK} query.
+   * @param values the values.
+   */
+  public QueryCursor(Iterable<Value> values) {
+    this.connection = null;
+    this.solutions = null;
+    this.variable = null;
+    this.values = values.iterator();
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (this.next != null) {
+      return true;
+    }
+    if (this.closed) {
+      return false;
+    }
+    if (this.solutions == null) {
+      this.next = this.values.hasNext() ? this.values.next() : null;
+    } else {
+      while (this.next == null && this.solutions.hasNext()) {
+        BindingSet solution = this.solutions.next();
+        this.next = solution.getValue(this.variable);
+      }
+    }
+    if (this.next == null) {
+      this.close();
+    }
+    return this.next != null;
+  }
+
+  @Override
+  public Value next() {
+    if (!this.hasNext()) {
+      throw new NoSuchElementException();
+    }
+    Value value = this.next;
+    this.next = null;
+    return value;
+  }
+
+  /**
+   * Converts the remaining values to a lazy {@link StreamingAnswer}.
+   * @return the answer.
+   */
+  public StreamingAnswer toAnswer() {
+    return new StreamingAnswer(this);
+  }
+
+  /**
+   * Releases the solutions and the connection.
+   */
+  @Override
+  public void close() {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    try {
+      if (this.solutions != null) {
+        this.solutions.close();
+      }
+    } finally {
+      if (this.connection != null) {
+        this.connection.close();
+      }
+    }
+  }
+}
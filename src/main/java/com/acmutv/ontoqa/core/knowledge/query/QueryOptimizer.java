@@ -0,0 +1,306 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.knowledge.query;
+
+import com.acmutv.ontoqa.core.knowledge.ontology.OntologyStatistics;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.sparql.core.TriplePath;
+import org.apache.jena.sparql.syntax.*;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+
+import java.util.*;
+
+/**
+ * A rewriter of SPARQL queries, ordering the triple patterns of every basic graph pattern
+ * by their estimated selectivity, and dropping the {@code rdf:type} patterns already entailed
+ * by the domain or range of a predicate in the same basic graph pattern.
+ * Estimates come from the {@link OntologyStatistics} of the queried ontology; patterns are ordered greedily,
+ * choosing at each step the cheapest pattern sharing a variable with the ones already chosen,
+ * so that no cartesian product is introduced while a connected pattern is left.
+ * The rewritten query has the same answers under RDFS entailment.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see OntologyStatistics
+ */
+public final class QueryOptimizer {
+
+  private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+  private QueryOptimizer() {
+  }
+
+  /**
+   * Returns a copy of {@code query} with its basic graph patterns optimized on {@code statistics}.
+   * @param query the query.
+   * @param statistics the statistics of the queried ontology; null, if not available.
+   * @return the optimized query; {@code query} itself, if no statistics are available.
+   */
+  public static Query optimize(Query query, OntologyStatistics statistics) {
+    if (statistics == null || query.getQueryPattern() == null) {
+      return query;
+    }
+    final Query optimized = query.cloneQuery();
+    optimized.setQueryPattern(optimize(query.getQueryPattern(), statistics));
+    return optimized;
+  }
+
+  /**
+   * Optimizes the basic graph patterns in {@code element}.
+   * A group made of triple patterns, nested groups of triple patterns and filters is a single basic graph pattern,
+   * whose filters can be evaluated after it; any other group is optimized child by child.
+   * @param element the query pattern element.
+   * @param statistics the statistics of the queried ontology.
+   * @return the optimized element.
+   */
+  static Element optimize(Element element, OntologyStatistics statistics) {
+    if (element instanceof ElementPathBlock || element instanceof ElementTriplesBlock) {
+      final List<Triple> triples = new ArrayList<>();
+      return collectTriples(element, triples) ? toBlock(optimize(triples, statistics)) : element;
+    }
+    if (element instanceof ElementGroup) {
+      final ElementGroup group = (ElementGroup) element;
+      final List<Triple> triples = new ArrayList<>();
+      final List<ElementFilter> filters = new ArrayList<>();
+      final ElementGroup result = new ElementGroup();
+      if (collectConjunction(group, triples, filters)) {
+        result.addElement(toBlock(optimize(triples, statistics)));
+        filters.forEach(result::addElementFilter);
+      } else {
+        group.getElements().forEach(child -> result.addElement(optimize(child, statistics)));
+      }
+      return result;
+    }
+    if (element instanceof ElementOptional) {
+      return new ElementOptional(optimize(((ElementOptional) element).getOptionalElement(), statistics));
+    }
+    if (element instanceof ElementUnion) {
+      final ElementUnion result = new ElementUnion();
+      ((ElementUnion) element).getElements().forEach(child -> result.addElement(optimize(child, statistics)));
+      return result;
+    }
+    return element;
+  }
+
+  /**
+   * Drops the implied {@code rdf:type} patterns of a basic graph pattern, and orders the remaining ones.
+   * @param triples the triple patterns.
+   * @param statistics the statistics of the queried ontology.
+   * @return the optimized triple patterns.
+   */
+  static List<Triple> optimize(List<Triple> triples, OntologyStatistics statistics) {
+    final List<Triple> distinct = new ArrayList<>(new LinkedHashSet<>(triples));
+    final List<Triple> remaining = new ArrayList<>();
+    for (Triple triple : distinct) {
+      if (!isImpliedType(triple, distinct, statistics)) {
+        remaining.add(triple);
+      }
+    }
+
+    final List<Triple> ordered = new ArrayList<>(remaining.size());
+    final Set<Node> bound = new HashSet<>();
+    while (!remaining.isEmpty()) {
+      Triple best = null;
+      double bestCost = 0;
+      boolean bestConnected = false;
+      for (Triple triple : remaining) {
+        final boolean connected = bound.isEmpty() || isConnected(triple, bound);
+        final double cost = estimate(triple, bound, statistics);
+        if (best == null || (connected && !bestConnected) || (connected == bestConnected && cost < bestCost)) {
+          best = triple;
+          bestCost = cost;
+          bestConnected = connected;
+        }
+      }
+      ordered.add(best);
+      remaining.remove(best);
+      for (Node node : Arrays.asList(best.getSubject(), best.getPredicate(), best.getObject())) {
+        if (node.isVariable()) {
+          bound.add(node);
+        }
+      }
+    }
+    return ordered;
+  }
+
+  /**
+   * Estimates the number of solutions of a triple pattern, once the variables in {@code bound} are bound.
+   * A pattern with a constant that does not occur in the ontology has no solutions.
+   * @param triple the triple pattern.
+   * @param bound the bound variables.
+   * @param statistics the statistics of the queried ontology.
+   * @return the estimated number of solutions.
+   */
+  static double estimate(Triple triple, Set<Node> bound, OntologyStatistics statistics) {
+    final Node s = triple.getSubject();
+    final Node p = triple.getPredicate();
+    final Node o = triple.getObject();
+    for (Node node : Arrays.asList(s, p, o)) {
+      if (node.isURI() && !statistics.isKnown(VF.createIRI(node.getURI()))) {
+        return 0;
+      }
+    }
+    final boolean subjectBound = !s.isVariable() || bound.contains(s);
+    final boolean objectBound = !o.isVariable() || bound.contains(o);
+    if (!p.isURI()) {
+      return estimate(statistics.getTriples(), statistics.getSubjects(), statistics.getObjects(),
+          subjectBound, objectBound);
+    }
+    final IRI predicate = VF.createIRI(p.getURI());
+    if (RDF.TYPE.equals(predicate) && o.isURI()) {
+      final long instances = statistics.getInstances(VF.createIRI(o.getURI()));
+      return subjectBound ? Math.min(instances, 1) : instances;
+    }
+    return estimate(statistics.getTriples(predicate), statistics.getSubjects(predicate),
+        statistics.getObjects(predicate), subjectBound, objectBound);
+  }
+
+  /**
+   * Estimates the number of solutions of a triple pattern, assuming uniform distributions.
+   */
+  private static double estimate(long triples, long subjects, long objects, boolean subjectBound,
+                                 boolean objectBound) {
+    if (triples == 0) {
+      return 0;
+    }
+    if (subjectBound && objectBound) {
+      return 1;
+    }
+    if (subjectBound) {
+      return (double) triples / Math.max(subjects, 1);
+    }
+    if (objectBound) {
+      return (double) triples / Math.max(objects, 1);
+    }
+    return triples;
+  }
+
+  /**
+   * Checks if {@code triple} is a {@code rdf:type} pattern entailed by another pattern in {@code triples},
+   * by the domain of a predicate it is the subject of, or by the range of a predicate it is the object of.
+   * @param triple the triple pattern.
+   * @param triples the triple patterns of the basic graph pattern.
+   * @param statistics the statistics of the queried ontology.
+   * @return true, if {@code triple} is implied; false, otherwise.
+   */
+  static boolean isImpliedType(Triple triple, List<Triple> triples, OntologyStatistics statistics) {
+    if (!triple.getPredicate().isURI() || !RDF.TYPE.stringValue().equals(triple.getPredicate().getURI())
+        || !triple.getObject().isURI()) {
+      return false;
+    }
+    final IRI clazz = VF.createIRI(triple.getObject().getURI());
+    final Node instance = triple.getSubject();
+    for (Triple other : triples) {
+      if (other == triple || !other.getPredicate().isURI()
+          || RDF.TYPE.stringValue().equals(other.getPredicate().getURI())) {
+        continue;
+      }
+      final IRI predicate = VF.createIRI(other.getPredicate().getURI());
+      if ((instance.equals(other.getSubject()) && statistics.impliesDomain(predicate, clazz))
+          || (instance.equals(other.getObject()) && statistics.impliesRange(predicate, clazz))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks if {@code triple} has no variables, or shares one with {@code bound}.
+   */
+  private static boolean isConnected(Triple triple, Set<Node> bound) {
+    boolean ground = true;
+    for (Node node : Arrays.asList(triple.getSubject(), triple.getPredicate(), triple.getObject())) {
+      if (node.isVariable()) {
+        ground = false;
+        if (bound.contains(node)) {
+          return true;
+        }
+      }
+    }
+    return ground;
+  }
+
+  /**
+   * Collects the triple patterns of a group made only of triple patterns, nested groups of triple patterns
+   * and (at the top level) filters.
+   * @param group the group.
+   * @param triples the triple patterns collected so far.
+   * @param filters the filters collected so far; null, if filters are not allowed.
+   * @return true, if {@code group} is such a group; false, otherwise.
+   */
+  private static boolean collectConjunction(ElementGroup group, List<Triple> triples, List<ElementFilter> filters) {
+    for (Element child : group.getElements()) {
+      if (child instanceof ElementFilter && filters != null) {
+        filters.add((ElementFilter) child);
+      } else if (child instanceof ElementGroup) {
+        if (!collectConjunction((ElementGroup) child, triples, null)) {
+          return false;
+        }
+      } else if (!collectTriples(child, triples)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Collects the triple patterns of a block.
+   * @param element the element.
+   * @param triples the triple patterns collected so far.
+   * @return true, if {@code element} is a block of triple patterns (with no property paths); false, otherwise.
+   */
+  private static boolean collectTriples(Element element, List<Triple> triples) {
+    if (element instanceof ElementTriplesBlock) {
+      triples.addAll(((ElementTriplesBlock) element).getPattern().getList());
+      return true;
+    }
+    if (element instanceof ElementPathBlock) {
+      for (TriplePath path : ((ElementPathBlock) element).getPattern().getList()) {
+        if (!path.isTriple()) {
+          return false;
+        }
+        triples.add(path.asTriple());
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns a block of {@code triples}.
+   */
+  private static ElementPathBlock toBlock(List<Triple> triples) {
+    final ElementPathBlock block = new ElementPathBlock();
+    triples.forEach(block::addTriple);
+    return block;
+  }
+}
@@ -68,6 +68,11 @@ public class SelectQuerySubmitter implements Consumer<RepositoryConnection> {
   @NonNull
   private String variable;
 
+  /**
+   * The maximum query execution time (seconds); 0 means no limit.
+   */
+  private int maxExecutionTime = 0;
+
   /**
    * Submits the {@code SELECT} SPARQL query to the ontology.
    * @param repoConn the connection to the ontology.
@@ -76,6 +81,7 @@ public class SelectQuerySubmitter implements Consumer<RepositoryConnection> {
   public void accept(RepositoryConnection repoConn) {
     TupleQuery query = repoConn.prepareTupleQuery(this.getQuery());
     query.setIncludeInferred(true);
+    query.setMaxExecutionTime(this.maxExecutionTime);
     try (TupleQueryResult queryResults = query.evaluate()) {
       while (queryResults.hasNext()) {
         BindingSet solution = queryResults.next();
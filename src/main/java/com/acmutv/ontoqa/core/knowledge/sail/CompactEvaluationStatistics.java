@@ -0,0 +1,113 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.sail;
+
+import com.acmutv.ontoqa.core.knowledge.ontology.CompactOntology;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.algebra.StatementPattern;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.EvaluationStatistics;
+
+/**
+ * Evaluation statistics giving the exact cardinality of statement patterns,
+ * counted on the indexes of a {@link CompactOntology}, or the cardinality estimated by a {@link Counter}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see CompactSailConnection
+ */
+public class CompactEvaluationStatistics extends EvaluationStatistics {
+
+  /**
+   * The pattern counter.
+   */
+  private final Counter counter;
+
+  /**
+   * Creates statistics on {@code ontology}.
+   * @param ontology the ontology to count on.
+   */
+  public CompactEvaluationStatistics(CompactOntology ontology) {
+    this(ontology::count);
+  }
+
+  /**
+   * Creates statistics on {@code counter}.
+   * @param counter the pattern counter.
+   */
+  public CompactEvaluationStatistics(Counter counter) {
+    this.counter = counter;
+  }
+
+  @Override
+  protected CardinalityCalculator createCardinalityCalculator() {
+    return new CompactCardinalityCalculator();
+  }
+
+  /**
+   * A cardinality calculator counting on the ontology indexes.
+   */
+  private class CompactCardinalityCalculator extends CardinalityCalculator {
+
+    @Override
+    protected double getCardinality(StatementPattern sp) {
+      if (sp.getContextVar() != null && sp.getContextVar().hasValue()) {
+        return 0;
+      }
+      Value subj = value(sp.getSubjectVar());
+      Value pred = value(sp.getPredicateVar());
+      Value obj = value(sp.getObjectVar());
+      if ((subj != null && !(subj instanceof Resource)) || (pred != null && !(pred instanceof IRI))) {
+        return 0;
+      }
+      return counter.count((Resource) subj, (IRI) pred, obj);
+    }
+
+    private Value value(Var var) {
+      return (var != null) ? var.getValue() : null;
+    }
+  }
+
+  /**
+   * Counts the statements matching a pattern.
+   */
+  @FunctionalInterface
+  public interface Counter {
+
+    /**
+     * Counts the statements matching a pattern.
+     * @param subj the subject, or null.
+     * @param pred the predicate, or null.
+     * @param obj the object, or null.
+     * @return the (estimated) number of matching statements.
+     */
+    double count(Resource subj, IRI pred, Value obj);
+  }
+}
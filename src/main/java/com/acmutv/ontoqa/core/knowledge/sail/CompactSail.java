@@ -0,0 +1,155 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.sail;
+
+import com.acmutv.ontoqa.core.knowledge.ontology.CompactOntology;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.algebra.evaluation.TripleSource;
+import org.eclipse.rdf4j.sail.SailConnection;
+import org.eclipse.rdf4j.sail.SailException;
+import org.eclipse.rdf4j.sail.helpers.AbstractSail;
+
+/**
+ * A read-only SAIL answering queries straight from a {@link CompactOntology}.
+ * RDFS entailment is either materialized, wrapping an already closed ontology
+ * (see {@link CompactOntology#getRdfsClosure()}), or rewritten at query time
+ * (see {@link RdfsRewritingTripleSource}).
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see CompactSailConnection
+ */
+public class CompactSail extends AbstractSail {
+
+  /**
+   * The ontology to query.
+   */
+  private final CompactOntology ontology;
+
+  /**
+   * True, if RDFS entailment is rewritten at query time.
+   */
+  private final boolean rewriting;
+
+  /**
+   * The triple source queries are evaluated on; null, to evaluate them on the ontology index.
+   */
+  private final TripleSource tripleSource;
+
+  /**
+   * The pattern counter of the triple source; null, to count on the ontology index.
+   */
+  private final CompactEvaluationStatistics.Counter counter;
+
+  /**
+   * Creates a SAIL on {@code ontology}, without query-time inference.
+   * @param ontology the ontology to query.
+   */
+  public CompactSail(CompactOntology ontology) {
+    this(ontology, false);
+  }
+
+  /**
+   * Creates a SAIL on {@code ontology}.
+   * @param ontology the ontology to query.
+   * @param rewriting true, to entail RDFS by rewriting triple patterns at query time.
+   */
+  public CompactSail(CompactOntology ontology, boolean rewriting) {
+    this.ontology = ontology;
+    this.rewriting = rewriting;
+    this.tripleSource = null;
+    this.counter = null;
+  }
+
+  /**
+   * Creates a SAIL evaluating queries on {@code tripleSource}, without query-time inference.
+   * Statements are read from {@code tripleSource} only: {@code ontology} just provides the namespaces,
+   * and {@code counter} the pattern cardinalities for join ordering.
+   * @param ontology the ontology providing the namespaces.
+   * @param tripleSource the triple source to evaluate queries on.
+   * @param counter the pattern counter of {@code tripleSource}.
+   */
+  public CompactSail(CompactOntology ontology, TripleSource tripleSource, CompactEvaluationStatistics.Counter counter) {
+    this.ontology = ontology;
+    this.rewriting = false;
+    this.tripleSource = tripleSource;
+    this.counter = counter;
+  }
+
+  /**
+   * Returns the queried ontology.
+   * @return the queried ontology.
+   */
+  public CompactOntology getOntology() {
+    return this.ontology;
+  }
+
+  /**
+   * Checks if RDFS entailment is rewritten at query time.
+   * @return true, if RDFS entailment is rewritten at query time; false, otherwise.
+   */
+  public boolean isRewriting() {
+    return this.rewriting;
+  }
+
+  /**
+   * Returns the triple source queries are evaluated on.
+   * @return the triple source; null, if queries are evaluated on the ontology index.
+   */
+  public TripleSource getTripleSource() {
+    return this.tripleSource;
+  }
+
+  /**
+   * Returns the pattern counter of the triple source queries are evaluated on.
+   * @return the pattern counter; null, if queries are evaluated on the ontology index.
+   */
+  public CompactEvaluationStatistics.Counter getCounter() {
+    return this.counter;
+  }
+
+  @Override
+  protected void shutDownInternal() throws SailException {
+  }
+
+  @Override
+  protected SailConnection getConnectionInternal() throws SailException {
+    return new CompactSailConnection(this);
+  }
+
+  @Override
+  public boolean isWritable() throws SailException {
+    return false;
+  }
+
+  @Override
+  public ValueFactory getValueFactory() {
+    return SimpleValueFactory.getInstance();
+  }
+}
@@ -0,0 +1,233 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.sail;
+
+import com.acmutv.ontoqa.core.knowledge.ontology.CompactOntology;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
+import org.eclipse.rdf4j.common.iteration.EmptyIteration;
+import org.eclipse.rdf4j.common.iteration.ExceptionConvertingIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Namespace;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.Dataset;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.QueryRoot;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.evaluation.EvaluationStrategy;
+import org.eclipse.rdf4j.query.algebra.evaluation.TripleSource;
+import org.eclipse.rdf4j.query.algebra.evaluation.impl.*;
+import org.eclipse.rdf4j.sail.SailException;
+import org.eclipse.rdf4j.sail.helpers.AbstractSailConnection;
+
+import java.util.Optional;
+
+/**
+ * A read-only connection to a {@link CompactSail}.
+ * Queries are optimized with the standard RDF4J optimizers, joins being ordered by the exact
+ * pattern cardinalities of {@link CompactEvaluationStatistics}, and evaluated on a {@link CompactTripleSource},
+ * on a {@link RdfsRewritingTripleSource} when the SAIL rewrites RDFS entailment, or on the triple source
+ * set by the SAIL (e.g. a {@link ShardedTripleSource}).
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see CompactSail
+ */
+public class CompactSailConnection extends AbstractSailConnection {
+
+  /**
+   * The ontology to query.
+   */
+  private final CompactOntology ontology;
+
+  /**
+   * The rewriting triple source; null, if the SAIL does not rewrite RDFS entailment.
+   */
+  private final RdfsRewritingTripleSource rewriting;
+
+  /**
+   * The triple source queries are evaluated on, when set by the SAIL; null, otherwise.
+   */
+  private final TripleSource tripleSource;
+
+  /**
+   * The pattern counter of the triple source set by the SAIL; null, if none.
+   */
+  private final CompactEvaluationStatistics.Counter counter;
+
+  /**
+   * Creates a connection to {@code sail}.
+   * @param sail the SAIL to connect to.
+   */
+  public CompactSailConnection(CompactSail sail) {
+    super(sail);
+    this.ontology = sail.getOntology();
+    this.rewriting = sail.isRewriting() ? new RdfsRewritingTripleSource(this.ontology) : null;
+    this.tripleSource = sail.getTripleSource();
+    this.counter = sail.getCounter();
+  }
+
+  @Override
+  protected void closeInternal() throws SailException {
+  }
+
+  @Override
+  protected CloseableIteration<? extends BindingSet, QueryEvaluationException> evaluateInternal(TupleExpr tupleExpr,
+                                                                                                Dataset dataset,
+                                                                                                BindingSet bindings,
+                                                                                                boolean includeInferred)
+      throws SailException {
+    TupleExpr expr = tupleExpr.clone();
+    if (!(expr instanceof QueryRoot)) {
+      expr = new QueryRoot(expr);
+    }
+    TripleSource tripleSource;
+    EvaluationStatistics statistics;
+    if (this.rewriting != null) {
+      tripleSource = this.rewriting;
+      statistics = new CompactEvaluationStatistics(this.rewriting::cardinality);
+    } else if (this.tripleSource != null) {
+      tripleSource = this.tripleSource;
+      statistics = new CompactEvaluationStatistics(this.counter);
+    } else {
+      tripleSource = new CompactTripleSource(this.ontology);
+      statistics = new CompactEvaluationStatistics(this.ontology);
+    }
+    EvaluationStrategy strategy = new StrictEvaluationStrategy(tripleSource, dataset, null);
+
+    new BindingAssigner().optimize(expr, dataset, bindings);
+    new ConstantOptimizer(strategy).optimize(expr, dataset, bindings);
+    new CompareOptimizer().optimize(expr, dataset, bindings);
+    new ConjunctiveConstraintSplitter().optimize(expr, dataset, bindings);
+    new DisjunctiveConstraintOptimizer().optimize(expr, dataset, bindings);
+    new SameTermFilterOptimizer().optimize(expr, dataset, bindings);
+    new QueryModelNormalizer().optimize(expr, dataset, bindings);
+    new QueryJoinOptimizer(statistics).optimize(expr, dataset, bindings);
+    new IterativeEvaluationOptimizer().optimize(expr, dataset, bindings);
+    new FilterOptimizer().optimize(expr, dataset, bindings);
+    new OrderLimitOptimizer().optimize(expr, dataset, bindings);
+
+    try {
+      return strategy.evaluate(expr, bindings);
+    } catch (QueryEvaluationException exc) {
+      throw new SailException(exc);
+    }
+  }
+
+  @Override
+  protected CloseableIteration<? extends Resource, SailException> getContextIDsInternal() throws SailException {
+    return new EmptyIteration<>();
+  }
+
+  @Override
+  protected CloseableIteration<? extends Statement, SailException> getStatementsInternal(Resource subj, IRI pred,
+                                                                                        Value obj,
+                                                                                        boolean includeInferred,
+                                                                                        Resource... contexts)
+      throws SailException {
+    if (this.rewriting != null) {
+      return new CloseableIteratorIteration<>(this.rewriting.match(subj, pred, obj, contexts).iterator());
+    }
+    if (this.tripleSource != null) {
+      return new ExceptionConvertingIteration<Statement, SailException>(
+          this.tripleSource.getStatements(subj, pred, obj, contexts)) {
+        @Override
+        protected SailException convert(Exception exc) {
+          return new SailException(exc);
+        }
+      };
+    }
+    return new CloseableIteratorIteration<>(this.ontology.getStatements(subj, pred, obj, contexts).iterator());
+  }
+
+  @Override
+  protected long sizeInternal(Resource... contexts) throws SailException {
+    if (contexts != null && contexts.length > 0) {
+      return 0;
+    }
+    return (this.counter != null) ? (long) this.counter.count(null, null, null) : this.ontology.size();
+  }
+
+  @Override
+  protected void startTransactionInternal() throws SailException {
+  }
+
+  @Override
+  protected void commitInternal() throws SailException {
+  }
+
+  @Override
+  protected void rollbackInternal() throws SailException {
+  }
+
+  @Override
+  protected void addStatementInternal(Resource subj, IRI pred, Value obj, Resource... contexts)
+      throws SailException {
+    throw new SailException("The compact SAIL is read-only");
+  }
+
+  @Override
+  protected void removeStatementsInternal(Resource subj, IRI pred, Value obj, Resource... contexts)
+      throws SailException {
+    throw new SailException("The compact SAIL is read-only");
+  }
+
+  @Override
+  protected void clearInternal(Resource... contexts) throws SailException {
+    throw new SailException("The compact SAIL is read-only");
+  }
+
+  @Override
+  protected CloseableIteration<? extends Namespace, SailException> getNamespacesInternal() throws SailException {
+    return new CloseableIteratorIteration<>(this.ontology.getNamespaces().iterator());
+  }
+
+  @Override
+  protected String getNamespaceInternal(String prefix) throws SailException {
+    Optional<Namespace> namespace = this.ontology.getNamespace(prefix);
+    return namespace.map(Namespace::getName).orElse(null);
+  }
+
+  @Override
+  protected void setNamespaceInternal(String prefix, String name) throws SailException {
+    throw new SailException("The compact SAIL is read-only");
+  }
+
+  @Override
+  protected void removeNamespaceInternal(String prefix) throws SailException {
+    throw new SailException("The compact SAIL is read-only");
+  }
+
+  @Override
+  protected void clearNamespacesInternal() throws SailException {
+    throw new SailException("The compact SAIL is read-only");
+  }
+}
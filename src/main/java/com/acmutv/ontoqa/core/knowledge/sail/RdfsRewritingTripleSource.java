@@ -0,0 +1,382 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.sail;
+
+import com.acmutv.ontoqa.core.knowledge.ontology.CompactOntology;
+import com.acmutv.ontoqa.core.knowledge.ontology.RdfsSchema;
+import com.acmutv.ontoqa.core.knowledge.ontology.TermDictionary;
+import com.acmutv.ontoqa.core.knowledge.ontology.TripleIndex;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
+import org.eclipse.rdf4j.model.*;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.evaluation.TripleSource;
+
+import java.util.*;
+
+/**
+ * A {@link TripleSource} entailing RDFS at query time, by rewriting every triple pattern against
+ * the {@link RdfsSchema} of a {@link CompactOntology} and matching the rewritten patterns on its asserted triples.
+ * <ul>
+ *   <li>{@code ?s p ?o} matches {@code p} and its sub-properties (rdfs5, rdfs7);</li>
+ *   <li>{@code ?x rdf:type C} matches the instances of {@code C} and its sub-classes, asserted or
+ *   entailed by the domain and range of the properties used by {@code ?x} (rdfs2, rdfs3, rdfs9, rdfs11);</li>
+ *   <li>{@code rdfs:subClassOf} and {@code rdfs:subPropertyOf} match their transitive closure.</li>
+ * </ul>
+ * Axiomatic triples (e.g. {@code ?x rdf:type rdfs:Resource}) are not entailed.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see CompactSailConnection
+ */
+public class RdfsRewritingTripleSource implements TripleSource {
+
+  private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+  /**
+   * The term dictionary.
+   */
+  private final TermDictionary dictionary;
+
+  /**
+   * The asserted triples.
+   */
+  private final TripleIndex index;
+
+  /**
+   * The schema hierarchy.
+   */
+  private final RdfsSchema schema;
+
+  /**
+   * Creates a rewriting triple source on {@code ontology}.
+   * @param ontology the ontology to read.
+   */
+  public RdfsRewritingTripleSource(CompactOntology ontology) {
+    this.dictionary = ontology.getDictionary();
+    this.index = ontology.getIndex();
+    this.schema = ontology.getRdfsSchema();
+  }
+
+  @Override
+  public CloseableIteration<? extends Statement, QueryEvaluationException> getStatements(Resource subj, IRI pred,
+                                                                                         Value obj,
+                                                                                         Resource... contexts)
+      throws QueryEvaluationException {
+    return new CloseableIteratorIteration<>(this.match(subj, pred, obj, contexts).iterator());
+  }
+
+  @Override
+  public ValueFactory getValueFactory() {
+    return VF;
+  }
+
+  /**
+   * Returns the entailed statements matching a pattern, without duplicates.
+   * @param subj the subject, or null.
+   * @param pred the predicate, or null.
+   * @param obj the object, or null.
+   * @param contexts the contexts; only the default context holds statements.
+   * @return the matching statements.
+   */
+  public Collection<Statement> match(Resource subj, IRI pred, Value obj, Resource... contexts) {
+    if (!isDefaultContext(contexts)) {
+      return Collections.emptySet();
+    }
+    final int s = this.id(subj);
+    final int o = this.id(obj);
+    if (s == TermDictionary.UNKNOWN || o == TermDictionary.UNKNOWN) {
+      return Collections.emptySet();
+    }
+    final Set<Statement> result = new LinkedHashSet<>();
+    if (pred == null || RDF.TYPE.equals(pred)) {
+      this.matchTypes(s, o, result);
+    }
+    if (pred == null || RDFS.SUBCLASSOF.equals(pred)) {
+      this.matchClosure(s, RDFS.SUBCLASSOF, o, this.schema.getSuperClasses(), this.schema.getSubClasses(), result);
+    }
+    if (pred == null || RDFS.SUBPROPERTYOF.equals(pred)) {
+      this.matchClosure(s, RDFS.SUBPROPERTYOF, o, this.schema.getSuperProperties(), this.schema.getSubProperties(),
+          result);
+    }
+    if (pred == null) {
+      TripleIndex.Cursor cursor = this.index.match(s, TripleIndex.ANY, o);
+      while (cursor.next()) {
+        if (!this.schema.isHierarchical(cursor.predicate())) {
+          for (int property : this.schema.getPropertyAndSuperProperties(cursor.predicate())) {
+            if (!this.schema.isHierarchical(property)) {
+              result.add(this.statement(cursor.subject(), (IRI) this.dictionary.decode(property), cursor.object()));
+            }
+          }
+        }
+      }
+    } else if (!isHierarchical(pred)) {
+      final int p = this.dictionary.lookup(pred);
+      if (p != TermDictionary.UNKNOWN) {
+        for (int property : this.schema.getPropertyAndSubProperties(p)) {
+          TripleIndex.Cursor cursor = this.index.match(s, property, o);
+          while (cursor.next()) {
+            result.add(this.statement(cursor.subject(), pred, cursor.object()));
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Estimates the number of entailed statements matching a pattern, mostly by counting on the indexes.
+   * @param subj the subject, or null.
+   * @param pred the predicate, or null.
+   * @param obj the object, or null.
+   * @return the estimated number of matching statements.
+   */
+  public double cardinality(Resource subj, IRI pred, Value obj) {
+    final int s = this.id(subj);
+    final int o = this.id(obj);
+    if (s == TermDictionary.UNKNOWN || o == TermDictionary.UNKNOWN) {
+      return 0;
+    }
+    if (pred == null) {
+      return this.index.count(s, TripleIndex.ANY, o) + this.cardinality(subj, RDF.TYPE, obj)
+          + this.cardinality(subj, RDFS.SUBCLASSOF, obj) + this.cardinality(subj, RDFS.SUBPROPERTYOF, obj);
+    }
+    if (RDF.TYPE.equals(pred) && s == TripleIndex.ANY && o != TripleIndex.ANY) {
+      double count = 0;
+      for (int clazz : this.schema.getClassAndSubClasses(o)) {
+        count += this.countType(TripleIndex.ANY, clazz);
+        for (int property : this.schema.getDomainProperties(clazz)) {
+          count += this.index.count(TripleIndex.ANY, property, TripleIndex.ANY);
+        }
+        for (int property : this.schema.getRangeProperties(clazz)) {
+          count += this.index.count(TripleIndex.ANY, property, TripleIndex.ANY);
+        }
+      }
+      return count;
+    }
+    if (isHierarchical(pred)) {
+      return (RDF.TYPE.equals(pred) && s == TripleIndex.ANY)
+          ? this.countType(TripleIndex.ANY, TripleIndex.ANY)
+          : this.match(subj, pred, obj).size();
+    }
+    final int p = this.dictionary.lookup(pred);
+    if (p == TermDictionary.UNKNOWN) {
+      return 0;
+    }
+    double count = 0;
+    for (int property : this.schema.getPropertyAndSubProperties(p)) {
+      count += this.index.count(s, property, o);
+    }
+    return count;
+  }
+
+  /**
+   * Collects the entailed {@code rdf:type} statements matching a pattern.
+   * @param s the subject id, or {@link TripleIndex#ANY}.
+   * @param o the class id, or {@link TripleIndex#ANY}.
+   * @param result the statements collected so far.
+   */
+  private void matchTypes(int s, int o, Set<Statement> result) {
+    if (s != TripleIndex.ANY) {
+      Set<Integer> types = this.getTypes(s);
+      if (o == TripleIndex.ANY) {
+        for (int clazz : types) {
+          result.add(this.statement(s, RDF.TYPE, clazz));
+        }
+      } else if (types.contains(o)) {
+        result.add(this.statement(s, RDF.TYPE, o));
+      }
+    } else if (o != TripleIndex.ANY) {
+      for (int instance : this.getInstances(o)) {
+        result.add(this.statement(instance, RDF.TYPE, o));
+      }
+    } else {
+      for (int instance : this.getTyped()) {
+        for (int clazz : this.getTypes(instance)) {
+          result.add(this.statement(instance, RDF.TYPE, clazz));
+        }
+      }
+    }
+  }
+
+  /**
+   * Collects the statements of a transitive hierarchy matching a pattern.
+   * @param s the subject id, or {@link TripleIndex#ANY}.
+   * @param pred the hierarchy predicate.
+   * @param o the object id, or {@link TripleIndex#ANY}.
+   * @param up the transitive successors of every node.
+   * @param down the transitive predecessors of every node.
+   * @param result the statements collected so far.
+   */
+  private void matchClosure(int s, IRI pred, int o, Map<Integer, Set<Integer>> up, Map<Integer, Set<Integer>> down,
+                            Set<Statement> result) {
+    if (s != TripleIndex.ANY) {
+      for (int successor : up.getOrDefault(s, Collections.emptySet())) {
+        if (o == TripleIndex.ANY || o == successor) {
+          result.add(this.statement(s, pred, successor));
+        }
+      }
+    } else if (o != TripleIndex.ANY) {
+      for (int predecessor : down.getOrDefault(o, Collections.emptySet())) {
+        result.add(this.statement(predecessor, pred, o));
+      }
+    } else {
+      for (Map.Entry<Integer, Set<Integer>> entry : up.entrySet()) {
+        for (int successor : entry.getValue()) {
+          result.add(this.statement(entry.getKey(), pred, successor));
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the entailed classes of {@code resource}: the asserted ones, the domains of the properties
+   * it is subject of, the ranges of the properties it is object of, and all of their super-classes.
+   * @param resource the resource id.
+   * @return the entailed classes.
+   */
+  private Set<Integer> getTypes(int resource) {
+    final Set<Integer> direct = new LinkedHashSet<>();
+    if (this.dictionary.decode(resource) instanceof Literal) {
+      return direct;
+    }
+    if (this.schema.getType() != TermDictionary.UNKNOWN) {
+      TripleIndex.Cursor cursor = this.index.match(resource, this.schema.getType(), TripleIndex.ANY);
+      while (cursor.next()) {
+        direct.add(cursor.object());
+      }
+    }
+    if (!this.schema.getDomainedProperties().isEmpty()) {
+      TripleIndex.Cursor cursor = this.index.match(resource, TripleIndex.ANY, TripleIndex.ANY);
+      while (cursor.next()) {
+        direct.addAll(this.schema.getDomains(cursor.predicate()));
+      }
+    }
+    if (!this.schema.getRangedProperties().isEmpty()) {
+      TripleIndex.Cursor cursor = this.index.match(TripleIndex.ANY, TripleIndex.ANY, resource);
+      while (cursor.next()) {
+        direct.addAll(this.schema.getRanges(cursor.predicate()));
+      }
+    }
+    final Set<Integer> types = new LinkedHashSet<>();
+    for (int clazz : direct) {
+      types.addAll(this.schema.getClassAndSuperClasses(clazz));
+    }
+    return types;
+  }
+
+  /**
+   * Returns the entailed instances of {@code clazz} and its sub-classes.
+   * @param clazz the class id.
+   * @return the entailed instances.
+   */
+  private Set<Integer> getInstances(int clazz) {
+    final Set<Integer> instances = new LinkedHashSet<>();
+    for (int subclass : this.schema.getClassAndSubClasses(clazz)) {
+      if (this.schema.getType() != TermDictionary.UNKNOWN) {
+        this.collect(this.index.match(TripleIndex.ANY, this.schema.getType(), subclass), true, instances);
+      }
+      for (int property : this.schema.getDomainProperties(subclass)) {
+        this.collect(this.index.match(TripleIndex.ANY, property, TripleIndex.ANY), true, instances);
+      }
+      for (int property : this.schema.getRangeProperties(subclass)) {
+        this.collect(this.index.match(TripleIndex.ANY, property, TripleIndex.ANY), false, instances);
+      }
+    }
+    return instances;
+  }
+
+  /**
+   * Returns the resources that may have an entailed class.
+   * @return the resources.
+   */
+  private Set<Integer> getTyped() {
+    final Set<Integer> resources = new LinkedHashSet<>();
+    if (this.schema.getType() != TermDictionary.UNKNOWN) {
+      this.collect(this.index.match(TripleIndex.ANY, this.schema.getType(), TripleIndex.ANY), true, resources);
+    }
+    for (int property : this.schema.getDomainedProperties()) {
+      this.collect(this.index.match(TripleIndex.ANY, property, TripleIndex.ANY), true, resources);
+    }
+    for (int property : this.schema.getRangedProperties()) {
+      this.collect(this.index.match(TripleIndex.ANY, property, TripleIndex.ANY), false, resources);
+    }
+    return resources;
+  }
+
+  /**
+   * Collects the subjects (or the non-literal objects) of a cursor.
+   * @param cursor the cursor.
+   * @param subjects true, to collect subjects; false, to collect objects.
+   * @param resources the resources collected so far.
+   */
+  private void collect(TripleIndex.Cursor cursor, boolean subjects, Set<Integer> resources) {
+    while (cursor.next()) {
+      if (subjects) {
+        resources.add(cursor.subject());
+      } else if (!(this.dictionary.decode(cursor.object()) instanceof Literal)) {
+        resources.add(cursor.object());
+      }
+    }
+  }
+
+  /**
+   * Counts the asserted {@code rdf:type} statements matching a pattern.
+   * @param s the subject id, or {@link TripleIndex#ANY}.
+   * @param o the class id, or {@link TripleIndex#ANY}.
+   * @return the number of matching statements.
+   */
+  private int countType(int s, int o) {
+    return (this.schema.getType() == TermDictionary.UNKNOWN) ? 0 : this.index.count(s, this.schema.getType(), o);
+  }
+
+  private Statement statement(int s, IRI pred, int o) {
+    return VF.createStatement((Resource) this.dictionary.decode(s), pred, this.dictionary.decode(o));
+  }
+
+  private int id(Value value) {
+    return (value == null) ? TripleIndex.ANY : this.dictionary.lookup(value);
+  }
+
+  private static boolean isHierarchical(IRI pred) {
+    return RDF.TYPE.equals(pred) || RDFS.SUBCLASSOF.equals(pred) || RDFS.SUBPROPERTYOF.equals(pred);
+  }
+
+  private static boolean isDefaultContext(Resource... contexts) {
+    if (contexts == null || contexts.length == 0) {
+      return true;
+    }
+    for (Resource context : contexts) {
+      if (context == null) return true;
+    }
+    return false;
+  }
+}
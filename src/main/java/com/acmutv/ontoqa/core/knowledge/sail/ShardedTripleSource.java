@@ -0,0 +1,160 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.knowledge.sail;
+
+import com.acmutv.ontoqa.core.knowledge.ontology.ShardedOntology;
+import org.eclipse.rdf4j.common.iteration.CloseableIteration;
+import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
+import org.eclipse.rdf4j.common.iteration.EmptyIteration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.algebra.evaluation.TripleSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A {@link TripleSource} reading statements from the shards of a {@link ShardedOntology}.
+ * A pattern with a subject is routed to the shard the subject is homed at; a pattern with no subject
+ * is scattered to every shard, each returning the matching statements homed at it, and the results are gathered.
+ * Joins are evaluated above the triple source, so they are correct whatever shards their operands come from.
+ * The triple source can also be restricted to a single shard, so that a query whose patterns all share
+ * the same subject can be evaluated on every shard independently (see {@link #ShardedTripleSource(ShardedOntology, int)}).
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see ShardedOntology
+ */
+public class ShardedTripleSource implements TripleSource {
+
+  /**
+   * The number of matching statements above which shards are scanned in parallel.
+   */
+  public static final int PARALLEL_THRESHOLD = 4096;
+
+  /**
+   * The ontology to read.
+   */
+  private final ShardedOntology ontology;
+
+  /**
+   * The only shard to read; -1, to read every shard.
+   */
+  private final int shard;
+
+  /**
+   * Creates a triple source on every shard of {@code ontology}.
+   * @param ontology the ontology to read.
+   */
+  public ShardedTripleSource(ShardedOntology ontology) {
+    this(ontology, -1);
+  }
+
+  /**
+   * Creates a triple source on a single shard of {@code ontology}.
+   * Patterns with a subject read the whole shard; patterns with no subject only read the statements homed at it.
+   * So, a query whose patterns all share the same subject variable gets, from each shard, exactly the solutions
+   * binding that variable to a subject homed at the shard.
+   * @param ontology the ontology to read.
+   * @param shard the shard index.
+   */
+  public ShardedTripleSource(ShardedOntology ontology, int shard) {
+    this.ontology = ontology;
+    this.shard = shard;
+  }
+
+  @Override
+  public CloseableIteration<? extends Statement, QueryEvaluationException> getStatements(Resource subj, IRI pred,
+                                                                                         Value obj,
+                                                                                         Resource... contexts)
+      throws QueryEvaluationException {
+    if (!isDefaultContext(contexts)) {
+      return new EmptyIteration<>();
+    }
+    if (subj != null) {
+      final int home = (this.shard < 0) ? this.ontology.shardOf(subj) : this.shard;
+      if (home < 0) {
+        return new EmptyIteration<>();
+      }
+      return new CloseableIteratorIteration<>(
+          this.ontology.getShard(home).getStatements(subj, pred, obj).iterator());
+    }
+    if (this.shard >= 0) {
+      return new CloseableIteratorIteration<>(this.ontology.matchHomed(this.shard, pred, obj));
+    }
+    return new CloseableIteratorIteration<>(this.scatter(pred, obj).iterator());
+  }
+
+  @Override
+  public ValueFactory getValueFactory() {
+    return SimpleValueFactory.getInstance();
+  }
+
+  /**
+   * Gathers the statements matching a pattern with no subject from every shard,
+   * scanning shards in parallel when there are enough of them.
+   * @param pred the predicate, or null.
+   * @param obj the object, or null.
+   * @return the matching statements, shard by shard.
+   */
+  private List<Statement> scatter(IRI pred, Value obj) {
+    final int shards = this.ontology.getShardCount();
+    long matches = 0;
+    for (int i = 0; i < shards; i++) {
+      matches += this.ontology.getShard(i).count(null, pred, obj);
+    }
+    IntStream indexes = IntStream.range(0, shards);
+    if (shards > 1 && matches > PARALLEL_THRESHOLD) {
+      indexes = indexes.parallel();
+    }
+    final List<List<Statement>> gathered = indexes.mapToObj(i -> {
+      final List<Statement> statements = new ArrayList<>();
+      this.ontology.matchHomed(i, pred, obj).forEachRemaining(statements::add);
+      return statements;
+    }).collect(Collectors.toList());
+    final List<Statement> result = new ArrayList<>();
+    gathered.forEach(result::addAll);
+    return result;
+  }
+
+  private static boolean isDefaultContext(Resource... contexts) {
+    if (contexts == null || contexts.length == 0) {
+      return true;
+    }
+    for (Resource context : contexts) {
+      if (context == null) return true;
+    }
+    return false;
+  }
+}
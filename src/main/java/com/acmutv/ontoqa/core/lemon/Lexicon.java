@@ -26,46 +26,63 @@
  */
 package com.acmutv.ontoqa.core.lemon;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
- * 
+ * A lemon lexicon.
+ * Entries are kept in insertion order, and indexed by URI, canonical form and reference, so that adding
+ * an entry (merging it into the one with the same URI, if any) and looking entries up take constant time.
+ * Indexes hold entry positions in ascending order, so that lookups return entries in insertion order.
  * @author swalter
  */
 public class Lexicon {
 
-	//HashMap<String,List<LexicalEntry>> map;
-	
 	List<LexicalEntry> entries;
 	
 	Set<Reference> references;
 	
+	/**
+	 * The positions of the entries with each URI.
+	 */
+	Map<String, List<Integer>> entriesByURI;
+	
+	/**
+	 * The positions of the entries with each canonical form.
+	 */
+	Map<String, List<Integer>> entriesByCanonicalForm;
+	
+	/**
+	 * The positions of the entries with a sense referring to each reference (as string).
+	 */
+	Map<String, List<Integer>> entriesByReference;
+	
 	String baseURI = "";
 	
 	public Lexicon()
 	{
-		entries = new ArrayList<LexicalEntry>();
-		
-//		map = new HashMap<String,List<LexicalEntry>>();
-		
-		references = new HashSet<Reference>();
-                
-                this.baseURI = "http://dblexipedia.org/lexicon/";
+		this("http://dblexipedia.org/lexicon/");
 	}
 	
 	public Lexicon(String baseURI)
 	{
 		entries = new ArrayList<LexicalEntry>();
 		
-//		map = new HashMap<String,List<LexicalEntry>>();
-		
 		references = new HashSet<Reference>();
 		
+		entriesByURI = new HashMap<>();
+		
+		entriesByCanonicalForm = new HashMap<>();
+		
+		entriesByReference = new HashMap<>();
+		
 		this.baseURI = baseURI;
 	}
 
@@ -79,9 +96,14 @@ public class Lexicon {
 	public void addEntry(LexicalEntry entry)
 	{
 		
-		if(!entries.contains(entry))
+		final int position = indexOf(entry);
+		if(position < 0)
 		{
 			entries.add(entry);
+			final int added = entries.size() - 1;
+			index(entriesByURI, entry.getURI(), added);
+			index(entriesByCanonicalForm, entry.getCanonicalForm(), added);
+			entry.getReferences().forEach((reference) -> index(entriesByReference, String.valueOf(reference), added));
 		
 		}
 		else
@@ -89,10 +111,9 @@ public class Lexicon {
                         /*
                     This is the entry from the list entries, which is updated
                     */
-                        //System.out.println("Update entry");
                         LexicalEntry containedEntry;
 	
-			containedEntry = getLexicalEntry(entry);
+			containedEntry = entries.get(position);
                         //if entry of URI is the same, but different forms appear, add alternative forms
                         if(!containedEntry.getCanonicalForm().equals(entry.getCanonicalForm())){
                             containedEntry.addAlternativeForms(entry.getCanonicalForm());
@@ -111,10 +132,10 @@ public class Lexicon {
                             Provenance provenance = entry.getProvenance(sense);
                             containedEntry.addProvenance(provenance, sense);
                         });
-
-                        
-                        
-                        
+                        /*
+                        Re-index the references of the merged entry
+                        */
+                        containedEntry.getReferences().forEach((reference) -> index(entriesByReference, String.valueOf(reference), position));
 			
 		}
 	
@@ -134,9 +155,14 @@ public class Lexicon {
             this.baseURI = baseURI;
         }
         
+	/**
+	 * Returns the entries, in insertion order.
+	 * The list is read-only: entries are added by {@link #addEntry(LexicalEntry)}, which keeps the indexes up to date.
+	 * @return the entries.
+	 */
 	public List<LexicalEntry> getEntries()
 	{
-		return entries;
+		return Collections.unmodifiableList(entries);
 	}
         
         public List<LexicalEntry> getEntries(Language language)
@@ -155,12 +181,7 @@ public class Lexicon {
 	
 	public List<LexicalEntry> getEntriesWithCanonicalForm(String canonicalForm)
 	{
-            List<LexicalEntry> results = new ArrayList<>();
-            for(LexicalEntry entry: entries){
-                if(entry.getCanonicalForm().equals(canonicalForm)) results.add(entry);
-            }
-            
-            return results;
+            return lookup(entriesByCanonicalForm, canonicalForm);
 	}
 	
 	public int size() {
@@ -170,15 +191,7 @@ public class Lexicon {
 	
 	public Set<Reference> getReferences()
 	{
-		Set<Reference> local_references = new HashSet<Reference>();
-		
-                entries.stream().forEach((entry) -> {   
-                    entry.getSenseBehaviours().keySet().stream().forEach((sense) -> {
-                        local_references.add(sense.getReference());
-                    });
-            });
-		
-		return local_references;
+		return new HashSet<Reference>(references);
 	}
 	
 
@@ -188,9 +201,9 @@ public class Lexicon {
 		
 		entry.setCanonicalForm(canonicalForm);
 		
-		addEntry(entry);
+		entry.setURI(baseURI+"LexicalEntry_"+(entries.size()+1)+"_"+canonicalForm);
 		
-		entry.setURI(baseURI+"LexicalEntry_"+entries.size()+"_"+canonicalForm);
+		addEntry(entry);
 		
 		return entry;
 	
@@ -198,22 +211,52 @@ public class Lexicon {
 
 	public boolean contains(LexicalEntry entry)
 	{
-		return entries.contains(entry);
+		return indexOf(entry) >= 0;
 	}
 	
-        private LexicalEntry getLexicalEntry(LexicalEntry entry){
-            String uri = entry.getURI();
-            for(LexicalEntry containedEntry : entries){
-                /// if URI are euqal, then we assume the whole entry is the same (but maybe contains different senses)
-                if(containedEntry.getURI().equals(uri)) return containedEntry;
+	/**
+	 * Returns the position of an entry equal to {@code entry}, as by {@link LexicalEntry#equals(Object)}:
+	 * with the same URI and language, provided that {@code entry} has references.
+	 * @param entry the entry.
+	 * @return the position; -1, if there is no such entry.
+	 */
+	private int indexOf(LexicalEntry entry){
+            if(entry.getURI()==null || entry.getReferences().isEmpty()) return -1;
+            for(int position : entriesByURI.getOrDefault(entry.getURI(), Collections.emptyList())){
+                if(Objects.equals(entries.get(position).getLanguage(), entry.getLanguage())) return position;
             }
-            return null;
+            return -1;
+        }
+	
+	/**
+	 * Adds {@code position} to the positions of {@code key}, keeping them sorted and distinct.
+	 */
+	private static void index(Map<String, List<Integer>> index, String key, int position){
+            if(key == null) return;
+            List<Integer> positions = index.computeIfAbsent(key, k -> new ArrayList<>(1));
+            int last = positions.size() - 1;
+            if(last < 0 || positions.get(last) < position){
+                positions.add(position);
+                return;
+            }
+            int found = Collections.binarySearch(positions, position);
+            if(found < 0) positions.add(-found - 1, position);
+        }
+	
+	/**
+	 * Returns the entries at the positions of {@code key}.
+	 */
+	private List<LexicalEntry> lookup(Map<String, List<Integer>> index, String key){
+            List<Integer> positions = index.getOrDefault(key, Collections.emptyList());
+            List<LexicalEntry> results = new ArrayList<>(positions.size());
+            for(int position : positions) results.add(entries.get(position));
+            return results;
         }
-                
+		
 	
 	public Iterator<LexicalEntry> iterator()
 	{
-		return entries.iterator();
+		return getEntries().iterator();
 	}
 	
         @Override
@@ -229,20 +272,7 @@ public class Lexicon {
 
 	public List<LexicalEntry> getEntriesForReference(String input_ref) {
 		
-		List<LexicalEntry> Local_entries = new ArrayList<LexicalEntry>();
-		
-		for (LexicalEntry entry: this.entries)
-		{
-                    for(Reference ref: entry.getReferences()){
-                        if (ref.toString().equals(input_ref)) {
-                            Local_entries.add(entry);
-                            break;
-                        }
-                    }
-			
-		}
-		
-		return Local_entries;
+		return lookup(entriesByReference, input_ref);
 	}
         
         public List<Preposition> getPrepositions(){
@@ -257,4 +287,3 @@ public class Lexicon {
 }
 
 
-
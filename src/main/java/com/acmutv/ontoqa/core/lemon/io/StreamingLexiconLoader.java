@@ -0,0 +1,634 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.lemon.io;
+
+import com.acmutv.ontoqa.core.lemon.*;
+import com.acmutv.ontoqa.core.lemon.vocabularies.*;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.rdf.model.Model;
+import org.apache.jena.rdf.model.ModelFactory;
+import org.apache.jena.rdf.model.RDFNode;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.vocabulary.RDF;
+import org.apache.jena.vocabulary.RDFS;
+
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * A lexicon loader that never materializes the lexicon as a Jena {@link Model}.
+ * The RDF file is parsed into a {@link SubjectGroupingSink}, which regroups triples by subject in
+ * bounded memory and delivers subject groups in subject order; every subject group is kept as a compact
+ * record until the lexical entries reading it are assembled, with the same semantics as {@link LexiconLoader}.
+ * <p>
+ * An entry is assembled as soon as the records it reads have been delivered: the nodes below its URI
+ * (its canonical form, senses, frames and arguments) follow it in subject order, so most entries are
+ * assembled when their run of subjects completes, and the others once the nodes they wait for (e.g.
+ * ontology resources or prepositions) are delivered. Nodes below the URI of an assembled entry are
+ * assumed to be private to it and are released, except its canonical form, which other entries read
+ * as their marker.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see LexiconLoader
+ */
+public class StreamingLexiconLoader {
+
+  private static final String FRAME = "http://lemon-model.net/lemon#Frame";
+
+  /**
+   * An empty model, used only to view nodes as resources and literals.
+   */
+  private static final Model VIEW = ModelFactory.createDefaultModel();
+
+  private static final Triple[] EMPTY = new Triple[0];
+
+  /**
+   * The separators between the URI of an entry and the URIs of the nodes below it.
+   */
+  private static final char[] SEPARATORS = {'#', '/'};
+
+  private final int maxBuffered;
+
+  /**
+   * The records held, in subject order.
+   */
+  private final NavigableMap<Node, Triple[]> records = new TreeMap<>(SubjectGroupingSink::compare);
+
+  /**
+   * The entries not added to the lexicon yet, in subject order.
+   */
+  private final Deque<Pending> pending = new ArrayDeque<>();
+
+  /**
+   * The entries not assembled yet, by the node they wait for.
+   */
+  private final PriorityQueue<Pending> waiting =
+      new PriorityQueue<>((p1, p2) -> SubjectGroupingSink.compare(p1.waitFor, p2.waitFor));
+
+  /**
+   * The subjects of the entries not assembled yet.
+   */
+  private final NavigableSet<Node> unassembled = new TreeSet<>(SubjectGroupingSink::compare);
+
+  private Lexicon lexicon;
+
+  /**
+   * The last subject delivered; null, once every subject has been delivered.
+   */
+  private Node cursor;
+
+  /**
+   * The number of triples in the records held.
+   */
+  private long held;
+
+  private long peakHeld;
+
+  /**
+   * Creates a new loader with the default buffer size.
+   */
+  public StreamingLexiconLoader() {
+    this(SubjectGroupingSink.DEFAULT_MAX_BUFFERED);
+  }
+
+  /**
+   * Creates a new loader.
+   * @param maxBuffered the maximum number of triples buffered before spilling to disk.
+   */
+  public StreamingLexiconLoader(int maxBuffered) {
+    this.maxBuffered = maxBuffered;
+  }
+
+  /**
+   * Returns the largest number of triples held at once in records during the last load.
+   * @return the largest number of triples held at once.
+   */
+  long getPeakHeld() {
+    return this.peakHeld;
+  }
+
+  /**
+   * Loads a lexicon from a RDF file.
+   * @param file the file (or URI) to load.
+   * @return the lexicon.
+   */
+  public Lexicon loadFromFile(String file) {
+    this.lexicon = new Lexicon();
+    this.held = 0;
+    this.peakHeld = 0;
+    try (SubjectGroupingSink sink = new SubjectGroupingSink(this.maxBuffered, this::accept)) {
+      RDFDataMgr.parse(sink, file);
+      this.cursor = null;
+      while (!this.waiting.isEmpty()) {
+        this.attempt(this.waiting.poll());
+      }
+      this.drain();
+      return this.lexicon;
+    } finally {
+      this.records.clear();
+      this.pending.clear();
+      this.waiting.clear();
+      this.unassembled.clear();
+      this.cursor = null;
+      this.lexicon = null;
+    }
+  }
+
+  /**
+   * Stores a subject group as a record, remembers lexical entries (one per canonical form,
+   * as {@link LexiconLoader} does), and assembles the entries waiting for the subject.
+   * Repeated triples are dropped, as a graph holds each triple once.
+   * @param group the triples of a subject.
+   */
+  private void accept(List<Triple> group) {
+    final Triple[] record = new LinkedHashSet<>(group).toArray(EMPTY);
+    final Node subject = record[0].getSubject();
+    this.cursor = subject;
+    this.hold(subject, record);
+    int canonicalForms = 0;
+    for (Triple triple : record) {
+      if (triple.getPredicate().equals(LEMON.canonicalForm.asNode())) {
+        canonicalForms++;
+      }
+    }
+    if (canonicalForms > 0) {
+      final Pending entry = new Pending(subject, canonicalForms);
+      this.pending.add(entry);
+      this.waiting.add(entry);
+      this.unassembled.add(subject);
+    }
+    while (!this.waiting.isEmpty() && SubjectGroupingSink.compare(this.waiting.peek().waitFor, subject) <= 0) {
+      this.attempt(this.waiting.poll());
+    }
+    this.drain();
+  }
+
+  /**
+   * Assembles an entry, or puts it back to wait for the first node it reads that has not been delivered yet.
+   */
+  private void attempt(Pending entry) {
+    final Node pos = this.object(entry.subject, LEXINFO.partOfSpeech.asNode());
+    final List<LexicalEntry> assembled = new ArrayList<>(entry.canonicalForms);
+    try {
+      for (int i = 0; i < entry.canonicalForms; i++) {
+        final LexicalEntry lexicalEntry = this.assemble(entry.subject, pos);
+        if (pos != null) {
+          assembled.add(lexicalEntry);
+        } else if (lexicalEntry.isNounPhrase()) {
+          lexicalEntry.setPOS("commonNoun");
+          assembled.add(lexicalEntry);
+        }
+      }
+    } catch (Undelivered exc) {
+      entry.waitFor = exc.node;
+      this.waiting.add(entry);
+      return;
+    }
+    entry.assembled = assembled;
+    this.unassembled.remove(entry.subject);
+    this.release(entry.subject);
+  }
+
+  /**
+   * Releases the records below an assembled entry, keeping only what other entries read of it:
+   * the written representation of its canonical form.
+   */
+  private void release(Node subject) {
+    if (!subject.isURI()) {
+      return;
+    }
+    final Map<Node, Triple[]> kept = new HashMap<>();
+    kept.put(subject, this.only(subject, LEMON.canonicalForm.asNode()));
+    for (Node canonicalForm : this.objects(subject, LEMON.canonicalForm.asNode())) {
+      kept.put(canonicalForm, this.only(canonicalForm, LEMON.writtenRep.asNode()));
+    }
+    for (char separator : SEPARATORS) {
+      final Node from = NodeFactory.createURI(subject.getURI() + separator);
+      final Node to = NodeFactory.createURI(subject.getURI() + (char) (separator + 1));
+      if (this.unassembled.subSet(from, to).isEmpty()) {
+        final Map<Node, Triple[]> released = this.records.subMap(from, to);
+        released.values().forEach((record) -> this.held -= record.length);
+        released.clear();
+      }
+    }
+    kept.forEach(this::hold);
+  }
+
+  /**
+   * Holds the record of {@code subject}, replacing the one held, if any.
+   */
+  private void hold(Node subject, Triple[] record) {
+    final Triple[] replaced = this.records.put(subject, record);
+    this.held += record.length - ((replaced != null) ? replaced.length : 0);
+    this.peakHeld = Math.max(this.peakHeld, this.held);
+  }
+
+  /**
+   * Returns the triples of {@code predicate} in the record of {@code subject}.
+   */
+  private Triple[] only(Node subject, Node predicate) {
+    final List<Triple> triples = new ArrayList<>(1);
+    for (Triple triple : this.record(subject)) {
+      if (triple.getPredicate().equals(predicate)) {
+        triples.add(triple);
+      }
+    }
+    return triples.toArray(EMPTY);
+  }
+
+  /**
+   * Adds the assembled entries to the lexicon, in subject order.
+   */
+  private void drain() {
+    while (!this.pending.isEmpty() && this.pending.peek().assembled != null) {
+      this.pending.poll().assembled.forEach(this.lexicon::addEntry);
+    }
+  }
+
+  private LexicalEntry assemble(Node subject, Node pos) {
+    final Language language = this.getLanguage(subject);
+    final LexicalEntry entry = new LexicalEntry(language);
+    entry.setURI(string(subject));
+    final boolean nounPhrase = this.has(subject, RDF.type.asNode(), LEXINFO.nounPhrase.asNode());
+    entry.setNounPhrase(nounPhrase);
+    entry.setPOS((pos != null) ? string(pos) : null);
+    entry.setCanonicalForm(this.getWrittenRep(subject));
+    final Node tense = this.object(subject, LEXINFO.tense.asNode());
+    entry.setTense((tense != null) ? string(tense) : null);
+
+    for (Node otherForm : this.objects(subject, LEMON.otherForm.asNode())) {
+      final String writtenRep = this.getFormWrittenRep(otherForm);
+      if (writtenRep != null) {
+        entry.addAlternativeForms(writtenRep);
+      }
+    }
+    entry.setForms(this.getForms(subject));
+
+    final Node marker = this.object(subject, LEMON.marker.asNode());
+    final String preposition = (marker != null) ? this.getWrittenRep(marker) : null;
+    entry.setPreposition(new Preposition(language, (preposition != null) ? preposition : ""));
+
+    final HashMap<Sense, HashSet<SyntacticBehaviour>> senseBehaviours = new HashMap<>();
+    final HashMap<Sense, Provenance> senseProvenances = new HashMap<>();
+    for (Node senseNode : this.objects(subject, LEMON.sense.asNode())) {
+      final Sense sense = this.getSense(senseNode, entry);
+      final HashSet<String> argumentValues = new HashSet<>();
+      for (SenseArgument argument : sense.getSenseArgs()) {
+        argumentValues.add(argument.getValue());
+      }
+      senseBehaviours.put(sense, this.getBehaviours(subject, argumentValues));
+      senseProvenances.put(sense, this.getProvenance(senseNode));
+    }
+    senseBehaviours.forEach((sense, behaviours) -> entry.addAllSyntacticBehaviour(behaviours, sense));
+    senseProvenances.forEach((sense, provenance) -> entry.addProvenance(provenance, sense));
+    return entry;
+  }
+
+  private Language getLanguage(Node subject) {
+    final Node language = this.object(subject, LEMON.language.asNode());
+    if (language != null && language.isLiteral()) {
+      switch (VIEW.asRDFNode(language).asLiteral().toString().toLowerCase()) {
+        case "en": return Language.EN;
+        case "de": return Language.DE;
+        case "es": return Language.ES;
+        case "ja": return Language.JA;
+        default: break;
+      }
+    }
+    return Language.EN;
+  }
+
+  /**
+   * Returns the written representation of the canonical form of {@code subject}, without language tag.
+   */
+  private String getWrittenRep(Node subject) {
+    final Node canonicalForm = this.object(subject, LEMON.canonicalForm.asNode());
+    return (canonicalForm != null) ? this.getFormWrittenRep(canonicalForm) : null;
+  }
+
+  /**
+   * Returns the written representation of {@code form}, without language tag.
+   */
+  private String getFormWrittenRep(Node form) {
+    final Node writtenRep = this.object(form, LEMON.writtenRep.asNode());
+    if (writtenRep == null) {
+      return null;
+    }
+    final String value = string(writtenRep);
+    return value.contains("@") ? value.split("@")[0] : value;
+  }
+
+  private List<Form> getForms(Node subject) {
+    final List<Form> forms = new ArrayList<>();
+    for (Node otherForm : this.objects(subject, LEMON.otherForm.asNode())) {
+      if (otherForm.isLiteral()) {
+        continue;
+      }
+      final Form form = new Form();
+      final Node writtenRep = this.object(otherForm, LEMON.writtenRep.asNode());
+      if (writtenRep != null && writtenRep.isLiteral()) {
+        form.setWrittenRep(writtenRep.getLiteralLexicalForm());
+      }
+      final Node tense = this.resource(otherForm, LEXINFO.tense.asNode());
+      if (tense != null) {
+        form.setTense(localName(string(tense)));
+      }
+      final Node number = this.resource(otherForm, LEXINFO.number.asNode());
+      if (number != null) {
+        form.setNumber(localName(string(number)));
+      }
+      forms.add(form);
+    }
+    return forms;
+  }
+
+  private Sense getSense(Node senseNode, LexicalEntry entry) {
+    final Sense sense = new Sense();
+    final Node reference = this.object(senseNode, LEMON.reference.asNode());
+    if (reference != null && reference.isURI()) {
+      final Node property = this.object(reference, OWL.onProperty.asNode());
+      final Node value = this.object(reference, OWL.hasValue.asNode());
+      if (property != null && value != null) {
+        sense.setReference(new Restriction(string(reference), string(value), string(property)));
+      } else {
+        sense.setReference(new SimpleReference(string(reference)));
+      }
+    }
+    for (Node object : this.objects(senseNode, LEMON.reference.asNode())) {
+      if (this.has(object, RDFS.subClassOf.asNode(), LEMON.covariant.asNode())) {
+        entry.setCovariantScalar(true);
+      }
+    }
+    for (Node property : new Node[]{LEMON.isA.asNode(), LEMON.subjOfProp.asNode(), LEMON.objOfProp.asNode()}) {
+      for (Node object : this.objects(senseNode, property)) {
+        sense.addSenseArg(new SenseArgument(property.getURI(), argumentValue(object)));
+      }
+    }
+    return sense;
+  }
+
+  private HashSet<SyntacticBehaviour> getBehaviours(Node subject, Set<String> senseArgumentValues) {
+    final HashSet<SyntacticBehaviour> behaviours = new HashSet<>();
+    for (Node frame : this.objects(subject, LEMON.syntacticBehaviour.asNode())) {
+      final SyntacticBehaviour behaviour = new SyntacticBehaviour();
+      final Set<String> argumentValues = new HashSet<>();
+      for (Triple triple : this.record(frame)) {
+        final Node object = triple.getObject();
+        if (object.isLiteral() || triple.getPredicate().equals(RDF.type.asNode())) {
+          continue;
+        }
+        final String argumentValue = argumentValue(object);
+        final Node marker = this.object(object, LEMON.marker.asNode());
+        final String preposition = (marker != null) ? this.getWrittenRep(marker) : null;
+        behaviour.add(new SyntacticArgument(triple.getPredicate().getURI(), argumentValue, preposition));
+        argumentValues.add(argumentValue);
+      }
+      if (senseArgumentValues.containsAll(argumentValues)) {
+        final String[] parts = this.getFrame(frame).split("/");
+        behaviour.setFrame(parts[parts.length - 1].split("#")[1]);
+        behaviours.add(behaviour);
+      }
+    }
+    return behaviours;
+  }
+
+  /**
+   * Returns the first frame type other than {@code lemon:Frame}, or the last type.
+   */
+  private String getFrame(Node frame) {
+    String value = null;
+    for (Node type : this.objects(frame, RDF.type.asNode())) {
+      value = string(type);
+      if (!value.equals(FRAME)) {
+        return value;
+      }
+    }
+    return value;
+  }
+
+  private Provenance getProvenance(Node senseNode) {
+    final Provenance provenance = new Provenance();
+    String agent = "";
+    Date startTime = null;
+    Date endTime = null;
+    final HashSet<String> patterns = new HashSet<>();
+    final List<Sentence> sentences = new ArrayList<>();
+    for (Node activity : this.objects(senseNode, PROVO.generatedBy.asNode())) {
+      if (activity.isLiteral()) {
+        continue;
+      }
+      try {
+        final Node frequency = this.object(activity, PROVO.frequency.asNode());
+        if (frequency != null) {
+          provenance.setFrequency(VIEW.asRDFNode(frequency).asLiteral().getInt());
+        }
+      } catch (Exception ignored) { }
+      try {
+        final Node confidence = this.object(activity, PROVO.confidence.asNode());
+        if (confidence != null) {
+          provenance.setConfidence(VIEW.asRDFNode(confidence).asLiteral().getDouble());
+        }
+      } catch (Exception ignored) { }
+      final Triple agentTriple = this.triple(activity, PROVO.associatedWith.asNode());
+      if (agentTriple != null) {
+        agent = VIEW.asStatement(agentTriple).toString();
+      }
+      startTime = parseDate(this.triple(activity, PROVO.startedAtTime.asNode()), startTime);
+      endTime = parseDate(this.triple(activity, PROVO.endedatTime.asNode()), endTime);
+      for (Node pattern : this.objects(activity, PROVO.pattern.asNode())) {
+        final String writtenRep = this.getWrittenRep(pattern);
+        if (writtenRep != null) {
+          patterns.add(writtenRep);
+        }
+      }
+      for (Node object : this.objects(activity, PROVO.sentence.asNode())) {
+        final Sentence sentence = this.getSentence(NodeFactory.createURI(string(object)));
+        if (sentence != null) {
+          sentences.add(sentence);
+        }
+      }
+    }
+    if (!agent.equals("")) provenance.setAgent(agent);
+    if (startTime != null) provenance.setStartedAtTime(startTime);
+    if (endTime != null) provenance.setEndedAtTime(endTime);
+    provenance.setPatternset(patterns);
+    provenance.setSentences(sentences);
+    return provenance;
+  }
+
+  private Sentence getSentence(Node subject) {
+    final String plain = this.last(subject, DBLEXIPEDIA.sentence.asNode());
+    final String subjOfProp = this.last(subject, DBLEXIPEDIA.subjOfProp.asNode());
+    final String objOfProp = this.last(subject, DBLEXIPEDIA.objOfProp.asNode());
+    if (plain == null || subjOfProp == null || objOfProp == null) {
+      return null;
+    }
+    final Sentence sentence = new Sentence(plain, subjOfProp, objOfProp);
+    final String objOfPropUri = this.last(subject, DBLEXIPEDIA.objOfPropURI.asNode());
+    if (objOfPropUri != null) sentence.setObjOfProp_uri(objOfPropUri);
+    final String subjOfPropUri = this.last(subject, DBLEXIPEDIA.subjOfPropURI.asNode());
+    if (subjOfPropUri != null) sentence.setSubjOfProp_uri(subjOfPropUri);
+    return sentence;
+  }
+
+  /**
+   * Parses the date of a provenance statement, as {@link LexiconLoader} does, keeping
+   * {@code previous} when the statement is missing or cannot be parsed.
+   */
+  private static Date parseDate(Triple triple, Date previous) {
+    if (triple == null) {
+      return previous;
+    }
+    try {
+      return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").parse(VIEW.asStatement(triple).toString());
+    } catch (Exception exc) {
+      return previous;
+    }
+  }
+
+  /**
+   * Returns the record of {@code subject}.
+   * @throws Undelivered if {@code subject} has not been delivered yet.
+   */
+  private Triple[] record(Node subject) {
+    final Triple[] record = this.records.get(subject);
+    if (record != null) {
+      return record;
+    }
+    if (this.cursor != null && !subject.isLiteral() && SubjectGroupingSink.compare(subject, this.cursor) > 0) {
+      throw new Undelivered(subject);
+    }
+    return EMPTY;
+  }
+
+  private Triple triple(Node subject, Node predicate) {
+    for (Triple triple : this.record(subject)) {
+      if (triple.getPredicate().equals(predicate)) {
+        return triple;
+      }
+    }
+    return null;
+  }
+
+  private Node object(Node subject, Node predicate) {
+    final Triple triple = this.triple(subject, predicate);
+    return (triple != null) ? triple.getObject() : null;
+  }
+
+  /**
+   * Returns the first object of {@code predicate} that is a resource.
+   */
+  private Node resource(Node subject, Node predicate) {
+    for (Node object : this.objects(subject, predicate)) {
+      if (!object.isLiteral()) {
+        return object;
+      }
+    }
+    return null;
+  }
+
+  private String last(Node subject, Node predicate) {
+    final List<Node> objects = this.objects(subject, predicate);
+    return objects.isEmpty() ? null : string(objects.get(objects.size() - 1));
+  }
+
+  private List<Node> objects(Node subject, Node predicate) {
+    final List<Node> objects = new ArrayList<>();
+    for (Triple triple : this.record(subject)) {
+      if (triple.getPredicate().equals(predicate)) {
+        objects.add(triple.getObject());
+      }
+    }
+    return objects;
+  }
+
+  private boolean has(Node subject, Node predicate, Node object) {
+    for (Triple triple : this.record(subject)) {
+      if (triple.getPredicate().equals(predicate) && triple.getObject().equals(object)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the string form of a node, as returned by {@link RDFNode#toString()}.
+   */
+  private static String string(Node node) {
+    return VIEW.asRDFNode(node).toString();
+  }
+
+  /**
+   * Returns the fragment of the last path segment of {@code uri}.
+   */
+  private static String localName(String uri) {
+    final String[] parts = uri.split("/");
+    return parts[parts.length - 1].split("#")[1];
+  }
+
+  /**
+   * Strips the base URI and the numeric prefix from an argument identifier.
+   */
+  private static String argumentValue(Node object) {
+    String value = string(object);
+    if (value.contains("#")) value = value.split("#")[1];
+    if (value.length() > 13 && StringUtils.isNumeric(value.substring(0, 13))) value = value.substring(13);
+    return value;
+  }
+
+  /**
+   * A lexical entry, from its delivery to its addition to the lexicon.
+   */
+  private static final class Pending {
+    private final Node subject;
+    private final int canonicalForms;
+    private Node waitFor;
+    private List<LexicalEntry> assembled;
+
+    private Pending(Node subject, int canonicalForms) {
+      this.subject = subject;
+      this.canonicalForms = canonicalForms;
+      this.waitFor = subject;
+    }
+  }
+
+  /**
+   * Thrown when an assembly reads a subject that has not been delivered yet.
+   */
+  private static final class Undelivered extends RuntimeException {
+    private final transient Node node;
+
+    private Undelivered(Node node) {
+      super(null, null, false, false);
+      this.node = node;
+    }
+  }
+}
@@ -0,0 +1,399 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.lemon.io;
+
+import org.apache.jena.datatypes.TypeMapper;
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.riot.system.StreamRDF;
+import org.apache.jena.sparql.core.Quad;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * A {@link StreamRDF} sink that regroups a triple stream by subject in bounded memory.
+ * At most {@code maxBuffered} triples are held at once: when the buffer fills up it is sorted by
+ * subject and spilled to a temporary run file. On {@link #finish()} the runs are merged and every
+ * subject is delivered exactly once, with all of its triples in arrival order, in subject order
+ * (see {@link #compare(Node, Node)}). Run files are deleted once merged, or on {@link #close()}
+ * when the stream is abandoned before {@link #finish()}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ */
+public class SubjectGroupingSink implements StreamRDF, Closeable {
+
+  /**
+   * The default number of triples buffered before spilling.
+   */
+  public static final int DEFAULT_MAX_BUFFERED = 500000;
+
+  private static final byte URI = 0;
+
+  private static final byte BLANK = 1;
+
+  private static final byte LITERAL = 2;
+
+  /**
+   * Orders triples by subject; the sort is stable, so triples of a subject keep arrival order.
+   */
+  private static final Comparator<Triple> BY_SUBJECT =
+      (t1, t2) -> compare(t1.getSubject(), t2.getSubject());
+
+  private final int maxBuffered;
+
+  private final Consumer<List<Triple>> consumer;
+
+  private final List<Triple> buffer = new ArrayList<>();
+
+  private final List<Path> runs = new ArrayList<>();
+
+  private long triples = 0;
+
+  private int spilled = 0;
+
+  /**
+   * Creates a new sink.
+   * @param maxBuffered the maximum number of triples held in memory.
+   * @param consumer the consumer of subject groups.
+   */
+  public SubjectGroupingSink(int maxBuffered, Consumer<List<Triple>> consumer) {
+    if (maxBuffered < 1) {
+      throw new IllegalArgumentException("The buffer must hold at least one triple");
+    }
+    this.maxBuffered = maxBuffered;
+    this.consumer = consumer;
+  }
+
+  /**
+   * Returns the number of triples received.
+   * @return the number of triples received.
+   */
+  public long getTriples() {
+    return this.triples;
+  }
+
+  /**
+   * Returns the number of runs spilled to disk.
+   * @return the number of runs spilled to disk.
+   */
+  public int getRuns() {
+    return this.spilled;
+  }
+
+  /**
+   * Returns the run files not deleted yet.
+   * @return the run files not deleted yet.
+   */
+  List<Path> getRunFiles() {
+    return Collections.unmodifiableList(this.runs);
+  }
+
+  @Override
+  public void start() {
+  }
+
+  @Override
+  public void triple(Triple triple) {
+    this.triples++;
+    this.buffer.add(triple);
+    if (this.buffer.size() >= this.maxBuffered) {
+      this.spill();
+    }
+  }
+
+  @Override
+  public void quad(Quad quad) {
+    this.triple(quad.asTriple());
+  }
+
+  @Override
+  public void base(String base) {
+  }
+
+  @Override
+  public void prefix(String prefix, String iri) {
+  }
+
+  @Override
+  public void finish() {
+    this.buffer.sort(BY_SUBJECT);
+    if (this.runs.isEmpty()) {
+      emit(this.buffer.iterator(), this.consumer);
+      this.buffer.clear();
+      return;
+    }
+    final List<RunReader> readers = new ArrayList<>();
+    try {
+      for (Path run : this.runs) {
+        readers.add(new RunReader(run));
+      }
+      emit(merge(readers, this.buffer.iterator()), this.consumer);
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    } finally {
+      this.buffer.clear();
+      for (RunReader reader : readers) {
+        reader.close();
+      }
+      this.close();
+    }
+  }
+
+  /**
+   * Discards the buffered triples and deletes the run files.
+   */
+  @Override
+  public void close() {
+    this.buffer.clear();
+    for (Path run : this.runs) {
+      delete(run);
+    }
+    this.runs.clear();
+  }
+
+  /**
+   * Sorts the buffer by subject and writes it to a new run file.
+   */
+  private void spill() {
+    this.buffer.sort(BY_SUBJECT);
+    try {
+      final Path run = Files.createTempFile("ontoqa-lexicon", ".run");
+      this.runs.add(run);
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+        out.writeInt(this.buffer.size());
+        for (Triple triple : this.buffer) {
+          write(out, triple.getSubject());
+          write(out, triple.getPredicate());
+          write(out, triple.getObject());
+        }
+      }
+      this.spilled++;
+    } catch (IOException exc) {
+      throw new UncheckedIOException(exc);
+    }
+    this.buffer.clear();
+  }
+
+  /**
+   * Delivers the consecutive triples sharing a subject as a single group.
+   */
+  private static void emit(Iterator<Triple> sorted, Consumer<List<Triple>> consumer) {
+    List<Triple> group = new ArrayList<>();
+    while (sorted.hasNext()) {
+      final Triple triple = sorted.next();
+      if (!group.isEmpty() && !group.get(0).getSubject().equals(triple.getSubject())) {
+        consumer.accept(group);
+        group = new ArrayList<>();
+      }
+      group.add(triple);
+    }
+    if (!group.isEmpty()) {
+      consumer.accept(group);
+    }
+  }
+
+  /**
+   * Merges sorted runs into a single sorted iterator.
+   * Ties are broken by run index, so the merge is stable with respect to arrival order.
+   */
+  private static Iterator<Triple> merge(List<RunReader> readers, Iterator<Triple> last) throws IOException {
+    final List<Iterator<Triple>> sources = new ArrayList<>(readers);
+    sources.add(last);
+    final PriorityQueue<Head> heads = new PriorityQueue<>((h1, h2) -> {
+      final int cmp = BY_SUBJECT.compare(h1.triple, h2.triple);
+      return (cmp != 0) ? cmp : Integer.compare(h1.source, h2.source);
+    });
+    for (int i = 0; i < sources.size(); i++) {
+      if (sources.get(i).hasNext()) {
+        heads.add(new Head(sources.get(i).next(), i));
+      }
+    }
+    return new Iterator<Triple>() {
+      @Override
+      public boolean hasNext() {
+        return !heads.isEmpty();
+      }
+
+      @Override
+      public Triple next() {
+        final Head head = heads.poll();
+        if (head == null) {
+          throw new NoSuchElementException();
+        }
+        final Iterator<Triple> source = sources.get(head.source);
+        if (source.hasNext()) {
+          heads.add(new Head(source.next(), head.source));
+        }
+        return head.triple;
+      }
+    };
+  }
+
+  private static void delete(Path run) {
+    try {
+      Files.deleteIfExists(run);
+    } catch (IOException ignored) { }
+  }
+
+  /**
+   * Compares two nodes by kind (URIs, then blank nodes, then literals) and then by label.
+   * This is the order in which subjects are delivered.
+   * @param n1 the first node.
+   * @param n2 the second node.
+   * @return a negative integer, zero, or a positive integer as {@code n1} precedes, equals or follows {@code n2}.
+   */
+  static int compare(Node n1, Node n2) {
+    final int cmp = Integer.compare(kind(n1), kind(n2));
+    return (cmp != 0) ? cmp : label(n1).compareTo(label(n2));
+  }
+
+  private static byte kind(Node node) {
+    if (node.isURI()) {
+      return URI;
+    } else if (node.isBlank()) {
+      return BLANK;
+    } else {
+      return LITERAL;
+    }
+  }
+
+  private static String label(Node node) {
+    if (node.isURI()) {
+      return node.getURI();
+    } else if (node.isBlank()) {
+      return node.getBlankNodeLabel();
+    } else {
+      return node.getLiteralLexicalForm();
+    }
+  }
+
+  private static void write(DataOutputStream out, Node node) throws IOException {
+    final byte kind = kind(node);
+    out.writeByte(kind);
+    writeString(out, label(node));
+    if (kind == LITERAL) {
+      writeString(out, node.getLiteralLanguage());
+      writeString(out, node.getLiteralDatatypeURI());
+    }
+  }
+
+  private static Node read(DataInputStream in) throws IOException {
+    final byte kind = in.readByte();
+    final String label = readString(in);
+    if (kind == URI) {
+      return NodeFactory.createURI(label);
+    } else if (kind == BLANK) {
+      return NodeFactory.createBlankNode(label);
+    }
+    final String language = readString(in);
+    final String datatype = readString(in);
+    if (language != null && !language.isEmpty()) {
+      return NodeFactory.createLiteral(label, language);
+    }
+    return NodeFactory.createLiteral(label, (datatype == null) ? null : TypeMapper.getInstance().getSafeTypeByName(datatype));
+  }
+
+  private static void writeString(DataOutputStream out, String string) throws IOException {
+    if (string == null) {
+      out.writeInt(-1);
+      return;
+    }
+    final byte[] bytes = string.getBytes("UTF-8");
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    final int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    final byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, "UTF-8");
+  }
+
+  /**
+   * The current head of a run during the merge.
+   */
+  private static final class Head {
+    private final Triple triple;
+    private final int source;
+
+    private Head(Triple triple, int source) {
+      this.triple = triple;
+      this.source = source;
+    }
+  }
+
+  /**
+   * Sequential reader of a spilled run.
+   */
+  private static final class RunReader implements Iterator<Triple>, Closeable {
+    private final DataInputStream in;
+    private int remaining;
+
+    private RunReader(Path run) throws IOException {
+      this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run)));
+      this.remaining = this.in.readInt();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.remaining > 0;
+    }
+
+    @Override
+    public Triple next() {
+      if (this.remaining <= 0) {
+        throw new NoSuchElementException();
+      }
+      try {
+        final Node subject = read(this.in);
+        final Node predicate = read(this.in);
+        final Node object = read(this.in);
+        this.remaining--;
+        return Triple.create(subject, predicate, object);
+      } catch (IOException exc) {
+        throw new UncheckedIOException(exc);
+      }
+    }
+
+    @Override
+    public void close() {
+      try {
+        this.in.close();
+      } catch (IOException ignored) { }
+    }
+  }
+}
@@ -28,7 +28,7 @@ package com.acmutv.ontoqa.core.lexicon;
 import com.acmutv.ontoqa.core.lemon.LexicalEntry;
 import com.acmutv.ontoqa.core.lemon.Lexicon;
 import com.acmutv.ontoqa.core.lemon.Reference;
-import com.acmutv.ontoqa.core.lemon.io.LexiconLoader;
+import com.acmutv.ontoqa.core.lemon.io.StreamingLexiconLoader;
 
 import com.acmutv.ontoqa.core.lemon.Sense;
 import com.acmutv.ontoqa.core.lemon.SyntacticArgument;
@@ -70,7 +70,7 @@ public class LexiconUsage {
 	 
 	  Path path = FileSystems.getDefault().getPath(resource).toAbsolutePath(); 
 	  String baseUri = path.toUri().toString();
-	  LexiconLoader lexiconLoad= new LexiconLoader();
+	  StreamingLexiconLoader lexiconLoad= new StreamingLexiconLoader();
 	  Lexicon lexicon = lexiconLoad.loadFromFile(baseUri);
 	  return lexicon;
   }
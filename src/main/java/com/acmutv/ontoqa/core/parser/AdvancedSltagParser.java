@@ -26,8 +26,10 @@
 
 package com.acmutv.ontoqa.core.parser;
 
+import com.acmutv.ontoqa.core.Deadline;
 import com.acmutv.ontoqa.core.exception.LTAGException;
 import com.acmutv.ontoqa.core.exception.OntoqaParsingException;
+import com.acmutv.ontoqa.core.exception.OntoqaTimeoutException;
 import com.acmutv.ontoqa.core.exception.QueryException;
 import com.acmutv.ontoqa.core.grammar.Grammar;
 import com.acmutv.ontoqa.core.knowledge.KnowledgeManager;
@@ -55,7 +57,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static com.acmutv.ontoqa.core.parser.EnglishConstructs.isAskSentence;
 
@@ -79,74 +80,131 @@ public class AdvancedSltagParser implements ReasoningSltagParser {
    */
   @Override
   public Sltag parse(String sentence, Grammar grammar, Ontology ontology) throws Exception {
+    return parse(sentence, grammar, ontology, Deadline.NONE);
+  }
+
+  /**
+   * Parses {@code sentence} with {@code grammar}, within {@code deadline}.
+   * @param sentence the sentence to parse.
+   * @param grammar the grammar to parse with.
+   * @param ontology the ontology.
+   * @param deadline the deadline to respect.
+   * @return the parsed SLTAG.
+   * @throws OntoqaParsingException when parsing fails.
+   * @throws OntoqaTimeoutException when the deadline expires before parsing completes.
+   */
+  @Override
+  public Sltag parse(String sentence, Grammar grammar, Ontology ontology, Deadline deadline) throws Exception {
+    return parse(sentence, grammar, ontology, deadline, ParseTrace.NONE);
+  }
+
+  /**
+   * Parses {@code sentence} with {@code grammar}, within {@code deadline}, recording parser events into {@code trace}.
+   * @param sentence the sentence to parse.
+   * @param grammar the grammar to parse with.
+   * @param ontology the ontology.
+   * @param deadline the deadline to respect.
+   * @param trace the trace to record into.
+   * @return the parsed SLTAG.
+   * @throws OntoqaParsingException when parsing fails.
+   * @throws OntoqaTimeoutException when the deadline expires before parsing completes.
+   */
+  @Override
+  public Sltag parse(String sentence, Grammar grammar, Ontology ontology, Deadline deadline, ParseTrace trace)
+      throws Exception {
+    return parse(sentence, grammar, ontology, deadline, trace, null);
+  }
+
+  /**
+   * Parses {@code sentence} with {@code grammar}, within {@code deadline}, recording parser events into {@code trace}.
+   * Ambiguities are first narrowed with the decision table {@code ambiguities}, if any.
+   * @param sentence the sentence to parse.
+   * @param grammar the grammar to parse with.
+   * @param ontology the ontology.
+   * @param deadline the deadline to respect.
+   * @param trace the trace to record into.
+   * @param ambiguities the decision table of the grammar ambiguities; null, if none.
+   * @return the parsed SLTAG.
+   * @throws OntoqaParsingException when parsing fails.
+   * @throws OntoqaTimeoutException when the deadline expires before parsing completes.
+   */
+  @Override
+  public Sltag parse(String sentence, Grammar grammar, Ontology ontology, Deadline deadline, ParseTrace trace,
+                     AmbiguityTable ambiguities) throws Exception {
     ParserStateNew state = new ParserStateNew(sentence);
+    state.setDeadline(deadline);
+    state.setTrace(trace);
 
     SltagTokenizer tokenizer = new SimpleSltagTokenizer(grammar, sentence);
 
     /* PRE-PROCESSING */
-    LOGGER.debug("[STATUS] :: PRE-PROCESSING");
+    debug(state, "[STATUS] :: PRE-PROCESSING");
     if (isAskSentence(sentence)) {
-      LOGGER.debug("[PRE-PROCESSING] :: found ASK structure");
+      debug(state, "[PRE-PROCESSING] :: found ASK structure");
       state.setAsk(true);
     } else {
-      LOGGER.debug("[PRE-PROCESSING] :: found SELECT structure");
+      debug(state, "[PRE-PROCESSING] :: found SELECT structure");
       state.setAsk(false);
     }
 
     /* TOKENIZATION */
-    LOGGER.debug("[STATUS] :: PROCESSING");
+    debug(state, "[STATUS] :: PROCESSING");
     while (tokenizer.hasNext()) {
+      deadline.check("tokenization");
       Token token = tokenizer.next();
 
       String lexPattern = token.getLexicalPattern();
       List<ElementarySltag> candidates = token.getCandidates();
       state.setIdxPrev(token.getPrev());
 
-      LOGGER.debug("[PROCESSING] :: entry '{}'", lexPattern);
+      debug(state, "[PROCESSING] :: entry '{}'", lexPattern);
 
       if (candidates.isEmpty()) {
         throw new OntoqaParsingException("Cannot find SLTAG for entry: %s", lexPattern);
       }
 
       /* AMBIGUITIES MANAGEMENT */
-      LOGGER.debug("[STATUS] :: AMBIGUITIES MANAGEMENT");
+      debug(state, "[STATUS] :: AMBIGUITIES MANAGEMENT");
       if (candidates.size() > 1) {
-        LOGGER.debug("[AMBIGUITIES MANAGEMENT] :: found {} ambiguities for entry '{}' (idxPrev: {})\n{}",
+        debug(state, "[AMBIGUITIES MANAGEMENT] :: found {} ambiguities for entry '{}' (idxPrev: {})\n{}",
             candidates.size(), lexPattern, state.getIdxPrev(),
-            candidates.stream().map(ElementarySltag::toPrettyString).collect(Collectors.joining("\n")));
+            new ArrayList<>(candidates));
+        if (ambiguities != null) {
+          filterAmbiguities(candidates, lexPattern, state, ambiguities);
+        }
         filterAmbiguities(candidates, state, ontology);
       } else {
-        LOGGER.debug("[AMBIGUITIES MANAGEMENT] :: no ambiguities found");
+        debug(state, "[AMBIGUITIES MANAGEMENT] :: no ambiguities found");
       }
 
       /* QUEUE INSERTION */
-      LOGGER.debug("[STATUS] :: QUEUE INSERTION");
+      debug(state, "[STATUS] :: QUEUE INSERTION");
       if (candidates.size() == 1) {
         Sltag candidate = candidates.get(0);
         if (candidate.isAdjunctable()) {
-          LOGGER.debug("[QUEUE] :: enqueueing adjunction (entry: '{}' | idxPrev: {}):\n{}", lexPattern, state.getIdxPrev(), candidate.toPrettyString());
+          debug(state, "[QUEUE] :: enqueueing adjunction (entry: '{}' | idxPrev: {}):\n{}", lexPattern, state.getIdxPrev(), candidate);
           state.addWaitingAdjunction(candidate, state.getIdxPrev());
         } else if (candidate.isSentence()) {
-          LOGGER.debug("[QUEUE] :: setting sentence (entry: '{}' | idxPrev: {}):\n{}", lexPattern, state.getIdxPrev(), candidate.toPrettyString());
+          debug(state, "[QUEUE] :: setting sentence (entry: '{}' | idxPrev: {}):\n{}", lexPattern, state.getIdxPrev(), candidate);
           if (state.getCurr() != null) {
             throw new Exception("Cannot decide sentence root: multiple root found");
           }
           state.setCurr(candidate);
           state.getCurr().getSemantics().setSelect(!state.isAsk());
         } else {
-          LOGGER.debug("[QUEUE] :: enqueueing substitution (entry: '{}' | idxPrev: {}) :\n{}", lexPattern, state.getIdxPrev(), candidate.toPrettyString());
+          debug(state, "[QUEUE] :: enqueueing substitution (entry: '{}' | idxPrev: {}) :\n{}", lexPattern, state.getIdxPrev(), candidate);
           state.addWaitingSubstitution(candidate, state.getIdxPrev());
         }
       }
 
       /* QUEUE CONSUMPTION */
-      LOGGER.debug("[STATUS] :: QUEUE CONSUMPTION");
+      debug(state, "[STATUS] :: QUEUE CONSUMPTION");
       if (state.getCurr() != null) {
         consumeWaitingSubstitutions(state);
         consumeWaitingAdjunctions(state);
       }
 
-      LOGGER.debug("[STATUS] :: current SLTAG\n{}", (state.getCurr() != null) ? state.getCurr().toPrettyString() : "NONE");
+      debug(state, "[STATUS] :: current SLTAG\n{}", (state.getCurr() != null) ? state.getCurr() : "NONE");
     }
 
     if (state.getCurr() == null) {
@@ -154,115 +212,167 @@ public class AdvancedSltagParser implements ReasoningSltagParser {
     }
 
     /* AMBIGUITIES RESOLUTION */
-    LOGGER.debug("[STATUS] :: AMBIGUITIES RESOLUTION");
+    debug(state, "[STATUS] :: AMBIGUITIES RESOLUTION");
     if (!state.getConflictList().isEmpty()) {
       solveAmbiguities(state, ontology);
     }
 
     /* POST-PROCESSING */
-    LOGGER.debug("[STATUS] :: POST-PROCESSING");
+    debug(state, "[STATUS] :: POST-PROCESSING");
     if (state.isAsk()) {
-      LOGGER.debug("[POST-PROCESSING] :: setting ASK semantics");
+      debug(state, "[POST-PROCESSING] :: setting ASK semantics");
       state.getCurr().getSemantics().setSelect(false);
     } else {
-      LOGGER.debug("[POST-PROCESSING] :: setting SELECT semantics");
+      debug(state, "[POST-PROCESSING] :: setting SELECT semantics");
       state.getCurr().getSemantics().setSelect(true);
     }
 
-    LOGGER.debug("[STATUS] :: current SLTAG\n{}", state.getCurr().toPrettyString());
+    debug(state, "[STATUS] :: current SLTAG\n{}", state.getCurr());
 
     return state.getCurr();
   }
 
+  /**
+   * Filters ambiguities with the decision table {@code ambiguities}, before any simulation.
+   * The candidates are removed in order, as long as one is left; nothing is removed if the table excludes
+   * all of them.
+   * @param candidates the list of colliding candidates.
+   * @param lexPattern the lexical pattern matching the candidates.
+   * @param state the parser state.
+   * @param ambiguities the decision table.
+   */
+  private static void filterAmbiguities(List<ElementarySltag> candidates, String lexPattern, ParserStateNew state,
+                                        AmbiguityTable ambiguities) {
+    AmbiguityTable.Position position = (state.getIdxPrev() == null) ?
+        AmbiguityTable.Position.START : AmbiguityTable.Position.MIDDLE;
+    BitSet excluded = ambiguities.getExcluded(lexPattern, position, candidates.size());
+    if (excluded == null || excluded.cardinality() >= candidates.size()) {
+      return;
+    }
+    debug(state, "[AMBIGUITIES MANAGEMENT] :: solving ambiguities with decision table ({})", position);
+    Iterator<ElementarySltag> iterCandidates = candidates.iterator();
+    for (int i = 0; candidates.size() > 1 && iterCandidates.hasNext(); i++) {
+      Sltag candidate = iterCandidates.next();
+      if (excluded.get(i)) {
+        debug(state, "[AMBIGUITIES MANAGEMENT] :: excluded ambiguity (decision table):\n{}", candidate);
+        iterCandidates.remove();
+      }
+    }
+  }
+
   /**
    * Filters ambiguities.
    * @param candidates the list of colliding candidates.
    * @param state the parser state.
+   * @param ontology the ontology.
+   * @throws OntoqaTimeoutException when the parser deadline expires.
    */
-  private static void filterAmbiguities(List<ElementarySltag> candidates, ParserStateNew state, Ontology ontology) {
+  private static void filterAmbiguities(List<ElementarySltag> candidates, ParserStateNew state, Ontology ontology)
+      throws OntoqaTimeoutException {
     Integer idxPrev = state.getIdxPrev();
     ConflictList conflicts = state.getConflictList();
+    Deadline deadline = state.getDeadline();
 
     Iterator<ElementarySltag> iterCandidates;
 
     /* SYNTACTICALLY SOLVABLE AMBIGUITIES */
-    LOGGER.debug("[AMBIGUITIES MANAGEMENT] :: solving syntactic ambiguities");
+    debug(state, "[AMBIGUITIES MANAGEMENT] :: solving syntactic ambiguities");
     iterCandidates = candidates.iterator();
     while (candidates.size() > 1 && iterCandidates.hasNext()) {
+      deadline.check("ambiguities management");
       Sltag candidate = iterCandidates.next();
       if (candidate.isSentence()) {
         if (idxPrev == null && candidate.isLeftSub()) { // excludes is (affermative) when we are at the first word.
-          LOGGER.debug("[AMBIGUITIES MANAGEMENT] :: excluded ambiguity (found S-rooted left-sub at the beginning of the sentence):\n{}", candidate.toPrettyString());
+          debug(state, "[AMBIGUITIES MANAGEMENT] :: excluded ambiguity (found S-rooted left-sub at the beginning of the sentence):\n{}", candidate);
           iterCandidates.remove();
         } else if (idxPrev != null && !candidate.isLeftSub()) { // excludes is (interrogative) when we are in the middle of the sentence.
-          LOGGER.debug("[AMBIGUITIES MANAGEMENT] :: excluded ambiguity (found S-rooted not left-sub candidate within the sentence):\n{}", candidate.toPrettyString());
+          debug(state, "[AMBIGUITIES MANAGEMENT] :: excluded ambiguity (found S-rooted not left-sub candidate within the sentence):\n{}", candidate);
           iterCandidates.remove();
         }
       } else {
         if (candidate.isLeftAdj()) {
           LtagNode target = state.getCurr().firstMatch(candidate.getRoot().getCategory(), state.getWords().get(idxPrev), null);
           if (target == null || LtagNodeMarker.ADJ.equals(target.getMarker())) {
-            LOGGER.debug("[AMBIGUITIES MANAGEMENT] :: excluded ambiguity (found left adjunctable with no eligible target):\n{}", candidate.toPrettyString());
+            debug(state, "[AMBIGUITIES MANAGEMENT] :: excluded ambiguity (found left adjunctable with no eligible target):\n{}", candidate);
             iterCandidates.remove();
           }
         } else if (candidate.isRightAdj()) {
           LtagNode target = state.getCurr().firstMatch(candidate.getRoot().getCategory(), state.getWords().get(idxPrev), null);
           if (target == null || LtagNodeMarker.ADJ.equals(target.getMarker())) {
-            LOGGER.debug("[AMBIGUITIES MANAGEMENT] :: excluded ambiguity (found right adjunctable with no eligible target):\n{}", candidate.toPrettyString());
+            debug(state, "[AMBIGUITIES MANAGEMENT] :: excluded ambiguity (found right adjunctable with no eligible target):\n{}", candidate);
             iterCandidates.remove();
           }
         } else if (!candidate.isAdjunctable() &&
             (state.getCurr().firstMatch(candidate.getRoot().getCategory(), state.getWords().get(idxPrev), LtagNodeMarker.SUB) == null)) {
-          LOGGER.debug("[AMBIGUITIES MANAGEMENT] :: excluded ambiguity (found substitutable with no eligible target):\n{}", candidate.toPrettyString());
+          debug(state, "[AMBIGUITIES MANAGEMENT] :: excluded ambiguity (found substitutable with no eligible target):\n{}", candidate);
           iterCandidates.remove();
         }
       }
     }
 
     /* SEMANTICALLY SOLVABLE AMBIGUITIES (SUBSTITUTIONS) */
-    LOGGER.debug("[AMBIGUITIES MANAGEMENT] :: solving semantic ambiguities (substitutions)");
+    debug(state, "[AMBIGUITIES MANAGEMENT] :: solving semantic ambiguities (substitutions)");
+    boolean[] feasible = new boolean[candidates.size()];
+    if (candidates.size() > 1) {
+      deadline.check("ambiguities management");
+      List<Sltag> simulated = new ArrayList<>();
+      for (Sltag candidate : candidates) {
+        simulated.add((candidate.isAdjunctable()) ? null : simulateSubstitution(candidate, null, state));
+      }
+      feasible = areOntologicallyFeasible(simulated, ontology, state);
+    }
     iterCandidates = candidates.iterator();
-    while (candidates.size() > 1 && iterCandidates.hasNext()) {
+    for (int i = 0; candidates.size() > 1 && iterCandidates.hasNext(); i++) {
       Sltag candidate = iterCandidates.next();
       if (!candidate.isAdjunctable()) {
-        if (!isFeasibleSubstitution(candidate, null, state, ontology)) {
-          LOGGER.debug("[AMBIGUITIES MANAGEMENT] :: excluded ambiguity (not feasible substitution):\n{}", candidate.toPrettyString());
+        if (!feasible[i]) {
+          debug(state, "[AMBIGUITIES MANAGEMENT] :: excluded ambiguity (not feasible substitution):\n{}", candidate);
           iterCandidates.remove();
         } else {
-          LOGGER.debug("[AMBIGUITIES MANAGEMENT] :: solved ambiguity (feasible substitution):\n{}", candidate.toPrettyString());
+          debug(state, "[AMBIGUITIES MANAGEMENT] :: solved ambiguity (feasible substitution):\n{}", candidate);
           //iterCandidates.remove();
         }
       }
     }
 
     /* SEMANTICALLY SOLVABLE AMBIGUITIES (ADJUNCTIONS) */
-    LOGGER.debug("[AMBIGUITIES MANAGEMENT] :: solving semantic ambiguities (adjunctions)");
+    debug(state, "[AMBIGUITIES MANAGEMENT] :: solving semantic ambiguities (adjunctions)");
+    feasible = new boolean[candidates.size()];
+    if (candidates.size() > 1) {
+      deadline.check("ambiguities management");
+      List<Sltag> simulated = new ArrayList<>();
+      for (Sltag candidate : candidates) {
+        simulated.add((candidate.isAdjunctable() && candidate.isLeftAdj()) ?
+            simulateAdjunction(candidate, null, state) : null);
+      }
+      feasible = areOntologicallyFeasible(simulated, ontology, state);
+    }
     iterCandidates = candidates.iterator();
-    while (candidates.size() > 1 && iterCandidates.hasNext()) {
+    for (int i = 0; candidates.size() > 1 && iterCandidates.hasNext(); i++) {
       Sltag candidate = iterCandidates.next();
       if (candidate.isAdjunctable() && candidate.isLeftAdj()) {
-        if (!isFeasibleAdjunction(candidate, null, state, ontology)) {
-          LOGGER.debug("[AMBIGUITIES MANAGEMENT] :: excluded ambiguity (not feasible adjunction):\n{}", candidate.toPrettyString());
+        if (!feasible[i]) {
+          debug(state, "[AMBIGUITIES MANAGEMENT] :: excluded ambiguity (not feasible adjunction):\n{}", candidate);
           iterCandidates.remove();
         } else {
-          LOGGER.debug("[AMBIGUITIES MANAGEMENT] :: solved ambiguity (feasible adjunction):\n{}", candidate.toPrettyString());
+          debug(state, "[AMBIGUITIES MANAGEMENT] :: solved ambiguity (feasible adjunction):\n{}", candidate);
           //iterCandidates.remove();
         }
       }
     }
 
     if (candidates.size() == 1) {
-      LOGGER.debug("[AMBIGUITIES MANAGEMENT] :: solved ambiguities (found unique feasible candidate):\n{}",
-          candidates.get(0).toPrettyString());
+      debug(state, "[AMBIGUITIES MANAGEMENT] :: solved ambiguities (found unique feasible candidate):\n{}",
+          candidates.get(0));
       return;
     }
 
      /* UNSOLVABLE AMBIGUITIES */
-    LOGGER.debug("[AMBIGUITIES MANAGEMENT] :: processing unsolved ambiguities");
+    debug(state, "[AMBIGUITIES MANAGEMENT] :: processing unsolved ambiguities");
     iterCandidates = candidates.iterator();
     while (iterCandidates.hasNext()) {
       Sltag candidate = iterCandidates.next();
-      LOGGER.debug("[AMBIGUITIES MANAGEMENT] :: adding ambiguity (idxPrev: {}):\n{}", idxPrev, candidate.toPrettyString());
+      debug(state, "[AMBIGUITIES MANAGEMENT] :: adding ambiguity (idxPrev: {}):\n{}", idxPrev, candidate);
       conflicts.add(candidate, idxPrev);
       //iterCandidates.remove();
     }
@@ -274,7 +384,7 @@ public class AdvancedSltagParser implements ReasoningSltagParser {
    */
   private static void consumeWaitingSubstitutions(ParserStateNew state) throws LTAGException {
     if (state.getWaitSubstitutions().isEmpty()) {
-      LOGGER.debug("[QUEUE CONSUMPTION] :: no waiting substitutions to consume");
+      debug(state, "[QUEUE CONSUMPTION] :: no waiting substitutions to consume");
       return;
     }
 
@@ -299,12 +409,12 @@ public class AdvancedSltagParser implements ReasoningSltagParser {
             if (renamedVar != null) {
               Triple<Variable,Variable,Set<Statement>> missedRecord = new MutableTriple<>(mainVar, renamedVar, statements);
               state.getMissedMainVariables().put(pos, missedRecord);
-              LOGGER.debug("[QUEUE CONSUMPTION] :: recorded main variable: pos: {} | mainVar: {} renamed to {} | statements: {} ", pos, mainVar, renamedVar, statements);
+              debug(state, "[QUEUE CONSUMPTION] :: recorded main variable: pos: {} | mainVar: {} renamed to {} | statements: {} ", pos, mainVar, renamedVar, statements);
             }
           } else {
             curr.substitution(substitutionCandidate, substitutionTarget);
           }
-          LOGGER.debug("[QUEUE CONSUMPTION] :: substituted {} with:\n{}", substitutionTarget, substitutionCandidate.toPrettyString());
+          debug(state, "[QUEUE CONSUMPTION] :: substituted {} with:\n{}", substitutionTarget, substitutionCandidate);
           waitingSubstitutionCandidates.remove();
           substitutionTargets = curr.getNodesDFS(LtagNodeMarker.SUB).iterator();
           break;
@@ -319,7 +429,7 @@ public class AdvancedSltagParser implements ReasoningSltagParser {
    */
   private static void consumeWaitingAdjunctions(ParserStateNew state) throws LTAGException {
     if (state.getWaitAdjunction().isEmpty()) {
-      LOGGER.debug("[QUEUE CONSUMPTION] :: no waiting adjunctions to consume");
+      debug(state, "[QUEUE CONSUMPTION] :: no waiting adjunctions to consume");
       return;
     }
 
@@ -360,7 +470,7 @@ public class AdvancedSltagParser implements ReasoningSltagParser {
         } else {
           curr.adjunction(adjunctionCandidate, localTarget);
         }
-        LOGGER.debug("[QUEUE-CONSUMPTION] :: adjuncted {} on {}", adjunctionCandidate.toPrettyString(), localTarget);
+        debug(state, "[QUEUE-CONSUMPTION] :: adjuncted {} on {}", adjunctionCandidate, localTarget);
         waitingAdjunctionCandidates.remove();
       }
     }
@@ -371,14 +481,17 @@ public class AdvancedSltagParser implements ReasoningSltagParser {
    * @param state the parser state.
    * @param ontology the ontology.
    * @throws LTAGException
+   * @throws OntoqaTimeoutException when the parser deadline expires.
    */
-  private static void solveAmbiguities(ParserStateNew state, Ontology ontology) throws LTAGException {
+  private static void solveAmbiguities(ParserStateNew state, Ontology ontology)
+      throws LTAGException, OntoqaTimeoutException {
+    Deadline deadline = state.getDeadline();
     List<String> words = state.getWords();
     ConflictList conflictsList = state.getConflictList();
     Map<Integer,Triple<Variable,Variable,Set<Statement>>> missedMainVariables = state.getMissedMainVariables();
     Sltag curr = state.getCurr();
 
-    LOGGER.debug("[AMBIGUITIES RESOLUTION] :: inspecting substitutions");
+    debug(state, "[AMBIGUITIES RESOLUTION] :: inspecting substitutions");
     Iterator<Integer> conflictPositions = conflictsList.keySet().iterator();
     while (conflictPositions.hasNext()) {
       Integer conflictPosition = conflictPositions.next();
@@ -386,16 +499,17 @@ public class AdvancedSltagParser implements ReasoningSltagParser {
       Iterator<Candidate> conflictingCandidates = conflict.iterator();
 
       while (conflictingCandidates.hasNext()) {
+        deadline.check("ambiguities resolution");
         Candidate conflictingCandidate = conflictingCandidates.next();
         Sltag candidate = conflictingCandidate.getSltag();
         Integer position = conflictingCandidate.getPosition();
         if (isFeasibleSubstitution(candidate, conflictPosition, state, ontology)) {
           String startLexicalEntry = (position != null) ? words.get(position) : null;
-          LOGGER.debug("[AMBIGUITIES RESOLUTION] :: looking for target substitution target starting at {} ({}):\n{}", position, startLexicalEntry, candidate.toPrettyString());
+          debug(state, "[AMBIGUITIES RESOLUTION] :: looking for target substitution target starting at {} ({}):\n{}", position, startLexicalEntry, candidate);
           LtagNode target = curr.firstMatch(candidate.getRoot().getCategory(), startLexicalEntry, LtagNodeMarker.SUB);
           try {
             curr.substitution(candidate, target);
-            LOGGER.debug("[AMBIGUITIES RESOLUTION] :: substituted {} with:\n{}", target, candidate.toPrettyString());
+            debug(state, "[AMBIGUITIES RESOLUTION] :: substituted {} with:\n{}", target, candidate);
             conflictPositions.remove();
             conflictsList.remove(position);
             break;
@@ -406,7 +520,7 @@ public class AdvancedSltagParser implements ReasoningSltagParser {
       }
     }
 
-    LOGGER.debug("[AMBIGUITIES RESOLUTION] :: inspecting adjunctions");
+    debug(state, "[AMBIGUITIES RESOLUTION] :: inspecting adjunctions");
     conflictPositions = conflictsList.keySet().iterator();
     while (conflictPositions.hasNext()) {
       Integer conflictPosition = conflictPositions.next();
@@ -414,13 +528,14 @@ public class AdvancedSltagParser implements ReasoningSltagParser {
       Iterator<Candidate> conflictingCandidates = conflict.iterator();
 
       while (conflictingCandidates.hasNext()) {
+        deadline.check("ambiguities resolution");
         Candidate conflictingCandidate = conflictingCandidates.next();
         Sltag candidate = conflictingCandidate.getSltag();
         Integer position = conflictingCandidate.getPosition();
         if (isFeasibleAdjunction(candidate, conflictPosition, state, ontology)) {
           String startLexicalEntry = (position != null) ? words.get(position) : null;
           SyntaxCategory category = candidate.getRoot().getCategory();
-          LOGGER.debug("[AMBIGUITIES RESOLUTION] :: adjunction starting at {} ({}):\n{}", position, startLexicalEntry, candidate.toPrettyString());
+          debug(state, "[AMBIGUITIES RESOLUTION] :: adjunction starting at {} ({}):\n{}", position, startLexicalEntry, candidate);
           LtagNode localTarget = curr.firstMatch(category, startLexicalEntry, null);
           if (localTarget != null && !LtagNodeMarker.SUB.equals(localTarget.getMarker())) { /* CAN MAKE ADJUNCTION */
             if (curr.getSemantics().getMainVariable() == null &&
@@ -461,13 +576,27 @@ public class AdvancedSltagParser implements ReasoningSltagParser {
    * @param state the parser state.
    * @param ontology the ontology.
    * @return true, if {@code candidate} is feasible for substitution; false, otherwise.
+   * @throws OntoqaTimeoutException when the parser deadline expires.
+   */
+  private static boolean isFeasibleSubstitution(Sltag candidate, Integer idxPrev, ParserStateNew state, Ontology ontology)
+      throws OntoqaTimeoutException {
+    Sltag simulated = simulateSubstitution(candidate, idxPrev, state);
+    return simulated != null && isOntologicallyFeasible(simulated, ontology, state);
+  }
+
+  /**
+   * Simulates the substitution of {@code candidate} into the current SLTAG.
+   * @param candidate the candidate.
+   * @param idxPrev the position of the previous lexical entry (if null, consider the {@code state}).
+   * @param state the parser state.
+   * @return the resulting SLTAG, if the substitution is syntactically feasible; null, otherwise.
    */
-  private static boolean isFeasibleSubstitution(Sltag candidate, Integer idxPrev, ParserStateNew state, Ontology ontology) {
-    LOGGER.debug("[FEASIBILITY CHECK] :: checking feasibility for substitution:\n{}", candidate.toPrettyString());
+  private static Sltag simulateSubstitution(Sltag candidate, Integer idxPrev, ParserStateNew state) {
+    debug(state, "[FEASIBILITY CHECK] :: checking feasibility for substitution:\n{}", candidate);
 
     if (candidate.isAdjunctable()) {
-      LOGGER.debug("[FEASIBILITY CHECK] :: not feasible for substitution:\n{}", candidate.toPrettyString());
-      return false;
+      debug(state, "[FEASIBILITY CHECK] :: not feasible for substitution:\n{}", candidate);
+      return null;
     }
 
     Sltag tmp_curr = new SimpleSltag(state.getCurr());
@@ -476,23 +605,23 @@ public class AdvancedSltagParser implements ReasoningSltagParser {
     List<String> words = state.getWords();
 
     String startLexicalEntry = (position != null) ? words.get(position) : null;
-    LOGGER.debug("[FEASIBILITY CHECK] :: looking for feasible substitution target starting at {} ({}):\n{}", position, startLexicalEntry, candidate.toPrettyString());
+    debug(state, "[FEASIBILITY CHECK] :: looking for feasible substitution target starting at {} ({}):\n{}", position, startLexicalEntry, candidate);
     LtagNode target = tmp_curr.firstMatch(candidate.getRoot().getCategory(), startLexicalEntry, LtagNodeMarker.SUB);
     if (target != null) {
-      LOGGER.debug("[FEASIBILITY CHECK] :: found substitution target {} for candidate:\n{}", target, candidate.toPrettyString());
+      debug(state, "[FEASIBILITY CHECK] :: found substitution target {} for candidate:\n{}", target, candidate);
       try {
         tmp_curr.substitution(candidate, target);
-        LOGGER.debug("[FEASIBILITY CHECK] :: simulated substitution of {} with:\n{}", target, candidate.toPrettyString());
+        debug(state, "[FEASIBILITY CHECK] :: simulated substitution of {} with:\n{}", target, candidate);
       } catch (LTAGException exc) {
         LOGGER.warn(exc.getMessage());
-        return false;
+        return null;
       }
     } else {
-      LOGGER.debug("[FEASIBILITY CHECK] :: no substitution target found for candidate:\n{}", candidate.toPrettyString());
-      return false;
+      debug(state, "[FEASIBILITY CHECK] :: no substitution target found for candidate:\n{}", candidate);
+      return null;
     }
 
-    return isOntologicallyFeasible(tmp_curr, ontology);
+    return tmp_curr;
   }
 
   /**
@@ -502,13 +631,27 @@ public class AdvancedSltagParser implements ReasoningSltagParser {
    * @param state the parser state.
    * @param ontology the ontology.
    * @return true, if {@code candidate} is feasible for adjunction; false, otherwise.
+   * @throws OntoqaTimeoutException when the parser deadline expires.
+   */
+  private static boolean isFeasibleAdjunction(Sltag candidate, Integer idxPrev, ParserStateNew state, Ontology ontology)
+      throws OntoqaTimeoutException {
+    Sltag simulated = simulateAdjunction(candidate, idxPrev, state);
+    return simulated != null && isOntologicallyFeasible(simulated, ontology, state);
+  }
+
+  /**
+   * Simulates the adjunction of {@code candidate} into the current SLTAG.
+   * @param candidate the candidate.
+   * @param idxPrev the position of the previous lexical entry (if null, consider the {@code state}).
+   * @param state the parser state.
+   * @return the resulting SLTAG, if the adjunction is syntactically feasible; null, otherwise.
    */
-  private static boolean isFeasibleAdjunction(Sltag candidate, Integer idxPrev, ParserStateNew state, Ontology ontology) {
-    LOGGER.debug("[FEASIBILITY CHECK] :: checking feasibility for adjunction:\n{}", candidate.toPrettyString());
+  private static Sltag simulateAdjunction(Sltag candidate, Integer idxPrev, ParserStateNew state) {
+    debug(state, "[FEASIBILITY CHECK] :: checking feasibility for adjunction:\n{}", candidate);
 
     if (!candidate.isAdjunctable()) {
-      LOGGER.debug("[FEASIBILITY CHECK] :: not feasibility for adjunction (not adjunctable):\n{}", candidate.toPrettyString());
-      return false;
+      debug(state, "[FEASIBILITY CHECK] :: not feasibility for adjunction (not adjunctable):\n{}", candidate);
+      return null;
     }
 
     Sltag tmp_curr = new SimpleSltag(state.getCurr());
@@ -518,7 +661,7 @@ public class AdvancedSltagParser implements ReasoningSltagParser {
 
     String startLexicalEntry = (position != null) ? words.get(position) : null;
     SyntaxCategory category = candidate.getRoot().getCategory();
-    LOGGER.debug("[FEASIBILITY CHECK] :: simulating adjunction starting at {} ({}):\n{}", position, startLexicalEntry, candidate.toPrettyString());
+    debug(state, "[FEASIBILITY CHECK] :: simulating adjunction starting at {} ({}):\n{}", position, startLexicalEntry, candidate);
     LtagNode localTarget = tmp_curr.firstMatch(category, startLexicalEntry, null);
     if (localTarget != null) { /* CAN MAKE ADJUNCTION */
       if (tmp_curr.getSemantics().getMainVariable() == null &&
@@ -533,7 +676,7 @@ public class AdvancedSltagParser implements ReasoningSltagParser {
           tmp_curr.adjunction(candidate, localTarget);
         } catch (LTAGException exc) {
           LOGGER.warn(exc.getMessage());
-          return false;
+          return null;
         }
         tmp_curr.getSemantics().setMainVariable(null);
         LOGGER.warn("[FEASIBILITY CHECK] :: resetting main variable to NULL");
@@ -549,7 +692,7 @@ public class AdvancedSltagParser implements ReasoningSltagParser {
           tmp_curr.adjunction(candidate, localTarget);
         } catch (LTAGException exc) {
           LOGGER.warn(exc.getMessage());
-          return false;
+          return null;
         }
         tmp_curr.getSemantics().setMainVariable(null);
         LOGGER.warn("[FEASIBILITY CHECK] :: resetting main variable to NULL");
@@ -558,30 +701,81 @@ public class AdvancedSltagParser implements ReasoningSltagParser {
           tmp_curr.adjunction(candidate, localTarget);
         } catch (LTAGException exc) {
           LOGGER.warn(exc.getMessage());
-          return false;
+          return null;
         }
       }
     } else {
-      LOGGER.debug("[FEASIBILITY CHECK] :: not feasibility for adjunction:\n{}", candidate.toPrettyString());
-      return false;
+      debug(state, "[FEASIBILITY CHECK] :: not feasibility for adjunction:\n{}", candidate);
+      return null;
     }
 
-    return isOntologicallyFeasible(tmp_curr, ontology);
+    return tmp_curr;
   }
 
   /**
    * Checks if {@code sltag} is ontologically feasible.
    * @param sltag the candidate.
    * @param ontology the ontology.
+   * @param state the parser state.
    * @return true, if {@code sltag} is ontologically feasible; false, otherwise.
+   * @throws OntoqaTimeoutException when the parser deadline expires.
    */
-  private static boolean isOntologicallyFeasible(Sltag sltag, Ontology ontology) {
+  private static boolean isOntologicallyFeasible(Sltag sltag, Ontology ontology, ParserStateNew state)
+      throws OntoqaTimeoutException {
     Dudes dudes = sltag.getSemantics();
     Query query = dudes.convertToSPARQL();
-    LOGGER.debug("[FEASIBILITY CHECK] :: candidate query:\n{}", query.toString());
-    boolean feasible = KnowledgeManager.checkFeasibility2(ontology, QueryFactory.create(query));
-    LOGGER.debug("[FEASIBILITY CHECK] :: candidate query {}", (feasible) ? "feasible" : "unfeasible");
+    debug(state, "[FEASIBILITY CHECK] :: candidate query:\n{}", query);
+    final long start = System.currentTimeMillis();
+    boolean feasible = KnowledgeManager.checkFeasibility2(ontology, QueryFactory.create(query), state.getDeadline());
+    debug(state, "[FEASIBILITY CHECK] :: candidate query {} ({} ms)", (feasible) ? "feasible" : "unfeasible",
+        System.currentTimeMillis() - start);
+    return feasible;
+  }
+
+  /**
+   * Checks if the SLTAGs in {@code sltags} are ontologically feasible, submitting their checks as a single batch.
+   * @param sltags the candidates; null candidates are not feasible.
+   * @param ontology the ontology.
+   * @param state the parser state.
+   * @return the feasibility of each candidate, in the same order.
+   * @throws OntoqaTimeoutException when the parser deadline expires.
+   */
+  private static boolean[] areOntologicallyFeasible(List<Sltag> sltags, Ontology ontology, ParserStateNew state)
+      throws OntoqaTimeoutException {
+    final boolean[] feasible = new boolean[sltags.size()];
+    final List<Integer> checked = new ArrayList<>();
+    final List<Query> queries = new ArrayList<>();
+    for (int i = 0; i < sltags.size(); i++) {
+      Sltag sltag = sltags.get(i);
+      if (sltag != null) {
+        Query query = sltag.getSemantics().convertToSPARQL();
+        debug(state, "[FEASIBILITY CHECK] :: candidate query:\n{}", query);
+        checked.add(i);
+        queries.add(QueryFactory.create(query));
+      }
+    }
+    final long start = System.currentTimeMillis();
+    boolean[] results = KnowledgeManager.checkFeasibility2(ontology, queries, state.getDeadline());
+    for (int i = 0; i < results.length; i++) {
+      feasible[checked.get(i)] = results[i];
+    }
+    debug(state, "[FEASIBILITY CHECK] :: {} candidate queries checked in a batch ({} ms)", queries.size(),
+        System.currentTimeMillis() - start);
     return feasible;
   }
 
+  /**
+   * Logs a parser event at DEBUG level and records it into the parser trace.
+   * Arguments are rendered (e.g. pretty-printed) only if they are actually logged or printed with the trace.
+   * @param state the parser state.
+   * @param format the message pattern.
+   * @param args the message arguments.
+   */
+  private static void debug(ParserStateNew state, String format, Object... args) {
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug(format, ParseTrace.render(args));
+    }
+    state.getTrace().record(format, args);
+  }
+
 }
@@ -0,0 +1,540 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.parser;
+
+import com.acmutv.ontoqa.core.Deadline;
+import com.acmutv.ontoqa.core.exception.OntoqaTimeoutException;
+import com.acmutv.ontoqa.core.grammar.Grammar;
+import com.acmutv.ontoqa.core.knowledge.KnowledgeManager;
+import com.acmutv.ontoqa.core.knowledge.backend.RemoteOntology;
+import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
+import com.acmutv.ontoqa.core.knowledge.ontology.ShardedOntology;
+import com.acmutv.ontoqa.core.semantics.sltag.ElementarySltag;
+import com.acmutv.ontoqa.core.semantics.sltag.SimpleElementarySltag;
+import com.acmutv.ontoqa.core.semantics.sltag.serial.ElementarySltagJsonMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * The decision table of the ambiguous lexical entries of a grammar, compiled offline.
+ * For every literal entry matching more than one elementary SLTAG, and for every position of the entry in the
+ * question, it records the candidates that the parser can drop before simulating any substitution or adjunction.
+ * Some outcomes of the ambiguities management are known offline:
+ * <ul>
+ *   <li>S-rooted left-sub candidates are excluded at the start of the question;</li>
+ *   <li>S-rooted candidates that are not left-sub are excluded in the middle of the question;</li>
+ *   <li>substitutable and left adjunctable candidates whose own query is not feasible with the ontology are
+ *   excluded by the semantic checks, as combining them only adds triple patterns and binds variables.</li>
+ * </ul>
+ * The ambiguities management stops as soon as one candidate is left, so a candidate it would exclude may survive
+ * when the others are excluded first. A candidate is then recorded only if dropping it leaves the same survivors
+ * whatever the outcomes of the checks depending on the partial derivation (see {@link #decide(List, Collection, Position)}).
+ * Every candidate is recorded by the fingerprint of its elementary SLTAG: entries whose candidates changed
+ * are discarded when the table is prepared for a grammar, and the ontological exclusions are discarded when
+ * the ontology differs from the one the table was compiled against, or is updated once the table is prepared.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see AdvancedSltagParser
+ */
+@Data
+@NoArgsConstructor
+public class AmbiguityTable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AmbiguityTable.class);
+
+  /**
+   * The table version.
+   * It must be increased whenever the ambiguities management changes, so that stale tables are discarded.
+   */
+  public static final int VERSION = 2;
+
+  /**
+   * The maximum number of outcomes, unknown offline, of the checks on the candidates of an entry.
+   * Entries with more unknown outcomes are left to the parser.
+   */
+  private static final int MAX_UNKNOWNS = 12;
+
+  private static final byte KEEP = -2;
+
+  private static final byte REMOVE = -1;
+
+  /**
+   * The last ontology stamped, and its stamp.
+   */
+  private static WeakReference<Ontology> lastStamped = new WeakReference<>(null);
+
+  private static String lastStamp;
+
+  /**
+   * The table version.
+   */
+  private int version = VERSION;
+
+  /**
+   * The stamp of the ontology the table has been compiled against; once prepared, null if its ontological
+   * exclusions have been discarded.
+   */
+  private String ontology;
+
+  /**
+   * The ambiguous lexical entries, by lowercase lexical pattern.
+   */
+  private Map<String,Entry> entries = new LinkedHashMap<>();
+
+  /**
+   * Compiles the decision table of the ambiguous literal entries of {@code grammar}.
+   * Ontological exclusions are computed only for an ontology held in memory.
+   * @param grammar the grammar.
+   * @param ontology the ontology; null, to compile syntactic exclusions only.
+   * @return the decision table.
+   * @throws OntoqaTimeoutException when the feasibility checks cannot be completed.
+   */
+  public static AmbiguityTable compile(Grammar grammar, Ontology ontology) throws OntoqaTimeoutException {
+    final boolean local = ontology != null && !(ontology instanceof RemoteOntology);
+    final AmbiguityTable table = new AmbiguityTable();
+    table.setOntology(stamp(ontology));
+    final Set<String> keys = new LinkedHashSet<>();
+    for (ElementarySltag sltag : grammar.getAllElementarySLTAG()) {
+      if (isLiteral(sltag.getEntry())) {
+        keys.add(sltag.getEntry());
+      }
+    }
+    for (String key : keys) {
+      final List<ElementarySltag> candidates = grammar.getAllMatchingElementarySLTAG(key);
+      if (candidates.size() < 2) {
+        continue;
+      }
+      final Entry entry = new Entry();
+      for (ElementarySltag candidate : candidates) {
+        entry.getFingerprints().add(fingerprint(candidate));
+      }
+      if (local) {
+        entry.setInfeasible(infeasible(candidates, ontology));
+      }
+      entry.decide(candidates, entry.getInfeasible());
+      // without the ontological exclusions, the entry may still be decisive for another ontology
+      if (entry.isDecisive() || !entry.getInfeasible().isEmpty()) {
+        table.getEntries().put(key, entry);
+      }
+    }
+    LOGGER.info("Compiled decision table for {} ambiguous entries out of {}", table.getEntries().size(),
+        keys.size());
+    return table;
+  }
+
+  /**
+   * Reads the decision table in {@code path}.
+   * @param path the decision table.
+   * @return the decision table; an empty table if it has a different version.
+   * @throws IOException when the decision table cannot be read.
+   */
+  public static AmbiguityTable read(Path path) throws IOException {
+    final AmbiguityTable table;
+    try (InputStream in = Files.newInputStream(path)) {
+      table = new ObjectMapper().readValue(in, AmbiguityTable.class);
+    }
+    return (table.getVersion() == VERSION) ? table : new AmbiguityTable();
+  }
+
+  /**
+   * Writes the decision table on {@code path}.
+   * The decision table is first written on a temporary file, then moved on {@code path}.
+   * @param path the decision table.
+   * @throws IOException when the decision table cannot be written.
+   */
+  public void write(Path path) throws IOException {
+    final Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (OutputStream out = Files.newOutputStream(tmp)) {
+      new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(out, this);
+    }
+    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Returns the decision table to parse with {@code grammar} and {@code ontology}: the entries whose candidates
+   * are still the ones matched by {@code grammar}, without ontological exclusions if {@code ontology} is not
+   * the one the table has been compiled against.
+   * @param grammar the grammar.
+   * @param ontology the ontology.
+   * @return the decision table.
+   */
+  public AmbiguityTable prepare(Grammar grammar, Ontology ontology) {
+    final boolean sameOntology = Objects.equals(this.ontology, stamp(ontology));
+    final AmbiguityTable prepared = new AmbiguityTable();
+    prepared.setOntology((sameOntology) ? this.ontology : null);
+    for (Map.Entry<String,Entry> item : this.entries.entrySet()) {
+      final List<ElementarySltag> candidates = grammar.getAllMatchingElementarySLTAG(item.getKey());
+      final List<String> fingerprints = new ArrayList<>(candidates.size());
+      for (ElementarySltag candidate : candidates) {
+        fingerprints.add(fingerprint(candidate));
+      }
+      if (!fingerprints.equals(item.getValue().getFingerprints())) {
+        continue;
+      }
+      final Entry entry = new Entry();
+      entry.setFingerprints(fingerprints);
+      if (sameOntology) {
+        entry.setInfeasible(item.getValue().getInfeasible());
+      }
+      entry.decide(candidates, entry.getInfeasible());
+      if (entry.isDecisive()) {
+        prepared.getEntries().put(item.getKey(), entry);
+      }
+    }
+    LOGGER.info("Decision table prepared: {} ambiguous entries kept out of {}{}", prepared.getEntries().size(),
+        this.entries.size(), (sameOntology) ? "" : " (ontology changed: ontological exclusions discarded)");
+    return prepared;
+  }
+
+  /**
+   * Returns this prepared decision table without its ontological exclusions, to parse with {@code grammar}
+   * once the ontology is updated.
+   * Entries with ontological exclusions are decided again on the candidates matched by {@code grammar}, the others
+   * are kept: the table is not read again, its candidates are not fingerprinted and the ontology is not stamped.
+   * @param grammar the grammar this table has been prepared for.
+   * @return the decision table; this table, if it has no ontological exclusions.
+   */
+  public AmbiguityTable discardOntology(Grammar grammar) {
+    if (this.ontology == null) {
+      return this;
+    }
+    final AmbiguityTable discarded = new AmbiguityTable();
+    for (Map.Entry<String,Entry> item : this.entries.entrySet()) {
+      if (item.getValue().getInfeasible().isEmpty()) {
+        discarded.getEntries().put(item.getKey(), item.getValue());
+        continue;
+      }
+      final Entry entry = new Entry();
+      entry.setFingerprints(item.getValue().getFingerprints());
+      entry.decide(grammar.getAllMatchingElementarySLTAG(item.getKey()), entry.getInfeasible());
+      if (entry.isDecisive()) {
+        discarded.getEntries().put(item.getKey(), entry);
+      }
+    }
+    return discarded;
+  }
+
+  /**
+   * Returns the candidates for {@code lexicalPattern} that the parser can drop at {@code position}.
+   * @param lexicalPattern the lexical pattern.
+   * @param position the position of the lexical pattern in the question.
+   * @param candidates the number of candidates matched by the lexical pattern.
+   * @return the indexes of the excluded candidates; null, if the table has no decision for them.
+   */
+  public BitSet getExcluded(String lexicalPattern, Position position, int candidates) {
+    final Entry entry = this.entries.get(lexicalPattern.toLowerCase());
+    if (entry == null || entry.getFingerprints().size() != candidates) {
+      return null;
+    }
+    final BitSet excluded = new BitSet(candidates);
+    entry.getExcluded().getOrDefault(position, Collections.emptyList()).forEach(excluded::set);
+    return excluded;
+  }
+
+  /**
+   * Returns the candidates that the parser can drop at {@code position} before managing the ambiguities, leaving
+   * the same survivors as managing the ambiguities among all of them.
+   * The ambiguities management is replayed offline: the syntactic checks, then the semantic checks of
+   * substitutions, then the ones of adjunctions, each in candidate order while more than one candidate is left.
+   * The outcomes known offline are the exclusions listed in {@link AmbiguityTable}; every other outcome depends
+   * on the partial derivation, so all of their combinations are replayed.
+   * Candidates are dropped in order, as long as every combination leaves the same survivors.
+   * @param candidates the candidates, in the order they are matched.
+   * @param infeasible the candidates whose own query is not feasible with the ontology.
+   * @param position the position of the lexical pattern in the question.
+   * @return the indexes of the candidates to drop, at most all but one; empty, if there are too many unknown outcomes.
+   */
+  static List<Integer> decide(List<ElementarySltag> candidates, Collection<Integer> infeasible, Position position) {
+    final int size = candidates.size();
+    final byte[][] stages = new byte[size][3];
+    byte unknowns = 0;
+    for (int i = 0; i < size; i++) {
+      final ElementarySltag candidate = candidates.get(i);
+      if (candidate.isSentence()) {
+        stages[i][0] = ((position == Position.START) == candidate.isLeftSub()) ? REMOVE : KEEP;
+      } else if (candidate.isLeftAdj() || candidate.isRightAdj() || !candidate.isAdjunctable()) {
+        stages[i][0] = unknowns++;
+      } else {
+        stages[i][0] = KEEP;
+      }
+      if (!candidate.isAdjunctable()) {
+        stages[i][1] = (infeasible.contains(i)) ? REMOVE : unknowns++;
+      } else {
+        stages[i][1] = KEEP;
+      }
+      if (candidate.isAdjunctable() && candidate.isLeftAdj()) {
+        stages[i][2] = (infeasible.contains(i)) ? REMOVE : unknowns++;
+      } else {
+        stages[i][2] = KEEP;
+      }
+    }
+    final List<Integer> excluded = new ArrayList<>();
+    if (unknowns > MAX_UNKNOWNS) {
+      return excluded;
+    }
+    final List<Integer> all = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      all.add(i);
+    }
+    for (int i = 0; i < size && excluded.size() < size - 1; i++) {
+      if (stages[i][0] != REMOVE && stages[i][1] != REMOVE && stages[i][2] != REMOVE) {
+        continue;
+      }
+      excluded.add(i);
+      final List<Integer> kept = new ArrayList<>(all);
+      kept.removeAll(excluded);
+      for (int outcomes = 0; outcomes < (1 << unknowns); outcomes++) {
+        if (!survivors(stages, all, outcomes).equals(survivors(stages, kept, outcomes))) {
+          excluded.remove(excluded.size() - 1);
+          break;
+        }
+      }
+    }
+    return excluded;
+  }
+
+  /**
+   * Replays the ambiguities management on {@code candidates}.
+   * @param stages the outcome of each stage for each candidate: {@link #KEEP}, {@link #REMOVE}, or the index
+   * of an unknown outcome.
+   * @param candidates the indexes of the candidates.
+   * @param outcomes the unknown outcomes, as a bit mask: a bit is set if the candidate is excluded.
+   * @return the indexes of the surviving candidates.
+   */
+  private static List<Integer> survivors(byte[][] stages, List<Integer> candidates, int outcomes) {
+    final List<Integer> survivors = new ArrayList<>(candidates);
+    for (int stage = 0; stage < 3; stage++) {
+      final Iterator<Integer> iterCandidates = survivors.iterator();
+      while (survivors.size() > 1 && iterCandidates.hasNext()) {
+        final byte outcome = stages[iterCandidates.next()][stage];
+        if (outcome == REMOVE || (outcome >= 0 && (outcomes & (1 << outcome)) != 0)) {
+          iterCandidates.remove();
+        }
+      }
+    }
+    return survivors;
+  }
+
+  /**
+   * Returns the stamp of {@code ontology}: a digest of its statements that does not depend on their order.
+   * Every statement is hashed with SHA-256, and the hashes are summed: the stamp changes whenever a statement
+   * is added or removed. Blank nodes are relabeled at every load, so they are hashed without their label.
+   * The stamp is computed once for the last ontology stamped; a sharded ontology is stamped on its statements,
+   * without copying them.
+   * @param ontology the ontology.
+   * @return the stamp of {@code ontology}; null, if it is remote or missing.
+   */
+  static synchronized String stamp(Ontology ontology) {
+    if (ontology == null || ontology instanceof RemoteOntology) {
+      return null;
+    }
+    if (lastStamped.get() == ontology) {
+      return lastStamp;
+    }
+    final Model statements = (ontology instanceof ShardedOntology) ?
+        ((ShardedOntology) ontology).getOntology() : ontology;
+    final MessageDigest digest = sha256();
+    long high = 0;
+    long low = 0;
+    for (Statement statement : statements) {
+      final String string = label(statement.getSubject()) + ' ' + label(statement.getPredicate()) + ' '
+          + label(statement.getObject());
+      final ByteBuffer hash = ByteBuffer.wrap(digest.digest(string.getBytes(StandardCharsets.UTF_8)));
+      high += hash.getLong();
+      low += hash.getLong();
+    }
+    lastStamp = String.format("%d:%016x%016x", statements.size(), high, low);
+    lastStamped = new WeakReference<>(ontology);
+    return lastStamp;
+  }
+
+  /**
+   * Returns the label of {@code value} in a stamp: blank nodes have no label.
+   */
+  private static String label(Value value) {
+    return (value instanceof BNode) ? "_:" : value.toString();
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException exc) {
+      throw new IllegalStateException(exc);
+    }
+  }
+
+  /**
+   * Returns the fingerprint of {@code sltag}, computed on its JSON representation.
+   * @param sltag the elementary SLTAG.
+   * @return the fingerprint of {@code sltag}.
+   */
+  static String fingerprint(ElementarySltag sltag) {
+    try {
+      final byte[] digest = sha256()
+          .digest(new ElementarySltagJsonMapper().writeValueAsString(sltag).getBytes(StandardCharsets.UTF_8));
+      final StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (JsonProcessingException exc) {
+      throw new IllegalStateException(exc);
+    }
+  }
+
+  /**
+   * Checks if {@code key} is a literal lexical pattern, matched by itself only.
+   * @param key the grammar key.
+   * @return true, if {@code key} is literal; false, otherwise.
+   */
+  private static boolean isLiteral(String key) {
+    return key != null && !key.isEmpty() && key.equals(key.toLowerCase()) && key.matches("[^\\\\.\\[\\](){}*+?|^$]+");
+  }
+
+  /**
+   * Returns the candidates whose own query is not feasible with {@code ontology}.
+   * Only substitutable and left adjunctable candidates are checked, as the parser does; candidates whose query
+   * cannot be built are considered feasible. Queries are built on copies, as building them alters the semantics.
+   * @param candidates the candidates.
+   * @param ontology the ontology.
+   * @return the indexes of the infeasible candidates.
+   * @throws OntoqaTimeoutException when the feasibility checks cannot be completed.
+   */
+  private static List<Integer> infeasible(List<ElementarySltag> candidates, Ontology ontology)
+      throws OntoqaTimeoutException {
+    final List<Integer> checked = new ArrayList<>();
+    final List<Query> queries = new ArrayList<>();
+    for (int i = 0; i < candidates.size(); i++) {
+      final ElementarySltag candidate = candidates.get(i);
+      if (candidate.isAdjunctable() && !candidate.isLeftAdj()) {
+        continue;
+      }
+      try {
+        queries.add(QueryFactory.create(new SimpleElementarySltag(candidate).getSemantics().convertToSPARQL()));
+        checked.add(i);
+      } catch (Exception exc) {
+        LOGGER.debug("Cannot build query for candidate {} of entry '{}': {}", i, candidate.getEntry(),
+            exc.getMessage());
+      }
+    }
+    final boolean[] feasible = KnowledgeManager.checkFeasibility2(ontology, queries, Deadline.NONE);
+    final List<Integer> infeasible = new ArrayList<>();
+    for (int i = 0; i < feasible.length; i++) {
+      if (!feasible[i]) {
+        infeasible.add(checked.get(i));
+      }
+    }
+    return infeasible;
+  }
+
+  /**
+   * The position of a lexical pattern in the question.
+   */
+  public enum Position {
+    /**
+     * The lexical pattern starts the question.
+     */
+    START,
+    /**
+     * The lexical pattern follows another lexical pattern.
+     */
+    MIDDLE
+  }
+
+  /**
+   * The decisions for an ambiguous lexical entry.
+   */
+  @Data
+  public static class Entry {
+
+    /**
+     * The fingerprints of the candidates, in the order they are matched.
+     */
+    private List<String> fingerprints = new ArrayList<>();
+
+    /**
+     * The candidates the parser can drop, by position.
+     */
+    private Map<Position,List<Integer>> excluded = new EnumMap<>(Position.class);
+
+    /**
+     * The candidates whose own query is not feasible with the ontology.
+     */
+    private List<Integer> infeasible = new ArrayList<>();
+
+    /**
+     * Creates a new entry, excluding no candidate.
+     */
+    public Entry() {
+      this.excluded.put(Position.START, new ArrayList<>());
+      this.excluded.put(Position.MIDDLE, new ArrayList<>());
+    }
+
+    /**
+     * Decides the candidates the parser can drop at every position.
+     * @param candidates the candidates.
+     * @param infeasible the candidates whose own query is not feasible with the ontology.
+     */
+    void decide(List<ElementarySltag> candidates, Collection<Integer> infeasible) {
+      for (Position position : Position.values()) {
+        this.excluded.put(position, AmbiguityTable.decide(candidates, infeasible, position));
+      }
+    }
+
+    /**
+     * Checks if the entry excludes any candidate.
+     * @return true, if the entry excludes any candidate; false, otherwise.
+     */
+    boolean isDecisive() {
+      return this.excluded.values().stream().anyMatch(list -> !list.isEmpty());
+    }
+  }
+}
@@ -0,0 +1,215 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.parser;
+
+import com.acmutv.ontoqa.core.knowledge.answer.Answer;
+import com.acmutv.ontoqa.core.semantics.sltag.ElementarySltag;
+import com.acmutv.ontoqa.core.semantics.sltag.SimpleElementarySltag;
+import com.acmutv.ontoqa.core.semantics.sltag.Sltag;
+import org.slf4j.helpers.MessageFormatter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A per-request buffer of parser events (tokens, candidates, pruning reasons, feasibility verdicts).
+ * Recording only stores the message pattern, the arguments and a timestamp: arguments are rendered
+ * (e.g. by {@link Sltag#toPrettyString()}) only when the trace is printed, i.e. for slow questions.
+ * Mutable arguments, such as the SLTAG under construction, are copied when recorded, so that they are shown
+ * in the state they have when the event occurs.
+ * {@link #NONE} discards every event, without copying its arguments.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ */
+public class ParseTrace {
+
+  /**
+   * The trace that discards every event.
+   */
+  public static final ParseTrace NONE = new ParseTrace(false);
+
+  /**
+   * Whether events are recorded.
+   */
+  private final boolean enabled;
+
+  /**
+   * The trace start time (nanoseconds).
+   */
+  private final long start = System.nanoTime();
+
+  /**
+   * The recorded events.
+   */
+  private final List<Event> events;
+
+  /**
+   * Creates a new trace.
+   * @param enabled whether events are recorded.
+   */
+  private ParseTrace(boolean enabled) {
+    this.enabled = enabled;
+    this.events = (enabled) ? new ArrayList<>() : null;
+  }
+
+  /**
+   * Returns a new recording trace, started now.
+   * @return a new recording trace.
+   */
+  public static ParseTrace start() {
+    return new ParseTrace(true);
+  }
+
+  /**
+   * Checks if events are recorded.
+   * @return true, if events are recorded; false, otherwise.
+   */
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Records an event.
+   * @param format the message pattern, in SLF4J style.
+   * @param args the message arguments, rendered only when the trace is printed.
+   */
+  public void record(String format, Object... args) {
+    if (this.enabled) {
+      final long nanos = System.nanoTime() - this.start;
+      final Object[] snapshots = new Object[args.length];
+      for (int i = 0; i < args.length; i++) {
+        snapshots[i] = snapshot(args[i]);
+      }
+      synchronized (this.events) {
+        this.events.add(new Event(nanos, format, snapshots));
+      }
+    }
+  }
+
+  /**
+   * Returns the number of recorded events.
+   * @return the number of recorded events.
+   */
+  public int size() {
+    if (!this.enabled) return 0;
+    synchronized (this.events) {
+      return this.events.size();
+    }
+  }
+
+  /**
+   * Returns the time elapsed since the trace start (milliseconds).
+   * @return the time elapsed since the trace start.
+   */
+  public long elapsed() {
+    return (System.nanoTime() - this.start) / 1000000L;
+  }
+
+  /**
+   * Returns a pretty string representation, one event per line with its offset from the trace start.
+   * @return the string representation.
+   */
+  public String toPrettyString() {
+    if (!this.enabled) return "";
+    StringBuilder sb = new StringBuilder();
+    synchronized (this.events) {
+      for (Event event : this.events) {
+        sb.append(String.format("+%9.3f ms ", event.nanos / 1000000.0))
+            .append(MessageFormatter.arrayFormat(event.format, render(event.args)).getMessage())
+            .append("\n");
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns a copy of a mutable argument, in its current state.
+   * @param arg the argument.
+   * @return the copy, if the argument is an SLTAG or a collection; the argument itself, otherwise.
+   */
+  private static Object snapshot(Object arg) {
+    if (arg instanceof ElementarySltag) {
+      return new SimpleElementarySltag((ElementarySltag) arg);
+    } else if (arg instanceof Sltag) {
+      return ((Sltag) arg).copy();
+    } else if (arg instanceof Collection) {
+      return ((Collection<?>) arg).stream().map(ParseTrace::snapshot).collect(Collectors.toList());
+    }
+    return arg;
+  }
+
+  /**
+   * Renders arguments with their pretty string representation, when available.
+   * @param args the arguments to render.
+   * @return the rendered arguments.
+   */
+  public static Object[] render(Object... args) {
+    Object[] rendered = new Object[args.length];
+    for (int i = 0; i < args.length; i++) {
+      rendered[i] = render(args[i]);
+    }
+    return rendered;
+  }
+
+  /**
+   * Renders an argument with its pretty string representation, when available.
+   * @param arg the argument to render.
+   * @return the rendered argument.
+   */
+  private static Object render(Object arg) {
+    if (arg instanceof Sltag) {
+      return ((Sltag) arg).toPrettyString();
+    } else if (arg instanceof Answer) {
+      return ((Answer) arg).toPrettyString();
+    } else if (arg instanceof Collection) {
+      return ((Collection<?>) arg).stream().map(e -> String.valueOf(render(e))).collect(Collectors.joining("\n"));
+    }
+    return arg;
+  }
+
+  /**
+   * A recorded event.
+   */
+  private static class Event {
+
+    private final long nanos;
+
+    private final String format;
+
+    private final Object[] args;
+
+    private Event(long nanos, String format, Object[] args) {
+      this.nanos = nanos;
+      this.format = format;
+      this.args = args;
+    }
+  }
+}
@@ -26,6 +26,7 @@
 
 package com.acmutv.ontoqa.core.parser;
 
+import com.acmutv.ontoqa.core.Deadline;
 import com.acmutv.ontoqa.core.parser.conflict.Candidate;
 import com.acmutv.ontoqa.core.parser.conflict.ConflictList;
 import com.acmutv.ontoqa.core.semantics.base.statement.Statement;
@@ -88,6 +89,16 @@ public class ParserStateNew {
    */
   Map<Integer, Triple<Variable,Variable,Set<Statement>>> missedMainVariables = new HashMap<>();
 
+  /**
+   * The deadline for parsing.
+   */
+  private Deadline deadline = Deadline.NONE;
+
+  /**
+   * The trace of parser events.
+   */
+  private ParseTrace trace = ParseTrace.NONE;
+
   public ParserStateNew(String sentence) {
     this.words.addAll(Arrays.asList(sentence.split(" ")));
   }
@@ -26,7 +26,9 @@
 
 package com.acmutv.ontoqa.core.parser;
 
+import com.acmutv.ontoqa.core.Deadline;
 import com.acmutv.ontoqa.core.exception.OntoqaParsingException;
+import com.acmutv.ontoqa.core.exception.OntoqaTimeoutException;
 import com.acmutv.ontoqa.core.grammar.Grammar;
 import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
 import com.acmutv.ontoqa.core.semantics.sltag.Sltag;
@@ -49,4 +51,46 @@ public interface ReasoningSltagParser {
    * @throws OntoqaParsingException when parsing fails.
    */
   Sltag parse(String sentence, Grammar grammar, Ontology ontology) throws Exception;
+
+  /**
+   * Parses {@code sentence} with {@code grammar}, within {@code deadline}.
+   * @param sentence the sentence to parse.
+   * @param grammar the grammar to parse with.
+   * @param ontology the ontology.
+   * @param deadline the deadline to respect.
+   * @return the parsed SLTAG.
+   * @throws OntoqaParsingException when parsing fails.
+   * @throws OntoqaTimeoutException when the deadline expires before parsing completes.
+   */
+  Sltag parse(String sentence, Grammar grammar, Ontology ontology, Deadline deadline) throws Exception;
+
+  /**
+   * Parses {@code sentence} with {@code grammar}, within {@code deadline}, recording parser events into {@code trace}.
+   * @param sentence the sentence to parse.
+   * @param grammar the grammar to parse with.
+   * @param ontology the ontology.
+   * @param deadline the deadline to respect.
+   * @param trace the trace to record into.
+   * @return the parsed SLTAG.
+   * @throws OntoqaParsingException when parsing fails.
+   * @throws OntoqaTimeoutException when the deadline expires before parsing completes.
+   */
+  Sltag parse(String sentence, Grammar grammar, Ontology ontology, Deadline deadline, ParseTrace trace)
+      throws Exception;
+
+  /**
+   * Parses {@code sentence} with {@code grammar}, within {@code deadline}, recording parser events into {@code trace}.
+   * Ambiguities are first narrowed with the decision table {@code ambiguities}, if any.
+   * @param sentence the sentence to parse.
+   * @param grammar the grammar to parse with.
+   * @param ontology the ontology.
+   * @param deadline the deadline to respect.
+   * @param trace the trace to record into.
+   * @param ambiguities the decision table of the grammar ambiguities; null, if none.
+   * @return the parsed SLTAG.
+   * @throws OntoqaParsingException when parsing fails.
+   * @throws OntoqaTimeoutException when the deadline expires before parsing completes.
+   */
+  Sltag parse(String sentence, Grammar grammar, Ontology ontology, Deadline deadline, ParseTrace trace,
+              AmbiguityTable ambiguities) throws Exception;
 }
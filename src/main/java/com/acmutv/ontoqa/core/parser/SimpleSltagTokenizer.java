@@ -115,13 +115,6 @@ public class SimpleSltagTokenizer implements SltagTokenizer {
         LOGGER.debug("Match: {}", matchType);
 
         if (GrammarMatchType.FULL.equals(matchType)) {
-          candidates.clear();
-          List<ElementarySltag> elemCandidates = grammar.getAllMatchingElementarySLTAG(tempLexicalPattern);
-          LOGGER.debug("Candidates: {}", elemCandidates);
-          for (ElementarySltag esltag : elemCandidates) {
-            ElementarySltag copy = new SimpleElementarySltag(esltag);
-            candidates.add(copy);
-          }
           lexicalPattern = tempLexicalPattern;
           this.buffer.get(end).setTokenized(true);
           if (returnFirstFull) {
@@ -156,6 +149,15 @@ public class SimpleSltagTokenizer implements SltagTokenizer {
       end++;
     }
 
+    if (!lexicalPattern.isEmpty()) {
+      List<ElementarySltag> elemCandidates = grammar.getAllMatchingElementarySLTAG(lexicalPattern);
+      LOGGER.debug("Candidates: {}", elemCandidates);
+      for (ElementarySltag esltag : elemCandidates) {
+        ElementarySltag copy = new SimpleElementarySltag(esltag);
+        candidates.add(copy);
+      }
+    }
+
     Integer idxPrevLexicalEntry = (start > 0) ? start - 1 : null;
 
     LOGGER.debug("Tokenizer Buffer: {}", this.buffer);
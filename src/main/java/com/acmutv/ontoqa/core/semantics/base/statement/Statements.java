@@ -26,6 +26,8 @@
 
 package com.acmutv.ontoqa.core.semantics.base.statement;
 
+import java.util.regex.Pattern;
+
 /**
  * Utilities related to {@link Statement}.
  * @author Antonella Botte {@literal <abotte@acm.org>}
@@ -36,6 +38,12 @@ package com.acmutv.ontoqa.core.semantics.base.statement;
  */
 public class Statements {
 
+  private static final Pattern REPLACE = Pattern.compile(Replace.REGEXP);
+
+  private static final Pattern OPERATOR = Pattern.compile(OperatorStatement.REGEXP);
+
+  private static final Pattern PROPOSITION = Pattern.compile(Proposition.REGEXP);
+
   /**
    * Parses {@link Statement} from string.
    * @param string the string to parse.
@@ -44,11 +52,11 @@ public class Statements {
    */
   public static Statement valueOf(String string) throws IllegalArgumentException {
     if (string == null) throw new IllegalArgumentException();
-    if (string.matches(Replace.REGEXP)) {
+    if (REPLACE.matcher(string).matches()) {
       return Replace.valueOf(string);
-    } else if (string.matches(OperatorStatement.REGEXP)) {
+    } else if (OPERATOR.matcher(string).matches()) {
       return OperatorStatement.valueOf(string);
-    } else if (string.matches(Proposition.REGEXP)) {
+    } else if (PROPOSITION.matcher(string).matches()) {
       return Proposition.valueOf(string);
     } else {
       throw new IllegalArgumentException();
@@ -56,6 +64,6 @@ public class Statements {
   }
 
   public static boolean isProposition(Statement statement) {
-    return statement.toString().matches(Proposition.REGEXP);
+    return PROPOSITION.matcher(statement.toString()).matches();
   }
 }
@@ -26,6 +26,8 @@
 
 package com.acmutv.ontoqa.core.semantics.base.term;
 
+import java.util.regex.Pattern;
+
 /**
  * Utilities for {@link Term}.
  * @author Antonella Botte {@literal <abotte@acm.org>}
@@ -35,6 +37,12 @@ package com.acmutv.ontoqa.core.semantics.base.term;
  */
 public class Terms {
 
+  private static final Pattern VARIABLE = Pattern.compile(Variable.REGEXP);
+
+  private static final Pattern CONSTANT = Pattern.compile(Constant.REGEXP);
+
+  private static final Pattern FUNCTION = Pattern.compile(Function.REGEXP);
+
   /**
    * Parses {@link Term} from string.
    * @param string the string to parse.
@@ -42,11 +50,11 @@ public class Terms {
    * @throws IllegalArgumentException when {@code string} cannot be parsed.
    */
   public static Term valueOf(String string) throws IllegalArgumentException {
-    if (string.matches(Variable.REGEXP)) {
+    if (VARIABLE.matcher(string).matches()) {
       return Variable.valueOf(string);
-    } else if (string.matches(Constant.REGEXP)) {
+    } else if (CONSTANT.matcher(string).matches()) {
       return Constant.valueOf(string);
-    } else if (string.matches(Function.REGEXP)) {
+    } else if (FUNCTION.matcher(string).matches()) {
       return Function.valueOf(string);
     } else {
       throw new IllegalArgumentException();
@@ -54,6 +62,6 @@ public class Terms {
   }
 
   public static boolean isVariable(Term term) {
-    return term.toString().matches(Variable.REGEXP);
+    return VARIABLE.matcher(term.toString()).matches();
   }
 }
@@ -27,27 +27,24 @@
 package com.acmutv.ontoqa.core.semantics.dudes.serial;
 
 import com.acmutv.ontoqa.core.semantics.base.slot.Slot;
-import com.acmutv.ontoqa.core.semantics.base.statement.Statement;
-import com.acmutv.ontoqa.core.semantics.base.statement.Statements;
-import com.acmutv.ontoqa.core.semantics.base.term.Term;
-import com.acmutv.ontoqa.core.semantics.base.term.Terms;
-import com.acmutv.ontoqa.core.semantics.base.term.Variable;
-import com.acmutv.ontoqa.core.semantics.drs.Drs;
+import com.acmutv.ontoqa.core.semantics.base.statement.*;
+import com.acmutv.ontoqa.core.semantics.base.term.*;
 import com.acmutv.ontoqa.core.semantics.drs.SimpleDrs;
 import com.acmutv.ontoqa.core.semantics.dudes.SimpleDudes;
 import com.acmutv.ontoqa.core.semantics.dudes.Dudes;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 
 import java.io.IOException;
-import java.util.Iterator;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * The JSON deserializer for {@link Dudes}.
+ * Fields are read from the token stream; constant values and slot anchors are interned, as the same IRIs recur
+ * across the grammar.
  * @author Antonella Botte {@literal <abotte@acm.org>}
  * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
  * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
@@ -87,89 +84,166 @@ public class DudesDeserializer extends StdDeserializer<Dudes> {
 
   @Override
   public Dudes deserialize(JsonParser parser, DeserializationContext ctx) throws IOException {
-    JsonNode node = parser.getCodec().readTree(parser);
-
     Dudes dudes = new SimpleDudes();
 
-    if (node.hasNonNull("return")) {
-      Iterator<JsonNode> projections = node.get("return").elements();
-      try {
-        while(projections.hasNext()) {
-          Term term = Terms.valueOf(projections.next().asText());
-          dudes.getProjection().add(term);
-        }
-      } catch (IllegalArgumentException exc) {
-        throw new IOException("Cannot read [return]");
-      }
-    }
+    SimpleDrs drs = null;
 
-    if (node.hasNonNull("main")) {
-      String mainField = node.get("main").asText();
-      if (mainField == null) throw new IOException("Cannot read [main]");
-      Matcher matcher = PATTERN.matcher(mainField);
-      if (!matcher.matches()) throw new IOException("Cannot read [main]");
-      String strMainVar = matcher.group(1);
-      String strMainDrs = matcher.group(2);
-      if (strMainVar != null) {
-        Variable mainVar = Variable.valueOf(strMainVar);
-        dudes.setMainVariable(mainVar);
+    JsonToken token = parser.getCurrentToken();
+    if (token == JsonToken.START_OBJECT) {
+      token = parser.nextToken();
+    }
+    for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+      final String field = parser.getCurrentName();
+      if (parser.nextToken() == JsonToken.VALUE_NULL) {
+        continue;
       }
-      if (strMainDrs != null) {
-        int mainDrs = Integer.valueOf(strMainDrs);
-        dudes.setMainDrs(mainDrs);
+      switch (field) {
+        case "return":
+          if (!parser.isExpectedStartArrayToken()) throw new IOException("Cannot read [return].");
+          try {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+              dudes.getProjection().add(intern(Terms.valueOf(text(parser))));
+            }
+          } catch (IllegalArgumentException exc) {
+            throw new IOException("Cannot read [return]");
+          }
+          break;
+        case "main":
+          Matcher matcher = PATTERN.matcher(parser.getText());
+          if (!matcher.matches()) throw new IOException("Cannot read [main]");
+          String strMainVar = matcher.group(1);
+          String strMainDrs = matcher.group(2);
+          if (strMainVar != null) {
+            dudes.setMainVariable(variable(strMainVar));
+          }
+          if (strMainDrs != null) {
+            dudes.setMainDrs(Integer.valueOf(strMainDrs));
+          }
+          break;
+        case "label":
+          drs = relabel(drs, parser.getValueAsInt());
+          break;
+        case "variables":
+          if (!parser.isExpectedStartArrayToken()) throw new IOException("Cannot read [variables].");
+          drs = relabel(drs, null);
+          try {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+              drs.getVariables().add(variable(text(parser)));
+            }
+          } catch (IllegalArgumentException exc) {
+            throw new IOException("Cannot read [variables].");
+          }
+          break;
+        case "statements":
+          if (!parser.isExpectedStartArrayToken()) throw new IOException("Cannot read [statements].");
+          drs = relabel(drs, null);
+          try {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+              drs.getStatements().add(intern(Statements.valueOf(text(parser))));
+            }
+          } catch (IllegalArgumentException exc) {
+            throw new IOException("Cannot read [statements].");
+          }
+          break;
+        case "slots":
+          if (!parser.isExpectedStartArrayToken()) throw new IOException("Cannot read [slots].");
+          try {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+              Slot slot = Slot.valueOf(text(parser));
+              slot.setAnchor(slot.getAnchor().intern());
+              dudes.getSlots().add(slot);
+            }
+          } catch (IllegalArgumentException exc) {
+            throw new IOException("Cannot read [slots].");
+          }
+          break;
+        case "select":
+          dudes.setSelect(parser.getValueAsBoolean(false));
+          break;
+        default:
+          parser.skipChildren();
+          break;
       }
     }
 
-    int label = 0;
-    if (node.hasNonNull("label")) {
-      label = node.get("label").asInt();
-    }
+    dudes.setDrs(relabel(drs, null));
 
-    Drs drs = new SimpleDrs(label);
-
-    if (node.hasNonNull("variables")) {
-      try {
-        Iterator<JsonNode> iter = node.get("variables").elements();
-        while (iter.hasNext()) {
-          Variable v = Variable.valueOf(iter.next().asText());
-          drs.getVariables().add(v);
-        }
-      } catch (IllegalArgumentException exc) {
-        throw new IOException("Cannot read [variables].");
-      }
+    return dudes;
+  }
+
+  /**
+   * Returns the DRS, creating it when missing or relabeling it when {@code label} is given.
+   * @param drs the DRS read so far, if any.
+   * @param label the DRS label, if read.
+   * @return the DRS.
+   */
+  private static SimpleDrs relabel(SimpleDrs drs, Integer label) {
+    if (drs == null) {
+      return new SimpleDrs((label != null) ? label : 0);
+    } else if (label != null) {
+      drs.setLabel(label);
     }
+    return drs;
+  }
 
-    if (node.hasNonNull("statements")) {
-      try {
-        Iterator<JsonNode> iter = node.get("statements").elements();
-        while (iter.hasNext()) {
-          JsonNode n = iter.next();
-          Statement s = Statements.valueOf(n.asText());
-          drs.getStatements().add(s);
-        }
-      } catch (IllegalArgumentException exc) {
-        throw new IOException("Cannot read [statements].");
-      }
+  /**
+   * Returns the text of the current array element.
+   * @param parser the parser.
+   * @return the text of the current array element.
+   * @throws IOException when the current token is not a scalar.
+   */
+  private static String text(JsonParser parser) throws IOException {
+    if (!parser.getCurrentToken().isScalarValue()) {
+      throw new IllegalArgumentException();
     }
+    return parser.getText();
+  }
 
-    dudes.setDrs(drs);
-
-    if (node.hasNonNull("slots")) {
-      Iterator<JsonNode> slots = node.get("slots").elements();
-      try {
-        while(slots.hasNext()) {
-          Slot slot = Slot.valueOf(slots.next().asText());
-          dudes.getSlots().add(slot);
-        }
-      } catch (IllegalArgumentException exc) {
-        throw new IOException("Cannot read [slots].");
-      }
+  /**
+   * Parses a variable, as {@code v[0-9]+}, without going through {@link Variable#valueOf(String)}.
+   * @param string the string to parse.
+   * @return the variable.
+   * @throws IllegalArgumentException when {@code string} is not a variable.
+   */
+  private static Variable variable(String string) throws IllegalArgumentException {
+    if (string.length() < 2 || string.charAt(0) != 'v') throw new IllegalArgumentException();
+    for (int i = 1; i < string.length(); i++) {
+      final char c = string.charAt(i);
+      if (c < '0' || c > '9') throw new IllegalArgumentException();
     }
+    return new Variable(Integer.valueOf(string.substring(1)));
+  }
 
-    if (node.hasNonNull("select")) {
-      dudes.setSelect(node.get("select").asBoolean(false));
+  /**
+   * Interns the constant values inside {@code statement}.
+   * @param statement the statement.
+   * @return the statement.
+   */
+  private static Statement intern(Statement statement) {
+    if (statement instanceof Proposition) {
+      intern(((Proposition) statement).getPredicate());
+      ((Proposition) statement).getArguments().forEach(DudesDeserializer::intern);
+    } else if (statement instanceof OperatorStatement) {
+      intern(((OperatorStatement) statement).getLeft());
+      intern(((OperatorStatement) statement).getRight());
+    } else if (statement instanceof Replace) {
+      intern(((Replace) statement).getSource());
+      intern(((Replace) statement).getTarget());
     }
+    return statement;
+  }
 
-    return dudes;
+  /**
+   * Interns the constant values inside {@code term}.
+   * @param term the term.
+   * @return the term.
+   */
+  private static Term intern(Term term) {
+    if (term instanceof Constant) {
+      ((Constant) term).setValue(((Constant) term).getValue().intern());
+    } else if (term instanceof Function) {
+      intern(((Function) term).getTerm());
+    }
+    return term;
   }
 }
@@ -13,19 +13,26 @@ import com.fasterxml.jackson.databind.JsonMappingException;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.acmutv.ontoqa.core.grammar.Grammar;
 import com.acmutv.ontoqa.core.grammar.SimpleGrammar;
 import com.acmutv.ontoqa.core.grammar.serial.GrammarJsonMapper;
-import com.acmutv.ontoqa.core.lemon.Language;
 import com.acmutv.ontoqa.core.lemon.LexicalEntry;
 import com.acmutv.ontoqa.core.lemon.Reference;
 import com.acmutv.ontoqa.core.lemon.Restriction;
 
 public class SerializeSltag {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(SerializeSltag.class);
+
   private enum TYPE{properNoun, adjective, commonNoun, preposition, verb}
 
   private static List<String> auxiliaryVerb = Arrays.asList("do", "does", "did", "have", "has", "had");
@@ -358,179 +365,276 @@ public class SerializeSltag {
   }
 
   /**
-   * Generates all Elementary SLTAG we need in the form of {@link Grammar}.
-   * @param list the list of all Lexical Entries.
-   * @return the {@link Grammar} containing the {@link ElementarySltag}.
-   * @throws IllegalAccessException
-   * @throws InstantiationException
+   * Generates the Elementary SLTAGs (LTAG with the corresponding DUDES) for a single Lexical Entry.
+   * The result depends only on {@code lEntry}, so distinct entries can be compiled concurrently.
+   * @param lEntry the Lexical Entry.
+   * @return the Elementary SLTAGs for {@code lEntry}, in the order they must be added to the grammar.
    **/
-  public static Grammar getAllElementarySltag(List<LexicalEntry> list) throws IOException, InstantiationException, IllegalAccessException
+  public static List<ElementarySltag> getElementarySltag(LexicalEntry lEntry)
   {
-    LexicalEntry lEntry = new LexicalEntry(Language.EN);
-    Grammar grammar= new SimpleGrammar();
-    int i;
-    String uri = new String();
-    for(i=0; i<list.size(); i++)
-    {
-      lEntry = list.get(i);
-      switch(TYPE.valueOf(lEntry.getPOS())) {
-        case properNoun:
-        {
-          uri = lEntry.getReferences().toString();
-          uri = uri.replace("[", "");
-          uri = uri.replace("]", "");
-          grammar.addElementarySLTAG(SerializeSltag.getSltagProperNoun(lEntry.getCanonicalForm(), uri));
-          break;
+    List<ElementarySltag> sltags = new ArrayList<>();
+    String uri;
+    switch(TYPE.valueOf(lEntry.getPOS())) {
+      case properNoun:
+      {
+        uri = lEntry.getReferences().toString();
+        uri = uri.replace("[", "");
+        uri = uri.replace("]", "");
+        sltags.add(SerializeSltag.getSltagProperNoun(lEntry.getCanonicalForm(), uri));
+        break;
 
-        }
-        case adjective:
-        {
-          boolean attr= false;
-          boolean pred = false;
-          List<String> frames = LexiconUsage.getFrames(lEntry.getSenseBehaviours());
-          for(int k=0; k< frames.size(); k++){
-            if(frames.get(k).contains("AdjectiveAttributiveFrame") && !attr){
-
-              if(lEntry.isCovariantScalar()){
-                String reference = LexiconUsage.getOneReference(lEntry.getReferences());
-                uri = reference.replace("[", "");
-                uri = uri.replace("]", "");
-                grammar.addElementarySLTAG(SerializeSltag.getSltagCovariantScalarAdjSuperlative(lEntry.getCanonicalForm(), uri, "most"));
-              }else{
-
-                for( Reference ref: lEntry.getReferences()){
-                  Restriction restriction = (Restriction) ref;
-                  if( restriction.getURI() != null){
-                    grammar.addElementarySLTAG(SerializeSltag.getSltagAttributiveAdjWithRestriction(lEntry.getCanonicalForm(), restriction.getProperty(), restriction.getValue()));
-                  }else{
-                    grammar.addElementarySLTAG(SerializeSltag.getSltagAttributiveAdj(lEntry.getCanonicalForm(), ref.toString()));
-                  }
+      }
+      case adjective:
+      {
+        boolean attr= false;
+        boolean pred = false;
+        List<String> frames = LexiconUsage.getFrames(lEntry.getSenseBehaviours());
+        for(int k=0; k< frames.size(); k++){
+          if(frames.get(k).contains("AdjectiveAttributiveFrame") && !attr){
+
+            if(lEntry.isCovariantScalar()){
+              String reference = LexiconUsage.getOneReference(lEntry.getReferences());
+              uri = reference.replace("[", "");
+              uri = uri.replace("]", "");
+              sltags.add(SerializeSltag.getSltagCovariantScalarAdjSuperlative(lEntry.getCanonicalForm(), uri, "most"));
+            }else{
+
+              for( Reference ref: lEntry.getReferences()){
+                Restriction restriction = (Restriction) ref;
+                if( restriction.getURI() != null){
+                  sltags.add(SerializeSltag.getSltagAttributiveAdjWithRestriction(lEntry.getCanonicalForm(), restriction.getProperty(), restriction.getValue()));
+                }else{
+                  sltags.add(SerializeSltag.getSltagAttributiveAdj(lEntry.getCanonicalForm(), ref.toString()));
                 }
               }
-              attr= true;
-            }else if(frames.get(k).equals("AdjectivePPFrame")){
-              uri = lEntry.getReferences().toString();
-              uri = uri.replace("[", "");
-              uri = uri.replace("]", "");
-              grammar.addElementarySLTAG(SerializeSltag.getSltagAdjectivePP(lEntry.getCanonicalForm(), uri));
-              grammar.addElementarySLTAG(SerializeSltag.getSltagAdjectivePPWithMArker(lEntry.getCanonicalForm(), "in", uri));
             }
-            else if(frames.get(k).equals("AdjectivePredicativeFrame") && !pred ){
-              
-              if(!lEntry.isCovariantScalar()){
-                for( Reference ref: lEntry.getReferences()){
-                  Restriction restriction = (Restriction) ref;
-                  if( restriction.getURI() != null){
-                    grammar.addElementarySLTAG(SerializeSltag.getSltagPredicativeAdjWithRestriction(lEntry.getCanonicalForm(), restriction.getProperty(), restriction.getValue()));
-                  }else{
-                    grammar.addElementarySLTAG(SerializeSltag.getSltagPredicativeAdj(lEntry.getCanonicalForm(), ref.toString()));
-                  }
-
+            attr= true;
+          }else if(frames.get(k).equals("AdjectivePPFrame")){
+            uri = lEntry.getReferences().toString();
+            uri = uri.replace("[", "");
+            uri = uri.replace("]", "");
+            sltags.add(SerializeSltag.getSltagAdjectivePP(lEntry.getCanonicalForm(), uri));
+            sltags.add(SerializeSltag.getSltagAdjectivePPWithMArker(lEntry.getCanonicalForm(), "in", uri));
+          }
+          else if(frames.get(k).equals("AdjectivePredicativeFrame") && !pred ){
+            
+            if(!lEntry.isCovariantScalar()){
+              for( Reference ref: lEntry.getReferences()){
+                Restriction restriction = (Restriction) ref;
+                if( restriction.getURI() != null){
+                  sltags.add(SerializeSltag.getSltagPredicativeAdjWithRestriction(lEntry.getCanonicalForm(), restriction.getProperty(), restriction.getValue()));
+                }else{
+                  sltags.add(SerializeSltag.getSltagPredicativeAdj(lEntry.getCanonicalForm(), ref.toString()));
                 }
-                pred= true;
+
               }
+              pred= true;
             }
           }
-
-          break;
         }
-        case commonNoun:
-        {
-          if(lEntry.getReferences().size() > 0 ) {
-            String ref = LexiconUsage.getReferencePossessiveAdjunct(lEntry.getSenseBehaviours());
-            if(ref!= null)
-            {
-              uri = ref.replace("[", "");
-              uri = uri.replace("]", "");
-              grammar.addElementarySLTAG(SerializeSltag.getSltagClassNoun(lEntry.getCanonicalForm(), uri));
-              grammar.addElementarySLTAG(SerializeSltag.getSltagRelPrepNoun(lEntry.getCanonicalForm(), "of", "DP", uri));
-              for(int j=0; j<lEntry.getForms().size(); j++)
-              {
-                grammar.addElementarySLTAG(SerializeSltag.getSltagClassNoun(lEntry.getForms().get(j).getWrittenRep(), uri));
-                grammar.addElementarySLTAG(SerializeSltag.getSltagRelPrepNoun(lEntry.getForms().get(j).getWrittenRep(), "of", "DP", uri));
 
-              }
-            }
-            else
+        break;
+      }
+      case commonNoun:
+      {
+        if(lEntry.getReferences().size() > 0 ) {
+          String ref = LexiconUsage.getReferencePossessiveAdjunct(lEntry.getSenseBehaviours());
+          if(ref!= null)
+          {
+            uri = ref.replace("[", "");
+            uri = uri.replace("]", "");
+            sltags.add(SerializeSltag.getSltagClassNoun(lEntry.getCanonicalForm(), uri));
+            sltags.add(SerializeSltag.getSltagRelPrepNoun(lEntry.getCanonicalForm(), "of", "DP", uri));
+            for(int j=0; j<lEntry.getForms().size(); j++)
             {
-              String reference = LexiconUsage.getReference(lEntry.getSenseBehaviours());
-              uri = reference.replace("[", "");
-              uri = uri.replace("]", "");
-              grammar.addElementarySLTAG(SerializeSltag.getSltagClassNoun(lEntry.getCanonicalForm(), uri));
-              for( int j=0; j<lEntry.getForms().size(); j++)
-              {
-                grammar.addElementarySLTAG(SerializeSltag.getSltagClassNoun(lEntry.getForms().get(j).getWrittenRep(), uri));
-              }
+              sltags.add(SerializeSltag.getSltagClassNoun(lEntry.getForms().get(j).getWrittenRep(), uri));
+              sltags.add(SerializeSltag.getSltagRelPrepNoun(lEntry.getForms().get(j).getWrittenRep(), "of", "DP", uri));
 
             }
           }
+          else
+          {
+            String reference = LexiconUsage.getReference(lEntry.getSenseBehaviours());
+            uri = reference.replace("[", "");
+            uri = uri.replace("]", "");
+            sltags.add(SerializeSltag.getSltagClassNoun(lEntry.getCanonicalForm(), uri));
+            for( int j=0; j<lEntry.getForms().size(); j++)
+            {
+              sltags.add(SerializeSltag.getSltagClassNoun(lEntry.getForms().get(j).getWrittenRep(), uri));
+            }
 
-          break;
-        }
-        case preposition:
-        {
-          uri = lEntry.getReferences().toString();
-          uri = uri.replace("[", "");
-          uri = uri.replace("]", "");
-          grammar.addElementarySLTAG(SerializeSltag.getSltagPreposition(lEntry.getCanonicalForm(), uri));
-          break;
+          }
         }
-        case verb:
+
+        break;
+      }
+      case preposition:
+      {
+        uri = lEntry.getReferences().toString();
+        uri = uri.replace("[", "");
+        uri = uri.replace("]", "");
+        sltags.add(SerializeSltag.getSltagPreposition(lEntry.getCanonicalForm(), uri));
+        break;
+      }
+      case verb:
+      {
+        uri = lEntry.getReferences().toString();
+        uri = uri.replace("[", "");
+        uri = uri.replace("]", "");
+        sltags.add(SerializeSltag.getSltagTransitiveVerbActiveIndicative(lEntry.getCanonicalForm(), uri));
+        for(int j=0; j<lEntry.getForms().size(); j++)
         {
           uri = lEntry.getReferences().toString();
           uri = uri.replace("[", "");
           uri = uri.replace("]", "");
-          grammar.addElementarySLTAG(SerializeSltag.getSltagTransitiveVerbActiveIndicative(lEntry.getCanonicalForm(), uri));
-          for(int j=0; j<lEntry.getForms().size(); j++)
-          {
-            uri = lEntry.getReferences().toString();
-            uri = uri.replace("[", "");
-            uri = uri.replace("]", "");
-            grammar.addElementarySLTAG(SerializeSltag.getSltagTransitiveVerbActiveIndicative(lEntry.getForms().get(j).getWrittenRep(), uri));
+          sltags.add(SerializeSltag.getSltagTransitiveVerbActiveIndicative(lEntry.getForms().get(j).getWrittenRep(), uri));
 
-          }
-          break;
         }
+        break;
       }
     }
+    return sltags;
+  }
+
+  /**
+   * Generates all Elementary SLTAG we need in the form of {@link Grammar}.
+   * @param list the list of all Lexical Entries.
+   * @return the {@link Grammar} containing the {@link ElementarySltag}.
+   * @throws IllegalAccessException
+   * @throws InstantiationException
+   **/
+  public static Grammar getAllElementarySltag(List<LexicalEntry> list) throws IOException, InstantiationException, IllegalAccessException
+  {
+    long start = System.nanoTime();
+    Grammar grammar= new SimpleGrammar();
+    for (LexicalEntry lEntry : list) {
+      getElementarySltag(lEntry).forEach(grammar::addElementarySLTAG);
+    }
+    addClosedClassSltag(grammar);
+    report(list.size(), start, 1);
+    return grammar;
+  }
+
+  /**
+   * Generates all Elementary SLTAG we need in the form of {@link Grammar}, compiling Lexical Entries
+   * in parallel on a fork-join pool.
+   * Elementary SLTAGs are added to the grammar in the same order as {@link #getAllElementarySltag(List)},
+   * so the two grammars are identical.
+   * @param list the list of all Lexical Entries.
+   * @param parallelism the number of worker threads.
+   * @return the {@link Grammar} containing the {@link ElementarySltag}.
+   **/
+  public static Grammar getAllElementarySltag(List<LexicalEntry> list, int parallelism)
+  {
+    long start = System.nanoTime();
+    Grammar grammar= new SimpleGrammar();
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.invoke(new CompileTask(list, 0, list.size())).forEach(grammar::addElementarySLTAG);
+    } finally {
+      pool.shutdown();
+    }
+    addClosedClassSltag(grammar);
+    report(list.size(), start, parallelism);
+    return grammar;
+  }
+
+  /**
+   * Logs the compilation throughput.
+   * @param entries the number of compiled Lexical Entries.
+   * @param start the compilation start time, in nanoseconds.
+   * @param parallelism the number of worker threads.
+   */
+  private static void report(int entries, long start, int parallelism)
+  {
+    double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+    LOGGER.info("Compiled {} lexical entries in {} ms with {} thread(s) ({} entries/sec)",
+        entries, String.format("%.1f", seconds * 1000), parallelism, String.format("%.0f", entries / seconds));
+  }
+
+  /**
+   * Adds the Elementary SLTAGs of closed-class words (how many, copulas, auxiliary verbs, articles, wh-pronouns).
+   * @param grammar the grammar to extend.
+   **/
+  private static void addClosedClassSltag(Grammar grammar)
+  {
+    getClosedClassSltag().forEach(grammar::addElementarySLTAG);
+  }
+
+  /**
+   * Generates the Elementary SLTAGs of closed-class words (how many, copulas, auxiliary verbs, articles,
+   * wh-pronouns), which do not depend on the lexicon.
+   * @return the Elementary SLTAGs of closed-class words, in the order they must be added to the grammar.
+   **/
+  public static List<ElementarySltag> getClosedClassSltag()
+  {
+    List<ElementarySltag> sltags = new ArrayList<>();
+    int i;
 
 	    /* how many */
-    ElementarySltag sltag = SerializeSltag.getSltagHowMany("how", "many");
-    grammar.addElementarySLTAG(sltag);
+    sltags.add(SerializeSltag.getSltagHowMany("how", "many"));
 
 	    /* name of */
-    grammar.addElementarySLTAG(SerializeSltag.getSltagNameOf());
+    sltags.add(SerializeSltag.getSltagNameOf());
 
 
 	    /* is, are, was, were */
     for(i=0; i<SerializeSltag.copula.size(); i++){
-      grammar.addElementarySLTAG(SerializeSltag.getSltagCopula(copula.get(i)));
-      grammar.addElementarySLTAG(SerializeSltag.getSltagCopulaInterrogative(copula.get(i)));
+      sltags.add(SerializeSltag.getSltagCopula(copula.get(i)));
+      sltags.add(SerializeSltag.getSltagCopulaInterrogative(copula.get(i)));
     }
 
 	    /* do, does, did, have, has, had */
     for(i=0; i<SerializeSltag.auxiliaryVerb.size(); i++){
-      grammar.addElementarySLTAG(SerializeSltag.getSltagAuxiliaryVerb(auxiliaryVerb.get(i)));
+      sltags.add(SerializeSltag.getSltagAuxiliaryVerb(auxiliaryVerb.get(i)));
     }
 
 	    /* the, a, an */
     for(i=0; i<SerializeSltag.articles.size(); i++){
-      grammar.addElementarySLTAG(SerializeSltag.getSltagDet(articles.get(i)));
+      sltags.add(SerializeSltag.getSltagDet(articles.get(i)));
     }
 
 	    /* who, what, where */
     for(i=0; i<SerializeSltag.whPronoun.size(); i++){
-      grammar.addElementarySLTAG(SerializeSltag.getSltagWh(whPronoun.get(i)));
+      sltags.add(SerializeSltag.getSltagWh(whPronoun.get(i)));
     }
+    return sltags;
+  }
 
-//	    List<ElementarySltag> eSl = grammar.getAllElementarySLTAG();
-//	    for(ElementarySltag k : eSl){
-//	    	System.out.println(k.getEntry());
-//	    	System.out.println(k.getEdges());
-//
-//	    }
+  /**
+   * Compiles a range of Lexical Entries, splitting it in halves until it is small enough.
+   */
+  private static class CompileTask extends RecursiveTask<List<ElementarySltag>> {
 
-    return grammar;
+    private static final int THRESHOLD = 32;
+
+    private final List<LexicalEntry> list;
+    private final int from;
+    private final int to;
+
+    CompileTask(List<LexicalEntry> list, int from, int to) {
+      this.list = list;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected List<ElementarySltag> compute() {
+      if (this.to - this.from <= THRESHOLD) {
+        List<ElementarySltag> sltags = new ArrayList<>();
+        for (int i = this.from; i < this.to; i++) {
+          sltags.addAll(getElementarySltag(this.list.get(i)));
+        }
+        return sltags;
+      }
+      int middle = (this.from + this.to) >>> 1;
+      CompileTask left = new CompileTask(this.list, this.from, middle);
+      left.fork();
+      List<ElementarySltag> right = new CompileTask(this.list, middle, this.to).compute();
+      List<ElementarySltag> sltags = left.join();
+      sltags.addAll(right);
+      return sltags;
+    }
   }
 
 }
@@ -31,14 +31,15 @@ import com.acmutv.ontoqa.core.semantics.sltag.SimpleSltag;
 import com.acmutv.ontoqa.core.semantics.sltag.Sltag;
 import com.acmutv.ontoqa.core.syntax.ltag.Ltag;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 
 import java.io.IOException;
 
 /**
  * The JSON deserializer for {@link Sltag}.
+ * Fields are read from the token stream, so that syntax and semantics are deserialized without building a JSON tree.
  * @author Antonella Botte {@literal <abotte@acm.org>}
  * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
  * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
@@ -74,16 +75,28 @@ public class SltagDeserializer extends StdDeserializer<Sltag> {
 
   @Override
   public Sltag deserialize(JsonParser parser, DeserializationContext ctx) throws IOException {
-    JsonNode node = parser.getCodec().readTree(parser);
+    Ltag ltag = null;
+    Dudes dudes = null;
 
-    if (!node.hasNonNull("syntax") ||
-        !node.hasNonNull("semantics")) {
-      throw new IOException("Cannot read [syntax,semantics].");
+    JsonToken token = parser.getCurrentToken();
+    if (token == JsonToken.START_OBJECT) {
+      token = parser.nextToken();
+    }
+    for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+      final String field = parser.getCurrentName();
+      if (parser.nextToken() == JsonToken.VALUE_NULL) {
+        continue;
+      }
+      switch (field) {
+        case "syntax": ltag = ctx.readValue(parser, Ltag.class); break;
+        case "semantics": dudes = ctx.readValue(parser, Dudes.class); break;
+        default: parser.skipChildren(); break;
+      }
     }
 
-    final Ltag ltag = ctx.readValue(node.get("syntax").traverse(parser.getCodec()), Ltag.class);
-
-    final Dudes dudes = ctx.readValue(node.get("semantics").traverse(parser.getCodec()), Dudes.class);
+    if (ltag == null || dudes == null) {
+      throw new IOException("Cannot read [syntax,semantics].");
+    }
 
     return new SimpleSltag(ltag, dudes);
   }
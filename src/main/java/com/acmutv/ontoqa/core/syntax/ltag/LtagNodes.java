@@ -26,6 +26,8 @@
 
 package com.acmutv.ontoqa.core.syntax.ltag;
 
+import java.util.regex.Pattern;
+
 /**
  * Utilities for {@link LtagNode}.
  * @author Antonella Botte {@literal <abotte@acm.org>}
@@ -35,6 +37,10 @@ package com.acmutv.ontoqa.core.syntax.ltag;
  */
 public class LtagNodes {
 
+  private static final Pattern NON_TERMINAL = Pattern.compile(NonTerminalNode.REGEXP);
+
+  private static final Pattern TERMINAL = Pattern.compile(TerminalNode.REGEXP);
+
   /**
    * Parses {@link LtagNode} from string.
    * @param string the string to parse.
@@ -42,9 +48,9 @@ public class LtagNodes {
    * @throws IllegalArgumentException when {@code string} cannot be parsed.
    */
   public static LtagNode valueOf(String string) throws IllegalArgumentException {
-    if (string.matches(NonTerminalNode.REGEXP)) {
+    if (NON_TERMINAL.matcher(string).matches()) {
       return NonTerminalNode.valueOf(string);
-    } else if (string.matches(TerminalNode.REGEXP)) {
+    } else if (TERMINAL.matcher(string).matches()) {
       return TerminalNode.valueOf(string);
     } else {
       throw new IllegalArgumentException("The node cannot be parsed.");
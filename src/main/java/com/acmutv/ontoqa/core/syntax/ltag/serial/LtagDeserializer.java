@@ -26,17 +26,19 @@
 
 package com.acmutv.ontoqa.core.syntax.ltag.serial;
 
+import com.acmutv.ontoqa.core.syntax.SyntaxCategory;
 import com.acmutv.ontoqa.core.syntax.ltag.*;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 
 import java.io.IOException;
-import java.util.Iterator;
 
 /**
  * The JSON deserializer for {@link Ltag}.
+ * Productions are read from the token stream and scanned directly into nodes, accepting the same syntax as
+ * {@link LtagEdge#valueOf(String)}; node labels are interned, as they recur across the grammar.
  * @author Antonella Botte {@literal <abotte@acm.org>}
  * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
  * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
@@ -72,56 +74,111 @@ public class LtagDeserializer extends StdDeserializer<Ltag> {
 
   @Override
   public Ltag deserialize(JsonParser parser, DeserializationContext ctx) throws IOException {
-    JsonNode node = parser.getCodec().readTree(parser);
-
-    Iterator<JsonNode> iter = node.elements();
-    if (!iter.hasNext()) {
-      throw new IOException("Cannot read first production, hence cannot infer root. ");
+    if (!parser.isExpectedStartArrayToken()) {
+      throw new IOException("Cannot read productions: expected array.");
     }
 
-    LtagNode root = LtagEdge.valueOf(iter.next().asText()).getLhs();
-
-    Ltag ltag = new SimpleLtag(root);
-
-    iter = node.elements();
+    Ltag ltag = null;
     String element = null;
     try {
-      while (iter.hasNext()) {
-        element = iter.next().asText();
-        LtagEdge edge = LtagEdge.valueOf(element);
-        ltag.addEdge(edge.getLhs(), edge.getRhs());
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        element = parser.getValueAsString();
+        if (element == null) throw new IllegalArgumentException();
+        final int arrow = arrow(element);
+        final LtagNode lhs = node(element, 0, arrow);
+        final LtagNode rhs = node(element, arrow + 2, element.length());
+        if (ltag == null) {
+          ltag = new SimpleLtag(lhs);
+        }
+        ltag.addEdge(lhs, rhs);
       }
     } catch (IllegalArgumentException exc) {
       throw new IOException("Cannot read productions. Wrong syntax: " + element);
     }
 
-    /*
-    if (!node.hasNonNull("root") ||
-        !node.hasNonNull("edges")) {
-      throw new IOException("Cannot read [root,edges].");
+    if (ltag == null) {
+      throw new IOException("Cannot read first production, hence cannot infer root. ");
     }
 
-    if (!node.hasNonNull("edges")) {
-      throw new IOException("Cannot read [root,edges].");
-    }
+    return ltag;
+  }
 
-    final LtagNode root = LtagNodes.valueOf(node.get("root").asText());
+  /**
+   * Returns the position of the arrow splitting {@code production} (the last one followed by a node).
+   * @param production the production.
+   * @return the position of the arrow.
+   * @throws IllegalArgumentException when {@code production} has no arrow.
+   */
+  private static int arrow(String production) throws IllegalArgumentException {
+    final int arrow = production.lastIndexOf("->", production.length() - 3);
+    if (arrow < 1) throw new IllegalArgumentException();
+    return arrow;
+  }
 
-    Ltag ltag = new SimpleLtag(root);
+  /**
+   * Parses the node in {@code string} between {@code from} (inclusive) and {@code to} (exclusive).
+   * @param string the production.
+   * @param from the node start.
+   * @param to the node end.
+   * @return the node.
+   * @throws IllegalArgumentException when the node cannot be parsed.
+   */
+  private static LtagNode node(String string, int from, int to) throws IllegalArgumentException {
+    for (int i = from; i < to; i++) {
+      if (isLineTerminator(string.charAt(i))) throw new IllegalArgumentException();
+    }
+    return (string.charAt(from) == '\'') ? terminal(string, from, to) : nonTerminal(string, from, to);
+  }
 
-    Iterator<JsonNode> iter = node.get("edges").elements();
-    String element = null;
-    try {
-      while (iter.hasNext()) {
-        element = iter.next().asText();
-        LtagEdge edge = LtagEdge.valueOf(element);
-        ltag.addEdge(edge.getLhs(), edge.getRhs());
+  /**
+   * Parses a terminal node, as {@code 'label'id}.
+   */
+  private static TerminalNode terminal(String string, int from, int to) throws IllegalArgumentException {
+    int digits = to;
+    while (digits > from && isAsciiDigit(string.charAt(digits - 1))) {
+      digits--;
+    }
+    if (digits - from < 3 || string.charAt(digits - 1) != '\'') throw new IllegalArgumentException();
+    final int id = (digits < to) ? Integer.valueOf(string.substring(digits, to)) : 1;
+    return new TerminalNode(id, string.substring(from + 1, digits - 1).intern());
+  }
+
+  /**
+   * Parses a non-terminal node, as {@code CATEGORYid^(label)}.
+   */
+  private static NonTerminalNode nonTerminal(String string, int from, int to) throws IllegalArgumentException {
+    int i = from;
+    while (i < to && isAsciiLetter(string.charAt(i))) i++;
+    final SyntaxCategory category = SyntaxCategory.valueOf(string.substring(from, i));
+    final int idStart = i;
+    while (i < to && isAsciiDigit(string.charAt(i))) i++;
+    final int id = (i > idStart) ? Integer.valueOf(string.substring(idStart, i)) : 1;
+    LtagNodeMarker marker = null;
+    if (i < to && (string.charAt(i) == '^' || string.charAt(i) == '*')) {
+      marker = LtagNodeMarker.fromSymbol(String.valueOf(string.charAt(i)));
+      i++;
+    }
+    String label = null;
+    if (i < to) {
+      if (string.charAt(i) != '(' || string.charAt(to - 1) != ')' || to - i < 3) throw new IllegalArgumentException();
+      for (int j = i + 1; j < to - 1; j++) {
+        final char c = string.charAt(j);
+        if (!isAsciiLetter(c) && !isAsciiDigit(c) && c != '_') throw new IllegalArgumentException();
       }
-    } catch (IllegalArgumentException exc) {
-      throw new IOException("Cannot read [edges]. Wrong syntax: " + element);
+      label = string.substring(i + 1, to - 1).intern();
     }
-    */
+    return new NonTerminalNode(id, category, marker, label);
+  }
 
-    return ltag;
+  private static boolean isAsciiLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static boolean isAsciiDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isLineTerminator(char c) {
+    return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
   }
 }
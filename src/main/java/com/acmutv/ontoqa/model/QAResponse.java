@@ -28,14 +28,11 @@ package com.acmutv.ontoqa.model;
 
 import com.acmutv.ontoqa.core.knowledge.answer.Answer;
 import com.acmutv.ontoqa.core.semantics.sltag.Sltag;
-import com.fasterxml.jackson.databind.JsonNode;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.apache.jena.query.Query;
 
-import java.util.List;
-
 /**
  * A Question&Answer response bean.
  * @author Antonella Botte {@literal <abotte@acm.org>}
@@ -61,7 +58,7 @@ public class QAResponse {
   /**
    * The generated SPARQL query.
    */
-  private String query;
+  private Query query;
 
   /**
    * The parsed SLTAG.
@@ -73,5 +70,28 @@ public class QAResponse {
    */
   private Long responseTime;
 
+  /**
+   * The verbosity level to serialize with.
+   */
+  private ResponseVerbosity verbosity = ResponseVerbosity.DEBUG;
+
+  /**
+   * The cursor of the next answer page; null, if this is the last page.
+   */
+  private String next;
+
+  /**
+   * Constructs a response with a complete answer.
+   * @param question the question.
+   * @param answer the answer.
+   * @param query the generated SPARQL query.
+   * @param sltag the parsed SLTAG.
+   * @param responseTime the response time.
+   * @param verbosity the verbosity level to serialize with.
+   */
+  public QAResponse(String question, Answer answer, Query query, Sltag sltag, Long responseTime,
+                    ResponseVerbosity verbosity) {
+    this(question, answer, query, sltag, responseTime, verbosity, null);
+  }
 
 }
@@ -0,0 +1,62 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.model;
+
+/**
+ * The verbosity levels of a question-answering response.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see QAResponse
+ */
+public enum ResponseVerbosity {
+
+  /**
+   * Only the question, the answer and the response time.
+   */
+  ANSWER,
+
+  /**
+   * As {@link #ANSWER}, plus the generated SPARQL query.
+   */
+  QUERY,
+
+  /**
+   * As {@link #QUERY}, plus the parsed SLTAG.
+   */
+  DEBUG;
+
+  /**
+   * Checks if this verbosity level includes {@code other}.
+   * @param other the verbosity level to check.
+   * @return true, if this verbosity level includes {@code other}; false, otherwise.
+   */
+  public boolean includes(ResponseVerbosity other) {
+    return this.compareTo(other) >= 0;
+  }
+}
@@ -0,0 +1,126 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.model.serial;
+
+import com.acmutv.ontoqa.core.knowledge.answer.Answer;
+import com.acmutv.ontoqa.core.knowledge.answer.StreamingAnswer;
+import com.acmutv.ontoqa.core.semantics.sltag.Sltag;
+import com.acmutv.ontoqa.model.QAResponse;
+import com.acmutv.ontoqa.model.ResponseVerbosity;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.apache.jena.query.Query;
+
+import java.io.IOException;
+
+/**
+ * The JSON serializer for {@link QAResponse}.
+ * Only the fields included in the response verbosity level are rendered.
+ * A streamed answer that fails after the response has been committed is ended, and followed by the failure
+ * in the {@code error} field.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see QAResponse
+ * @see ResponseVerbosity
+ */
+public class QAResponseSerializer extends StdSerializer<QAResponse> {
+
+  /**
+   * The singleton of {@link QAResponseSerializer}.
+   */
+  private static QAResponseSerializer instance;
+
+  /**
+   * Returns the singleton of {@link QAResponseSerializer}.
+   * @return the singleton.
+   */
+  public static QAResponseSerializer getInstance() {
+    if (instance == null) {
+      instance = new QAResponseSerializer();
+    }
+    return instance;
+  }
+
+  /**
+   * Initializes the singleton of {@link QAResponseSerializer}.
+   */
+  private QAResponseSerializer() {
+    super((Class<QAResponse>) null);
+  }
+
+  @Override
+  public void serialize(QAResponse value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+    final ResponseVerbosity verbosity = (value.getVerbosity() != null) ?
+        value.getVerbosity() : ResponseVerbosity.DEBUG;
+
+    gen.writeStartObject();
+
+    gen.writeStringField("question", value.getQuestion());
+
+    final Answer answer = value.getAnswer();
+    gen.writeFieldName("answer");
+    if (answer != null) {
+      provider.findValueSerializer(Answer.class).serialize(answer, gen, provider);
+    } else {
+      gen.writeNull();
+    }
+    if (answer instanceof StreamingAnswer && ((StreamingAnswer) answer).getFailure() != null) {
+      gen.writeStringField("error", ((StreamingAnswer) answer).getFailure().getMessage());
+    }
+
+    if (verbosity.includes(ResponseVerbosity.QUERY)) {
+      final Query query = value.getQuery();
+      gen.writeStringField("query", (query != null) ? query.serialize() : null);
+    }
+
+    if (verbosity.includes(ResponseVerbosity.DEBUG)) {
+      final Sltag sltag = value.getSltag();
+      gen.writeFieldName("sltag");
+      if (sltag != null) {
+        provider.findValueSerializer(Sltag.class).serialize(sltag, gen, provider);
+      } else {
+        gen.writeNull();
+      }
+    }
+
+    if (value.getNext() != null) {
+      gen.writeStringField("next", value.getNext());
+    }
+
+    final Long responseTime = value.getResponseTime();
+    if (responseTime != null) {
+      gen.writeNumberField("responseTime", responseTime);
+    } else {
+      gen.writeNullField("responseTime");
+    }
+
+    gen.writeEndObject();
+  }
+}
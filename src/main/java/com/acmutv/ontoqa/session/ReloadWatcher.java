@@ -0,0 +1,251 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.session;
+
+import com.acmutv.ontoqa.core.grammar.GrammarFormat;
+import com.acmutv.ontoqa.core.knowledge.ontology.OntologyFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloads the default session when the files of its ontology or grammar change.
+ * The directories holding them are watched; changes are coalesced until the files stay unchanged
+ * for the configured delay, so that a file being copied, or a batch of files, is reloaded once.
+ * Reloads run in the watcher thread, while questions keep being answered on the current version.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see SessionManager#reload(String, OntologyFormat, String, GrammarFormat)
+ */
+public class ReloadWatcher implements Closeable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReloadWatcher.class);
+
+  /**
+   * A watched path: a directory, with all its entries, or a single file in it.
+   */
+  private static class Target {
+
+    /**
+     * The watched file name; null, for the whole directory.
+     */
+    private final Path file;
+
+    /**
+     * True, for the ontology; false, for the grammar.
+     */
+    private final boolean ontology;
+
+    private Target(Path file, boolean ontology) {
+      this.file = file;
+      this.ontology = ontology;
+    }
+
+    private boolean matches(Path changed) {
+      return this.file == null || this.file.equals(changed);
+    }
+  }
+
+  private final String ontologyPath;
+
+  private final OntologyFormat ontologyFormat;
+
+  private final String grammarPath;
+
+  private final GrammarFormat grammarFormat;
+
+  private final long delay;
+
+  private final WatchService service;
+
+  private final Map<WatchKey,List<Target>> targets = new HashMap<>();
+
+  private final Thread thread;
+
+  private volatile boolean closed = false;
+
+  private volatile long reloads = 0;
+
+  /**
+   * Creates a watcher of the ontology in {@code ontologyPath} and of the grammar in {@code grammarPath}.
+   * @param ontologyPath the ontology path: a file, a directory or a glob; null, not to watch the ontology.
+   * @param ontologyFormat the ontology format.
+   * @param grammarPath the grammar path: a file or a directory; null, not to watch the grammar.
+   * @param grammarFormat the grammar format.
+   * @param delay the time (milliseconds) the changed files must stay unchanged before being reloaded.
+   * @throws IOException when the paths cannot be watched.
+   */
+  public ReloadWatcher(String ontologyPath, OntologyFormat ontologyFormat,
+                       String grammarPath, GrammarFormat grammarFormat, long delay) throws IOException {
+    this.ontologyPath = ontologyPath;
+    this.ontologyFormat = ontologyFormat;
+    this.grammarPath = grammarPath;
+    this.grammarFormat = grammarFormat;
+    this.delay = Math.max(0, delay);
+    this.service = FileSystems.getDefault().newWatchService();
+    try {
+      if (ontologyPath != null) {
+        this.register(ontologyPath, true);
+      }
+      if (grammarPath != null) {
+        this.register(grammarPath, false);
+      }
+    } catch (IOException exc) {
+      this.service.close();
+      throw exc;
+    }
+    this.thread = new Thread(this::run, "reload-watcher");
+    this.thread.setDaemon(true);
+  }
+
+  /**
+   * Starts watching.
+   */
+  public void start() {
+    this.thread.start();
+  }
+
+  /**
+   * Returns the number of reloads triggered so far.
+   * @return the number of reloads.
+   */
+  public long getReloads() {
+    return this.reloads;
+  }
+
+  /**
+   * Stops watching; a reload in progress is completed.
+   */
+  @Override
+  public void close() {
+    this.closed = true;
+    try {
+      this.service.close();
+    } catch (IOException exc) {
+      LOGGER.warn("Cannot close reload watcher: {}", exc.getMessage());
+    }
+  }
+
+  /**
+   * Watches the directory of {@code path}: the path itself, the parent of a file, or the directory a glob starts from.
+   * @param path the path.
+   * @param ontology true, for the ontology; false, for the grammar.
+   * @throws IOException when the directory cannot be watched.
+   */
+  private void register(String path, boolean ontology) throws IOException {
+    final int glob = indexOfGlob(path);
+    final Path directory;
+    Path file = null;
+    if (glob >= 0) {
+      final int separator = path.lastIndexOf('/', glob);
+      directory = Paths.get((separator < 0) ? "." : (separator == 0) ? "/" : path.substring(0, separator));
+    } else if (Files.isDirectory(Paths.get(path))) {
+      directory = Paths.get(path);
+    } else {
+      final Path resolved = Paths.get(path).toAbsolutePath();
+      directory = resolved.getParent();
+      file = resolved.getFileName();
+    }
+    final WatchKey key = directory.register(this.service, StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    this.targets.computeIfAbsent(key, k -> new ArrayList<>()).add(new Target(file, ontology));
+    LOGGER.info("Watching {} for {} changes", directory, (ontology) ? "ontology" : "grammar");
+  }
+
+  /**
+   * Coalesces the changes and reloads, until closed.
+   */
+  private void run() {
+    boolean ontology = false;
+    boolean grammar = false;
+    long last = 0;
+    while (!this.closed) {
+      final WatchKey key;
+      try {
+        key = (ontology || grammar) ? this.service.poll(this.delay, TimeUnit.MILLISECONDS) : this.service.take();
+      } catch (InterruptedException | ClosedWatchServiceException exc) {
+        break;
+      }
+      if (key != null) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+          if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            ontology |= this.ontologyPath != null;
+            grammar |= this.grammarPath != null;
+          } else {
+            final Path changed = (Path) event.context();
+            for (Target target : this.targets.getOrDefault(key, Collections.emptyList())) {
+              if (target.matches(changed)) {
+                ontology |= target.ontology;
+                grammar |= !target.ontology;
+              }
+            }
+          }
+        }
+        key.reset();
+        if (ontology || grammar) {
+          last = System.currentTimeMillis();
+        }
+      }
+      if ((ontology || grammar) && System.currentTimeMillis() - last >= this.delay && !this.closed) {
+        try {
+          SessionManager.reload((ontology) ? this.ontologyPath : null, this.ontologyFormat,
+              (grammar) ? this.grammarPath : null, this.grammarFormat);
+        } catch (IOException | RuntimeException exc) {
+          LOGGER.error("Cannot reload: {}; keeping the current version", exc.getMessage());
+        }
+        this.reloads++;
+        ontology = false;
+        grammar = false;
+      }
+    }
+  }
+
+  /**
+   * Returns the index of the first glob character in {@code path}.
+   * @param path the path.
+   * @return the index; -1, if {@code path} is not a glob.
+   */
+  private static int indexOfGlob(String path) {
+    for (int i = 0; i < path.length(); i++) {
+      final char c = path.charAt(i);
+      if (c == '*' || c == '?' || c == '[' || c == '{') {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
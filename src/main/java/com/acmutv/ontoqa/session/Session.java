@@ -26,8 +26,10 @@
 
 package com.acmutv.ontoqa.session;
 
+import com.acmutv.ontoqa.core.grammar.EntityGazetteer;
 import com.acmutv.ontoqa.core.grammar.Grammar;
 import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
+import com.acmutv.ontoqa.core.parser.AmbiguityTable;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -42,6 +44,11 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class Session {
 
+  /**
+   * The tenant name; null, for the default session.
+   */
+  private String name;
+
   /**
    * The ontology to submit questions to.
    */
@@ -52,4 +59,19 @@ public class Session {
    */
   private Grammar grammar;
 
+  /**
+   * The gazetteer of the ontology entities, extending the grammar; null, if disabled.
+   */
+  private EntityGazetteer gazetteer;
+
+  /**
+   * The decision table of the grammar ambiguities, prepared for the grammar and the ontology; null, if none.
+   */
+  private AmbiguityTable ambiguities;
+
+  /**
+   * The session version, increased every time the ontology or the grammar changes.
+   */
+  private long version = 0;
+
 }
@@ -26,20 +26,35 @@
 
 package com.acmutv.ontoqa.session;
 
+import com.acmutv.ontoqa.core.grammar.EntityGazetteer;
 import com.acmutv.ontoqa.core.grammar.Grammar;
 import com.acmutv.ontoqa.core.grammar.GrammarFormat;
 import com.acmutv.ontoqa.core.grammar.GrammarManager;
 import com.acmutv.ontoqa.core.knowledge.KnowledgeManager;
+import com.acmutv.ontoqa.core.knowledge.backend.KnowledgeBackendType;
+import com.acmutv.ontoqa.core.knowledge.backend.RemoteOntology;
+import com.acmutv.ontoqa.core.knowledge.backend.SparqlKnowledgeBackend;
+import com.acmutv.ontoqa.config.AppConfiguration;
+import com.acmutv.ontoqa.config.AppConfigurationService;
+import com.acmutv.ontoqa.core.knowledge.ontology.CompactOntology;
 import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
 import com.acmutv.ontoqa.core.knowledge.ontology.OntologyFormat;
+import com.acmutv.ontoqa.core.knowledge.ontology.OntologyLoader;
+import com.acmutv.ontoqa.core.knowledge.ontology.ShardedOntology;
+import com.acmutv.ontoqa.core.parser.AmbiguityTable;
 import com.acmutv.ontoqa.tool.io.IOManager;
+import org.eclipse.rdf4j.model.Statement;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Collection;
 
 /**
  * The session management services.
+ * The default session is an immutable snapshot: every change to its ontology or grammar publishes a new session,
+ * with a new version, so that questions in flight keep answering on the snapshot they started with.
  * @author Antonella Botte {@literal <abotte@acm.org>}
  * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
  * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
@@ -49,7 +64,65 @@ public class SessionManager {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SessionManager.class);
 
-  private static Session session = new Session();
+  private static volatile Session session = new Session();
+
+  private static TenantPool tenants = null;
+
+  private static ReloadWatcher watcher = null;
+
+  /**
+   * Serializes reloads, which build the new version outside the session lock.
+   */
+  private static final Object RELOAD_LOCK = new Object();
+
+  /**
+   * Returns the default session.
+   * @return the default session.
+   */
+  public static Session getSession() {
+    return session;
+  }
+
+  /**
+   * Returns the session of {@code tenant}, loading it if evicted.
+   * @param tenant the tenant name; null, for the default session.
+   * @return the session; null, if there is no such tenant.
+   * @throws IOException when the tenant cannot be loaded.
+   */
+  public static Session getSession(String tenant) throws IOException {
+    if (tenant == null) {
+      return session;
+    }
+    final TenantPool pool = tenants;
+    return (pool == null) ? null : pool.getSession(tenant);
+  }
+
+  /**
+   * Returns the named tenants.
+   * @return the named tenants; null, if not configured.
+   */
+  public static TenantPool getTenants() {
+    return tenants;
+  }
+
+  /**
+   * Serves the named tenants in the sub-directories of {@code path}, loaded on their first question.
+   * @param path the tenants directory.
+   * @param tenantMemory the memory budget (MB) of each tenant.
+   * @param tenantsMemory the memory budget (MB) of all the resident tenants.
+   * @param idleTimeout the time (milliseconds) after which an idle tenant is evicted; 0 means never.
+   * @throws IOException when {@code path} is not a directory.
+   */
+  public static synchronized void loadTenants(String path, long tenantMemory, long tenantsMemory, long idleTimeout)
+      throws IOException {
+    AppConfiguration config = AppConfigurationService.getConfigurations();
+    final TenantPool previous = tenants;
+    tenants = new TenantPool(path, config.getOntologyFormat(), config.getGrammarFormat(),
+        tenantMemory << 20, tenantsMemory << 20, idleTimeout);
+    if (previous != null) {
+      previous.close();
+    }
+  }
 
   /**
    * Returns the current session ontology.
@@ -67,14 +140,205 @@ public class SessionManager {
     return session.getGrammar();
   }
 
+  /**
+   * Returns the current session version.
+   * @return the current session version.
+   */
+  public static long getVersion() {
+    return session.getVersion();
+  }
+
   /**
    * Loads the ontology in {@code path} serialized as {@code format}.
-   * @param path the ontology path.
+   * The ontology is kept dictionary-encoded, and its reasoning structures are prepared once, here,
+   * as set by {@code reasoningMode}: the RDFS closure, or the schema hierarchy for query rewriting.
+   * Unless {@code format} is a snapshot, files are loaded in parallel, as configured by
+   * {@code ontologyLoadThreads} and {@code ontologyLoadMemory}.
+   * For the {@code SHARDED} backend, the closure is then partitioned across {@code ontologyShards} shards.
+   * @param path the ontology path: a file, a directory or a glob.
    * @param format the ontology format.
    * @throws IOException when ontology cannot be loaded.
    */
-  public static void loadOntology(String path, OntologyFormat format) throws IOException {
-    session.setOntology(KnowledgeManager.read(path, "http://example.org/", format));
+  public static synchronized void loadOntology(String path, OntologyFormat format) throws IOException {
+    setOntology(readOntology(path, format));
+  }
+
+  /**
+   * Reads the ontology in {@code path} serialized as {@code format}, and prepares it as configured.
+   * @param path the ontology path: a file, a directory or a glob.
+   * @param format the ontology format.
+   * @return the prepared ontology.
+   * @throws IOException when ontology cannot be read.
+   * @see #loadOntology(String, OntologyFormat)
+   */
+  static Ontology readOntology(String path, OntologyFormat format) throws IOException {
+    AppConfiguration config = AppConfigurationService.getConfigurations();
+    CompactOntology ontology;
+    if (format == OntologyFormat.SNAPSHOT) {
+      ontology = KnowledgeManager.readCompact(path, "http://example.org/", format);
+    } else {
+      OntologyLoader loader = new OntologyLoader(config.getOntologyLoadThreads(),
+          config.getOntologyLoadMemory() << 20);
+      ontology = loader.load(path, "http://example.org/", format);
+    }
+    ontology.setReasoningMode(config.getReasoningMode());
+    ontology.prepareReasoning();
+    if (config.getKnowledgeBackend() == KnowledgeBackendType.SHARDED) {
+      return new ShardedOntology(ontology, config.getOntologyShards());
+    }
+    return ontology;
+  }
+
+  /**
+   * Connects the session to the ontology served by the SPARQL endpoint at {@code endpoint}.
+   * No ontology is loaded in memory: questions, and their feasibility checks, are answered by the endpoint,
+   * through a pool of {@code maxConnections} keep-alive connections.
+   * @param endpoint the endpoint URL.
+   * @param maxConnections the maximum number of pooled connections.
+   * @param timeout the timeout (milliseconds) for connecting and for waiting for data; 0 means no limit.
+   * @param retries the number of times a request failed for transient reasons is retried.
+   * @throws IOException when {@code endpoint} is missing.
+   */
+  public static synchronized void connectOntology(String endpoint, int maxConnections, long timeout, int retries)
+      throws IOException {
+    if (endpoint == null || endpoint.isEmpty()) {
+      throw new IOException("Cannot connect ontology: no SPARQL endpoint specified");
+    }
+    setOntology(new RemoteOntology(new SparqlKnowledgeBackend(endpoint, maxConnections, timeout, retries)));
+  }
+
+  /**
+   * Updates the session ontology, removing {@code removals} and then adding {@code additions}.
+   * The changes are applied to a new version of the ontology, whose reasoning structures are maintained
+   * incrementally and prepared before it replaces the current one: questions in flight keep seeing
+   * the version they started with. The entity gazetteer is updated with the names of the changed resources only,
+   * and the decision table of the grammar ambiguities is kept, without its ontological exclusions.
+   * @param additions the statements to add.
+   * @param removals the statements to remove.
+   * @return the new session version.
+   * @throws IOException when no ontology has been loaded.
+   */
+  public static synchronized long updateOntology(Collection<? extends Statement> additions,
+                                                 Collection<? extends Statement> removals) throws IOException {
+    final Ontology current = session.getOntology();
+    if (current instanceof RemoteOntology) {
+      throw new IOException("Cannot update ontology: served by a remote SPARQL endpoint");
+    }
+    if (!(current instanceof CompactOntology || current instanceof ShardedOntology)) {
+      throw new IOException("Cannot update ontology: no ontology loaded");
+    }
+    final long start = System.currentTimeMillis();
+    final Ontology ontology;
+    if (current instanceof ShardedOntology) {
+      ontology = ((ShardedOntology) current).update(additions, removals);
+    } else {
+      CompactOntology updated = ((CompactOntology) current).update(additions, removals);
+      updated.prepareReasoning();
+      ontology = updated;
+    }
+    final Session previous = session;
+    final EntityGazetteer gazetteer = (previous.getGazetteer() != null) ?
+        EntityGazetteer.update(previous.getGazetteer(), current, ontology, additions, removals) :
+        readGazetteer(ontology);
+    final AmbiguityTable ambiguities = (previous.getAmbiguities() != null) ?
+        previous.getAmbiguities().discardOntology(previous.getGrammar()) : null;
+    final long version = publish(ontology, previous.getGrammar(), gazetteer, ambiguities).getVersion();
+    LOGGER.info("Ontology updated (+{} -{} statements, {} ms): version {}", additions.size(), removals.size(),
+        System.currentTimeMillis() - start, version);
+    return version;
+  }
+
+  /**
+   * Replaces the session ontology.
+   * @param ontology the new ontology.
+   */
+  private static void setOntology(Ontology ontology) {
+    publish(ontology, session.getGrammar());
+  }
+
+  /**
+   * Publishes a new version of the default session, made of {@code ontology} and {@code grammar}.
+   * The previous version is retired: it is no longer handed out, so that everything keyed by its version
+   * (in-flight questions, answer cursors) expires with it, and the backend of its ontology, if remote
+   * and replaced, is shut down.
+   * @param ontology the ontology.
+   * @param grammar the grammar.
+   * @return the published session.
+   */
+  private static synchronized Session publish(Ontology ontology, Grammar grammar) {
+    final Session previous = session;
+    final AmbiguityTable ambiguities;
+    if (ontology != previous.getOntology()) {
+      ambiguities = readAmbiguities(grammar, ontology);
+    } else if (grammar != previous.getGrammar()) {
+      // an ontology whose ontological exclusions have been discarded is not stamped again
+      final boolean discarded = previous.getAmbiguities() != null && previous.getAmbiguities().getOntology() == null;
+      ambiguities = readAmbiguities(grammar, (discarded) ? null : ontology);
+    } else {
+      ambiguities = previous.getAmbiguities();
+    }
+    return publish(ontology, grammar,
+        (ontology == previous.getOntology() && previous.getGazetteer() != null) ?
+            previous.getGazetteer() : readGazetteer(ontology), ambiguities);
+  }
+
+  /**
+   * Publishes a new version of the default session, made of {@code ontology} and {@code grammar}, with the entity
+   * gazetteer and the decision table already prepared for them.
+   * @param ontology the ontology.
+   * @param grammar the grammar.
+   * @param gazetteer the entity gazetteer of {@code ontology}; null, if disabled.
+   * @param ambiguities the decision table for {@code grammar} and {@code ontology}; null, if none.
+   * @return the published session.
+   * @see #publish(Ontology, Grammar)
+   */
+  private static synchronized Session publish(Ontology ontology, Grammar grammar, EntityGazetteer gazetteer,
+                                              AmbiguityTable ambiguities) {
+    final Session previous = session;
+    final Session next = new Session();
+    next.setOntology(ontology);
+    next.setGrammar(grammar);
+    next.setGazetteer(gazetteer);
+    next.setAmbiguities(ambiguities);
+    next.setVersion(previous.getVersion() + 1);
+    session = next;
+    final Ontology retired = previous.getOntology();
+    if (retired instanceof RemoteOntology && retired != ontology) {
+      ((RemoteOntology) retired).getBackend().shutDown();
+    }
+    return next;
+  }
+
+  /**
+   * Builds the gazetteer of the entities in {@code ontology}, if enabled in the app configuration.
+   * @param ontology the ontology.
+   * @return the gazetteer; null, if disabled.
+   */
+  static EntityGazetteer readGazetteer(Ontology ontology) {
+    AppConfiguration config = AppConfigurationService.getConfigurations();
+    return (config.isGazetteer() && ontology != null) ?
+        EntityGazetteer.build(ontology, config.getGazetteerCache()) : null;
+  }
+
+  /**
+   * Reads the decision table of the grammar ambiguities in the app configuration, if any, and prepares it for
+   * {@code grammar} and {@code ontology}.
+   * A decision table that cannot be read is ignored, as it only spares work to the parser.
+   * @param grammar the grammar.
+   * @param ontology the ontology; null, to discard the ontological exclusions without stamping it.
+   * @return the decision table; null, if none.
+   */
+  static AmbiguityTable readAmbiguities(Grammar grammar, Ontology ontology) {
+    final String path = AppConfigurationService.getConfigurations().getAmbiguityTablePath();
+    if (path == null || grammar == null || !IOManager.isFile(path)) {
+      return null;
+    }
+    try {
+      return AmbiguityTable.read(Paths.get(path)).prepare(grammar, ontology);
+    } catch (IOException exc) {
+      LOGGER.warn("Cannot read decision table {}: {}", path, exc.getMessage());
+      return null;
+    }
   }
 
   /**
@@ -83,11 +347,96 @@ public class SessionManager {
    * @param format the grammar format.
    * @throws IOException when grammar cannot be loaded.
    */
-  public static void loadGrammar(String path, GrammarFormat format) throws IOException {
+  public static synchronized void loadGrammar(String path, GrammarFormat format) throws IOException {
+    final Grammar grammar = readGrammar(path, format);
+    publish(session.getOntology(), grammar);
+  }
+
+  /**
+   * Reloads the ontology and/or the grammar from the paths in the app configuration.
+   * The ontology is not reloaded when served by a remote SPARQL endpoint.
+   * @param ontology true, to reload the ontology.
+   * @param grammar true, to reload the grammar.
+   * @return the new session version.
+   * @throws IOException when the ontology or the grammar cannot be read; the current version is kept.
+   * @see #reload(String, OntologyFormat, String, GrammarFormat)
+   */
+  public static long reload(boolean ontology, boolean grammar) throws IOException {
+    AppConfiguration config = AppConfigurationService.getConfigurations();
+    final boolean local = config.getKnowledgeBackend() != KnowledgeBackendType.SPARQL;
+    return reload((ontology && local) ? config.getOntologyPath() : null, config.getOntologyFormat(),
+        (grammar) ? config.getGrammarPath() : null, config.getGrammarFormat());
+  }
+
+  /**
+   * Reloads the ontology in {@code ontologyPath} and the grammar in {@code grammarPath}, without downtime.
+   * Both, with the ontology reasoning structures, are built in the calling thread while questions keep being
+   * answered on the current version; then they are published together as a new version.
+   * Questions in flight finish on the version they started with.
+   * Changes to the ontology applied while reloading are superseded by the reloaded one.
+   * @param ontologyPath the ontology path: a file, a directory or a glob; null, to keep the current ontology.
+   * @param ontologyFormat the ontology format.
+   * @param grammarPath the grammar path: a file or a directory; null, to keep the current grammar.
+   * @param grammarFormat the grammar format.
+   * @return the new session version.
+   * @throws IOException when the ontology or the grammar cannot be read; the current version is kept.
+   */
+  public static long reload(String ontologyPath, OntologyFormat ontologyFormat,
+                            String grammarPath, GrammarFormat grammarFormat) throws IOException {
+    synchronized (RELOAD_LOCK) {
+      final long start = System.currentTimeMillis();
+      final Ontology ontology = (ontologyPath != null) ? readOntology(ontologyPath, ontologyFormat) : null;
+      final Grammar grammar = (grammarPath != null) ? readGrammar(grammarPath, grammarFormat) : null;
+      final Session published;
+      synchronized (SessionManager.class) {
+        final Session current = session;
+        published = publish((ontology != null) ? ontology : current.getOntology(),
+            (grammar != null) ? grammar : current.getGrammar());
+      }
+      LOGGER.info("Reloaded{}{} ({} ms): version {}", (ontology != null) ? " ontology" : "",
+          (grammar != null) ? " grammar" : "", System.currentTimeMillis() - start, published.getVersion());
+      return published.getVersion();
+    }
+  }
+
+  /**
+   * Reloads the ontology and the grammar in the app configuration whenever their files change,
+   * and stay unchanged for {@code delay} milliseconds.
+   * @param delay the time (milliseconds) the changed files must stay unchanged before being reloaded.
+   * @throws IOException when the files cannot be watched.
+   */
+  public static synchronized void watch(long delay) throws IOException {
+    AppConfiguration config = AppConfigurationService.getConfigurations();
+    final boolean local = config.getKnowledgeBackend() != KnowledgeBackendType.SPARQL;
+    unwatch();
+    watcher = new ReloadWatcher((local) ? config.getOntologyPath() : null, config.getOntologyFormat(),
+        config.getGrammarPath(), config.getGrammarFormat(), delay);
+    watcher.start();
+  }
+
+  /**
+   * Stops reloading the ontology and the grammar when their files change.
+   */
+  public static synchronized void unwatch() {
+    if (watcher != null) {
+      watcher.close();
+      watcher = null;
+    }
+  }
+
+  /**
+   * Reads the grammar in {@code path} serialized as {@code format}, canonicalizing its elementary SLTAGs
+   * into shared templates.
+   * @param path the grammar path: a file or a directory.
+   * @param format the grammar format.
+   * @return the grammar.
+   * @throws IOException when grammar cannot be read.
+   */
+  static Grammar readGrammar(String path, GrammarFormat format) throws IOException {
     if (IOManager.isDirectory(path)) {
-      session.setGrammar(GrammarManager.readAll(path, format));
+      return GrammarManager.canonicalize(GrammarManager.readAll(path, format));
     } else if (IOManager.isFile(path)) {
-      session.setGrammar(GrammarManager.read(path, format));
+      return GrammarManager.canonicalize(GrammarManager.read(path, format));
     } else {
       throw new IOException("Cannot load grammar from path " + path);
     }
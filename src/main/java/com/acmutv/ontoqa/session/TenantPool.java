@@ -0,0 +1,493 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.session;
+
+import com.acmutv.ontoqa.core.grammar.CompiledGrammar;
+import com.acmutv.ontoqa.core.grammar.Grammar;
+import com.acmutv.ontoqa.core.grammar.GrammarFormat;
+import com.acmutv.ontoqa.core.grammar.TemplateGrammar;
+import com.acmutv.ontoqa.core.knowledge.ontology.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * The named tenants served by a single process, each with its own session (ontology and grammar).
+ * The tenants are the sub-directories of a root directory, each holding its {@code ontology} and its
+ * {@code grammar} (a file or a directory).
+ * A tenant is loaded on its first question, and its memory footprint is estimated and checked against the budget
+ * of each tenant. When the resident tenants exceed the budget of all of them, the least recently used are evicted,
+ * and so are the tenants idle for too long. Evicted ontologies are written as snapshots, so that a tenant is
+ * reloaded on its next question by memory-mapping its snapshot, with no parsing nor inference.
+ * Snapshots are written out of the pool monitor, holding only the monitor of their tenant, so that questions to
+ * other tenants never wait for them. A tenant found beyond its own budget is rejected at once afterwards.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see SessionManager#getSession(String)
+ * @see OntologySnapshot
+ */
+public class TenantPool implements AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TenantPool.class);
+
+  /**
+   * The valid tenant names.
+   */
+  private static final Pattern NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_.-]*");
+
+  /**
+   * The estimated memory (bytes) of a dictionary-encoded term.
+   */
+  private static final long TERM_BYTES = 96;
+
+  /**
+   * The estimated memory (bytes) of a statement of a non-compact ontology.
+   */
+  private static final long STATEMENT_BYTES = 256;
+
+  /**
+   * The estimated memory (bytes) of an elementary SLTAG.
+   */
+  private static final long SLTAG_BYTES = 4096;
+
+  /**
+   * The tenants directory.
+   */
+  private final Path root;
+
+  /**
+   * The directory of the snapshots of evicted ontologies.
+   */
+  private final Path spool;
+
+  private final OntologyFormat ontologyFormat;
+
+  private final GrammarFormat grammarFormat;
+
+  /**
+   * The memory budget (bytes) of each tenant.
+   */
+  private final long tenantMemory;
+
+  /**
+   * The memory budget (bytes) of all the resident tenants.
+   */
+  private final long tenantsMemory;
+
+  /**
+   * The time (milliseconds) after which an idle tenant is evicted; 0 means never.
+   */
+  private final long idleTimeout;
+
+  /**
+   * The known tenants, from the least to the most recently used.
+   */
+  private final LinkedHashMap<String, Tenant> tenants = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * The estimated memory (bytes) of the resident tenants.
+   */
+  private long memory = 0;
+
+  /**
+   * The number of evictions.
+   */
+  private long evictions = 0;
+
+  /**
+   * Creates the pool of the tenants in {@code root}, spooling evicted ontologies in a temporary directory.
+   * @param root the tenants directory.
+   * @param ontologyFormat the format of the tenant ontologies.
+   * @param grammarFormat the format of the tenant grammars.
+   * @param tenantMemory the memory budget (bytes) of each tenant.
+   * @param tenantsMemory the memory budget (bytes) of all the resident tenants.
+   * @param idleTimeout the time (milliseconds) after which an idle tenant is evicted; 0 means never.
+   * @throws IOException when {@code root} is not a directory.
+   */
+  public TenantPool(String root, OntologyFormat ontologyFormat, GrammarFormat grammarFormat,
+                    long tenantMemory, long tenantsMemory, long idleTimeout) throws IOException {
+    this.root = FileSystems.getDefault().getPath(root).toAbsolutePath();
+    if (!Files.isDirectory(this.root)) {
+      throw new IOException("Cannot load tenants from path " + root);
+    }
+    this.spool = Files.createTempDirectory("ontoqa-tenants");
+    this.ontologyFormat = ontologyFormat;
+    this.grammarFormat = grammarFormat;
+    this.tenantMemory = tenantMemory;
+    this.tenantsMemory = tenantsMemory;
+    this.idleTimeout = idleTimeout;
+  }
+
+  /**
+   * Returns the session of tenant {@code name}, loading it if not resident.
+   * Concurrent questions to the same evicted tenant wait for a single reload.
+   * @param name the tenant name.
+   * @return the session; null, if there is no such tenant.
+   * @throws IOException when the tenant cannot be loaded, or exceeds its memory budget.
+   */
+  public Session getSession(String name) throws IOException {
+    final List<Tenant> evicted = new ArrayList<>();
+    try {
+      final Tenant tenant;
+      synchronized (this) {
+        final long now = System.currentTimeMillis();
+        this.evictIdle(now, evicted);
+        Tenant known = this.tenants.get(name);
+        if (known == null) {
+          if (!NAME.matcher(name).matches() || !Files.isDirectory(this.root.resolve(name))) {
+            return null;
+          }
+          known = new Tenant(name);
+          this.tenants.put(name, known);
+        }
+        if (known.rejected > 0) {
+          throw this.overBudget(known, known.rejected);
+        }
+        known.lastAccess = now;
+        if (known.session != null) {
+          return known.session;
+        }
+        tenant = known;
+      }
+      synchronized (tenant) {
+        Session session = tenant.session;
+        if (session != null) {
+          return session;
+        }
+        this.spool(tenant);
+        final long start = System.currentTimeMillis();
+        final boolean fromSnapshot = tenant.snapshot != null;
+        session = this.load(tenant);
+        final long footprint = estimate(session);
+        if (footprint > this.tenantMemory) {
+          synchronized (this) {
+            tenant.rejected = footprint;
+          }
+          throw this.overBudget(tenant, footprint);
+        }
+        synchronized (this) {
+          tenant.session = session;
+          tenant.footprint = footprint;
+          tenant.lastAccess = System.currentTimeMillis();
+          this.memory += footprint;
+          this.evictOverBudget(tenant, evicted);
+        }
+        LOGGER.info("Tenant {} loaded from {} in {} ms ({} KB)", tenant.name, fromSnapshot ? "snapshot" : "source",
+            System.currentTimeMillis() - start, footprint >> 10);
+        return session;
+      }
+    } finally {
+      for (Tenant tenant : evicted) {
+        synchronized (tenant) {
+          this.spool(tenant);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the names of the resident tenants, from the least to the most recently used.
+   * @return the names of the resident tenants.
+   */
+  public synchronized List<String> getResident() {
+    final List<String> resident = new ArrayList<>();
+    for (Tenant tenant : this.tenants.values()) {
+      if (tenant.session != null) {
+        resident.add(tenant.name);
+      }
+    }
+    return resident;
+  }
+
+  /**
+   * Returns the estimated memory (bytes) of the resident tenants.
+   * @return the estimated memory of the resident tenants.
+   */
+  public synchronized long getMemory() {
+    return this.memory;
+  }
+
+  /**
+   * Returns the number of evictions so far.
+   * @return the number of evictions.
+   */
+  public synchronized long getEvictions() {
+    return this.evictions;
+  }
+
+  /**
+   * Evicts tenant {@code name}, if resident.
+   * @param name the tenant name.
+   */
+  public void evict(String name) {
+    final Tenant tenant;
+    synchronized (this) {
+      tenant = this.tenants.get(name);
+      if (tenant == null || tenant.session == null) {
+        return;
+      }
+      this.evict(tenant);
+    }
+    synchronized (tenant) {
+      this.spool(tenant);
+    }
+  }
+
+  /**
+   * Forgets all the tenants, and deletes the snapshots of the evicted ones.
+   */
+  @Override
+  public synchronized void close() {
+    this.tenants.clear();
+    this.memory = 0;
+    try (Stream<Path> files = Files.list(this.spool)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.deleteIfExists(file);
+      }
+      Files.deleteIfExists(this.spool);
+    } catch (IOException exc) {
+      LOGGER.warn("Cannot delete tenant snapshots in {}: {}", this.spool, exc.getMessage());
+    }
+  }
+
+  /**
+   * Loads the session of {@code tenant}: its ontology from its snapshot, if evicted before, or from its source.
+   * @param tenant the tenant.
+   * @return the session.
+   * @throws IOException when the ontology or the grammar cannot be read.
+   */
+  private Session load(Tenant tenant) throws IOException {
+    final Path directory = this.root.resolve(tenant.name);
+    final Ontology ontology = (tenant.snapshot != null) ?
+        SessionManager.readOntology(tenant.snapshot.toString(), OntologyFormat.SNAPSHOT)
+        : SessionManager.readOntology(directory.resolve("ontology").toString(), this.ontologyFormat);
+    final Grammar grammar = SessionManager.readGrammar(directory.resolve("grammar").toString(), this.grammarFormat);
+    final Session session = new Session();
+    session.setName(tenant.name);
+    session.setOntology(ontology);
+    session.setGrammar(grammar);
+    session.setGazetteer(SessionManager.readGazetteer(ontology));
+    session.setVersion(1);
+    return session;
+  }
+
+  /**
+   * Returns the exception rejecting {@code tenant}, beyond its own budget.
+   * @param tenant the tenant.
+   * @param footprint the estimated memory footprint (bytes) of the tenant.
+   * @return the exception.
+   */
+  private IOException overBudget(Tenant tenant, long footprint) {
+    return new IOException(String.format("Tenant %s needs %d MB, beyond its budget of %d MB",
+        tenant.name, footprint >> 20, this.tenantMemory >> 20));
+  }
+
+  /**
+   * Evicts the tenants idle for longer than the idle timeout.
+   * @param now the current time (milliseconds).
+   * @param evicted the list to fill with the evicted tenants, whose snapshots are still to be written.
+   */
+  private void evictIdle(long now, List<Tenant> evicted) {
+    if (this.idleTimeout <= 0) {
+      return;
+    }
+    for (Tenant tenant : new ArrayList<>(this.tenants.values())) {
+      if (tenant.session != null && now - tenant.lastAccess > this.idleTimeout) {
+        this.evict(tenant);
+        evicted.add(tenant);
+      }
+    }
+  }
+
+  /**
+   * Evicts the least recently used tenants but {@code loaded}, until the resident ones fit their budget.
+   * @param loaded the tenant just loaded.
+   * @param evicted the list to fill with the evicted tenants, whose snapshots are still to be written.
+   */
+  private void evictOverBudget(Tenant loaded, List<Tenant> evicted) {
+    for (Tenant tenant : new ArrayList<>(this.tenants.values())) {
+      if (this.memory <= this.tenantsMemory) {
+        return;
+      }
+      if (tenant != loaded && tenant.session != null) {
+        this.evict(tenant);
+        evicted.add(tenant);
+      }
+    }
+  }
+
+  /**
+   * Evicts {@code tenant}, keeping its ontology to be written as a snapshot, if not written yet
+   * (see {@link #spool(Tenant)}). Questions in flight keep the session they started with.
+   * @param tenant the tenant to evict.
+   */
+  private void evict(Tenant tenant) {
+    if (tenant.snapshot == null) {
+      tenant.unspooled = tenant.session.getOntology();
+    }
+    tenant.session = null;
+    this.memory -= tenant.footprint;
+    tenant.footprint = 0;
+    this.evictions++;
+    LOGGER.info("Tenant {} evicted", tenant.name);
+  }
+
+  /**
+   * Writes the snapshot of the ontology of {@code tenant}, if evicted and not written yet.
+   * It must be called holding the monitor of {@code tenant} only, so that a reload waits for the snapshot
+   * while questions to other tenants do not.
+   * @param tenant the tenant.
+   */
+  private void spool(Tenant tenant) {
+    final Ontology unspooled = tenant.unspooled;
+    if (unspooled == null) {
+      return;
+    }
+    tenant.unspooled = null;
+    if (tenant.snapshot != null) {
+      return;
+    }
+    final CompactOntology ontology = toCompact(unspooled);
+    if (ontology != null) {
+      final Path snapshot = this.spool.resolve(tenant.name + ".snapshot");
+      try {
+        OntologySnapshot.write(ontology, snapshot);
+        tenant.snapshot = snapshot;
+      } catch (IOException exc) {
+        LOGGER.warn("Cannot write the snapshot of tenant {}, it will be reloaded from source: {}",
+            tenant.name, exc.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Estimates the memory footprint of {@code session}.
+   * Compact ontologies are estimated from their indexes (three permutations and the sequence numbers of the
+   * asserted triples and, if materialized, of the closure, counted on the shards when partitioned) and their
+   * dictionary; grammars from their elementary SLTAGs (for compiled grammars, only the decoded ones).
+   * @param session the session.
+   * @return the estimated footprint (bytes).
+   */
+  static long estimate(Session session) {
+    long bytes = 0;
+    final Ontology ontology = session.getOntology();
+    if (ontology instanceof ShardedOntology) {
+      final ShardedOntology sharded = (ShardedOntology) ontology;
+      long triples = sharded.getOntology().getIndex().size();
+      for (int i = 0; i < sharded.getShardCount(); i++) {
+        triples += sharded.getShard(i).getIndex().size();
+      }
+      bytes += triples * (3 * TripleIndex.ROW + 1) * Integer.BYTES
+          + sharded.getOntology().getDictionary().size() * TERM_BYTES;
+    } else if (ontology instanceof CompactOntology) {
+      final CompactOntology compact = (CompactOntology) ontology;
+      long triples = compact.getIndex().size();
+      if (compact.getReasoningMode() == ReasoningMode.MATERIALIZATION) {
+        triples += compact.getRdfsClosure().getIndex().size();
+      }
+      bytes += triples * (3 * TripleIndex.ROW + 1) * Integer.BYTES + compact.getDictionary().size() * TERM_BYTES;
+    } else if (ontology != null) {
+      bytes += ontology.size() * STATEMENT_BYTES;
+    }
+    final Grammar grammar = session.getGrammar();
+    if (grammar instanceof CompiledGrammar) {
+      bytes += ((CompiledGrammar) grammar).getResident() * SLTAG_BYTES;
+    } else if (grammar instanceof TemplateGrammar) {
+      bytes += ((TemplateGrammar) grammar).getBytes();
+    } else if (grammar != null) {
+      bytes += grammar.getAllElementarySLTAG().size() * SLTAG_BYTES;
+    }
+    return bytes;
+  }
+
+  /**
+   * Returns the compact ontology underlying {@code ontology}, holding its RDFS closure if sharded.
+   * @param ontology the ontology.
+   * @return the compact ontology; null, if none.
+   */
+  private static CompactOntology toCompact(Ontology ontology) {
+    if (ontology instanceof CompactOntology) {
+      return (CompactOntology) ontology;
+    }
+    if (ontology instanceof ShardedOntology) {
+      return ((ShardedOntology) ontology).toCompact();
+    }
+    return null;
+  }
+
+  /**
+   * A named tenant, resident or evicted.
+   */
+  private static class Tenant {
+
+    private final String name;
+
+    /**
+     * The session; null, if evicted.
+     */
+    private volatile Session session;
+
+    /**
+     * The snapshot of the ontology; null, if never evicted.
+     */
+    private Path snapshot;
+
+    /**
+     * The ontology evicted, whose snapshot is still to be written; null, if none.
+     */
+    private volatile Ontology unspooled;
+
+    /**
+     * The estimated memory footprint (bytes) that got the tenant rejected, beyond its own budget; 0, if none.
+     */
+    private long rejected;
+
+    /**
+     * The estimated memory footprint (bytes).
+     */
+    private long footprint;
+
+    /**
+     * The time (milliseconds) of the last question.
+     */
+    private long lastAccess;
+
+    private Tenant(String name) {
+      this.name = name;
+    }
+  }
+}
@@ -0,0 +1,204 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.session;
+
+import com.acmutv.ontoqa.config.AppConfiguration;
+import com.acmutv.ontoqa.config.AppConfigurationService;
+import com.acmutv.ontoqa.core.CoreController;
+import com.acmutv.ontoqa.core.Deadline;
+import com.acmutv.ontoqa.core.knowledge.answer.Answer;
+import com.acmutv.ontoqa.core.knowledge.answer.StreamingAnswer;
+import com.acmutv.ontoqa.model.QAResponse;
+import com.acmutv.ontoqa.tool.io.IOManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.output.NullOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The warm-up and readiness services.
+ * Before the app is declared ready, a question corpus is run through the whole pipeline
+ * (tokenization, parsing, query execution and response serialization), so that the first
+ * user questions do not pay for class loading, JIT compilation and lazily built structures.
+ * Questions take the same path as the ones asked to {@code /qa} without paging: their answers are streamed
+ * to a discarded output, and their responses are rendered at the configured default verbosity.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ */
+public class WarmupManager {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WarmupManager.class);
+
+  private static volatile boolean ready = false;
+
+  private static volatile int answered = 0;
+
+  private static volatile int failed = 0;
+
+  private static volatile long elapsed = 0;
+
+  /**
+   * Checks if the app is ready to serve questions.
+   * @return true, if the warm-up has been completed (or skipped); false, otherwise.
+   */
+  public static boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Returns the number of warm-up questions processed without errors.
+   * @return the number of warm-up questions processed without errors.
+   */
+  public static int getAnswered() {
+    return answered;
+  }
+
+  /**
+   * Returns the number of warm-up questions that raised an error.
+   * @return the number of warm-up questions that raised an error.
+   */
+  public static int getFailed() {
+    return failed;
+  }
+
+  /**
+   * Returns the warm-up duration (milliseconds).
+   * @return the warm-up duration.
+   */
+  public static long getElapsed() {
+    return elapsed;
+  }
+
+  /**
+   * Runs the warm-up as specified by the app configuration, then declares the app ready.
+   * A missing or unreadable corpus does not prevent readiness.
+   * @param mapper the mapper used to serialize responses; if null, serialization is not warmed up.
+   */
+  public static void warmup(ObjectMapper mapper) {
+    final AppConfiguration config = AppConfigurationService.getConfigurations();
+    if (!config.isWarmup()) {
+      LOGGER.info("Warm-up disabled");
+      ready = true;
+      return;
+    }
+    List<String> questions;
+    try {
+      questions = readCorpus(config.getWarmupPath());
+    } catch (IOException exc) {
+      LOGGER.warn("Cannot read warm-up corpus {}: {}", config.getWarmupPath(), exc.getMessage());
+      ready = true;
+      return;
+    }
+    warmup(questions, config.getWarmupRounds(), config.getQuestionTimeout(), mapper);
+  }
+
+  /**
+   * Runs {@code questions} through the whole pipeline {@code rounds} times, then declares the app ready.
+   * Questions that cannot be answered are counted, but do not prevent readiness.
+   * @param questions the warm-up questions.
+   * @param rounds the number of times the corpus is run.
+   * @param timeout the time budget for each question (milliseconds); 0 means no limit.
+   * @param mapper the mapper used to serialize responses; if null, answers are only read.
+   */
+  public static synchronized void warmup(List<String> questions, int rounds, long timeout, ObjectMapper mapper) {
+    LOGGER.info("Warming up with {} questions ({} rounds)", questions.size(), rounds);
+    final long start = System.currentTimeMillis();
+    int ok = 0;
+    int ko = 0;
+    for (int round = 0; round < rounds; round++) {
+      for (String question : questions) {
+        try {
+          QAResponse response = new QAResponse();
+          response.setVerbosity(AppConfigurationService.getConfigurations().getResponseVerbosity());
+          CoreController.process(SessionManager.getSession(), question, response, Deadline.in(timeout), 0, 0);
+          if (mapper != null) {
+            mapper.writeValue(NullOutputStream.NULL_OUTPUT_STREAM, response);
+          } else {
+            drain(response.getAnswer());
+          }
+          if (response.getAnswer() instanceof StreamingAnswer
+              && ((StreamingAnswer) response.getAnswer()).getFailure() != null) {
+            throw ((StreamingAnswer) response.getAnswer()).getFailure();
+          }
+          ok++;
+        } catch (Exception exc) {
+          LOGGER.debug("Warm-up question failed: {} ({})", question, exc.getMessage());
+          ko++;
+        }
+      }
+    }
+    answered = ok;
+    failed = ko;
+    elapsed = System.currentTimeMillis() - start;
+    ready = true;
+    LOGGER.info("Warm-up completed in {} ms ({} answered, {} failed)", elapsed, answered, failed);
+  }
+
+  /**
+   * Reads all the values of {@code answer}, as serializing it would.
+   * @param answer the answer.
+   */
+  private static void drain(Answer answer) {
+    if (answer instanceof StreamingAnswer) {
+      try (StreamingAnswer streaming = (StreamingAnswer) answer) {
+        streaming.forEach(value -> { });
+      }
+    }
+  }
+
+  /**
+   * Reads a question corpus, one question per line.
+   * Blank lines and lines starting with {@code #} are ignored.
+   * @param resource the corpus resource.
+   * @return the list of questions.
+   * @throws IOException when the corpus cannot be read.
+   */
+  public static List<String> readCorpus(String resource) throws IOException {
+    List<String> questions = new ArrayList<>();
+    try (InputStream in = IOManager.getInputStream(resource);
+         BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.trim();
+        if (!line.isEmpty() && !line.startsWith("#")) {
+          questions.add(line);
+        }
+      }
+    }
+    return questions;
+  }
+}
@@ -26,6 +26,8 @@
 
 package com.acmutv.ontoqa.tool.runtime;
 
+import com.acmutv.ontoqa.core.knowledge.KnowledgeManager;
+import com.acmutv.ontoqa.session.SessionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +48,8 @@ public class ShutdownHook implements Runnable {
   @Override
   public void run() {
     LOGGER.trace("Releasing resources ...");
+    SessionManager.unwatch();
+    KnowledgeManager.getBackend(SessionManager.getOntology()).shutDown();
     try {
       Thread.sleep(1000);
     } catch (InterruptedException exc) {
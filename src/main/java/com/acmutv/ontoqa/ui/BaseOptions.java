@@ -66,6 +66,24 @@ public class BaseOptions extends Options {
    */
   private static final String DESCRIPTION_CONFIG = "Custom configuration.";
 
+  /**
+   * The CLI description for the option `snapshot`.
+   */
+  private static final String DESCRIPTION_SNAPSHOT =
+      "Compile the configured ontology into a binary snapshot, then exit.";
+
+  /**
+   * The CLI description for the option `compile-grammar`.
+   */
+  private static final String DESCRIPTION_COMPILE_GRAMMAR =
+      "Compile the configured grammar into a binary grammar, then exit.";
+
+  /**
+   * The CLI description for the option `compile-ambiguities`.
+   */
+  private static final String DESCRIPTION_COMPILE_AMBIGUITIES =
+      "Compile the decision table of the configured grammar ambiguities against the configured ontology, then exit.";
+
   /**
    * The singleton instance of {@link BaseOptions}.
    */
@@ -91,12 +109,18 @@ public class BaseOptions extends Options {
     Option silent = this.optSilent();
     Option trace = this.optTrace();
     Option config = this.optConfig();
+    Option snapshot = this.optSnapshot();
+    Option compileGrammar = this.optCompileGrammar();
+    Option compileAmbiguities = this.optCompileAmbiguities();
 
     super.addOption(version);
     super.addOption(help);
     super.addOption(silent);
     super.addOption(trace);
     super.addOption(config);
+    super.addOption(snapshot);
+    super.addOption(compileGrammar);
+    super.addOption(compileAmbiguities);
   }
 
   /**
@@ -166,4 +190,49 @@ public class BaseOptions extends Options {
         .build();
   }
 
+  /**
+   * Builds the option `snapshot`.
+   * @return the option.
+   */
+  private Option optSnapshot() {
+    return Option.builder("o")
+        .longOpt("snapshot")
+        .desc(DESCRIPTION_SNAPSHOT)
+        .required(false)
+        .hasArg(true)
+        .numberOfArgs(1)
+        .argName("SNAPSHOT-FILE")
+        .build();
+  }
+
+  /**
+   * Builds the option `compile-grammar`.
+   * @return the option.
+   */
+  private Option optCompileGrammar() {
+    return Option.builder("g")
+        .longOpt("compile-grammar")
+        .desc(DESCRIPTION_COMPILE_GRAMMAR)
+        .required(false)
+        .hasArg(true)
+        .numberOfArgs(1)
+        .argName("GRAMMAR-FILE")
+        .build();
+  }
+
+  /**
+   * Builds the option `compile-ambiguities`.
+   * @return the option.
+   */
+  private Option optCompileAmbiguities() {
+    return Option.builder("a")
+        .longOpt("compile-ambiguities")
+        .desc(DESCRIPTION_COMPILE_AMBIGUITIES)
+        .required(false)
+        .hasArg(true)
+        .numberOfArgs(1)
+        .argName("TABLE-FILE")
+        .build();
+  }
+
 }
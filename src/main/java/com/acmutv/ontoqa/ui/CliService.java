@@ -30,6 +30,14 @@ import com.acmutv.ontoqa.config.AppConfiguration;
 import com.acmutv.ontoqa.config.AppConfigurationService;
 import com.acmutv.ontoqa.config.AppManifest;
 import com.acmutv.ontoqa.config.serial.AppConfigurationFormat;
+import com.acmutv.ontoqa.core.grammar.CompiledGrammar;
+import com.acmutv.ontoqa.core.exception.OntoqaTimeoutException;
+import com.acmutv.ontoqa.core.grammar.GrammarManager;
+import com.acmutv.ontoqa.core.knowledge.KnowledgeManager;
+import com.acmutv.ontoqa.core.knowledge.backend.KnowledgeBackendType;
+import com.acmutv.ontoqa.core.knowledge.ontology.CompactOntology;
+import com.acmutv.ontoqa.core.parser.AmbiguityTable;
+import com.acmutv.ontoqa.session.SessionManager;
 import org.apache.commons.cli.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +45,7 @@ import org.slf4j.LoggerFactory;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
@@ -123,6 +132,27 @@ public class CliService {
     LOGGER.trace("Configuration loaded: {}",
         AppConfigurationService.getConfigurations());
 
+    /* OPTION: snapshot */
+    if (cmd.hasOption("snapshot")) {
+      final String snapshotPath = cmd.getOptionValue("snapshot");
+      LOGGER.trace("Detected option SNAPSHOT with snapshotPath={}", snapshotPath);
+      System.exit(compileSnapshot(snapshotPath) ? 0 : -1);
+    }
+
+    /* OPTION: compile-grammar */
+    if (cmd.hasOption("compile-grammar")) {
+      final String grammarPath = cmd.getOptionValue("compile-grammar");
+      LOGGER.trace("Detected option COMPILE-GRAMMAR with grammarPath={}", grammarPath);
+      System.exit(compileGrammar(grammarPath) ? 0 : -1);
+    }
+
+    /* OPTION: compile-ambiguities */
+    if (cmd.hasOption("compile-ambiguities")) {
+      final String tablePath = cmd.getOptionValue("compile-ambiguities");
+      LOGGER.trace("Detected option COMPILE-AMBIGUITIES with tablePath={}", tablePath);
+      System.exit(compileAmbiguities(tablePath) ? 0 : -1);
+    }
+
     return cmd.getArgList();
   }
 
@@ -158,6 +188,74 @@ public class CliService {
     return cmd;
   }
 
+  /**
+   * Compiles the configured ontology into a binary snapshot.
+   * @param snapshotPath the snapshot to write.
+   * @return true, if the snapshot has been written; false, otherwise.
+   */
+  private static boolean compileSnapshot(String snapshotPath) {
+    final AppConfiguration config = AppConfigurationService.getConfigurations();
+    final long start = System.currentTimeMillis();
+    try {
+      CompactOntology ontology = KnowledgeManager.compileSnapshot(config.getOntologyPath(), "http://example.org/",
+          config.getOntologyFormat(), snapshotPath);
+      print("Snapshot %s written in %d ms (%d triples, %d with RDFS closure)", snapshotPath,
+          System.currentTimeMillis() - start, ontology.size(), ontology.getRdfsClosure().size());
+      return true;
+    } catch (IOException exc) {
+      LOGGER.error("Cannot compile ontology {} into snapshot {}: {}",
+          config.getOntologyPath(), snapshotPath, exc.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Compiles the configured grammar into a binary grammar.
+   * @param grammarPath the binary grammar to write.
+   * @return true, if the binary grammar has been written; false, otherwise.
+   */
+  private static boolean compileGrammar(String grammarPath) {
+    final AppConfiguration config = AppConfigurationService.getConfigurations();
+    final long start = System.currentTimeMillis();
+    try {
+      CompiledGrammar grammar = GrammarManager.compile(config.getGrammarPath(), config.getGrammarFormat(),
+          Paths.get(grammarPath));
+      print("Grammar %s written in %d ms (%d entries, %d elementary SLTAGs)", grammarPath,
+          System.currentTimeMillis() - start, grammar.getKeys(), grammar.size());
+      return true;
+    } catch (IOException exc) {
+      LOGGER.error("Cannot compile grammar {} into {}: {}",
+          config.getGrammarPath(), grammarPath, exc.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Compiles the decision table of the configured grammar ambiguities against the configured ontology.
+   * Both are loaded as they are for answering questions, so that the table applies to them.
+   * @param tablePath the decision table to write.
+   * @return true, if the decision table has been written; false, otherwise.
+   */
+  private static boolean compileAmbiguities(String tablePath) {
+    final AppConfiguration config = AppConfigurationService.getConfigurations();
+    final long start = System.currentTimeMillis();
+    try {
+      if (config.getKnowledgeBackend() != KnowledgeBackendType.SPARQL) {
+        SessionManager.loadOntology(config.getOntologyPath(), config.getOntologyFormat());
+      }
+      SessionManager.loadGrammar(config.getGrammarPath(), config.getGrammarFormat());
+      AmbiguityTable table = AmbiguityTable.compile(SessionManager.getGrammar(), SessionManager.getOntology());
+      table.write(Paths.get(tablePath));
+      print("Decision table %s written in %d ms (%d ambiguous entries)", tablePath,
+          System.currentTimeMillis() - start, table.getEntries().size());
+      return true;
+    } catch (IOException | OntoqaTimeoutException exc) {
+      LOGGER.error("Cannot compile decision table of grammar {} into {}: {}",
+          config.getGrammarPath(), tablePath, exc.getMessage());
+      return false;
+    }
+  }
+
   /**
    * Prints the application version.
    */
@@ -1,3 +1,5 @@
+import ch.qos.logback.core.util.FileSize
+
 appender("CONSOLE", ConsoleAppender) {
     encoder(PatternLayoutEncoder) {
         pattern = "%date{HH:mm:ss.SSS} %-5level %logger %method - %msg%n"
@@ -12,9 +14,25 @@ appender("FILE", FileAppender) {
     }
 }
 
+appender("SLOW", RollingFileAppender) {
+    file = "log/slow-questions.log"
+    rollingPolicy(FixedWindowRollingPolicy) {
+        fileNamePattern = "log/slow-questions.%i.log"
+        minIndex = 1
+        maxIndex = 5
+    }
+    triggeringPolicy(SizeBasedTriggeringPolicy) {
+        maxFileSize = FileSize.valueOf("10MB")
+    }
+    encoder(PatternLayoutEncoder) {
+        pattern = "%date{yyyy-MM-dd HH:mm:ss.SSS} - %msg%n"
+    }
+}
+
 root(INFO, ["CONSOLE"])
 
 logger("com.acmutv.ontoqa", DEBUG)
+logger("com.acmutv.ontoqa.slow", INFO, ["SLOW"], false)
 
 logger("ch.qos.logback", OFF)
 logger("javax", WARN)
@@ -28,7 +28,8 @@
 		}
 		
 		$rootScope.newQuestion={
-				question : ''
+				question : '',
+				verbosity : 'DEBUG'
 		}
 		
 		
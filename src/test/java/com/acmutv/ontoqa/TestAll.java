@@ -29,6 +29,8 @@ package com.acmutv.ontoqa;
 import com.acmutv.ontoqa.benchmark.TestAllBenchmark;
 import com.acmutv.ontoqa.config.TestAllConfig;
 import com.acmutv.ontoqa.core.TestAllCore;
+import com.acmutv.ontoqa.model.TestAllModel;
+import com.acmutv.ontoqa.session.TestAllSession;
 import com.acmutv.ontoqa.tool.TestAllTool;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -42,6 +44,8 @@ import org.junit.runners.Suite;
  * @see TestAllBenchmark
  * @see TestAllConfig
  * @see TestAllCore
+ * @see TestAllModel
+ * @see TestAllSession
  * @see TestAllTool
  */
 @RunWith(Suite.class)
@@ -49,6 +53,8 @@ import org.junit.runners.Suite;
     TestAllBenchmark.class,
     TestAllConfig.class,
     TestAllCore.class,
+    TestAllModel.class,
+    TestAllSession.class,
     TestAllTool.class
 })
 public class TestAll {
@@ -32,8 +32,10 @@ import com.acmutv.ontoqa.core.grammar.Grammar;
 import com.acmutv.ontoqa.core.grammar.GrammarFormat;
 import com.acmutv.ontoqa.core.knowledge.KnowledgeManager;
 import com.acmutv.ontoqa.core.knowledge.answer.Answer;
+import com.acmutv.ontoqa.core.knowledge.ontology.CompactOntology;
 import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
 import com.acmutv.ontoqa.core.knowledge.ontology.OntologyFormat;
+import com.acmutv.ontoqa.core.knowledge.ontology.ReasoningMode;
 import com.acmutv.ontoqa.session.SessionManager;
 import org.apache.jena.query.*;
 import org.junit.Assert;
@@ -41,6 +43,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Common utilities for Benchamrk tests.
@@ -133,14 +138,46 @@ public class Common {
   public static final String RDF_TYPE_IRI = "http://www.w3.org/1999/02/22-rdf-syntax-ns#type";
 
   /**
-   * Test the assertion on ontology answers.
+   * Test the assertion on ontology answers, both materializing and rewriting RDFS entailment.
    * @param query the SPARQL query.
    * @param expected the expected answer.
    */
   public static void test_query(Query query, Answer expected) throws IOException, QueryException {
     Ontology ontology = KnowledgeManager.read(ONTOLOGY_PATH, PREFIX, ONTOLOGY_FORMAT);
     Answer actual = KnowledgeManager.submit(ontology, query).toAnswer();
-    Assert.assertEquals(expected, actual);
+    assertAnswer(query, expected, actual);
+    Answer rewritten = KnowledgeManager.submit(getOntology(ReasoningMode.REWRITING), query).toAnswer();
+    assertAnswer(query, expected, rewritten);
+  }
+
+  /**
+   * Test the assertion on an answer, in order only if the query sorts its solutions.
+   * @param query the SPARQL query.
+   * @param expected the expected answer.
+   * @param actual the actual answer.
+   */
+  public static void assertAnswer(Query query, Answer expected, Answer actual) {
+    if (query.hasOrderBy()) {
+      Assert.assertEquals(expected, actual);
+    } else {
+      List<String> expectedValues = new ArrayList<>(expected);
+      List<String> actualValues = new ArrayList<>(actual);
+      Collections.sort(expectedValues);
+      Collections.sort(actualValues);
+      Assert.assertEquals(expectedValues, actualValues);
+    }
+  }
+
+  /**
+   * Returns a new compact ontology, entailing RDFS as set by {@code mode}.
+   * @param mode the reasoning mode.
+   * @return the ontology.
+   * @throws IOException when the ontology cannot be read.
+   */
+  public static CompactOntology getOntology(ReasoningMode mode) throws IOException {
+    CompactOntology ontology = KnowledgeManager.readCompact(ONTOLOGY_PATH, PREFIX, ONTOLOGY_FORMAT);
+    ontology.setReasoningMode(mode);
+    return ontology;
   }
 
   /**
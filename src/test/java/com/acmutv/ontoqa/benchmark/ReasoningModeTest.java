@@ -0,0 +1,91 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.benchmark;
+
+import com.acmutv.ontoqa.core.CoreController;
+import com.acmutv.ontoqa.core.grammar.Grammar;
+import com.acmutv.ontoqa.core.knowledge.answer.Answer;
+import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
+import com.acmutv.ontoqa.core.knowledge.ontology.ReasoningMode;
+import com.acmutv.ontoqa.session.WarmupManager;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jena.query.Query;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * JUnit tests asserting that the benchmark questions get the same queries and answers
+ * whether RDFS entailment is materialized or rewritten at query time.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see ReasoningMode
+ */
+public class ReasoningModeTest {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReasoningModeTest.class);
+
+  private static final String CORPUS_PATH = "data/warmup/benchmark.questions.txt";
+
+  /**
+   * Tests the question-answering of the benchmark corpus in both reasoning modes.
+   * @throws Exception when a question cannot be processed.
+   */
+  @Test
+  public void test_benchmark() throws Exception {
+    final Grammar grammar = Common.getGrammar();
+    final Ontology materialized = Common.getOntology(ReasoningMode.MATERIALIZATION);
+    final Ontology rewritten = Common.getOntology(ReasoningMode.REWRITING);
+    final List<String> questions = WarmupManager.readCorpus(CORPUS_PATH);
+    for (String question : questions) {
+      final Pair<Query,Answer> expected = process(question, grammar, materialized);
+      final Pair<Query,Answer> actual = process(question, grammar, rewritten);
+      LOGGER.info("{} -> {}", question, actual);
+      Assert.assertEquals(question, expected, actual);
+    }
+  }
+
+  /**
+   * Processes {@code question}.
+   * @param question the question.
+   * @param grammar the grammar.
+   * @param ontology the ontology.
+   * @return the query and the answer; null, if the question cannot be processed.
+   */
+  private static Pair<Query,Answer> process(String question, Grammar grammar, Ontology ontology) {
+    try {
+      return CoreController.process(question, grammar, ontology);
+    } catch (Exception exc) {
+      return null;
+    }
+  }
+}
@@ -41,12 +41,14 @@ import org.junit.runners.Suite;
  * @see TestAllBenchmarkBasic
  * @see TestAllBenchmarkExtra
  * @see TestAllBenchmarkAdvanced
+ * @see ReasoningModeTest
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
     TestAllBenchmarkBasic.class,
     TestAllBenchmarkExtra.class,
-    TestAllBenchmarkAdvanced.class
+    TestAllBenchmarkAdvanced.class,
+    ReasoningModeTest.class
 })
 public class TestAllBenchmark {
 }
@@ -91,7 +91,7 @@ public class QuestionB08Test {
     LOGGER.info("Query: {}", query);
     LOGGER.info("Answer: {}", answer);
     Assert.assertEquals(QUERY_1, query.toString());
-    Assert.assertEquals(ANSWER, answer);
+    Common.assertAnswer(query, ANSWER, answer);
   }
 
   /**
@@ -109,7 +109,7 @@ public class QuestionB08Test {
     LOGGER.info("Query: {}", query);
     LOGGER.info("Answer: {}", answer);
     Assert.assertEquals(QUERY_2, query.toString());
-    Assert.assertEquals(ANSWER, answer);
+    Common.assertAnswer(query, ANSWER, answer);
   }
 
   /**
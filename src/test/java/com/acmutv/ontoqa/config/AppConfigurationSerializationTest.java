@@ -30,6 +30,9 @@ import com.acmutv.ontoqa.config.serial.AppConfigurationJsonMapper;
 import com.acmutv.ontoqa.config.serial.AppConfigurationYamlMapper;
 import com.acmutv.ontoqa.core.grammar.GrammarFormat;
 import com.acmutv.ontoqa.core.knowledge.ontology.OntologyFormat;
+import com.acmutv.ontoqa.core.knowledge.backend.KnowledgeBackendType;
+import com.acmutv.ontoqa.core.knowledge.ontology.ReasoningMode;
+import com.acmutv.ontoqa.model.ResponseVerbosity;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Assert;
 import org.junit.Test;
@@ -76,8 +79,32 @@ public class AppConfigurationSerializationTest {
     AppConfiguration configExpected = new AppConfiguration();
     configExpected.setOntologyPath("data/ontology/sample.ontology.ttl");
     configExpected.setOntologyFormat(OntologyFormat.TURTLE);
+    configExpected.setOntologyLoadThreads(2);
+    configExpected.setOntologyLoadMemory(64);
+    configExpected.setReasoningMode(ReasoningMode.REWRITING);
+    configExpected.setKnowledgeBackend(KnowledgeBackendType.SPARQL);
+    configExpected.setSparqlEndpoint("http://localhost:7200/repositories/organization");
+    configExpected.setSparqlMaxConnections(4);
+    configExpected.setSparqlTimeout(2000);
+    configExpected.setSparqlRetries(1);
+    configExpected.setOntologyShards(8);
     configExpected.setGrammarPath("data/grammar/sample.grammar.json");
     configExpected.setGrammarFormat(GrammarFormat.YAML);
+    configExpected.setGazetteer(true);
+    configExpected.setGazetteerCache(128);
+    configExpected.setAmbiguityTablePath("data/grammar/organization.ambiguities.json");
+    configExpected.setQuestionTimeout(5000);
+    configExpected.setResponseVerbosity(ResponseVerbosity.DEBUG);
+    configExpected.setSlowQuestionThreshold(1000);
+    configExpected.setWarmup(false);
+    configExpected.setWarmupPath("data/warmup/custom.questions.txt");
+    configExpected.setWarmupRounds(1);
+    configExpected.setTenantsPath("data/tenants");
+    configExpected.setTenantMemory(256);
+    configExpected.setTenantsMemory(1024);
+    configExpected.setTenantIdleTimeout(60000);
+    configExpected.setReloadWatch(true);
+    configExpected.setReloadDelay(500);
     ObjectMapper mapperJson = new AppConfigurationJsonMapper();
     ObjectMapper mapperYaml = new AppConfigurationYamlMapper();
     String jsonActual = mapperJson.writeValueAsString(configExpected);
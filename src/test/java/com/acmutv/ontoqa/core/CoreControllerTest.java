@@ -26,13 +26,20 @@
 
 package com.acmutv.ontoqa.core;
 
+import com.acmutv.ontoqa.benchmark.Common;
+import com.acmutv.ontoqa.core.exception.OntoqaTimeoutException;
 import com.acmutv.ontoqa.core.exception.QuestionException;
+import com.acmutv.ontoqa.core.knowledge.answer.SimpleAnswer;
+import com.acmutv.ontoqa.model.QAResponse;
+import com.acmutv.ontoqa.session.Session;
 import org.junit.Assert;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * JUnit tests for {@link CoreController}.
@@ -59,4 +66,57 @@ public class CoreControllerTest {
 
     Assert.assertEquals(expected, actual);
   }
+
+  /**
+   * Tests that question processing fails fast when its deadline is expired.
+   * @throws Exception when question cannot be processed.
+   */
+  @Test(expected = OntoqaTimeoutException.class)
+  public void test_process_expiredDeadline() throws Exception {
+    Deadline deadline = Deadline.in(1);
+    Thread.sleep(5);
+    CoreController.process("Who founded Microsoft?", Common.getGrammar(), Common.getOntology(), deadline);
+  }
+
+  /**
+   * Tests that answer pages are read at once, and that together they make the whole answer.
+   * @throws Exception when question cannot be processed.
+   */
+  @Test
+  public void test_process_paged() throws Exception {
+    final Session session = new Session();
+    session.setOntology(Common.getOntology());
+    session.setGrammar(Common.getGrammar());
+    final String question = "Who founded Microsoft?";
+    final QAResponse whole = new QAResponse();
+    CoreController.process(session, question, whole, Deadline.NONE);
+
+    final List<String> pages = new ArrayList<>();
+    for (long offset = 0; offset <= whole.getAnswer().size(); offset++) {
+      final QAResponse response = new QAResponse();
+      CoreController.process(session, question, response, Deadline.NONE, offset, 1);
+      Assert.assertTrue(response.getAnswer() instanceof SimpleAnswer);
+      Assert.assertTrue(response.getAnswer().size() <= 1);
+      pages.addAll(response.getAnswer());
+    }
+    Assert.assertEquals(new ArrayList<>(whole.getAnswer()), pages);
+
+    final QAResponse unpaged = new QAResponse();
+    CoreController.process(session, question, unpaged, Deadline.NONE, 0, 0);
+    Assert.assertTrue(unpaged.getAnswer() instanceof SimpleAnswer);
+    Assert.assertEquals(whole.getAnswer(), unpaged.getAnswer());
+  }
+
+  /**
+   * Tests deadline remaining time.
+   */
+  @Test
+  public void test_deadline() {
+    Assert.assertFalse(Deadline.NONE.isExpired());
+    Assert.assertEquals(0, Deadline.NONE.remainingSeconds());
+    Assert.assertSame(Deadline.NONE, Deadline.in(0));
+    Deadline deadline = Deadline.in(60000);
+    Assert.assertFalse(deadline.isExpired());
+    Assert.assertEquals(60, deadline.remainingSeconds());
+  }
 }
@@ -0,0 +1,182 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core;
+
+import com.acmutv.ontoqa.core.exception.OntoqaTimeoutException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JUnit tests for {@link SingleFlight}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see SingleFlight
+ */
+public class SingleFlightTest {
+
+  /**
+   * Tests that concurrent computations for the same key are coalesced.
+   * @throws Exception when the computation fails.
+   */
+  @Test
+  public void test_coalescing() throws Exception {
+    final SingleFlight<String,String> flight = new SingleFlight<>();
+    final AtomicInteger computations = new AtomicInteger(0);
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(5);
+    try {
+      Future<String> leader = executor.submit(() -> flight.execute("key", Deadline.NONE, () -> {
+        computations.incrementAndGet();
+        started.countDown();
+        release.await();
+        return "answer";
+      }));
+      started.await();
+      final List<Thread> waiters = new CopyOnWriteArrayList<>();
+      List<Future<String>> followers = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        followers.add(executor.submit(() -> {
+          waiters.add(Thread.currentThread());
+          return flight.execute("key", Deadline.NONE, () -> {
+            computations.incrementAndGet();
+            return "other";
+          });
+        }));
+      }
+      while (waiters.size() < 4 || waiters.stream().anyMatch(t -> t.getState() != Thread.State.TIMED_WAITING)) {
+        Thread.sleep(1);
+      }
+      release.countDown();
+      Assert.assertEquals("answer", leader.get());
+      for (Future<String> follower : followers) {
+        Assert.assertEquals("answer", follower.get());
+      }
+      Assert.assertEquals(1, computations.get());
+      Assert.assertEquals(0, flight.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Tests that a follower giving up does not affect the other waiters.
+   * @throws Exception when the computation fails.
+   */
+  @Test
+  public void test_followerCancellation() throws Exception {
+    final SingleFlight<String,String> flight = new SingleFlight<>();
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      Future<String> leader = executor.submit(() -> flight.execute("key", Deadline.NONE, () -> {
+        started.countDown();
+        release.await();
+        return "answer";
+      }));
+      started.await();
+      Future<String> impatient = executor.submit(() -> flight.execute("key", Deadline.in(10), () -> "other"));
+      Future<String> patient = executor.submit(() -> flight.execute("key", Deadline.NONE, () -> "other"));
+      try {
+        impatient.get();
+        Assert.fail("Expected timeout");
+      } catch (ExecutionException exc) {
+        Assert.assertTrue(exc.getCause() instanceof OntoqaTimeoutException);
+      }
+      release.countDown();
+      Assert.assertEquals("answer", leader.get());
+      Assert.assertEquals("answer", patient.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Tests that failures are propagated to every waiter and the key is released.
+   * @throws Exception when the computation fails.
+   */
+  @Test
+  public void test_failure() throws Exception {
+    final SingleFlight<String,String> flight = new SingleFlight<>();
+    try {
+      flight.execute("key", Deadline.NONE, () -> {
+        throw new IllegalStateException("failure");
+      });
+      Assert.fail("Expected failure");
+    } catch (IllegalStateException exc) {
+      Assert.assertEquals("failure", exc.getMessage());
+    }
+    Assert.assertEquals("answer", flight.execute("key", Deadline.NONE, () -> "answer"));
+  }
+
+  /**
+   * Tests that followers retry the computation when the leader is interrupted.
+   * @throws Exception when the computation fails.
+   */
+  @Test
+  public void test_leaderInterruption() throws Exception {
+    final SingleFlight<String,String> flight = new SingleFlight<>();
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<String> leader = executor.submit(() -> flight.execute("key", Deadline.NONE, () -> {
+        started.countDown();
+        release.await();
+        throw new InterruptedException("interrupted");
+      }));
+      started.await();
+      final List<Thread> waiters = new CopyOnWriteArrayList<>();
+      Future<String> follower = executor.submit(() -> {
+        waiters.add(Thread.currentThread());
+        return flight.execute("key", Deadline.in(60000), () -> "answer");
+      });
+      while (waiters.isEmpty() || waiters.get(0).getState() != Thread.State.TIMED_WAITING) {
+        Thread.sleep(1);
+      }
+      release.countDown();
+      try {
+        leader.get();
+        Assert.fail("Expected interruption");
+      } catch (ExecutionException exc) {
+        Assert.assertTrue(exc.getCause() instanceof InterruptedException);
+      }
+      Assert.assertEquals("answer", follower.get());
+      Assert.assertEquals(0, flight.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
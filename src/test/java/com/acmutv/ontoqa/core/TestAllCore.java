@@ -28,6 +28,7 @@ package com.acmutv.ontoqa.core;
 
 import com.acmutv.ontoqa.core.grammar.TestAllGrammar;
 import com.acmutv.ontoqa.core.knowledge.TestAllKnowledge;
+import com.acmutv.ontoqa.core.lemon.TestAllLemon;
 import com.acmutv.ontoqa.core.parser.TestAllParser;
 import com.acmutv.ontoqa.core.semantics.TestAllSemantics;
 import com.acmutv.ontoqa.core.syntax.TestAllSyntax;
@@ -42,19 +43,23 @@ import org.junit.runners.Suite;
  * @since 1.0
  * @see TestAllGrammar
  * @see TestAllKnowledge
+ * @see TestAllLemon
  * @see TestAllParser
  * @see TestAllSemantics
  * @see TestAllSyntax
  * @see CoreControllerTest
+ * @see SingleFlightTest
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
     TestAllGrammar.class,
     TestAllKnowledge.class,
+    TestAllLemon.class,
     TestAllParser.class,
     TestAllSemantics.class,
     TestAllSyntax.class,
-    CoreControllerTest.class
+    CoreControllerTest.class,
+    SingleFlightTest.class
 })
 public class TestAllCore {
 }
@@ -0,0 +1,187 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.grammar;
+
+import com.acmutv.ontoqa.core.semantics.dudes.DudesTemplates;
+import com.acmutv.ontoqa.core.semantics.sltag.ElementarySltag;
+import com.acmutv.ontoqa.core.semantics.sltag.SimpleElementarySltag;
+import com.acmutv.ontoqa.core.semantics.sltag.serial.ElementarySltagJsonMapper;
+import com.acmutv.ontoqa.core.syntax.ltag.LtagTemplates;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * JUnit tests for {@link CompiledGrammar}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see CompiledGrammar
+ * @see GrammarManager
+ */
+public class CompiledGrammarTest {
+
+  private static final List<String> WORDS = Arrays.asList(
+      "who", "how many", "the", "microsoft", "founded", "headquartered in", "found", "head", "nothing", "is", "is microsoft headquartered", "is micro"
+  );
+
+  private static final ElementarySltagJsonMapper MAPPER = new ElementarySltagJsonMapper();
+
+  /**
+   * Returns the JSON serialization of {@code sltags}, as elementary SLTAG equality only considers the entry.
+   * @param sltags the elementary SLTAGs.
+   * @return the JSON serialization of {@code sltags}.
+   * @throws IOException when an elementary SLTAG cannot be serialized.
+   */
+  private static List<String> json(List<ElementarySltag> sltags) throws IOException {
+    final List<String> json = new ArrayList<>(sltags.size());
+    for (ElementarySltag sltag : sltags) {
+      json.add(MAPPER.writeValueAsString(sltag));
+    }
+    return json;
+  }
+
+  /**
+   * Asserts that {@code actual} behaves as {@code expected}.
+   * @param expected the expected grammar.
+   * @param actual the actual grammar.
+   * @throws IOException when an elementary SLTAG cannot be serialized.
+   */
+  static void assertSameGrammar(Grammar expected, Grammar actual) throws IOException {
+    Assert.assertEquals(json(expected.getAllElementarySLTAG()), json(actual.getAllElementarySLTAG()));
+    for (ElementarySltag sltag : expected.getAllElementarySLTAG()) {
+      Assert.assertEquals(json(expected.getAllElementarySLTAG(sltag.getEntry())),
+          json(actual.getAllElementarySLTAG(sltag.getEntry())));
+    }
+    for (String word : WORDS) {
+      Assert.assertEquals(word, json(expected.getAllMatchingElementarySLTAG(word)),
+          json(actual.getAllMatchingElementarySLTAG(word)));
+      Assert.assertEquals(word, expected.matchType(word), actual.matchType(word));
+      Assert.assertEquals(word, expected.match(word), actual.match(word));
+      Assert.assertEquals(word, expected.matchStart(word), actual.matchStart(word));
+    }
+  }
+
+  /**
+   * Tests the compilation of a JSON grammar.
+   * @throws IOException when the grammar cannot be compiled or read.
+   */
+  @Test
+  public void test_compile_json() throws IOException {
+    final String resource = CompiledGrammarTest.class.getResource("/grammar/organization.json").getPath();
+    final Path path = Files.createTempFile("organization", ".grammar");
+    try {
+      final Grammar expected = GrammarManager.read(resource, GrammarFormat.JSON);
+      final CompiledGrammar compiled = GrammarManager.compile(resource, GrammarFormat.JSON, path);
+      final Grammar actual = GrammarManager.read(path.toString(), GrammarFormat.BINARY);
+
+      Assert.assertEquals(expected.getAllElementarySLTAG().size(), compiled.size());
+      assertSameGrammar(expected, actual);
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  /**
+   * Tests the compilation of a grammar with every kind of DUDES statement.
+   * @throws IOException when the grammar cannot be compiled or read.
+   */
+  @Test
+  public void test_compile_complete() throws IOException {
+    final Grammar expected = CommonGrammar.build_completeGrammar();
+    final Path path = Files.createTempFile("complete", ".grammar");
+    try {
+      CompiledGrammar.write(expected, path);
+      assertSameGrammar(expected, new CompiledGrammar(path));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  /**
+   * Tests that only the most recently used entries are kept decoded.
+   * @throws IOException when the grammar cannot be compiled or read.
+   */
+  @Test
+  public void test_cache() throws IOException {
+    final Grammar expected = CommonGrammar.build_completeGrammar();
+    final Path path = Files.createTempFile("complete", ".grammar");
+    try {
+      CompiledGrammar.write(expected, path);
+      final CompiledGrammar actual = new CompiledGrammar(path, 2);
+      Assert.assertEquals(0, actual.getResident());
+
+      actual.getAllElementarySLTAG("who");
+      final long decoded = actual.getDecoded();
+      Assert.assertEquals(expected.getAllElementarySLTAG("who").size(), decoded);
+      actual.getAllElementarySLTAG("who");
+      Assert.assertEquals(decoded, actual.getDecoded());
+
+      for (String word : Arrays.asList("who", "how many", "the", "microsoft")) {
+        actual.getAllElementarySLTAG(word);
+      }
+      Assert.assertEquals(expected.getAllElementarySLTAG("the").size() +
+          expected.getAllElementarySLTAG("microsoft").size(), actual.getResident());
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  /**
+   * Tests changes on an opened binary grammar.
+   * @throws IOException when the grammar cannot be compiled or read.
+   */
+  @Test
+  public void test_change() throws IOException {
+    final Grammar expected = CommonGrammar.build_completeGrammar();
+    final Path path = Files.createTempFile("complete", ".grammar");
+    try {
+      CompiledGrammar.write(expected, path);
+      final Grammar actual = new CompiledGrammar(path);
+      final ElementarySltag uruguay = new SimpleElementarySltag("Uruguay",
+          LtagTemplates.properNoun("Uruguay"),
+          DudesTemplates.properNoun("http://dbpedia.org/resource/Uruguay"));
+
+      expected.addElementarySLTAG(uruguay);
+      actual.addElementarySLTAG(uruguay);
+      Assert.assertEquals(expected.remove("who"), actual.remove("who"));
+      Assert.assertNull(actual.remove("who"));
+      Assert.assertEquals(GrammarMatchType.FULL, actual.matchType("uruguay"));
+      Assert.assertEquals(GrammarMatchType.NONE, actual.matchType("who"));
+      Assert.assertEquals(expected.getAllElementarySLTAG().size(), actual.getAllElementarySLTAG().size());
+      Assert.assertTrue(actual.getAllElementarySLTAG().containsAll(expected.getAllElementarySLTAG()));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.grammar;
+
+import com.acmutv.ontoqa.benchmark.Common;
+import com.acmutv.ontoqa.core.CoreController;
+import com.acmutv.ontoqa.core.knowledge.answer.Answer;
+import com.acmutv.ontoqa.core.knowledge.answer.SimpleAnswer;
+import com.acmutv.ontoqa.core.knowledge.ontology.CompactOntology;
+import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
+import com.acmutv.ontoqa.core.knowledge.ontology.ReasoningMode;
+import com.acmutv.ontoqa.core.semantics.sltag.ElementarySltag;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jena.query.Query;
+import org.apache.jena.system.JenaSystem;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JUnit tests for {@link EntityGazetteer} and {@link GazetteerGrammar}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see EntityGazetteer
+ * @see GazetteerGrammar
+ */
+public class EntityGazetteerTest {
+
+  private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+  @BeforeClass
+  public static void setup() {
+    JenaSystem.init();
+  }
+
+  /**
+   * Tests the gazetteer of the entities in the benchmark ontology.
+   * @throws IOException when the ontology cannot be read.
+   */
+  @Test
+  public void test_build() throws IOException {
+    final EntityGazetteer gazetteer = EntityGazetteer.build(Common.getOntology(), 16);
+    Assert.assertEquals(GrammarMatchType.PART, gazetteer.matchType("Amy"));
+    Assert.assertEquals(GrammarMatchType.FULL, gazetteer.matchType("Amy Hood"));
+    Assert.assertEquals(GrammarMatchType.FULL, gazetteer.matchType("amy  hood"));
+    Assert.assertEquals(GrammarMatchType.NONE, gazetteer.matchType("Amy Smith"));
+    Assert.assertEquals(GrammarMatchType.NONE, gazetteer.matchType("Person"));
+    Assert.assertEquals(GrammarMatchType.NONE, gazetteer.matchType("hasCEO"));
+    Assert.assertEquals(Collections.singletonList(Common.PREFIX + "Amy_Hood"), gazetteer.getEntities("Amy Hood"));
+  }
+
+  /**
+   * Tests the synthesis of elementary SLTAGs, and their bounded cache.
+   */
+  @Test
+  public void test_synthesis() {
+    final EntityGazetteer gazetteer = new EntityGazetteer(2);
+    gazetteer.add("Bill Gates", "http://example.org/Bill_Gates");
+    gazetteer.add("Gates", "http://example.org/Bill_Gates");
+    gazetteer.add("Gates", "http://example.org/Gates_Foundation");
+    gazetteer.add("Paul Allen", "http://example.org/Paul_Allen");
+    gazetteer.compact();
+    Assert.assertEquals(4, gazetteer.size());
+    final List<ElementarySltag> actual = gazetteer.getElementarySLTAG("Gates");
+    Assert.assertEquals(2, actual.size());
+    Assert.assertEquals("Gates", actual.get(0).getEntry());
+    Assert.assertTrue(actual.get(0).getSemantics().toString().contains("http://example.org/Bill_Gates"));
+    Assert.assertTrue(actual.get(1).getSemantics().toString().contains("http://example.org/Gates_Foundation"));
+    Assert.assertSame(actual, gazetteer.getElementarySLTAG("gates"));
+    gazetteer.getElementarySLTAG("Bill Gates");
+    gazetteer.getElementarySLTAG("Paul Allen");
+    Assert.assertEquals(2, gazetteer.getCached());
+    Assert.assertEquals(4, gazetteer.getSynthesized());
+    Assert.assertTrue(gazetteer.getElementarySLTAG("Bill").isEmpty());
+  }
+
+  /**
+   * Tests the question-answering with a proper noun missing from the grammar, but not from the gazetteer.
+   * @throws Exception when the question cannot be processed.
+   */
+  @Test
+  public void test_process() throws Exception {
+    final Ontology ontology = Common.getOntology();
+    final Grammar grammar = GrammarManager.read(Common.GRAMMAR_PATH, GrammarFormat.JSON);
+    Assert.assertFalse(grammar.remove("Microsoft").isEmpty());
+    Assert.assertEquals(GrammarMatchType.NONE, grammar.matchType("Microsoft"));
+    final Grammar extended = new GazetteerGrammar(grammar, EntityGazetteer.build(ontology, 16));
+    Assert.assertEquals(GrammarMatchType.FULL, extended.matchType("Microsoft"));
+    final Pair<Query,Answer> result = CoreController.process("Who founded Microsoft?", extended, ontology);
+    Assert.assertEquals(new SimpleAnswer(Common.BILL_GATES_IRI, Common.PAUL_ALLEN_IRI), result.getValue());
+  }
+
+  /**
+   * Tests that the gazetteer of an updated ontology is derived from the previous one, which is left unchanged,
+   * with the same names as the gazetteer built again.
+   * @throws IOException when the ontology cannot be read.
+   */
+  @Test
+  public void test_update() throws IOException {
+    final CompactOntology ontology = Common.getOntology(ReasoningMode.MATERIALIZATION);
+    ontology.prepareReasoning();
+    final EntityGazetteer previous = EntityGazetteer.build(ontology, 16);
+    final List<ElementarySltag> cached = previous.getElementarySLTAG("Amy Hood");
+    previous.getElementarySLTAG("Tim Cook");
+
+    final IRI contoso = VF.createIRI(Common.PREFIX + "Contoso");
+    final IRI timCook = VF.createIRI(Common.TIM_COOK_IRI);
+    final List<Statement> additions = Arrays.asList(
+        VF.createStatement(contoso, RDF.TYPE, VF.createIRI(Common.COMPANY_IRI)),
+        VF.createStatement(contoso, RDFS.LABEL, VF.createLiteral("Contoso Ltd")),
+        VF.createStatement(timCook, RDFS.LABEL, VF.createLiteral("Timothy Cook")));
+    final CompactOntology updated = ontology.update(additions, Collections.emptyList());
+    updated.prepareReasoning();
+    final EntityGazetteer gazetteer = EntityGazetteer.update(previous, ontology, updated, additions,
+        Collections.emptyList());
+    final EntityGazetteer rebuilt = EntityGazetteer.build(updated, 16);
+    Assert.assertEquals(rebuilt.size(), gazetteer.size());
+    for (String name : Arrays.asList("Contoso", "Contoso Ltd", "Timothy Cook", "Tim Cook", "Amy Hood", "Amy")) {
+      Assert.assertEquals(rebuilt.matchType(name), gazetteer.matchType(name));
+      Assert.assertEquals(rebuilt.getEntities(name), gazetteer.getEntities(name));
+    }
+    Assert.assertEquals(GrammarMatchType.FULL, gazetteer.matchType("Contoso Ltd"));
+    Assert.assertEquals(GrammarMatchType.NONE, previous.matchType("Contoso Ltd"));
+    Assert.assertEquals(GrammarMatchType.NONE, previous.matchType("Timothy Cook"));
+    Assert.assertSame(cached, gazetteer.getElementarySLTAG("Amy Hood"));
+    Assert.assertEquals(2, gazetteer.getCached());
+
+    final List<Statement> unnamed = Collections.singletonList(
+        VF.createStatement(VF.createIRI(Common.MICROSOFT_IRI), VF.createIRI(Common.PREFIX + "hasCorporateOfficer"),
+            timCook));
+    final CompactOntology linked = updated.update(unnamed, Collections.emptyList());
+    linked.prepareReasoning();
+    Assert.assertSame(gazetteer, EntityGazetteer.update(gazetteer, updated, linked, unnamed,
+        Collections.emptyList()));
+
+    final CompactOntology reverted = updated.update(Collections.emptyList(), additions);
+    reverted.prepareReasoning();
+    final EntityGazetteer removed = EntityGazetteer.update(gazetteer, updated, reverted, Collections.emptyList(),
+        additions);
+    Assert.assertEquals(previous.size(), removed.size());
+    Assert.assertEquals(GrammarMatchType.NONE, removed.matchType("Contoso"));
+    Assert.assertEquals(GrammarMatchType.NONE, removed.matchType("Timothy"));
+    Assert.assertEquals(GrammarMatchType.FULL, gazetteer.matchType("Contoso"));
+  }
+}
@@ -0,0 +1,126 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.grammar;
+
+import com.acmutv.ontoqa.core.lemon.LexicalEntry;
+import com.acmutv.ontoqa.core.lexicon.LexiconFormat;
+import com.acmutv.ontoqa.core.lexicon.LexiconUsage;
+import com.acmutv.ontoqa.core.semantics.sltag.ElementarySltag;
+import com.acmutv.ontoqa.core.semantics.sltag.SerializeSltag;
+import com.acmutv.ontoqa.core.semantics.sltag.serial.ElementarySltagJsonMapper;
+import org.apache.commons.io.FileUtils;
+import org.apache.jena.system.JenaSystem;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * JUnit tests for {@link GrammarBuilder}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see GrammarBuilder
+ * @see GrammarManifest
+ */
+public class GrammarBuilderTest {
+
+  private static final String LEXICON = "data/lexicon/organizationWithAmbiguity.rdf";
+
+  @BeforeClass
+  public static void init() {
+    JenaSystem.init();
+  }
+
+  /**
+   * Returns the JSON serialization of the elementary SLTAGs of {@code grammar}, by key.
+   * @param grammar the grammar.
+   * @return the JSON serialization of the elementary SLTAGs of {@code grammar}, by key.
+   * @throws IOException when an elementary SLTAG cannot be serialized.
+   */
+  private static Map<String,List<String>> json(Grammar grammar) throws IOException {
+    final ElementarySltagJsonMapper mapper = new ElementarySltagJsonMapper();
+    final Map<String,List<String>> json = new TreeMap<>();
+    for (ElementarySltag sltag : grammar.getAllElementarySLTAG()) {
+      json.computeIfAbsent(sltag.getEntry().toLowerCase(), k -> new ArrayList<>())
+          .add(mapper.writeValueAsString(sltag));
+    }
+    return json;
+  }
+
+  /**
+   * Tests that incremental builds produce the same grammar as full builds, only compiling changed entries.
+   * @throws Exception when the lexicon cannot be read or the grammar cannot be built.
+   */
+  @Test
+  public void test_incremental() throws Exception {
+    final Path directory = Files.createTempDirectory("grammar");
+    try {
+      final String grammar = directory.resolve("organization.json").toString();
+      final Path manifest = directory.resolve("organization.json" + GrammarBuilder.MANIFEST_SUFFIX);
+      final List<LexicalEntry> entries = LexiconUsage.getLexicalEntries(LEXICON, "", LexiconFormat.RDFXML);
+      Assert.assertTrue(entries.size() > 2);
+
+      GrammarBuildReport report = GrammarBuilder.build(entries, grammar, GrammarFormat.JSON, manifest, 4);
+      Assert.assertEquals(entries.size(), report.getAdded());
+      Assert.assertTrue(report.isWritten());
+      Assert.assertEquals(json(SerializeSltag.getAllElementarySltag(entries)),
+          json(GrammarManager.read(grammar, GrammarFormat.JSON)));
+
+      report = GrammarBuilder.build(LexiconUsage.getLexicalEntries(LEXICON, "", LexiconFormat.RDFXML),
+          grammar, GrammarFormat.JSON, manifest, 4);
+      Assert.assertEquals(entries.size(), report.getUnchanged());
+      Assert.assertFalse(report.isModified());
+      Assert.assertFalse(report.isWritten());
+
+      final List<LexicalEntry> modified =
+          new ArrayList<>(LexiconUsage.getLexicalEntries(LEXICON, "", LexiconFormat.RDFXML));
+      final LexicalEntry last = modified.remove(modified.size() - 1);
+      modified.get(0).setCanonicalForm(modified.get(0).getCanonicalForm() + "s");
+      report = GrammarBuilder.build(modified, grammar, GrammarFormat.JSON, manifest, 4);
+      Assert.assertEquals(0, report.getAdded());
+      Assert.assertEquals(1, report.getChanged());
+      Assert.assertEquals(1, report.getRemoved());
+      Assert.assertEquals(entries.size() - 2, report.getUnchanged());
+      Assert.assertTrue(report.isWritten());
+      Assert.assertEquals(json(SerializeSltag.getAllElementarySltag(modified)),
+          json(GrammarManager.read(grammar, GrammarFormat.JSON)));
+
+      modified.add(last);
+      report = GrammarBuilder.build(modified, grammar, GrammarFormat.BINARY, manifest, 1);
+      Assert.assertEquals(1, report.getAdded());
+      Assert.assertEquals(json(SerializeSltag.getAllElementarySltag(modified)),
+          json(GrammarManager.read(grammar, GrammarFormat.BINARY)));
+    } finally {
+      FileUtils.deleteDirectory(directory.toFile());
+    }
+  }
+}
@@ -121,4 +121,14 @@ public class GrammarManagerTest {
     testReading(actual);
   }
 
+  /**
+   * Tests {@link Grammar} reading from multiple files (JSON), sequentially and in parallel.
+   */
+  @Test
+  public void test_readAll_json() throws IOException {
+    String in = GrammarManagerTest.class.getResource("/grammar/json/multiple/").getPath();
+    testReading(GrammarManager.readAll(in, GrammarFormat.JSON, 1));
+    testReading(GrammarManager.readAll(in, GrammarFormat.JSON, 4));
+  }
+
 }
@@ -0,0 +1,98 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.grammar;
+
+import com.acmutv.ontoqa.core.semantics.sltag.ElementarySltag;
+import com.acmutv.ontoqa.core.semantics.sltag.serial.ElementarySltagJsonMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * JUnit tests for {@link TemplateGrammar}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see TemplateGrammar
+ * @see GrammarManager#canonicalize(Grammar)
+ */
+public class TemplateGrammarTest {
+
+  /**
+   * Tests the canonicalization of a JSON grammar.
+   * @throws IOException when the grammar cannot be read.
+   */
+  @Test
+  public void test_canonicalize_json() throws IOException {
+    final String resource = TemplateGrammarTest.class.getResource("/grammar/organization.json").getPath();
+    final Grammar expected = GrammarManager.read(resource, GrammarFormat.JSON);
+    final Grammar actual = GrammarManager.canonicalize(GrammarManager.read(resource, GrammarFormat.JSON));
+    Assert.assertTrue(actual instanceof TemplateGrammar);
+    final TemplateGrammar canonical = (TemplateGrammar) actual;
+    Assert.assertEquals(expected.getAllElementarySLTAG().size(), canonical.size());
+    Assert.assertTrue(canonical.getTemplates() < canonical.size());
+    Assert.assertEquals(0, canonical.getUnshared());
+    CompiledGrammarTest.assertSameGrammar(expected, actual);
+  }
+
+  /**
+   * Tests the canonicalization of a grammar with every kind of DUDES statement.
+   * @throws IOException when an elementary SLTAG cannot be serialized.
+   */
+  @Test
+  public void test_canonicalize_complete() throws IOException {
+    final Grammar expected = CommonGrammar.build_completeGrammar();
+    CompiledGrammarTest.assertSameGrammar(expected, new TemplateGrammar(expected));
+  }
+
+  /**
+   * Tests that every lookup instantiates new elementary SLTAGs, and that changes are applied.
+   * @throws IOException when an elementary SLTAG cannot be serialized.
+   */
+  @Test
+  public void test_change() throws IOException {
+    final Grammar source = CommonGrammar.build_completeGrammar();
+    final TemplateGrammar grammar = new TemplateGrammar(source);
+    final ElementarySltagJsonMapper mapper = new ElementarySltagJsonMapper();
+    final List<ElementarySltag> first = grammar.getAllMatchingElementarySLTAG("Microsoft");
+    final List<ElementarySltag> second = grammar.getAllMatchingElementarySLTAG("Microsoft");
+    Assert.assertFalse(first.isEmpty());
+    Assert.assertNotSame(first.get(0), second.get(0));
+    Assert.assertEquals(mapper.writeValueAsString(first.get(0)), mapper.writeValueAsString(second.get(0)));
+
+    final int size = grammar.size();
+    final List<ElementarySltag> removed = grammar.remove("Microsoft");
+    Assert.assertEquals(first.size(), removed.size());
+    Assert.assertEquals(size - removed.size(), grammar.size());
+    Assert.assertEquals(GrammarMatchType.NONE, grammar.matchType("Microsoft"));
+    removed.forEach(grammar::addElementarySLTAG);
+    Assert.assertEquals(size, grammar.size());
+    Assert.assertEquals(GrammarMatchType.FULL, grammar.matchType("Microsoft"));
+  }
+}
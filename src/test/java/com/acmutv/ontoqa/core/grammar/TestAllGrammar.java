@@ -35,15 +35,23 @@ import org.junit.runners.Suite;
  * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
  * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
  * @since 1.0
+ * @see CompiledGrammarTest
+ * @see EntityGazetteerTest
+ * @see GrammarBuilderTest
  * @see GrammarManagerTest
  * @see GrammarSerializationTest
  * @see GrammarTest
+ * @see TemplateGrammarTest
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
+    CompiledGrammarTest.class,
+    EntityGazetteerTest.class,
+    GrammarBuilderTest.class,
     GrammarManagerTest.class,
     GrammarSerializationTest.class,
-    GrammarTest.class
+    GrammarTest.class,
+    TemplateGrammarTest.class
 })
 public class TestAllGrammar {
 }
@@ -27,7 +27,11 @@
 package com.acmutv.ontoqa.core.knowledge;
 
 import com.acmutv.ontoqa.benchmark.Common;
+import com.acmutv.ontoqa.core.Deadline;
 import com.acmutv.ontoqa.core.exception.QueryException;
+import com.acmutv.ontoqa.core.knowledge.answer.Answer;
+import com.acmutv.ontoqa.core.knowledge.answer.SimpleAnswer;
+import com.acmutv.ontoqa.core.knowledge.answer.StreamingAnswer;
 import com.acmutv.ontoqa.core.knowledge.ontology.*;
 import com.acmutv.ontoqa.core.knowledge.query.QueryResult;
 import com.acmutv.ontoqa.core.knowledge.query.SimpleQueryResult;
@@ -109,6 +113,70 @@ public class KnowledgeManagerTest {
     Assert.assertEquals(expected, actual);
   }
 
+  /**
+   * Tests query submission to a compact ontology, answered on its RDFS closure.
+   * @throws QueryException when the query cannot be submitted.
+   */
+  @Test
+  public void test_submit_query_compact() throws QueryException {
+    final CompactOntology ontology = new CompactOntology();
+    ontology.merge(Commons.buildOntology(1, null));
+    final String sparql = "SELECT ?x WHERE { ?x a <http://example.org/Mortal> }";
+    final Query query = QueryFactory.create(sparql);
+    final QueryResult actual = KnowledgeManager.submit(ontology, query);
+    QueryResult expected = new SimpleQueryResult();
+    expected.add(SimpleValueFactory.getInstance().createIRI("http://example.org/", "Socrates"));
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(KnowledgeManager.submit(Commons.buildOntology(1, null), query), actual);
+  }
+
+  /**
+   * Tests the pushdown of paging into a query, combined with the query own OFFSET and LIMIT.
+   */
+  @Test
+  public void test_paginate() {
+    final Query query = QueryFactory.create("SELECT ?x WHERE { ?x ?p ?o } OFFSET 2 LIMIT 10");
+    final Query page = KnowledgeManager.paginate(query, 4, 5);
+    Assert.assertEquals(6, page.getOffset());
+    Assert.assertEquals(5, page.getLimit());
+    Assert.assertEquals(2, query.getOffset());
+    Assert.assertEquals(10, query.getLimit());
+
+    final Query last = KnowledgeManager.paginate(query, 8, 5);
+    Assert.assertEquals(10, last.getOffset());
+    Assert.assertEquals(2, last.getLimit());
+
+    final Query ask = QueryFactory.create("ASK WHERE { ?x ?p ?o }");
+    Assert.assertSame(ask, KnowledgeManager.paginate(ask, 4, 5));
+  }
+
+  /**
+   * Tests that streamed pages of an answer, read through cursors, equal the submitted answer.
+   * @throws Exception when the query cannot be submitted.
+   */
+  @Test
+  public void test_open_paged() throws Exception {
+    final Ontology ontology = Common.getOntology();
+    final Query query = QueryFactory.create("SELECT DISTINCT ?x WHERE { ?x ?p ?o FILTER isIRI(?x) } ORDER BY ?x");
+    final Answer expected = KnowledgeManager.submit(ontology, query).toAnswer();
+
+    try (StreamingAnswer streamed = KnowledgeManager.open(ontology, query, Deadline.NONE).toAnswer()) {
+      Assert.assertEquals(expected, new SimpleAnswer(streamed.toArray(new String[0])));
+    }
+
+    final SimpleAnswer actual = new SimpleAnswer();
+    final int limit = 7;
+    boolean more = true;
+    for (long offset = 0; more; offset += limit) {
+      final Query page = KnowledgeManager.paginate(query, offset, limit + 1);
+      try (StreamingAnswer answer = KnowledgeManager.open(ontology, page, Deadline.NONE).toAnswer()) {
+        actual.addAll(answer.take(limit));
+        more = answer.hasMore();
+      }
+    }
+    Assert.assertEquals(expected, actual);
+  }
+
   /**
    * Test the feasibility check (true).
    * Considers only query with triples without variables.
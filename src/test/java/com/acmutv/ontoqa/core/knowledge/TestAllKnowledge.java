@@ -26,7 +26,10 @@
 
 package com.acmutv.ontoqa.core.knowledge;
 
+import com.acmutv.ontoqa.core.knowledge.backend.TestAllBackend;
 import com.acmutv.ontoqa.core.knowledge.ontology.TestAllOntology;
+import com.acmutv.ontoqa.core.knowledge.query.TestAllQuery;
+import com.acmutv.ontoqa.core.knowledge.sail.TestAllSail;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
@@ -37,11 +40,17 @@ import org.junit.runners.Suite;
  * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
  * @since 1.0
  * @see TestAllOntology
+ * @see TestAllSail
+ * @see TestAllBackend
+ * @see TestAllQuery
  * @see KnowledgeManagerTest
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
     TestAllOntology.class,
+    TestAllSail.class,
+    TestAllBackend.class,
+    TestAllQuery.class,
     KnowledgeManagerTest.class
 })
 public class TestAllKnowledge {
@@ -0,0 +1,188 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.knowledge.backend;
+
+import com.acmutv.ontoqa.benchmark.Common;
+import com.acmutv.ontoqa.core.CoreController;
+import com.acmutv.ontoqa.core.Deadline;
+import com.acmutv.ontoqa.core.grammar.Grammar;
+import com.acmutv.ontoqa.core.knowledge.KnowledgeManager;
+import com.acmutv.ontoqa.core.knowledge.answer.Answer;
+import com.acmutv.ontoqa.core.knowledge.answer.StreamingAnswer;
+import com.acmutv.ontoqa.core.knowledge.ontology.CompactOntology;
+import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
+import com.acmutv.ontoqa.core.knowledge.ontology.ReasoningMode;
+import com.acmutv.ontoqa.core.knowledge.ontology.ShardedOntology;
+import com.acmutv.ontoqa.session.WarmupManager;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.system.JenaSystem;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static com.acmutv.ontoqa.benchmark.Common.*;
+
+/**
+ * JUnit tests for {@link ShardedKnowledgeBackend}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see ShardedKnowledgeBackend
+ * @see ShardedOntology
+ */
+public class ShardedKnowledgeBackendTest {
+
+  private static final String CORPUS_PATH = "data/warmup/benchmark.questions.txt";
+
+  private static CompactOntology ontology;
+
+  private static ShardedOntology sharded;
+
+  @BeforeClass
+  public static void loadOntology() throws Exception {
+    /* test methods run in parallel: Jena must be initialized once, beforehand */
+    JenaSystem.init();
+    ontology = Common.getOntology(ReasoningMode.MATERIALIZATION);
+    sharded = new ShardedOntology(ontology, 3);
+  }
+
+  /**
+   * Tests the detection of queries that can be evaluated shard by shard.
+   */
+  @Test
+  public void test_starSubject() {
+    Assert.assertEquals(NodeFactory.createVariable("x"), ShardedKnowledgeBackend.getStarSubject(QueryFactory.create(
+        String.format("SELECT ?x WHERE { ?x <%s> <%s> . ?x a <%s> FILTER (?x != <%s>) }",
+            IS_ACQUIRED_BY_IRI, MICROSOFT_IRI, COMPANY_IRI, APPLE_IRI))));
+    Assert.assertEquals(NodeFactory.createURI(MICROSOFT_IRI), ShardedKnowledgeBackend.getStarSubject(
+        QueryFactory.create(String.format("ASK WHERE { <%s> <%s> ?x }", MICROSOFT_IRI, HAS_CEO_IRI))));
+    Assert.assertNull(ShardedKnowledgeBackend.getStarSubject(QueryFactory.create(
+        String.format("SELECT ?z WHERE { ?x <%s> ?y . ?y <%s> ?z }", IS_ACQUIRED_BY_IRI, HAS_CEO_IRI))));
+    Assert.assertNull(ShardedKnowledgeBackend.getStarSubject(QueryFactory.create(
+        String.format("SELECT ?x WHERE { ?x <%s> ?y FILTER EXISTS { ?y <%s> ?z } }", IS_ACQUIRED_BY_IRI, HAS_CEO_IRI))));
+    Assert.assertNull(ShardedKnowledgeBackend.getStarSubject(QueryFactory.create(
+        String.format("SELECT ?x WHERE { ?x <%s> ?y } LIMIT 1", IS_ACQUIRED_BY_IRI))));
+  }
+
+  /**
+   * Tests that {@code SELECT} and {@code ASK} queries get the same answers from the shards
+   * as from the whole ontology, for star-shaped patterns and for joins across shards, also when streamed.
+   */
+  @Test
+  public void test_submit() throws Exception {
+    final List<Query> queries = Arrays.asList(
+        QueryFactory.create(String.format("SELECT ?x WHERE { ?x <%s> <%s> }", IS_ACQUIRED_BY_IRI, MICROSOFT_IRI)),
+        QueryFactory.create(String.format("SELECT ?x WHERE { ?x a <%s> }", PERSON_IRI)),
+        QueryFactory.create(String.format("SELECT ?x WHERE { <%s> <%s> ?x }", MICROSOFT_IRI, HAS_CEO_IRI)),
+        QueryFactory.create(String.format("SELECT ?z WHERE { ?x <%s> ?y . ?y <%s> ?z }", IS_ACQUIRED_BY_IRI, HAS_CEO_IRI)),
+        QueryFactory.create(String.format("SELECT DISTINCT ?y WHERE { ?x <%s> ?y }", HAS_NATIONALITY_IRI)),
+        QueryFactory.create(String.format("SELECT ?x WHERE { ?x a <%s> } ORDER BY ?x LIMIT 2", COMPANY_IRI)),
+        QueryFactory.create(String.format("ASK WHERE { ?x <%s> <%s> }", IS_ACQUIRED_BY_IRI, MICROSOFT_IRI)),
+        QueryFactory.create(String.format("ASK WHERE { <%s> <%s> <%s> }", SATYA_NADELLA_IRI, HAS_HEADQUARTER_IRI, ITALY_IRI))
+    );
+    for (Query query : queries) {
+      final Answer expected = KnowledgeManager.submit(ontology, query).toAnswer();
+      final Answer actual = KnowledgeManager.submit(sharded, query).toAnswer();
+      Assert.assertEquals(query.toString(), expected.size(), actual.size());
+      Assert.assertEquals(query.toString(), new HashSet<>(expected), new HashSet<>(actual));
+      if (query.isSelectType()) {
+        try (StreamingAnswer streamed = KnowledgeManager.open(sharded, query, Deadline.NONE).toAnswer()) {
+          Assert.assertEquals(query.toString(), new HashSet<>(expected), new HashSet<>(streamed));
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that batched feasibility checks get the same verdicts from the shards as from the whole ontology.
+   * @throws Exception when the check cannot be completed.
+   */
+  @Test
+  public void test_checkFeasibility() throws Exception {
+    final List<Query> queries = new ArrayList<>();
+    for (int i = 0; i < 12; i++) {
+      final String predicate = (i % 2 == 0) ? HAS_NATIONALITY_IRI : HAS_HEADQUARTER_IRI;
+      if (i % 3 == 0) {
+        queries.add(QueryFactory.create(String.format("ASK WHERE { <%s> <%s> <%s> }",
+            SATYA_NADELLA_IRI, predicate, ITALY_IRI)));
+      } else if (i % 3 == 1) {
+        queries.add(QueryFactory.create(String.format("ASK WHERE { ?x <%s> <%s> . ?x <%s> <%s> }",
+            IS_ACQUIRED_BY_IRI, MICROSOFT_IRI, predicate, ITALY_IRI)));
+      } else {
+        queries.add(QueryFactory.create(String.format("ASK WHERE { ?x <%s> ?y . ?y <%s> <%s> }",
+            IS_ACQUIRED_BY_IRI, predicate, UNITED_STATES_IRI)));
+      }
+    }
+    final boolean[] expected = KnowledgeManager.checkFeasibility2(ontology, queries, Deadline.NONE);
+    Assert.assertArrayEquals(expected, KnowledgeManager.checkFeasibility2(sharded, queries, Deadline.NONE));
+  }
+
+  /**
+   * Tests that the benchmark questions get the same queries and answers from the shards
+   * as from the whole ontology, feasibility checks included.
+   * @throws Exception when a question cannot be processed.
+   */
+  @Test
+  public void test_benchmark() throws Exception {
+    final Grammar grammar = Common.getGrammar();
+    final List<String> questions = WarmupManager.readCorpus(CORPUS_PATH);
+    for (String question : questions) {
+      final Pair<Query,Answer> expected = process(question, grammar, ontology);
+      final Pair<Query,Answer> actual = process(question, grammar, sharded);
+      if (expected == null) {
+        Assert.assertNull(question, actual);
+      } else {
+        Assert.assertNotNull(question, actual);
+        Assert.assertEquals(question, expected.getLeft(), actual.getLeft());
+        Assert.assertEquals(question, new HashSet<>(expected.getRight()), new HashSet<>(actual.getRight()));
+      }
+    }
+  }
+
+  /**
+   * Processes {@code question}.
+   * @param question the question.
+   * @param grammar the grammar.
+   * @param ontology the ontology.
+   * @return the query and the answer; null, if the question cannot be processed.
+   */
+  private static Pair<Query,Answer> process(String question, Grammar grammar, Ontology ontology) {
+    try {
+      return CoreController.process(question, grammar, ontology);
+    } catch (Exception exc) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,181 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.backend;
+
+import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
+import com.acmutv.ontoqa.core.knowledge.ontology.OntologyFiller;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.rdf4j.query.BooleanQuery;
+import org.eclipse.rdf4j.query.Query;
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.TupleQuery;
+import org.eclipse.rdf4j.query.resultio.BooleanQueryResultFormat;
+import org.eclipse.rdf4j.query.resultio.QueryResultIO;
+import org.eclipse.rdf4j.query.resultio.TupleQueryResultFormat;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.repository.util.Repositories;
+import org.eclipse.rdf4j.sail.inferencer.fc.ForwardChainingRDFSInferencer;
+import org.eclipse.rdf4j.sail.memory.MemoryStore;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A local stand-in for a SPARQL 1.1 endpoint, serving an ontology with RDFS entailment.
+ * It counts requests and client connections, and can be told to fail the next requests.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see SparqlKnowledgeBackend
+ */
+public class SparqlEndpointStub implements AutoCloseable {
+
+  private final HttpServer server;
+
+  private final Repository repository;
+
+  private final AtomicInteger requests = new AtomicInteger();
+
+  private final AtomicInteger failures = new AtomicInteger();
+
+  private final Set<Integer> connections = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Starts an endpoint serving {@code ontology} on a free local port.
+   * @param ontology the ontology to serve.
+   * @throws IOException when the endpoint cannot be started.
+   */
+  public SparqlEndpointStub(Ontology ontology) throws IOException {
+    this.repository = new SailRepository(new ForwardChainingRDFSInferencer(new MemoryStore()));
+    this.repository.initialize();
+    Repositories.consume(this.repository, new OntologyFiller(ontology));
+    this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    this.server.createContext("/sparql", this::handle);
+    this.server.start();
+  }
+
+  /**
+   * Returns the endpoint URL.
+   * @return the endpoint URL.
+   */
+  public String getUrl() {
+    return "http://localhost:" + this.server.getAddress().getPort() + "/sparql";
+  }
+
+  /**
+   * Returns the number of requests received so far.
+   * @return the number of requests.
+   */
+  public int getRequests() {
+    return this.requests.get();
+  }
+
+  /**
+   * Returns the number of distinct client connections seen so far.
+   * @return the number of connections.
+   */
+  public int getConnections() {
+    return this.connections.size();
+  }
+
+  /**
+   * Makes the next {@code count} requests fail with {@code 500 Internal Server Error}.
+   * @param count the number of requests to fail.
+   */
+  public void fail(int count) {
+    this.failures.set(count);
+  }
+
+  @Override
+  public void close() {
+    this.server.stop(0);
+    this.repository.shutDown();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    this.requests.incrementAndGet();
+    this.connections.add(exchange.getRemoteAddress().getPort());
+    String body = IOUtils.toString(exchange.getRequestBody(), StandardCharsets.UTF_8);
+    if (this.failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+      respond(exchange, 500, "text/plain", "Internal Server Error".getBytes(StandardCharsets.UTF_8));
+      return;
+    }
+    String query = getQuery(exchange, body);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    String contentType;
+    try (RepositoryConnection conn = this.repository.getConnection()) {
+      Query prepared = conn.prepareQuery(QueryLanguage.SPARQL, query);
+      if (prepared instanceof BooleanQuery) {
+        QueryResultIO.writeBoolean(((BooleanQuery) prepared).evaluate(), BooleanQueryResultFormat.SPARQL, out);
+        contentType = BooleanQueryResultFormat.SPARQL.getDefaultMIMEType();
+      } else {
+        QueryResultIO.writeTuple(((TupleQuery) prepared).evaluate(), TupleQueryResultFormat.SPARQL, out);
+        contentType = TupleQueryResultFormat.SPARQL.getDefaultMIMEType();
+      }
+    } catch (RuntimeException exc) {
+      respond(exchange, 400, "text/plain", String.valueOf(exc.getMessage()).getBytes(StandardCharsets.UTF_8));
+      return;
+    }
+    respond(exchange, 200, contentType, out.toByteArray());
+  }
+
+  private static String getQuery(HttpExchange exchange, String body) throws UnsupportedEncodingException {
+    String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+    if (contentType != null && contentType.startsWith("application/sparql-query")) {
+      return body;
+    }
+    String params = ("POST".equals(exchange.getRequestMethod())) ? body : exchange.getRequestURI().getRawQuery();
+    for (String param : params.split("&")) {
+      if (param.startsWith("query=")) {
+        return URLDecoder.decode(param.substring("query=".length()), "UTF-8");
+      }
+    }
+    return "";
+  }
+
+  private static void respond(HttpExchange exchange, int status, String contentType, byte[] body)
+      throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
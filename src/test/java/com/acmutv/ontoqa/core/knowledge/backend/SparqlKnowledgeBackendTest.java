@@ -0,0 +1,263 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.backend;
+
+import com.acmutv.ontoqa.benchmark.Common;
+import com.acmutv.ontoqa.core.CoreController;
+import com.acmutv.ontoqa.core.Deadline;
+import com.acmutv.ontoqa.core.grammar.Grammar;
+import com.acmutv.ontoqa.core.knowledge.KnowledgeManager;
+import com.acmutv.ontoqa.core.knowledge.answer.Answer;
+import com.acmutv.ontoqa.core.knowledge.answer.StreamingAnswer;
+import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
+import com.acmutv.ontoqa.session.WarmupManager;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.eclipse.rdf4j.RDF4JException;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static com.acmutv.ontoqa.benchmark.Common.*;
+
+/**
+ * JUnit tests for {@link SparqlKnowledgeBackend}, against a local stand-in endpoint.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see SparqlKnowledgeBackend
+ * @see SparqlEndpointStub
+ */
+public class SparqlKnowledgeBackendTest {
+
+  private static final String CORPUS_PATH = "data/warmup/benchmark.questions.txt";
+
+  private static Ontology ontology;
+
+  @BeforeClass
+  public static void loadOntology() {
+    ontology = Common.getOntology();
+  }
+
+  /**
+   * Tests that {@code SELECT} and {@code ASK} queries get the same answers from the endpoint
+   * as from the ontology in memory, also when streamed.
+   * @throws Exception when a query cannot be submitted.
+   */
+  @Test
+  public void test_submit() throws Exception {
+    final List<Query> queries = Arrays.asList(
+        QueryFactory.create(String.format("SELECT ?x WHERE { ?x <%s> <%s> }", IS_ACQUIRED_BY_IRI, MICROSOFT_IRI)),
+        QueryFactory.create(String.format("SELECT ?x WHERE { ?x a <%s> }", PERSON_IRI)),
+        QueryFactory.create(String.format("ASK WHERE { <%s> <%s> <%s> }", SATYA_NADELLA_IRI, HAS_NATIONALITY_IRI, ITALY_IRI)),
+        QueryFactory.create(String.format("ASK WHERE { <%s> <%s> <%s> }", SATYA_NADELLA_IRI, HAS_HEADQUARTER_IRI, ITALY_IRI))
+    );
+    final List<Answer> expected = new ArrayList<>();
+    for (Query query : queries) {
+      expected.add(KnowledgeManager.submit(ontology, query).toAnswer());
+    }
+    try (SparqlEndpointStub endpoint = new SparqlEndpointStub(ontology)) {
+      final RemoteOntology remote = new RemoteOntology(new SparqlKnowledgeBackend(endpoint.getUrl(), 2, 5000, 0));
+      try {
+        for (int i = 0; i < queries.size(); i++) {
+          final Query query = queries.get(i);
+          Assert.assertEquals(new HashSet<>(expected.get(i)),
+              new HashSet<>(KnowledgeManager.submit(remote, query).toAnswer()));
+          try (StreamingAnswer streamed = KnowledgeManager.open(remote, query, Deadline.NONE).toAnswer()) {
+            Assert.assertEquals(new HashSet<>(expected.get(i)), new HashSet<>(streamed));
+          }
+        }
+      } finally {
+        remote.getBackend().shutDown();
+      }
+    }
+  }
+
+  /**
+   * Tests that sequential requests reuse a pooled keep-alive connection.
+   */
+  @Test
+  public void test_keepAlive() throws Exception {
+    final Query query = QueryFactory.create(String.format("SELECT ?x WHERE { ?x <%s> <%s> }",
+        IS_ACQUIRED_BY_IRI, MICROSOFT_IRI));
+    try (SparqlEndpointStub endpoint = new SparqlEndpointStub(ontology)) {
+      final SparqlKnowledgeBackend backend = new SparqlKnowledgeBackend(endpoint.getUrl(), 2, 5000, 0);
+      try {
+        for (int i = 0; i < 10; i++) {
+          backend.submitSelect(ontology, query.toString(), "x", Deadline.NONE);
+        }
+        Assert.assertEquals(10, endpoint.getRequests());
+        Assert.assertEquals(1, endpoint.getConnections());
+      } finally {
+        backend.shutDown();
+      }
+    }
+  }
+
+  /**
+   * Tests that requests failed for transient reasons are retried, up to the number of retries.
+   */
+  @Test
+  public void test_retry() throws Exception {
+    final String query = String.format("ASK WHERE { ?x <%s> <%s> }", IS_ACQUIRED_BY_IRI, MICROSOFT_IRI);
+    try (SparqlEndpointStub endpoint = new SparqlEndpointStub(ontology)) {
+      final SparqlKnowledgeBackend backend = new SparqlKnowledgeBackend(endpoint.getUrl(), 2, 5000, 2);
+      try {
+        endpoint.fail(2);
+        Assert.assertEquals("true", backend.submitAsk(ontology, query, Deadline.NONE).toAnswer().get(0));
+        Assert.assertEquals(3, endpoint.getRequests());
+
+        endpoint.fail(3);
+        try {
+          backend.submitAsk(ontology, query, Deadline.NONE);
+          Assert.fail("Expected the request to fail after 2 retries");
+        } catch (RDF4JException exc) {
+          Assert.assertEquals(6, endpoint.getRequests());
+        }
+      } finally {
+        backend.shutDown();
+      }
+    }
+  }
+
+  /**
+   * Tests that failed requests are not retried when the deadline leaves no time for a further attempt.
+   */
+  @Test
+  public void test_retry_deadline() throws Exception {
+    final String query = String.format("ASK WHERE { ?x <%s> <%s> }", IS_ACQUIRED_BY_IRI, MICROSOFT_IRI);
+    try (SparqlEndpointStub endpoint = new SparqlEndpointStub(ontology)) {
+      final SparqlKnowledgeBackend backend = new SparqlKnowledgeBackend(endpoint.getUrl(), 2, 5000, 2);
+      try {
+        endpoint.fail(1);
+        try {
+          backend.submitAsk(ontology, query, Deadline.in(SparqlKnowledgeBackend.MIN_ATTEMPT_TIME / 2));
+          Assert.fail("Expected the request to fail without retries");
+        } catch (RDF4JException exc) {
+          Assert.assertEquals(1, endpoint.getRequests());
+        }
+
+        endpoint.fail(1);
+        Assert.assertEquals("true", backend.submitAsk(ontology, query, Deadline.in(60000)).toAnswer().get(0));
+        Assert.assertEquals(3, endpoint.getRequests());
+      } finally {
+        backend.shutDown();
+      }
+    }
+  }
+
+  /**
+   * Tests that feasibility checks are batched into as few requests as possible,
+   * with the same verdicts as on the ontology in memory.
+   * @throws Exception when the check cannot be completed.
+   */
+  @Test
+  public void test_checkFeasibility_batched() throws Exception {
+    final List<Query> queries = new ArrayList<>();
+    for (int i = 0; i < SparqlKnowledgeBackend.BATCH_SIZE + 8; i++) {
+      final String predicate = (i % 2 == 0) ? HAS_NATIONALITY_IRI : HAS_HEADQUARTER_IRI;
+      if (i % 3 == 0) {
+        queries.add(QueryFactory.create(String.format("ASK WHERE { <%s> <%s> <%s> }",
+            SATYA_NADELLA_IRI, predicate, ITALY_IRI)));
+      } else {
+        queries.add(QueryFactory.create(String.format("ASK WHERE { ?x <%s> <%s> . ?x <%s> <%s> }",
+            IS_ACQUIRED_BY_IRI, MICROSOFT_IRI, predicate, ITALY_IRI)));
+      }
+    }
+    final boolean[] expected = new boolean[queries.size()];
+    for (int i = 0; i < queries.size(); i++) {
+      expected[i] = KnowledgeManager.checkFeasibility2(ontology, queries.get(i));
+    }
+    Assert.assertArrayEquals(expected, KnowledgeManager.checkFeasibility2(ontology, queries, Deadline.NONE));
+
+    try (SparqlEndpointStub endpoint = new SparqlEndpointStub(ontology)) {
+      final RemoteOntology remote = new RemoteOntology(new SparqlKnowledgeBackend(endpoint.getUrl(), 2, 5000, 0));
+      try {
+        final boolean[] actual = KnowledgeManager.checkFeasibility2(remote, queries, Deadline.NONE);
+        Assert.assertEquals(2, endpoint.getRequests());
+        Assert.assertArrayEquals(expected, actual);
+      } finally {
+        remote.getBackend().shutDown();
+      }
+    }
+  }
+
+  /**
+   * Tests that the benchmark questions get the same queries and answers from the endpoint
+   * as from the ontology in memory, feasibility checks included.
+   * @throws Exception when a question cannot be processed.
+   */
+  @Test
+  public void test_benchmark() throws Exception {
+    final Grammar grammar = Common.getGrammar();
+    final List<String> questions = WarmupManager.readCorpus(CORPUS_PATH);
+    final List<Pair<Query,Answer>> expected = new ArrayList<>();
+    for (String question : questions) {
+      expected.add(process(question, grammar, ontology));
+    }
+    try (SparqlEndpointStub endpoint = new SparqlEndpointStub(ontology)) {
+      final RemoteOntology remote = new RemoteOntology(new SparqlKnowledgeBackend(endpoint.getUrl(), 4, 5000, 0));
+      try {
+        for (int i = 0; i < questions.size(); i++) {
+          final Pair<Query,Answer> actual = process(questions.get(i), grammar, remote);
+          if (expected.get(i) == null) {
+            Assert.assertNull(questions.get(i), actual);
+          } else {
+            Assert.assertNotNull(questions.get(i), actual);
+            Assert.assertEquals(questions.get(i), expected.get(i).getLeft(), actual.getLeft());
+            Assert.assertEquals(questions.get(i), new HashSet<>(expected.get(i).getRight()),
+                new HashSet<>(actual.getRight()));
+          }
+        }
+      } finally {
+        remote.getBackend().shutDown();
+      }
+    }
+  }
+
+  /**
+   * Processes {@code question}.
+   * @param question the question.
+   * @param grammar the grammar.
+   * @param ontology the ontology.
+   * @return the query and the answer; null, if the question cannot be processed.
+   */
+  private static Pair<Query,Answer> process(String question, Grammar grammar, Ontology ontology) {
+    try {
+      return CoreController.process(question, grammar, ontology);
+    } catch (Exception exc) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,353 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.ontology;
+
+import com.acmutv.ontoqa.core.knowledge.Commons;
+import com.acmutv.ontoqa.core.knowledge.KnowledgeManager;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Model;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.RepositoryResult;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.sail.inferencer.fc.ForwardChainingRDFSInferencer;
+import org.eclipse.rdf4j.sail.memory.MemoryStore;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JUnit tests for {@link CompactOntology}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see CompactOntology
+ * @see TripleIndex
+ */
+public class CompactOntologyTest {
+
+  private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+  private static final String NS = "http://example.org/";
+
+  /**
+   * Tests that a compact ontology holds the same statements as a simple one.
+   */
+  @Test
+  public void test_merge() {
+    final Ontology expected = Commons.buildOntology(3, null);
+    CompactOntology actual = new CompactOntology();
+    actual.merge(Commons.buildOntology(1, null));
+    actual.merge(Commons.buildOntology(2, null));
+
+    Assert.assertEquals(expected.size(), actual.size());
+    Assert.assertTrue(actual.equals(expected));
+  }
+
+  /**
+   * Tests pattern matching on every combination of bound terms.
+   */
+  @Test
+  public void test_match() {
+    final Ontology expected = Commons.buildOntology(3, null);
+    CompactOntology actual = new CompactOntology();
+    actual.merge(expected);
+
+    for (Statement st : expected) {
+      for (int mask = 0; mask < 8; mask++) {
+        IRI pred = ((mask & 2) != 0) ? st.getPredicate() : null;
+        Model expectedMatch = expected.filter(((mask & 1) != 0) ? st.getSubject() : null, pred,
+            ((mask & 4) != 0) ? st.getObject() : null);
+        Set<Statement> actualMatch = new HashSet<>();
+        actual.getStatements(((mask & 1) != 0) ? st.getSubject() : null, pred,
+            ((mask & 4) != 0) ? st.getObject() : null).forEach(actualMatch::add);
+        Assert.assertEquals(new HashSet<>(expectedMatch), actualMatch);
+        Assert.assertEquals(expectedMatch.size(), actual.count(((mask & 1) != 0) ? st.getSubject() : null, pred,
+            ((mask & 4) != 0) ? st.getObject() : null));
+      }
+    }
+
+    Assert.assertFalse(actual.getStatements(VF.createIRI(NS, "Plato"), null, null).iterator().hasNext());
+  }
+
+  /**
+   * Tests matching in insertion order, when it differs from index order.
+   */
+  @Test
+  public void test_matchInInsertionOrder() {
+    final IRI person = VF.createIRI(NS, "Person");
+    final List<IRI> people = Arrays.asList(VF.createIRI(NS, "Zeno"), VF.createIRI(NS, "Aristotle"),
+        VF.createIRI(NS, "Marx"));
+    CompactOntology ontology = new CompactOntology();
+    for (int i = people.size() - 1; i >= 0; i--) {
+      ontology.add(people.get(i), RDFS.LABEL, VF.createLiteral(people.get(i).getLocalName()));
+    }
+    for (IRI individual : people) {
+      ontology.add(individual, RDF.TYPE, person);
+    }
+
+    List<Resource> actual = new ArrayList<>();
+    ontology.matchInInsertionOrder(null, RDF.TYPE, person).forEachRemaining(st -> actual.add(st.getSubject()));
+    Assert.assertEquals(people, actual);
+  }
+
+  /**
+   * Tests that matches come in index order whether or not the index has overlays.
+   */
+  @Test
+  public void test_getStatements() {
+    final IRI person = VF.createIRI(NS, "Person");
+    CompactOntology ontology = new CompactOntology();
+    for (String name : Arrays.asList("Zeno", "Aristotle", "Marx", "Plato")) {
+      ontology.add(VF.createIRI(NS, name), RDFS.LABEL, VF.createLiteral(name));
+    }
+    for (String name : Arrays.asList("Zeno", "Marx")) {
+      ontology.add(VF.createIRI(NS, name), RDF.TYPE, person);
+    }
+    CompactOntology layered = ontology.update(Arrays.asList(
+        VF.createStatement(VF.createIRI(NS, "Plato"), RDF.TYPE, person),
+        VF.createStatement(VF.createIRI(NS, "Aristotle"), RDF.TYPE, person)), Collections.emptyList());
+    CompactOntology merged = new CompactOntology(null, layered.getDictionary(), layered.getIndex().compact());
+
+    List<Statement> expected = new ArrayList<>();
+    merged.getStatements(null, RDF.TYPE, person).forEach(expected::add);
+    List<Statement> actual = new ArrayList<>();
+    layered.getStatements(null, RDF.TYPE, person).forEach(actual::add);
+    Assert.assertEquals(4, expected.size());
+    Assert.assertEquals(expected, actual);
+  }
+
+  /**
+   * Tests interleaved additions and removals.
+   */
+  @Test
+  public void test_addRemove() {
+    final IRI socrates = VF.createIRI(NS, "Socrates");
+    final IRI elonmusk = VF.createIRI(NS, "Elon_Musk");
+    CompactOntology actual = new CompactOntology();
+    actual.merge(Commons.buildOntology(3, null));
+
+    Assert.assertTrue(actual.remove(elonmusk, null, null));
+    Assert.assertFalse(actual.remove(elonmusk, null, null));
+    Assert.assertFalse(actual.contains(elonmusk, RDF.TYPE, VF.createIRI(NS, "Person")));
+    Assert.assertTrue(actual.equals(Commons.buildOntology(1, null)));
+
+    Assert.assertFalse(actual.add(socrates, RDFS.LABEL, VF.createLiteral("Socrates", "en")));
+    Assert.assertTrue(actual.add(socrates, RDFS.LABEL, VF.createLiteral("Sokrates", "de")));
+    Assert.assertFalse(actual.add(socrates, RDFS.LABEL, VF.createLiteral("Sokrates", "de")));
+    Assert.assertTrue(actual.contains(socrates, RDFS.LABEL, VF.createLiteral("Sokrates", "de")));
+
+    actual.removeIf(st -> st.getObject().equals(VF.createLiteral("Sokrates", "de")));
+    Assert.assertTrue(actual.equals(Commons.buildOntology(1, null)));
+  }
+
+  /**
+   * Tests the RDFS closure, and its invalidation on change.
+   */
+  @Test
+  public void test_rdfsClosure() {
+    final IRI socrates = VF.createIRI(NS, "Socrates");
+    final IRI plato = VF.createIRI(NS, "Plato");
+    final IRI person = VF.createIRI(NS, "Person");
+    final IRI mortal = VF.createIRI(NS, "Mortal");
+    CompactOntology ontology = new CompactOntology();
+    ontology.merge(Commons.buildOntology(1, null));
+
+    CompactOntology closure = ontology.getRdfsClosure();
+    Assert.assertSame(closure, ontology.getRdfsClosure());
+    Assert.assertSame(ontology.getDictionary(), closure.getDictionary());
+    Assert.assertTrue(closure.contains(socrates, RDF.TYPE, mortal));
+    Assert.assertFalse(ontology.contains(socrates, RDF.TYPE, mortal));
+
+    ontology.add(plato, RDF.TYPE, person);
+    Assert.assertNotSame(closure, ontology.getRdfsClosure());
+    Assert.assertTrue(ontology.getRdfsClosure().contains(plato, RDF.TYPE, mortal));
+    Assert.assertEquals(computeClosure(ontology), new HashSet<>(ontology.getRdfsClosure()));
+  }
+
+  /**
+   * Tests the RDFS schema hierarchy, and its invalidation on change.
+   */
+  @Test
+  public void test_rdfsSchema() {
+    final IRI person = VF.createIRI(NS, "Person");
+    final IRI mortal = VF.createIRI(NS, "Mortal");
+    final IRI being = VF.createIRI(NS, "Being");
+    CompactOntology ontology = new CompactOntology();
+    ontology.merge(Commons.buildOntology(1, null));
+    final TermDictionary dictionary = ontology.getDictionary();
+
+    RdfsSchema schema = ontology.getRdfsSchema();
+    Assert.assertSame(schema, ontology.getRdfsSchema());
+    Assert.assertTrue(schema.getClassAndSuperClasses(dictionary.lookup(person)).contains(dictionary.lookup(mortal)));
+    Assert.assertTrue(schema.getClassAndSubClasses(dictionary.lookup(mortal)).contains(dictionary.lookup(person)));
+
+    ontology.add(mortal, RDFS.SUBCLASSOF, being);
+    Assert.assertNotSame(schema, ontology.getRdfsSchema());
+    Assert.assertTrue(ontology.getRdfsSchema().getSuperClasses().get(dictionary.lookup(person))
+        .contains(dictionary.lookup(being)));
+  }
+
+  /**
+   * Tests updates: the previous version is left untouched, the RDFS closure is maintained incrementally
+   * and the schema hierarchy is reused.
+   * @throws IOException when the ontology file cannot be read.
+   */
+  @Test
+  public void test_update() throws IOException {
+    final String resource = CompactOntologyTest.class.getResource("/knowledge/organization.ttl").getPath();
+    final String ns = "http://www.semanticweb.org/organization#";
+    final IRI microsoft = VF.createIRI(ns, "Microsoft");
+    final IRI apple = VF.createIRI(ns, "Apple");
+    final IRI hasCEO = VF.createIRI(ns, "hasCEO");
+    final IRI hasCorporateOfficer = VF.createIRI(ns, "hasCorporateOfficer");
+    final IRI satyaNadella = VF.createIRI(ns, "Satya_Nadella");
+    final IRI newcomer = VF.createIRI(ns, "Jane_Doe");
+    final IRI person = VF.createIRI(ns, "Person");
+    final CompactOntology v1 = KnowledgeManager.readCompact(resource, "example", OntologyFormat.TURTLE);
+    final CompactOntology closure1 = v1.getRdfsClosure();
+    final RdfsSchema schema1 = v1.getRdfsSchema();
+    final int size1 = v1.size();
+
+    final CompactOntology v2 = v1.update(
+        Collections.singletonList(VF.createStatement(microsoft, hasCEO, newcomer)),
+        Collections.singletonList(VF.createStatement(microsoft, hasCEO, satyaNadella)));
+
+    Assert.assertEquals(size1, v1.size());
+    Assert.assertSame(closure1, v1.getRdfsClosure());
+    Assert.assertTrue(v1.contains(microsoft, hasCEO, satyaNadella));
+    Assert.assertTrue(closure1.contains(microsoft, hasCorporateOfficer, satyaNadella));
+    Assert.assertFalse(closure1.contains(newcomer, RDF.TYPE, person));
+
+    Assert.assertEquals(size1, v2.size());
+    Assert.assertSame(schema1, v2.getRdfsSchema());
+    Assert.assertFalse(v2.contains(microsoft, hasCEO, satyaNadella));
+    final CompactOntology closure2 = v2.getRdfsClosure();
+    Assert.assertTrue(closure2.contains(microsoft, hasCorporateOfficer, newcomer));
+    Assert.assertTrue(closure2.contains(newcomer, RDF.TYPE, person));
+    Assert.assertFalse(closure2.contains(microsoft, hasCEO, satyaNadella));
+    Assert.assertTrue(closure2.contains(microsoft, hasCorporateOfficer, satyaNadella)); /* still asserted */
+    Assert.assertEquals(computeClosure(v2), new HashSet<>(closure2));
+
+    final CompactOntology v3 = v2.update(
+        Collections.singletonList(VF.createStatement(apple, RDFS.SUBCLASSOF, person)),
+        Collections.emptyList());
+    Assert.assertNotSame(schema1, v3.getRdfsSchema());
+    Assert.assertTrue(v3.getRdfsClosure().contains(apple, RDFS.SUBCLASSOF, person));
+    Assert.assertEquals(computeClosure(v3), new HashSet<>(v3.getRdfsClosure()));
+  }
+
+  /**
+   * Tests a chain of updates, large enough for the index overlays to be merged: every version iterates
+   * over the same statements, in the same order, as a list receiving the same changes.
+   * @throws IOException when the ontology file cannot be read.
+   */
+  @Test
+  public void test_updateChain() throws IOException {
+    final String resource = CompactOntologyTest.class.getResource("/knowledge/organization.ttl").getPath();
+    final String ns = "http://www.semanticweb.org/organization#";
+    final IRI hasCEO = VF.createIRI(ns, "hasCEO");
+    final IRI company = VF.createIRI(ns, "Company");
+    CompactOntology ontology = KnowledgeManager.readCompact(resource, "example", OntologyFormat.TURTLE);
+    final Set<Statement> expected = new LinkedHashSet<>();
+    ontology.forEach(expected::add);
+
+    for (int round = 0; round < 30; round++) {
+      final List<Statement> additions = new ArrayList<>();
+      final List<Statement> removals = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        final IRI subject = VF.createIRI(ns, "Company_" + (round * 200 + i));
+        additions.add(VF.createStatement(subject, RDF.TYPE, company));
+        if (i % 3 == 0 && round > 0) {
+          final IRI previous = VF.createIRI(ns, "Company_" + ((round - 1) * 200 + i));
+          removals.add(VF.createStatement(previous, RDF.TYPE, company));
+          additions.add(VF.createStatement(previous, RDF.TYPE, company)); /* moves to the end */
+        }
+      }
+      removals.add(VF.createStatement(VF.createIRI(ns, "Microsoft"), hasCEO, VF.createIRI(ns, "Nobody")));
+      ontology = ontology.update(additions, removals);
+      expected.removeAll(removals);
+      expected.addAll(additions);
+
+      Assert.assertEquals(expected.size(), ontology.size());
+      Assert.assertEquals(new ArrayList<>(expected), new ArrayList<>(ontology));
+    }
+    Assert.assertEquals(ontology.filter(null, RDF.TYPE, company).size(), ontology.count(null, RDF.TYPE, company));
+  }
+
+  /**
+   * Tests streaming an ontology file into a compact ontology.
+   * @throws IOException when the ontology file cannot be read.
+   */
+  @Test
+  public void test_readCompact() throws IOException {
+    final String resource = CompactOntologyTest.class.getResource("/knowledge/organization.ttl").getPath();
+    final Ontology expected = KnowledgeManager.read(resource, "example", OntologyFormat.TURTLE);
+    final CompactOntology actual = KnowledgeManager.readCompact(resource, "example", OntologyFormat.TURTLE);
+
+    Assert.assertEquals(expected.size(), actual.size());
+    Assert.assertTrue(actual.equals(expected));
+  }
+
+  /**
+   * Computes the RDFS closure of {@code ontology} from scratch, with the RDF4J forward-chaining inferencer.
+   * @param ontology the ontology.
+   * @return the RDFS closure.
+   */
+  private static Set<Statement> computeClosure(CompactOntology ontology) {
+    final Set<Statement> result = new HashSet<>();
+    Repository repo = new SailRepository(new ForwardChainingRDFSInferencer(new MemoryStore()));
+    repo.initialize();
+    try (RepositoryConnection conn = repo.getConnection()) {
+      conn.add(ontology);
+      try (RepositoryResult<Statement> statements = conn.getStatements(null, null, null, true)) {
+        while (statements.hasNext()) {
+          Statement st = statements.next();
+          result.add(VF.createStatement(st.getSubject(), st.getPredicate(), st.getObject()));
+        }
+      }
+    } finally {
+      repo.shutDown();
+    }
+    return result;
+  }
+}
@@ -0,0 +1,132 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.ontology;
+
+import com.acmutv.ontoqa.core.knowledge.KnowledgeManager;
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.Rio;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * JUnit tests for {@link OntologyLoader}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see OntologyLoader
+ */
+public class OntologyLoaderTest {
+
+  private static final String ONTOLOGY = OntologyLoaderTest.class.getResource("/knowledge/organization.ttl").getPath();
+
+  /**
+   * Tests the resolution of directories and globs.
+   * @throws IOException when files cannot be listed.
+   */
+  @Test
+  public void test_resolve() throws IOException {
+    final String directory = new File(ONTOLOGY).getParent();
+    final List<String> expected = Arrays.asList("einstein.ttl", "example.ttl", "organization.ttl");
+
+    Assert.assertEquals(expected, names(OntologyLoader.resolve(directory)));
+    Assert.assertEquals(expected, names(OntologyLoader.resolve(directory + "/*.ttl")));
+    Assert.assertEquals(Arrays.asList("example.ttl"), names(OntologyLoader.resolve(directory + "/ex*.ttl")));
+    Assert.assertEquals(1, OntologyLoader.resolve(ONTOLOGY).size());
+  }
+
+  /**
+   * Tests that a chunked parallel load equals a sequential one, statement order included.
+   * @throws IOException when the ontology cannot be loaded.
+   */
+  @Test
+  public void test_load_chunked() throws IOException {
+    final CompactOntology expected = KnowledgeManager.readCompact(ONTOLOGY, "example", OntologyFormat.TURTLE);
+    final Path path = Files.createTempFile("organization", ".nt");
+    try {
+      try (OutputStream out = Files.newOutputStream(path)) {
+        Rio.write(expected, out, RDFFormat.NTRIPLES);
+      }
+      final OntologyLoader loader = new OntologyLoader(4, 1 << 20, 1024);
+      final CompactOntology actual = new CompactOntology();
+      final OntologyLoadStatistics statistics = loader.load(
+          OntologyLoader.resolve(path.toString()), false, "example", OntologyFormat.NTRIPLES, actual);
+
+      Assert.assertTrue(statistics.getChunks() > 1);
+      Assert.assertEquals(expected.size(), statistics.getTriples());
+      Assert.assertEquals(statements(expected), statements(actual));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  /**
+   * Tests loading a directory, with blank nodes scoped to their file.
+   * @throws IOException when the ontology cannot be loaded.
+   */
+  @Test
+  public void test_load_directory() throws IOException {
+    final Path directory = Files.createTempDirectory("ontology");
+    final String triple = "_:b <http://example.org/p> \"%s\" .\n";
+    try {
+      Files.write(directory.resolve("a.nt"), String.format(triple, "a").getBytes(StandardCharsets.UTF_8));
+      Files.write(directory.resolve("b.nt"), String.format(triple, "b").getBytes(StandardCharsets.UTF_8));
+      final CompactOntology actual = new OntologyLoader(2, 1 << 20).load(directory.toString(), "example",
+          OntologyFormat.TURTLE);
+
+      Assert.assertEquals(2, actual.size());
+      Assert.assertEquals(2, actual.subjects().stream().filter(s -> s instanceof BNode).count());
+    } finally {
+      Files.deleteIfExists(directory.resolve("a.nt"));
+      Files.deleteIfExists(directory.resolve("b.nt"));
+      Files.deleteIfExists(directory);
+    }
+  }
+
+  private static List<String> names(List<Path> paths) {
+    return paths.stream().map(path -> path.getFileName().toString()).collect(Collectors.toList());
+  }
+
+  private static List<Statement> statements(Ontology ontology) {
+    List<Statement> statements = new ArrayList<>();
+    ontology.forEach(statements::add);
+    return statements;
+  }
+}
@@ -0,0 +1,149 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.ontology;
+
+import com.acmutv.ontoqa.core.exception.QueryException;
+import com.acmutv.ontoqa.core.knowledge.Commons;
+import com.acmutv.ontoqa.core.knowledge.KnowledgeManager;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * JUnit tests for {@link OntologySnapshot}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see OntologySnapshot
+ */
+public class OntologySnapshotTest {
+
+  private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+  private static final String NS = "http://example.org/";
+
+  /**
+   * Tests snapshot writing and opening.
+   * @throws IOException when the snapshot cannot be written or read.
+   */
+  @Test
+  public void test_writeOpen() throws IOException {
+    final Ontology expected = Commons.buildOntology(3, null);
+    final Path path = Files.createTempFile("ontology", ".snapshot");
+    try {
+      KnowledgeManager.write(path.toString(), expected, OntologyFormat.SNAPSHOT);
+      final CompactOntology actual = OntologySnapshot.open(path);
+
+      Assert.assertEquals(expected.size(), actual.size());
+      Assert.assertTrue(actual.equals(expected));
+      Assert.assertEquals(expected.getNamespaces(), actual.getNamespaces());
+      Assert.assertTrue(actual.getRdfsClosure().contains(VF.createIRI(NS, "Socrates"), RDF.TYPE,
+          VF.createIRI(NS, "Mortal")));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  /**
+   * Tests that the namespace section is little-endian, as the rest of the layout.
+   * @throws IOException when the snapshot cannot be written or read.
+   */
+  @Test
+  public void test_namespacesByteOrder() throws IOException {
+    final Ontology expected = Commons.buildOntology(3, null);
+    final Path path = Files.createTempFile("ontology", ".snapshot");
+    try {
+      KnowledgeManager.write(path.toString(), expected, OntologyFormat.SNAPSHOT);
+      final ByteBuffer snapshot = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+      final int namespacesPos = (int) snapshot.getLong(6 * 4 + 6 * 8);
+
+      Assert.assertEquals(expected.getNamespaces().size(), snapshot.getInt(namespacesPos));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  /**
+   * Tests changes on an opened snapshot.
+   * @throws IOException when the snapshot cannot be written or read.
+   */
+  @Test
+  public void test_change() throws IOException {
+    final IRI plato = VF.createIRI(NS, "Plato");
+    final Path path = Files.createTempFile("ontology", ".snapshot");
+    try {
+      KnowledgeManager.write(path.toString(), Commons.buildOntology(3, null), OntologyFormat.SNAPSHOT);
+      final CompactOntology actual = OntologySnapshot.open(path);
+
+      Assert.assertFalse(actual.contains(plato, null, null));
+      actual.add(plato, RDF.TYPE, VF.createIRI(NS, "Person"));
+      actual.remove(VF.createIRI(NS, "Elon_Musk"), null, null);
+      Assert.assertTrue(actual.contains(plato, RDF.TYPE, VF.createIRI(NS, "Person")));
+      Assert.assertTrue(actual.getRdfsClosure().contains(plato, RDF.TYPE, VF.createIRI(NS, "Mortal")));
+
+      Ontology expected = Commons.buildOntology(1, null);
+      expected.add(plato, RDF.TYPE, VF.createIRI(NS, "Person"));
+      Assert.assertTrue(actual.equals(expected));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  /**
+   * Tests that a snapshot answers queries as the ontology it was compiled from.
+   * @throws IOException when the snapshot cannot be written or read.
+   * @throws QueryException when the query cannot be submitted.
+   */
+  @Test
+  public void test_submit() throws IOException, QueryException {
+    final String resource = OntologySnapshotTest.class.getResource("/knowledge/organization.ttl").getPath();
+    final Path path = Files.createTempFile("organization", ".snapshot");
+    try {
+      final CompactOntology expected =
+          KnowledgeManager.compileSnapshot(resource, "example", OntologyFormat.TURTLE, path.toString());
+      final Ontology actual = KnowledgeManager.read(path.toString(), "example", OntologyFormat.SNAPSHOT);
+      final Query query = QueryFactory.create("SELECT ?x WHERE { ?x a ?y }");
+
+      Assert.assertTrue(actual.equals(expected));
+      Assert.assertEquals(KnowledgeManager.submit(expected, query), KnowledgeManager.submit(actual, query));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.knowledge.ontology;
+
+import com.acmutv.ontoqa.benchmark.Common;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * JUnit tests for {@link OntologyStatistics}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see OntologyStatistics
+ */
+public class OntologyStatisticsTest {
+
+  private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+  /**
+   * Tests that statistics on the materialized closure are exact.
+   * @throws IOException when the ontology cannot be read.
+   */
+  @Test
+  public void test_materialization() throws IOException {
+    final CompactOntology ontology = Common.getOntology(ReasoningMode.MATERIALIZATION);
+    final CompactOntology closure = ontology.getRdfsClosure();
+    final OntologyStatistics statistics = ontology.getStatistics();
+
+    Assert.assertSame(statistics, ontology.getStatistics());
+    Assert.assertEquals(closure.size(), statistics.getTriples());
+    Assert.assertEquals(closure.subjects().size(), statistics.getSubjects());
+    Assert.assertEquals(closure.objects().size(), statistics.getObjects());
+
+    for (IRI predicate : closure.predicates()) {
+      final Set<Resource> subjects = new HashSet<>();
+      final Set<Value> objects = new HashSet<>();
+      int triples = 0;
+      for (Statement st : closure.filter(null, predicate, null)) {
+        subjects.add(st.getSubject());
+        objects.add(st.getObject());
+        triples++;
+      }
+      Assert.assertEquals(triples, statistics.getTriples(predicate));
+      Assert.assertEquals(subjects.size(), statistics.getSubjects(predicate));
+      Assert.assertEquals(objects.size(), statistics.getObjects(predicate));
+    }
+
+    final IRI company = VF.createIRI(Common.COMPANY_IRI);
+    Assert.assertEquals(closure.filter(null, RDF.TYPE, company).size(), statistics.getInstances(company));
+    Assert.assertTrue(statistics.isKnown(company));
+    Assert.assertFalse(statistics.isKnown(VF.createIRI(Common.PREFIX, "Unknown")));
+    Assert.assertEquals(0, statistics.getTriples(VF.createIRI(Common.PREFIX, "unknown")));
+  }
+
+  /**
+   * Tests that statistics without materialization inherit counts along the schema hierarchy.
+   * @throws IOException when the ontology cannot be read.
+   */
+  @Test
+  public void test_rewriting() throws IOException {
+    final CompactOntology ontology = Common.getOntology(ReasoningMode.REWRITING);
+    final OntologyStatistics statistics = ontology.getStatistics();
+    final IRI hasCorporateOfficer = VF.createIRI(Common.HAS_CORPORATE_OFFICER_IRI);
+    final IRI hasCEO = VF.createIRI(Common.HAS_CEO_IRI);
+
+    Assert.assertEquals(ontology.size(), statistics.getTriples());
+    Assert.assertTrue(statistics.getTriples(hasCorporateOfficer)
+        >= ontology.filter(null, hasCorporateOfficer, null).size() + ontology.filter(null, hasCEO, null).size());
+    Assert.assertTrue(statistics.getInstances(VF.createIRI(Common.COMPANY_IRI)) > 0);
+  }
+
+  /**
+   * Tests that statistics maintained across an update equal the ones collected from scratch.
+   * @throws IOException when the ontology cannot be read.
+   */
+  @Test
+  public void test_update() throws IOException {
+    final IRI company = VF.createIRI(Common.COMPANY_IRI);
+    final IRI person = VF.createIRI(Common.PERSON_IRI);
+    final IRI microsoft = VF.createIRI(Common.MICROSOFT_IRI);
+    final IRI hasCEO = VF.createIRI(Common.HAS_CEO_IRI);
+    final IRI acme = VF.createIRI(Common.PREFIX, "Acme");
+    final List<Statement> additions = Arrays.asList(
+        VF.createStatement(microsoft, hasCEO, VF.createIRI(Common.PREFIX, "Jane_Doe")),
+        VF.createStatement(acme, RDF.TYPE, company),
+        VF.createStatement(acme, VF.createIRI(Common.HAS_NETINCOME_IRI), VF.createLiteral(42)));
+    final List<Statement> removals = Collections.singletonList(
+        VF.createStatement(microsoft, hasCEO, VF.createIRI(Common.SATYA_NADELLA_IRI)));
+
+    for (ReasoningMode mode : ReasoningMode.values()) {
+      final CompactOntology ontology = Common.getOntology(mode);
+      ontology.getStatistics();
+      final CompactOntology updated = ontology.update(additions, removals);
+      final OntologyStatistics actual = updated.getStatistics();
+      final CompactOntology fresh = updated.copy();
+      final OntologyStatistics expected = fresh.getStatistics();
+      Assert.assertNotSame(expected, actual);
+
+      Assert.assertEquals(expected.getTriples(), actual.getTriples());
+      Assert.assertEquals(expected.getSubjects(), actual.getSubjects());
+      Assert.assertEquals(expected.getObjects(), actual.getObjects());
+      final CompactOntology counted = (mode == ReasoningMode.REWRITING) ? fresh : fresh.getRdfsClosure();
+      for (IRI predicate : counted.predicates()) {
+        Assert.assertEquals(expected.getTriples(predicate), actual.getTriples(predicate));
+        Assert.assertEquals(expected.getSubjects(predicate), actual.getSubjects(predicate));
+        Assert.assertEquals(expected.getObjects(predicate), actual.getObjects(predicate));
+      }
+      Assert.assertEquals(expected.getInstances(company), actual.getInstances(company));
+      Assert.assertEquals(expected.getInstances(person), actual.getInstances(person));
+    }
+  }
+
+  /**
+   * Tests the {@code rdf:type} constraints implied by domains and ranges.
+   * @throws IOException when the ontology cannot be read.
+   */
+  @Test
+  public void test_implies() throws IOException {
+    final OntologyStatistics statistics = Common.getOntology(ReasoningMode.REWRITING).getStatistics();
+    final IRI hasHeadquarter = VF.createIRI(Common.HAS_HEADQUARTER_IRI);
+    final IRI company = VF.createIRI(Common.COMPANY_IRI);
+    final IRI nation = VF.createIRI(Common.NATION_IRI);
+
+    Assert.assertTrue(statistics.impliesDomain(hasHeadquarter, company));
+    Assert.assertTrue(statistics.impliesRange(hasHeadquarter, nation));
+    Assert.assertFalse(statistics.impliesDomain(hasHeadquarter, nation));
+    Assert.assertFalse(statistics.impliesRange(hasHeadquarter, company));
+    Assert.assertTrue(statistics.impliesDomain(VF.createIRI(Common.HAS_CEO_IRI), company));
+    Assert.assertFalse(statistics.impliesRange(VF.createIRI(Common.HAS_NETINCOME_IRI), company));
+  }
+}
@@ -0,0 +1,181 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.knowledge.ontology;
+
+import com.acmutv.ontoqa.benchmark.Common;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * JUnit tests for {@link ShardedOntology}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see ShardedOntology
+ */
+public class ShardedOntologyTest {
+
+  private static final ValueFactory VF = SimpleValueFactory.getInstance();
+
+  /**
+   * Tests that every statement of the closure is homed at exactly one shard, the one of its subject,
+   * and that every shard holds the whole schema.
+   * @throws IOException when the ontology cannot be read.
+   */
+  @Test
+  public void test_partition() throws IOException {
+    final CompactOntology ontology = Common.getOntology(ReasoningMode.MATERIALIZATION);
+    final CompactOntology closure = ontology.getRdfsClosure();
+    final ShardedOntology sharded = new ShardedOntology(ontology, 3);
+
+    final Set<Statement> homed = new HashSet<>();
+    int count = 0;
+    for (int i = 0; i < sharded.getShardCount(); i++) {
+      final Iterator<Statement> statements = sharded.matchHomed(i, null, null);
+      while (statements.hasNext()) {
+        final Statement st = statements.next();
+        Assert.assertEquals(i, sharded.shardOf(st.getSubject()));
+        homed.add(st);
+        count++;
+      }
+    }
+    Assert.assertEquals(closure.size(), count);
+    Assert.assertEquals(new HashSet<>(closure), homed);
+
+    for (Statement st : closure) {
+      final Resource subject = st.getSubject();
+      Assert.assertTrue(sharded.getShard(sharded.shardOf(subject))
+          .contains(subject, st.getPredicate(), st.getObject()));
+      if (RdfsClosureMaintainer.isSchema(st)) {
+        for (int i = 0; i < sharded.getShardCount(); i++) {
+          Assert.assertTrue(sharded.getShard(i).contains(subject, st.getPredicate(), st.getObject()));
+        }
+      }
+    }
+    Assert.assertEquals(-1, sharded.shardOf(VF.createIRI("http://example.org/Unknown")));
+  }
+
+  /**
+   * Tests that the closure reassembled from the shards is the one of the partitioned ontology, in the same order,
+   * and that counts on the shards match the ones on the closure for bound subjects.
+   * @throws IOException when the ontology cannot be read.
+   */
+  @Test
+  public void test_toCompact() throws IOException {
+    final CompactOntology ontology = Common.getOntology(ReasoningMode.MATERIALIZATION);
+    final CompactOntology closure = ontology.getRdfsClosure();
+    final ShardedOntology sharded = new ShardedOntology(ontology, 3);
+
+    final CompactOntology compact = sharded.toCompact();
+    Assert.assertEquals(new ArrayList<>(ontology), new ArrayList<>(compact));
+    Assert.assertEquals(new ArrayList<>(closure), new ArrayList<>(compact.getRdfsClosure()));
+    Assert.assertEquals(ontology.getNamespaces(), compact.getRdfsClosure().getNamespaces());
+    Assert.assertSame(ontology.getStatistics(), sharded.getStatistics());
+
+    for (Statement st : closure) {
+      Assert.assertEquals(closure.count(st.getSubject(), null, null), sharded.count(st.getSubject(), null, null));
+    }
+    Assert.assertTrue(sharded.count(null, null, null) >= closure.size());
+  }
+
+  /**
+   * Tests that an update yields a new partitioned version, leaving the current one untouched.
+   * @throws IOException when the ontology cannot be read.
+   */
+  @Test
+  public void test_update() throws IOException {
+    final ShardedOntology sharded = new ShardedOntology(Common.getOntology(ReasoningMode.MATERIALIZATION), 2);
+    final Statement addition = VF.createStatement(VF.createIRI(Common.PREFIX, "Contoso"), RDF.TYPE,
+        VF.createIRI(Common.COMPANY_IRI));
+
+    final ShardedOntology updated = sharded.update(Collections.singleton(addition), Collections.emptyList());
+
+    Assert.assertEquals(2, updated.getShardCount());
+    Assert.assertTrue(updated.contains(addition.getSubject(), addition.getPredicate(), addition.getObject()));
+    Assert.assertTrue(updated.getShard(updated.shardOf(addition.getSubject()))
+        .contains(addition.getSubject(), addition.getPredicate(), addition.getObject()));
+    Assert.assertFalse(sharded.contains(addition.getSubject(), addition.getPredicate(), addition.getObject()));
+    Assert.assertFalse(sharded.getShard(sharded.shardOf(addition.getSubject()))
+        .contains(addition.getSubject(), addition.getPredicate(), addition.getObject()));
+  }
+
+  /**
+   * Tests that an update not touching the schema changes only the shards homing the changed closure statements,
+   * and gives the shards and the statistics of the updated ontology partitioned from scratch.
+   * @throws IOException when the ontology cannot be read.
+   */
+  @Test
+  public void test_updateIncremental() throws IOException {
+    final ShardedOntology sharded = new ShardedOntology(Common.getOntology(ReasoningMode.MATERIALIZATION), 2);
+    final Statement addition = VF.createStatement(VF.createIRI(Common.MICROSOFT_IRI),
+        VF.createIRI(Common.HAS_CORPORATE_OFFICER_IRI), VF.createIRI(Common.TIM_COOK_IRI));
+    final Statement removal = VF.createStatement(VF.createIRI(Common.APPLE_IRI),
+        VF.createIRI(Common.HAS_CEO_IRI), VF.createIRI(Common.TIM_COOK_IRI));
+    Assert.assertTrue(sharded.contains(removal.getSubject(), removal.getPredicate(), removal.getObject()));
+
+    final ShardedOntology added = sharded.update(Collections.singleton(addition), Collections.emptyList());
+    final int home = added.shardOf(addition.getSubject());
+    Assert.assertSame(sharded.getShard(1 - home), added.getShard(1 - home));
+    Assert.assertNotSame(sharded.getShard(home), added.getShard(home));
+
+    final ShardedOntology updated = added.update(Collections.emptyList(), Collections.singleton(removal));
+    final ShardedOntology expected = new ShardedOntology(updated.getOntology(), 2);
+    Assert.assertFalse(updated.getShard(updated.shardOf(removal.getSubject()))
+        .contains(removal.getSubject(), removal.getPredicate(), removal.getObject()));
+    for (int i = 0; i < expected.getShardCount(); i++) {
+      Assert.assertEquals(new HashSet<>(expected.getShard(i)), new HashSet<>(updated.getShard(i)));
+    }
+
+    final OntologyStatistics expectedStatistics = expected.getStatistics();
+    final OntologyStatistics actualStatistics = updated.getStatistics();
+    Assert.assertEquals(expectedStatistics.getTriples(), actualStatistics.getTriples());
+    Assert.assertEquals(expectedStatistics.getSubjects(), actualStatistics.getSubjects());
+    Assert.assertEquals(expectedStatistics.getObjects(), actualStatistics.getObjects());
+    for (Statement st : expected.getOntology()) {
+      Assert.assertEquals(expectedStatistics.getTriples(st.getPredicate()),
+          actualStatistics.getTriples(st.getPredicate()));
+      Assert.assertEquals(expectedStatistics.getSubjects(st.getPredicate()),
+          actualStatistics.getSubjects(st.getPredicate()));
+      Assert.assertEquals(expectedStatistics.getObjects(st.getPredicate()),
+          actualStatistics.getObjects(st.getPredicate()));
+      Assert.assertEquals(expectedStatistics.getInstances(st.getObject()),
+          actualStatistics.getInstances(st.getObject()));
+    }
+  }
+}
@@ -36,10 +36,20 @@ import org.junit.runners.Suite;
  * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
  * @since 1.0
  * @see OntologyTest
+ * @see CompactOntologyTest
+ * @see OntologySnapshotTest
+ * @see OntologyLoaderTest
+ * @see ShardedOntologyTest
+ * @see OntologyStatisticsTest
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
-    OntologyTest.class
+    OntologyTest.class,
+    CompactOntologyTest.class,
+    OntologySnapshotTest.class,
+    OntologyLoaderTest.class,
+    ShardedOntologyTest.class,
+    OntologyStatisticsTest.class
 })
 public class TestAllOntology {
 }
@@ -0,0 +1,158 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.knowledge.query;
+
+import com.acmutv.ontoqa.benchmark.Common;
+import com.acmutv.ontoqa.core.Deadline;
+import com.acmutv.ontoqa.core.knowledge.KnowledgeManager;
+import com.acmutv.ontoqa.core.knowledge.ontology.CompactOntology;
+import com.acmutv.ontoqa.core.knowledge.ontology.OntologyStatistics;
+import com.acmutv.ontoqa.core.knowledge.ontology.ReasoningMode;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.apache.jena.sparql.core.TriplePath;
+import org.apache.jena.sparql.syntax.ElementPathBlock;
+import org.apache.jena.sparql.syntax.ElementVisitorBase;
+import org.apache.jena.sparql.syntax.ElementWalker;
+import org.apache.jena.system.JenaSystem;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * JUnit tests for {@link QueryOptimizer}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see QueryOptimizer
+ */
+public class QueryOptimizerTest {
+
+  private static CompactOntology ontology;
+
+  private static OntologyStatistics statistics;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    JenaSystem.init();
+    ontology = Common.getOntology(ReasoningMode.MATERIALIZATION);
+    statistics = ontology.getStatistics();
+  }
+
+  /**
+   * Tests that the most selective pattern comes first, and that no cartesian product is introduced.
+   */
+  @Test
+  public void test_order() {
+    final Query query = QueryFactory.create(String.format(
+        "SELECT ?x WHERE { ?x <%s> ?y . ?y <%s> ?z . ?x <%s> <%s> }",
+        Common.HAS_CORPORATE_OFFICER_IRI, Common.HAS_NATIONALITY_IRI,
+        Common.HAS_CEO_IRI, Common.TIM_COOK_IRI));
+
+    final List<Triple> triples = getTriples(QueryOptimizer.optimize(query, statistics));
+
+    Assert.assertEquals(3, triples.size());
+    Assert.assertEquals(Common.TIM_COOK_IRI, triples.get(0).getObject().getURI());
+    Assert.assertEquals(Common.HAS_CORPORATE_OFFICER_IRI, triples.get(1).getPredicate().getURI());
+    Assert.assertEquals(Common.HAS_NATIONALITY_IRI, triples.get(2).getPredicate().getURI());
+  }
+
+  /**
+   * Tests that {@code rdf:type} patterns implied by domains and ranges are dropped, and the others kept.
+   */
+  @Test
+  public void test_impliedType() {
+    final Query query = QueryFactory.create(String.format(
+        "SELECT ?x WHERE { ?x <%s> <%s> . ?x <%s> ?n . ?n <%s> <%s> . ?x <%s> <%s> }",
+        Common.RDF_TYPE_IRI, Common.COMPANY_IRI, Common.HAS_HEADQUARTER_IRI,
+        Common.RDF_TYPE_IRI, Common.NATION_IRI, Common.RDF_TYPE_IRI, Common.PERSON_IRI));
+
+    final List<Triple> triples = getTriples(QueryOptimizer.optimize(query, statistics));
+
+    Assert.assertEquals(2, triples.size());
+    Assert.assertTrue(triples.stream().anyMatch(t -> Common.PERSON_IRI.equals(t.getObject().toString())));
+    Assert.assertTrue(triples.stream().anyMatch(t -> Common.HAS_HEADQUARTER_IRI.equals(t.getPredicate().toString())));
+  }
+
+  /**
+   * Tests that optimized queries have the same answers, and that the original query is left untouched.
+   */
+  @Test
+  public void test_answers() {
+    final String[] queries = {
+        String.format("SELECT ?x WHERE { ?x <%s> <%s> . ?x <%s> ?n . ?n <%s> <%s> }",
+            Common.RDF_TYPE_IRI, Common.COMPANY_IRI, Common.HAS_HEADQUARTER_IRI,
+            Common.RDF_TYPE_IRI, Common.NATION_IRI),
+        String.format("SELECT ?x WHERE { { ?x <%s> ?y } . ?y <%s> ?z . FILTER(?z != <%s>) }",
+            Common.HAS_CEO_IRI, Common.HAS_NATIONALITY_IRI, Common.ITALY_IRI),
+        String.format("SELECT ?x WHERE { ?x <%s> ?y OPTIONAL { ?y <%s> ?z . ?z <%s> <%s> } }",
+            Common.HAS_FOUNDER_IRI, Common.HAS_NATIONALITY_IRI, Common.RDF_TYPE_IRI, Common.NATION_IRI),
+        String.format("ASK WHERE { ?x <%s> <%s> . <%s> <%s> ?x }",
+            Common.RDF_TYPE_IRI, Common.PERSON_IRI, Common.MICROSOFT_IRI, Common.HAS_FOUNDER_IRI)
+    };
+    for (String text : queries) {
+      final Query query = QueryFactory.create(text);
+      final String original = query.toString();
+      final Query optimized = QueryOptimizer.optimize(query, statistics);
+      Assert.assertEquals(original, query.toString());
+      if (query.isAskType()) {
+        Assert.assertEquals(KnowledgeManager.getBackend(ontology).submitAsk(ontology, original, Deadline.NONE),
+            KnowledgeManager.getBackend(ontology).submitAsk(ontology, optimized.toString(), Deadline.NONE));
+      } else {
+        Assert.assertEquals(
+            new HashSet<>(KnowledgeManager.getBackend(ontology).submitSelect(ontology, original, "x", Deadline.NONE)),
+            new HashSet<>(KnowledgeManager.getBackend(ontology).submitSelect(ontology, optimized.toString(), "x", Deadline.NONE)));
+      }
+    }
+  }
+
+  /**
+   * Tests that queries are left as they are, when no statistics are available.
+   */
+  @Test
+  public void test_noStatistics() {
+    final Query query = QueryFactory.create(String.format("ASK WHERE { ?x <%s> ?y }", Common.HAS_CEO_IRI));
+    Assert.assertSame(query, QueryOptimizer.optimize(query, null));
+  }
+
+  private static List<Triple> getTriples(Query query) {
+    final List<Triple> triples = new ArrayList<>();
+    ElementWalker.walk(query.getQueryPattern(), new ElementVisitorBase() {
+      @Override
+      public void visit(ElementPathBlock el) {
+        el.getPattern().getList().stream().map(TriplePath::asTriple).forEach(triples::add);
+      }
+    });
+    return triples;
+  }
+}
@@ -0,0 +1,133 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.knowledge.sail;
+
+import com.acmutv.ontoqa.core.knowledge.KnowledgeManager;
+import com.acmutv.ontoqa.core.knowledge.ontology.CompactOntology;
+import com.acmutv.ontoqa.core.knowledge.ontology.OntologyFormat;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.vocabulary.RDF;
+import org.eclipse.rdf4j.model.vocabulary.RDFS;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * JUnit tests for {@link RdfsRewritingTripleSource}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see RdfsRewritingTripleSource
+ */
+public class RdfsRewritingTripleSourceTest {
+
+  private static CompactOntology ontology;
+
+  private static RdfsRewritingTripleSource rewriting;
+
+  @BeforeClass
+  public static void setup() throws IOException {
+    final String resource = RdfsRewritingTripleSourceTest.class.getResource("/knowledge/organization.ttl").getPath();
+    ontology = KnowledgeManager.readCompact(resource, "example", OntologyFormat.TURTLE);
+    rewriting = new RdfsRewritingTripleSource(ontology);
+  }
+
+  /**
+   * Tests that rewriting entails the statements of the materialized RDFS closure, but the axiomatic ones.
+   */
+  @Test
+  public void test_closure() {
+    final CompactOntology closure = ontology.getRdfsClosure();
+    final Set<Statement> actual = new HashSet<>(rewriting.match(null, null, null));
+    final Set<Statement> expected = new HashSet<>();
+    closure.stream().filter(st -> !isAxiomatic(st)).forEach(expected::add);
+
+    for (Statement st : actual) {
+      Assert.assertTrue(st.toString(), closure.contains(st.getSubject(), st.getPredicate(), st.getObject()));
+    }
+    Assert.assertEquals(expected, actual);
+  }
+
+  /**
+   * Tests pattern matching on every combination of bound terms, against the materialized RDFS closure.
+   */
+  @Test
+  public void test_match() {
+    final CompactOntology closure = ontology.getRdfsClosure();
+    for (Statement st : closure) {
+      if (isAxiomatic(st)) {
+        continue;
+      }
+      for (int mask = 1; mask < 8; mask++) {
+        IRI pred = ((mask & 2) != 0) ? st.getPredicate() : null;
+        Set<Statement> expected = new HashSet<>();
+        closure.filter(((mask & 1) != 0) ? st.getSubject() : null, pred, ((mask & 4) != 0) ? st.getObject() : null)
+            .stream().filter(other -> !isAxiomatic(other)).forEach(expected::add);
+        Set<Statement> actual = new HashSet<>(rewriting.match(((mask & 1) != 0) ? st.getSubject() : null, pred,
+            ((mask & 4) != 0) ? st.getObject() : null));
+        Assert.assertEquals(st + " mask " + mask, expected, actual);
+        Assert.assertTrue(st + " mask " + mask, rewriting.cardinality(((mask & 1) != 0) ? st.getSubject() : null, pred,
+            ((mask & 4) != 0) ? st.getObject() : null) > 0);
+      }
+    }
+  }
+
+  /**
+   * Checks if {@code st} is entailed only by the RDF/RDFS axiomatic triples or the reflexivity rules,
+   * which query rewriting does not cover.
+   * @param st the statement.
+   * @return true, if {@code st} is axiomatic; false, otherwise.
+   */
+  private static boolean isAxiomatic(Statement st) {
+    if (isVocabulary(st.getSubject()) || isVocabulary(st.getObject())) {
+      return true;
+    }
+    if ((RDFS.SUBCLASSOF.equals(st.getPredicate()) || RDFS.SUBPROPERTYOF.equals(st.getPredicate()))
+        && st.getSubject().equals(st.getObject())) {
+      return true;
+    }
+    return !st.getPredicate().equals(RDF.TYPE) && isVocabulary(st.getPredicate())
+        && !RDFS.SUBCLASSOF.equals(st.getPredicate()) && !RDFS.SUBPROPERTYOF.equals(st.getPredicate())
+        && !RDFS.DOMAIN.equals(st.getPredicate()) && !RDFS.RANGE.equals(st.getPredicate())
+        && !RDFS.LABEL.equals(st.getPredicate()) && !RDFS.COMMENT.equals(st.getPredicate());
+  }
+
+  private static boolean isVocabulary(Value value) {
+    if (!(value instanceof IRI)) {
+      return false;
+    }
+    final String namespace = ((IRI) value).getNamespace();
+    return RDF.NAMESPACE.equals(namespace) || RDFS.NAMESPACE.equals(namespace);
+  }
+}
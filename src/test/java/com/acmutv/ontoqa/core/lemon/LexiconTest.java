@@ -0,0 +1,171 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.lemon;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * JUnit tests for {@link Lexicon}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see Lexicon
+ */
+public class LexiconTest {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LexiconTest.class);
+
+  private static final String PREFIX = "http://example.org/lexicon/";
+
+  /**
+   * Returns a new entry with a single sense referring to {@code reference}.
+   */
+  private static LexicalEntry newEntry(String uri, String canonicalForm, String reference, Language language) {
+    final LexicalEntry entry = new LexicalEntry(uri, language);
+    entry.setCanonicalForm(canonicalForm);
+    entry.setPOS("http://www.lexinfo.net/ontology/2.0/lexinfo#noun");
+    final Sense sense = new Sense();
+    sense.setReference(new SimpleReference(reference));
+    final Provenance provenance = new Provenance();
+    provenance.setFrequency(1);
+    entry.addSyntacticBehaviour(new SyntacticBehaviour(), sense);
+    entry.addProvenance(provenance, sense);
+    return entry;
+  }
+
+  /**
+   * Tests that an entry with the URI and language of a contained one is merged into it,
+   * and that lookups see the merged senses.
+   */
+  @Test
+  public void test_merge() {
+    final Lexicon lexicon = new Lexicon(PREFIX);
+    final LexicalEntry ceo = newEntry(PREFIX + "ceo", "ceo", "http://example.org/hasCEO", Language.EN);
+    lexicon.addEntry(ceo);
+    lexicon.addEntry(newEntry(PREFIX + "ceo", "chief executive officer", "http://example.org/isCEOOf", Language.EN));
+    lexicon.addEntry(newEntry(PREFIX + "ceo", "amministratore delegato", "http://example.org/hasCEO", Language.DE));
+
+    Assert.assertEquals(2, lexicon.size());
+    Assert.assertTrue(lexicon.contains(newEntry(PREFIX + "ceo", "ceo", "http://example.org/x", Language.EN)));
+    Assert.assertFalse(lexicon.contains(newEntry(PREFIX + "ceo", "ceo", "http://example.org/x", Language.ES)));
+    Assert.assertTrue(ceo.getAlternativeForms().contains("chief executive officer"));
+    Assert.assertEquals(Collections.singletonList(ceo), lexicon.getEntriesWithCanonicalForm("ceo"));
+    Assert.assertEquals(Collections.singletonList(ceo), lexicon.getEntriesForReference("http://example.org/isCEOOf"));
+    Assert.assertEquals(2, lexicon.getEntriesForReference("http://example.org/hasCEO").size());
+    Assert.assertEquals(2, lexicon.getReferences().size());
+    Assert.assertTrue(lexicon.getEntriesWithCanonicalForm("founder").isEmpty());
+
+    final LexicalEntry amministratore = lexicon.getEntriesWithCanonicalForm("amministratore delegato").get(0);
+    lexicon.addEntry(newEntry(PREFIX + "ceo", "geschaeftsfuehrer", "http://example.org/leads", Language.DE));
+    Assert.assertEquals(2, lexicon.size());
+    Assert.assertTrue(amministratore.getAlternativeForms().contains("geschaeftsfuehrer"));
+    Assert.assertFalse(ceo.getAlternativeForms().contains("geschaeftsfuehrer"));
+    Assert.assertEquals(Collections.singletonList(amministratore), lexicon.getEntriesForReference("http://example.org/leads"));
+  }
+
+  /**
+   * Tests that indexed lookups return the same entries, in the same order, as scanning the entries.
+   */
+  @Test
+  public void test_lookup() {
+    final Random random = new Random(42);
+    final Lexicon lexicon = new Lexicon(PREFIX);
+    final Lexicon other = new Lexicon(PREFIX);
+    for (int i = 0; i < 2000; i++) {
+      final LexicalEntry entry = newEntry(PREFIX + "entry" + random.nextInt(500), "form" + random.nextInt(100),
+          "http://example.org/p" + random.nextInt(200), Language.EN);
+      ((i % 2 == 0) ? lexicon : other).addEntry(entry);
+    }
+    lexicon.addLexicon(other);
+
+    final Set<String> uris = new HashSet<>();
+    for (LexicalEntry entry : lexicon.getEntries()) {
+      Assert.assertTrue(uris.add(entry.getURI()));
+    }
+    for (int i = 0; i < 100; i++) {
+      final String form = "form" + i;
+      final List<LexicalEntry> expected = new ArrayList<>();
+      for (LexicalEntry entry : lexicon.getEntries()) {
+        if (entry.getCanonicalForm().equals(form)) expected.add(entry);
+      }
+      Assert.assertEquals(expected, lexicon.getEntriesWithCanonicalForm(form));
+    }
+    final Set<Reference> references = new HashSet<>();
+    for (int i = 0; i < 200; i++) {
+      final String reference = "http://example.org/p" + i;
+      final List<LexicalEntry> expected = new ArrayList<>();
+      for (LexicalEntry entry : lexicon.getEntries()) {
+        for (Reference ref : entry.getReferences()) {
+          references.add(ref);
+          if (ref.toString().equals(reference)) {
+            expected.add(entry);
+            break;
+          }
+        }
+      }
+      Assert.assertEquals(expected, lexicon.getEntriesForReference(reference));
+    }
+    Assert.assertEquals(references, lexicon.getReferences());
+  }
+
+  /**
+   * Benchmarks the loading of a lexicon of 150k entries, many of which are merged into contained ones,
+   * and lookups on it.
+   */
+  @Test(timeout = 60000)
+  public void test_benchmark() {
+    final int count = 150000;
+    final Lexicon lexicon = new Lexicon(PREFIX);
+    final Set<Integer> ids = new HashSet<>();
+    long start = System.nanoTime();
+    for (int i = 0; i < count; i++) {
+      final int id = (i % 3 == 2) ? i / 3 : i;
+      ids.add(id);
+      lexicon.addEntry(newEntry(PREFIX + "entry" + id, "form" + (id % 10000),
+          "http://example.org/p" + (i % 5000), Language.EN));
+    }
+    final long loading = System.nanoTime() - start;
+    start = System.nanoTime();
+    int found = 0;
+    for (int i = 0; i < 10000; i++) {
+      found += lexicon.getEntriesWithCanonicalForm("form" + i).size();
+      found += lexicon.getEntriesForReference("http://example.org/p" + (i % 5000)).size();
+    }
+    final long lookups = System.nanoTime() - start;
+    LOGGER.info("Lexicon of {} entries loaded in {} ms ({} entries/s), 20000 lookups in {} ms",
+        lexicon.size(), loading / 1000000, String.format("%.0f", count / (loading / 1e9)), lookups / 1000000);
+
+    Assert.assertEquals(ids.size(), lexicon.size());
+    Assert.assertTrue(found > 0);
+    Assert.assertEquals(5000, lexicon.getReferences().size());
+  }
+}
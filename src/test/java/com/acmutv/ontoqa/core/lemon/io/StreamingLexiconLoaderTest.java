@@ -0,0 +1,167 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.lemon.io;
+
+import com.acmutv.ontoqa.core.lemon.*;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.system.JenaSystem;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * JUnit tests for {@link StreamingLexiconLoader}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see StreamingLexiconLoader
+ */
+public class StreamingLexiconLoaderTest {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(StreamingLexiconLoaderTest.class);
+
+  private static final String[] LEXICONS = {
+      "data/lexicon/organizationWithAmbiguity.rdf",
+      "data/lexicon/organizationWithoutAmbiguity.rdf"
+  };
+
+  @BeforeClass
+  public static void init() {
+    JenaSystem.init();
+  }
+
+  private static String uri(String path) {
+    return FileSystems.getDefault().getPath(path).toAbsolutePath().toUri().toString();
+  }
+
+  /**
+   * Returns a description of an entry that does not depend on iteration order.
+   */
+  private static String describe(LexicalEntry entry) {
+    final List<String> parts = new ArrayList<>();
+    parts.add(entry.getURI() + " " + entry.getLanguage() + " " + entry.getPOS() + " " + entry.getCanonicalForm());
+    parts.add("tense=" + entry.getTense() + " nounPhrase=" + entry.isNounPhrase() + " covariant=" + entry.isCovariantScalar());
+    parts.add("preposition=" + ((entry.getPreposition() == null) ? null : entry.getPreposition().getCanonicalForm()));
+    parts.add("alternatives=" + new TreeSet<>(entry.getAlternativeForms()));
+    parts.add("forms=" + entry.getForms().stream()
+        .map(f -> f.getWrittenRep() + "/" + f.getTense() + "/" + f.getNumber()).sorted().collect(Collectors.toList()));
+    final List<String> senses = new ArrayList<>();
+    for (Map.Entry<Sense, HashSet<SyntacticBehaviour>> e : entry.getSenseBehaviours().entrySet()) {
+      final Provenance provenance = entry.getProvenance(e.getKey());
+      final List<String> behaviours = e.getValue().stream()
+          .map(b -> b.getFrame() + b.getSynArgs().stream().map(SyntacticArgument::toString).sorted().collect(Collectors.toList()))
+          .sorted().collect(Collectors.toList());
+      senses.add(e.getKey().getReference() + " "
+          + e.getKey().getSenseArgs().stream().map(SenseArgument::toString).sorted().collect(Collectors.toList()) + " "
+          + behaviours + " "
+          + ((provenance == null) ? null : provenance.getFrequency() + "/" + provenance.getAgent() + "/" + new TreeSet<>(provenance.getPatternset()))
+      );
+    }
+    Collections.sort(senses);
+    parts.addAll(senses);
+    return String.join("\n", parts);
+  }
+
+  private static List<String> describe(Lexicon lexicon) {
+    return lexicon.getEntries().stream().map(StreamingLexiconLoaderTest::describe).sorted().collect(Collectors.toList());
+  }
+
+  /**
+   * Tests that the streaming loader produces the same lexicon as {@link LexiconLoader}.
+   */
+  @Test
+  public void test_equivalence() {
+    for (String path : LEXICONS) {
+      final Lexicon expected = new LexiconLoader().loadFromFile(uri(path));
+      final Lexicon actual = new StreamingLexiconLoader().loadFromFile(uri(path));
+      Assert.assertFalse(expected.getEntries().isEmpty());
+      Assert.assertEquals(expected.size(), actual.size());
+      Assert.assertEquals(describe(expected), describe(actual));
+      Assert.assertEquals(expected.getReferences(), actual.getReferences());
+    }
+  }
+
+  /**
+   * Tests that spilling subject groups to disk does not change the loaded lexicon.
+   */
+  @Test
+  public void test_spill() {
+    final String path = uri(LEXICONS[0]);
+    final Lexicon expected = new StreamingLexiconLoader().loadFromFile(path);
+    final long start = System.nanoTime();
+    final Lexicon actual = new StreamingLexiconLoader(64).loadFromFile(path);
+    LOGGER.info("Loaded {} entries in {} ms with 64 buffered triples",
+        actual.size(), (System.nanoTime() - start) / 1000000);
+    Assert.assertEquals(describe(expected), describe(actual));
+  }
+
+  /**
+   * Tests that the records of an entry are released once it is assembled, when the nodes it reads
+   * precede it in subject order, and that the lexicon is the same as the one loaded by {@link LexiconLoader}.
+   */
+  @Test
+  public void test_release() throws IOException {
+    final int entries = 500;
+    final StringBuilder turtle = new StringBuilder()
+        .append("@prefix lemon: <http://lemon-model.net/lemon#> .\n")
+        .append("@prefix lexinfo: <http://www.lexinfo.net/ontology/2.0/lexinfo#> .\n")
+        .append("@prefix owl: <http://www.w3.org/2002/07/owl#> .\n");
+    for (int i = 0; i < entries; i++) {
+      final String entry = "<http://lexicon.example.org/lexicon#entry" + i;
+      turtle.append("<http://example.org/ontology#Resource").append(i).append("> a owl:NamedIndividual .\n")
+          .append(entry).append("> lemon:language \"en\" ; lexinfo:partOfSpeech lexinfo:properNoun ; ")
+          .append("lemon:canonicalForm ").append(entry).append("/canonicalForm> ; ")
+          .append("lemon:sense ").append(entry).append("/sense> .\n")
+          .append(entry).append("/canonicalForm> lemon:writtenRep \"entry ").append(i).append("\"@en .\n")
+          .append(entry).append("/sense> lemon:reference <http://example.org/ontology#Resource").append(i).append("> .\n");
+    }
+    final Path file = Files.createTempFile("ontoqa-lexicon", ".ttl");
+    try {
+      Files.write(file, turtle.toString().getBytes(StandardCharsets.UTF_8));
+      final String path = file.toUri().toString();
+      final StreamingLexiconLoader loader = new StreamingLexiconLoader(64);
+      final Lexicon actual = loader.loadFromFile(path);
+      final long triples = RDFDataMgr.loadModel(path).size();
+      LOGGER.info("Held at most {} of {} triples", loader.getPeakHeld(), triples);
+      Assert.assertEquals(entries, actual.size());
+      Assert.assertEquals(describe(new LexiconLoader().loadFromFile(path)), describe(actual));
+      Assert.assertTrue(loader.getPeakHeld() < triples / 2);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.lemon.io;
+
+import org.apache.jena.graph.Node;
+import org.apache.jena.graph.NodeFactory;
+import org.apache.jena.graph.Triple;
+import org.apache.jena.system.JenaSystem;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * JUnit tests for {@link SubjectGroupingSink}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see SubjectGroupingSink
+ */
+public class SubjectGroupingSinkTest {
+
+  @BeforeClass
+  public static void init() {
+    JenaSystem.init();
+  }
+
+  /**
+   * Returns interleaved triples for {@code subjects} subjects with {@code properties} triples each,
+   * including a blank node subject and typed and language-tagged literals.
+   */
+  private static List<Triple> interleaved(int subjects, int properties) {
+    final List<Triple> triples = new ArrayList<>();
+    for (int j = 0; j < properties; j++) {
+      for (int i = subjects - 1; i >= 0; i--) {
+        final Node subject = (i == 0) ? NodeFactory.createBlankNode("b0") : NodeFactory.createURI("http://example.org/s" + i);
+        final Node object = (j % 2 == 0) ? NodeFactory.createLiteral("v" + j, "en") : NodeFactory.createLiteral(String.valueOf(j), org.apache.jena.datatypes.xsd.XSDDatatype.XSDint);
+        triples.add(Triple.create(subject, NodeFactory.createURI("http://example.org/p" + j), object));
+      }
+    }
+    return triples;
+  }
+
+  /**
+   * Feeds {@code triples} to a sink buffering at most {@code maxBuffered} triples.
+   */
+  private static List<List<Triple>> group(List<Triple> triples, int maxBuffered, SubjectGroupingSink[] out) {
+    final List<List<Triple>> groups = new ArrayList<>();
+    final SubjectGroupingSink sink = new SubjectGroupingSink(maxBuffered, groups::add);
+    sink.start();
+    triples.forEach(sink::triple);
+    out[0] = sink;
+    sink.finish();
+    return groups;
+  }
+
+  /**
+   * Tests that every subject is delivered once, with its triples in arrival order.
+   */
+  @Test
+  public void test_grouping() {
+    final List<Triple> triples = interleaved(10, 5);
+    final SubjectGroupingSink[] sink = new SubjectGroupingSink[1];
+    final List<List<Triple>> groups = group(triples, 1000, sink);
+    Assert.assertEquals(0, sink[0].getRuns());
+    Assert.assertEquals(50, sink[0].getTriples());
+    Assert.assertEquals(10, groups.size());
+    final Set<Node> subjects = new HashSet<>();
+    for (List<Triple> group : groups) {
+      Assert.assertTrue(subjects.add(group.get(0).getSubject()));
+      Assert.assertEquals(5, group.size());
+      for (int j = 0; j < group.size(); j++) {
+        Assert.assertEquals(group.get(0).getSubject(), group.get(j).getSubject());
+        Assert.assertEquals("http://example.org/p" + j, group.get(j).getPredicate().getURI());
+      }
+    }
+  }
+
+  /**
+   * Tests that spilling to disk delivers the same groups as grouping in memory.
+   */
+  @Test
+  public void test_spill() {
+    final List<Triple> triples = interleaved(25, 8);
+    final SubjectGroupingSink[] sink = new SubjectGroupingSink[1];
+    final List<List<Triple>> expected = group(triples, triples.size() + 1, sink);
+    Assert.assertEquals(0, sink[0].getRuns());
+    final List<List<Triple>> actual = group(triples, 7, sink);
+    Assert.assertTrue(sink[0].getRuns() > 1);
+    Assert.assertEquals(expected, actual);
+  }
+
+  /**
+   * Tests that run files are deleted when the stream is abandoned before it finishes.
+   */
+  @Test
+  public void test_close() {
+    final List<Path> runs = new ArrayList<>();
+    try (SubjectGroupingSink sink = new SubjectGroupingSink(7, (group) -> Assert.fail())) {
+      sink.start();
+      interleaved(25, 8).forEach(sink::triple);
+      runs.addAll(sink.getRunFiles());
+    }
+    Assert.assertTrue(runs.size() > 1);
+    for (Path run : runs) {
+      Assert.assertFalse(Files.exists(run));
+    }
+  }
+}
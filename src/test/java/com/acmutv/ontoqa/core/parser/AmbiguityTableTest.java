@@ -0,0 +1,275 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.parser;
+
+import com.acmutv.ontoqa.benchmark.Common;
+import com.acmutv.ontoqa.core.CoreController;
+import com.acmutv.ontoqa.core.Deadline;
+import com.acmutv.ontoqa.core.grammar.Grammar;
+import com.acmutv.ontoqa.core.grammar.GrammarFormat;
+import com.acmutv.ontoqa.core.grammar.GrammarManager;
+import com.acmutv.ontoqa.core.knowledge.ontology.Ontology;
+import com.acmutv.ontoqa.core.knowledge.ontology.SimpleOntology;
+import com.acmutv.ontoqa.core.semantics.sltag.ElementarySltag;
+import com.acmutv.ontoqa.core.semantics.dudes.DudesTemplates;
+import com.acmutv.ontoqa.core.semantics.sltag.SerializeSltag;
+import com.acmutv.ontoqa.core.semantics.sltag.SimpleElementarySltag;
+import com.acmutv.ontoqa.core.semantics.sltag.Sltag;
+import com.acmutv.ontoqa.core.syntax.ltag.LtagTemplates;
+import org.apache.jena.system.JenaSystem;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * JUnit tests for {@link AmbiguityTable}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see AmbiguityTable
+ */
+public class AmbiguityTableTest {
+
+  private static final String ONTOLOGY = "http://www.semanticweb.org/organization#";
+
+  private static final List<String> QUESTIONS = Arrays.asList(
+      "Who founded Microsoft?",
+      "Who is the CEO of Apple?",
+      "Who is the chairman of Apple?",
+      "What is the net income of Microsoft?",
+      "Where is Microsoft headquartered?",
+      "Is Satya Nadella italian?",
+      "Is Satya Nadella the CEO of Microsoft?",
+      "Did Microsoft acquire an italian company?",
+      "Who are the corporate officers of Apple?"
+  );
+
+  private static final List<String> DECIDED = Arrays.asList(
+      "Who is the CEO of Apple?",
+      "Is Satya Nadella italian?",
+      "Who are the corporate officers of Apple?"
+  );
+
+  @BeforeClass
+  public static void setup() {
+    JenaSystem.init();
+  }
+
+  /**
+   * Tests the decision table compiled for the benchmark grammar and ontology.
+   * @throws Exception when the decision table cannot be compiled.
+   */
+  @Test
+  public void test_compile() throws Exception {
+    final Grammar grammar = GrammarManager.read(Common.GRAMMAR_PATH, GrammarFormat.JSON);
+    final AmbiguityTable table = AmbiguityTable.compile(grammar, Common.getOntology());
+    final List<ElementarySltag> candidates = grammar.getAllMatchingElementarySLTAG("is");
+    Assert.assertEquals(2, candidates.size());
+    Assert.assertTrue(candidates.get(0).isSentence() && candidates.get(0).isLeftSub());
+    Assert.assertTrue(candidates.get(1).isSentence() && !candidates.get(1).isLeftSub());
+    Assert.assertEquals(bits(0), table.getExcluded("Is", AmbiguityTable.Position.START, 2));
+    Assert.assertEquals(bits(1), table.getExcluded("is", AmbiguityTable.Position.MIDDLE, 2));
+    Assert.assertNull(table.getExcluded("is", AmbiguityTable.Position.START, 3));
+    Assert.assertNull(table.getExcluded("Microsoft", AmbiguityTable.Position.MIDDLE, 1));
+  }
+
+  /**
+   * Tests that the decision table is discarded, entry by entry, when the grammar or the ontology change,
+   * and that its ontological exclusions are discarded when the ontology is updated.
+   * @throws Exception when the decision table cannot be compiled, written or read.
+   */
+  @Test
+  public void test_prepare() throws Exception {
+    final Grammar grammar = GrammarManager.read(Common.GRAMMAR_PATH, GrammarFormat.JSON);
+    final Ontology ontology = Common.getOntology();
+    final AmbiguityTable compiled = AmbiguityTable.compile(grammar, ontology);
+    compiled.getEntries().get("are").setInfeasible(Collections.singletonList(1));
+    final Path path = Files.createTempFile("ambiguities", ".json");
+    try {
+      compiled.write(path);
+      final AmbiguityTable table = AmbiguityTable.read(path);
+      Assert.assertEquals(compiled, table);
+
+      AmbiguityTable prepared = table.prepare(grammar, ontology);
+      Assert.assertEquals(table.getEntries().keySet(), prepared.getEntries().keySet());
+      Assert.assertEquals(Collections.singletonList(1), prepared.getEntries().get("are").getInfeasible());
+      Assert.assertEquals(bits(0), prepared.getExcluded("are", AmbiguityTable.Position.START, 2));
+      final AmbiguityTable discarded = prepared.discardOntology(grammar);
+
+      prepared = table.prepare(grammar, new SimpleOntology());
+      Assert.assertNull(prepared.getOntology());
+      Assert.assertEquals(table.getEntries().keySet(), prepared.getEntries().keySet());
+      Assert.assertTrue(prepared.getEntries().get("are").getInfeasible().isEmpty());
+      Assert.assertEquals(bits(0), prepared.getExcluded("are", AmbiguityTable.Position.START, 2));
+      Assert.assertEquals(prepared, discarded);
+      Assert.assertSame(discarded, discarded.discardOntology(grammar));
+
+      Assert.assertFalse(grammar.remove("is").isEmpty());
+      prepared = table.prepare(grammar, ontology);
+      Assert.assertFalse(prepared.getEntries().containsKey("is"));
+      Assert.assertTrue(prepared.getEntries().containsKey("are"));
+    } finally {
+      Files.delete(path);
+    }
+  }
+
+  /**
+   * Tests that parsing with the decision table produces the same queries as parsing without it.
+   * @throws Exception when a question cannot be parsed.
+   */
+  @Test
+  public void test_parse() throws Exception {
+    final Grammar grammar = GrammarManager.read(Common.GRAMMAR_PATH, GrammarFormat.JSON);
+    final Ontology ontology = Common.getOntology();
+    final AmbiguityTable table = AmbiguityTable.compile(grammar, ontology).prepare(grammar, ontology);
+    final ReasoningSltagParser parser = new AdvancedSltagParser();
+    for (String question : QUESTIONS) {
+      final String normalized = CoreController.normalizeQuestion(question);
+      final Sltag expected = parser.parse(normalized, grammar, ontology, Deadline.NONE, ParseTrace.NONE, null);
+      final ParseTrace trace = ParseTrace.start();
+      final Sltag actual = parser.parse(normalized, grammar, ontology, Deadline.NONE, trace, table);
+      Assert.assertEquals(question, expected.convertToSPARQL(), actual.convertToSPARQL());
+      if (DECIDED.contains(question)) {
+        Assert.assertTrue(question, trace.toPrettyString().contains("excluded ambiguity (decision table)"));
+      }
+    }
+  }
+
+  /**
+   * Tests that a candidate excluded by the ambiguities management is dropped only if the same candidates
+   * survive whatever the derivation: a left adjunctable with an infeasible query survives when a substitutable
+   * listed after it has no target, so it is not dropped.
+   * @throws Exception when the grammar cannot be read.
+   */
+  @Test
+  public void test_decide() throws Exception {
+    final Grammar grammar = GrammarManager.read(Common.GRAMMAR_PATH, GrammarFormat.JSON);
+    final ElementarySltag adjunct = grammar.getAllElementarySLTAG().stream()
+        .filter(sltag -> sltag.isAdjunctable() && sltag.isLeftAdj()).findFirst().orElse(null);
+    final ElementarySltag noun = SerializeSltag.getSltagProperNoun("apple", ONTOLOGY + "Apple");
+    Assert.assertNotNull(adjunct);
+    Assert.assertFalse(noun.isAdjunctable());
+    final List<ElementarySltag> candidates = Arrays.asList(adjunct, noun);
+    for (AmbiguityTable.Position position : AmbiguityTable.Position.values()) {
+      Assert.assertTrue(AmbiguityTable.decide(candidates, Collections.singletonList(0), position).isEmpty());
+      Assert.assertTrue(AmbiguityTable.decide(candidates, Arrays.asList(0, 1), position).size() < 2);
+    }
+  }
+
+  /**
+   * Tests that parsing with the decision table gives the same outcome as parsing without it, when the words of
+   * the questions, but the first ones, collide with infeasible prepositions, proper nouns and attributive adjectives.
+   * @throws Exception when the decision table cannot be compiled.
+   */
+  @Test
+  public void test_parse_colliding() throws Exception {
+    final Grammar grammar = GrammarManager.read(Common.GRAMMAR_PATH, GrammarFormat.JSON);
+    final Ontology ontology = Common.getOntology();
+    final Set<String> words = new TreeSet<>();
+    final Set<String> first = new TreeSet<>();
+    for (String question : QUESTIONS) {
+      final List<String> split = Arrays.asList(CoreController.normalizeQuestion(question).split(" "));
+      words.addAll(split);
+      first.add(split.get(0));
+    }
+    words.removeAll(first);
+    for (String word : words) {
+      if (!grammar.getAllMatchingElementarySLTAG(word).isEmpty() && word.equals(word.toLowerCase())) {
+        grammar.addElementarySLTAG(new SimpleElementarySltag(word, LtagTemplates.prepositionAdj(word, "subj", "obj"),
+            DudesTemplates.property(ONTOLOGY + "nothing", "subj", "obj")));
+        grammar.addElementarySLTAG(SerializeSltag.getSltagProperNoun(word, ONTOLOGY + "Nowhere"));
+        grammar.addElementarySLTAG(SerializeSltag.getSltagAttributiveAdj(word, ONTOLOGY + "nothing"));
+      }
+    }
+    final AmbiguityTable table = AmbiguityTable.compile(grammar, ontology).prepare(grammar, ontology);
+    Assert.assertFalse(table.getEntries().isEmpty());
+    final ReasoningSltagParser parser = new AdvancedSltagParser();
+    for (String question : QUESTIONS) {
+      final String normalized = CoreController.normalizeQuestion(question);
+      Assert.assertEquals(question, outcome(parser, normalized, grammar, ontology, null),
+          outcome(parser, normalized, grammar, ontology, table));
+    }
+  }
+
+  /**
+   * Returns the query parsed from {@code question}, or the error raised by the parser.
+   */
+  private static String outcome(ReasoningSltagParser parser, String question, Grammar grammar, Ontology ontology,
+                                AmbiguityTable table) {
+    try {
+      return parser.parse(question, grammar, ontology, Deadline.NONE, ParseTrace.NONE, table).convertToSPARQL().toString();
+    } catch (Exception exc) {
+      return exc.getClass().getName() + ": " + exc.getMessage();
+    }
+  }
+
+  /**
+   * Tests that the ontology stamp does not depend on the statement order nor on blank node labels,
+   * and changes when a statement changes.
+   */
+  @Test
+  public void test_stamp() {
+    final ValueFactory factory = SimpleValueFactory.getInstance();
+    final IRI apple = factory.createIRI(ONTOLOGY + "Apple");
+    final IRI name = factory.createIRI(ONTOLOGY + "name");
+    final IRI founder = factory.createIRI(ONTOLOGY + "founder");
+    final Ontology ontology = new SimpleOntology();
+    ontology.add(apple, name, factory.createLiteral("Apple"));
+    ontology.add(apple, founder, factory.createBNode("b1"));
+    final Ontology reordered = new SimpleOntology();
+    reordered.add(apple, founder, factory.createBNode("b2"));
+    reordered.add(apple, name, factory.createLiteral("Apple"));
+    final Ontology changed = new SimpleOntology();
+    changed.add(apple, founder, factory.createBNode("b1"));
+    changed.add(apple, name, factory.createLiteral("Apple Inc."));
+    final String stamp = AmbiguityTable.stamp(ontology);
+    Assert.assertEquals(stamp, AmbiguityTable.stamp(ontology));
+    Assert.assertEquals(stamp, AmbiguityTable.stamp(reordered));
+    Assert.assertNotEquals(stamp, AmbiguityTable.stamp(changed));
+    Assert.assertNull(AmbiguityTable.stamp(null));
+  }
+
+  private static BitSet bits(int... indexes) {
+    final BitSet bits = new BitSet();
+    for (int index : indexes) {
+      bits.set(index);
+    }
+    return bits;
+  }
+}
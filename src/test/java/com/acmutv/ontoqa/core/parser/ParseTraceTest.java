@@ -0,0 +1,111 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.core.parser;
+
+import com.acmutv.ontoqa.core.exception.LTAGException;
+import com.acmutv.ontoqa.core.semantics.dudes.DudesTemplates;
+import com.acmutv.ontoqa.core.semantics.sltag.SimpleSltag;
+import com.acmutv.ontoqa.core.semantics.sltag.Sltag;
+import com.acmutv.ontoqa.core.syntax.ltag.LtagTemplates;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JUnit tests for {@link ParseTrace}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see ParseTrace
+ */
+public class ParseTraceTest {
+
+  private static final String APPLE_IRI = "http://www.semanticweb.org/organization#Apple";
+
+  /**
+   * Tests that arguments are rendered only when the trace is printed.
+   */
+  @Test
+  public void test_deferredRendering() {
+    AtomicInteger renderings = new AtomicInteger(0);
+    Object arg = new Object() {
+      @Override
+      public String toString() {
+        return "candidate" + renderings.incrementAndGet();
+      }
+    };
+    ParseTrace trace = ParseTrace.start();
+    trace.record("[PROCESSING] :: entry '{}'", "who");
+    trace.record("[AMBIGUITIES MANAGEMENT] :: excluded ambiguity:\n{}", arg);
+    Assert.assertEquals(2, trace.size());
+    Assert.assertEquals(0, renderings.get());
+    String actual = trace.toPrettyString();
+    Assert.assertEquals(1, renderings.get());
+    Assert.assertTrue(actual.contains("[PROCESSING] :: entry 'who'"));
+    Assert.assertTrue(actual.contains("excluded ambiguity:\ncandidate1"));
+  }
+
+  /**
+   * Tests that SLTAGs are printed in the state they have when the event is recorded.
+   * @throws LTAGException when the substitution cannot be performed.
+   */
+  @Test
+  public void test_snapshot() throws LTAGException {
+    Sltag the = new SimpleSltag(LtagTemplates.determiner("the", "np"), DudesTemplates.determiner("np"));
+    Sltag apple = new SimpleSltag(LtagTemplates.properNoun("Apple"), DudesTemplates.properNoun(APPLE_IRI));
+    String expected = the.toPrettyString();
+    ParseTrace trace = ParseTrace.start();
+    trace.record("[STATUS] :: current SLTAG\n{}", the);
+    trace.record("[AMBIGUITIES MANAGEMENT] :: found ambiguities\n{}", Collections.singletonList(the));
+    the.substitution(apple, "np");
+    Assert.assertNotEquals(expected, the.toPrettyString());
+    String actual = trace.toPrettyString();
+    Assert.assertTrue(actual.contains("current SLTAG\n" + expected + "\n"));
+    Assert.assertTrue(actual.contains("found ambiguities\n" + expected + "\n"));
+    Assert.assertFalse(actual.contains(the.toPrettyString()));
+  }
+
+  /**
+   * Tests that {@link ParseTrace#NONE} discards events.
+   */
+  @Test
+  public void test_none() {
+    Object arg = new Object() {
+      @Override
+      public String toString() {
+        throw new AssertionError("rendered");
+      }
+    };
+    ParseTrace.NONE.record("[PROCESSING] :: entry '{}'", arg);
+    Assert.assertFalse(ParseTrace.NONE.isEnabled());
+    Assert.assertEquals(0, ParseTrace.NONE.size());
+    Assert.assertEquals("", ParseTrace.NONE.toPrettyString());
+  }
+}
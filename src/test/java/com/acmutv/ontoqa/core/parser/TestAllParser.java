@@ -35,10 +35,14 @@ import org.junit.runners.Suite;
  * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
  * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
  * @since 1.0
+ * @see AmbiguityTableTest
+ * @see ParseTraceTest
  * @see TokenizerTest
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
+    AmbiguityTableTest.class,
+    ParseTraceTest.class,
     TokenizerTest.class
 })
 public class TestAllParser {
@@ -26,14 +26,17 @@
 
 package com.acmutv.ontoqa.core.semantics.dudes;
 
+import com.acmutv.ontoqa.core.semantics.base.statement.OperatorType;
 import com.acmutv.ontoqa.core.semantics.dudes.serial.DudesJsonMapper;
 import com.acmutv.ontoqa.core.semantics.dudes.serial.DudesYamlMapper;
+import com.fasterxml.jackson.core.type.TypeReference;
 import org.junit.Assert;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.*;
 
 /**
  * JUnit tests for {@link Dudes} serialization.
@@ -78,4 +81,36 @@ public class DudesSerializationTest {
     testSerialization(expected);
   }
 
+  /**
+   * Tests {@link Dudes} serialization/deserialization with projections, operators and selection.
+   * @throws IOException when DUDES cannot be serialized/deserialized.
+   */
+  @Test
+  public void test_complex() throws IOException {
+    testSerialization(DudesTemplates.howmany("np"));
+    testSerialization(DudesTemplates.adjectiveComparative(OperatorType.GREATER,
+        "http://dbpedia.org/ontology/height", "dp1", "dp2"));
+    testSerialization(DudesTemplates.copulaInterrogative("dp1", "dp2"));
+  }
+
+  /**
+   * Tests that {@link Dudes} deserialization does not depend on the order of fields and skips unknown fields.
+   * @throws IOException when DUDES cannot be deserialized.
+   */
+  @Test
+  public void test_fieldOrder() throws IOException {
+    Dudes expected = DudesTemplates.adjectiveComparative(OperatorType.GREATER,
+        "http://dbpedia.org/ontology/height", "dp1", "dp2");
+    DudesJsonMapper mapper = new DudesJsonMapper();
+    Map<String,Object> fields = mapper.readValue(mapper.writeValueAsString(expected),
+        new TypeReference<LinkedHashMap<String,Object>>(){});
+    List<String> names = new ArrayList<>(fields.keySet());
+    Collections.reverse(names);
+    Map<String,Object> reversed = new LinkedHashMap<>();
+    reversed.put("unknown", Collections.singletonMap("nested", Collections.singletonList(1)));
+    names.forEach(name -> reversed.put(name, fields.get(name)));
+    Dudes actual = mapper.readValue(mapper.writeValueAsString(reversed), Dudes.class);
+    Assert.assertEquals(expected, actual);
+  }
+
 }
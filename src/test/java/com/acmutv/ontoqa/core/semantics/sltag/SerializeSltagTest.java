@@ -0,0 +1,80 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.core.semantics.sltag;
+
+import com.acmutv.ontoqa.core.grammar.Grammar;
+import com.acmutv.ontoqa.core.grammar.serial.GrammarJsonMapper;
+import com.acmutv.ontoqa.core.lemon.LexicalEntry;
+import com.acmutv.ontoqa.core.lexicon.LexiconFormat;
+import com.acmutv.ontoqa.core.lexicon.LexiconUsage;
+import org.apache.jena.system.JenaSystem;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JUnit tests for {@link SerializeSltag}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see SerializeSltag
+ */
+public class SerializeSltagTest {
+
+  private static final String LEXICON = "data/lexicon/organizationWithAmbiguity.rdf";
+
+  @BeforeClass
+  public static void init() {
+    JenaSystem.init();
+  }
+
+  /**
+   * Tests that parallel compilation produces the same grammar as sequential compilation.
+   * @throws Exception when the lexicon cannot be read or the grammar cannot be serialized.
+   */
+  @Test
+  public void test_parallel() throws Exception {
+    final List<LexicalEntry> entries = LexiconUsage.getLexicalEntries(LEXICON, "", LexiconFormat.RDFXML);
+    Assert.assertFalse(entries.isEmpty());
+    final List<LexicalEntry> repeated = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      repeated.addAll(entries);
+    }
+    final GrammarJsonMapper mapper = new GrammarJsonMapper();
+    for (List<LexicalEntry> list : new List[]{entries, repeated}) {
+      final Grammar expected = SerializeSltag.getAllElementarySltag(list);
+      for (int parallelism : new int[]{1, 4}) {
+        final Grammar actual = SerializeSltag.getAllElementarySltag(list, parallelism);
+        Assert.assertEquals(expected.getAllElementarySLTAG(), actual.getAllElementarySLTAG());
+        Assert.assertEquals(mapper.writeValueAsString(expected), mapper.writeValueAsString(actual));
+      }
+    }
+  }
+}
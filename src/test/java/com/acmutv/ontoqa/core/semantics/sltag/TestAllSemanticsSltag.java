@@ -39,6 +39,7 @@ import org.junit.runners.Suite;
  * @see ElementarySLTAGTest
  * @see SLTAGSerializationTest
  * @see SLTAGTest
+ * @see SerializeSltagTest
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
@@ -46,7 +47,8 @@ import org.junit.runners.Suite;
     ElementarySLTAGTest.class,
     SLTAGOperationTest.class,
     SLTAGSerializationTest.class,
-    SLTAGTest.class
+    SLTAGTest.class,
+    SerializeSltagTest.class
 })
 public class TestAllSemanticsSltag {
 }
@@ -36,6 +36,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * JUnit tests for {@link Ltag} serialization.
@@ -124,6 +127,38 @@ public class LtagSerializationTest {
     //Assert.assertEquals(expected, actual);
   }
 
-
+  /**
+   * Tests that productions are deserialized as parsed by {@link LtagEdge#valueOf(String)}.
+   * @throws IOException when LTAG cannot be serialized/deserialized.
+   */
+  @Test
+  public void test_productions() throws IOException {
+    LtagJsonMapper mapper = new LtagJsonMapper();
+    List<String> productions = Arrays.asList(
+        "NP->'nation'", "S->DP1^(subj)", "NP*->ADJ", "N->'chief financial officers'", "P->'of'2", "V->'it''",
+        "DP->'a->b'", "N->'x'->'y'", "NP->", "->NP", "NP1^->N", "NP->'s", "N->'a'b1", "NPX->N", "N->''5",
+        "DP1^(su-bj)->N", "DP1*(obj)->'x'12", "ADJPP->'a'", "NP->'a\nb'", "N->N()"
+    );
+    for (String production : productions) {
+      Ltag expected;
+      try {
+        LtagEdge edge = LtagEdge.valueOf(production);
+        expected = new SimpleLtag(edge.getLhs());
+        expected.addEdge(edge.getLhs(), edge.getRhs());
+      } catch (IllegalArgumentException exc) {
+        expected = null;
+      }
+      Ltag actual;
+      try {
+        actual = mapper.readValue(mapper.writeValueAsString(Collections.singletonList(production)), Ltag.class);
+      } catch (IOException exc) {
+        actual = null;
+      }
+      Assert.assertEquals(production, expected, actual);
+      if (expected != null) {
+        Assert.assertEquals(production, expected.toString(), actual.toString());
+      }
+    }
+  }
 
 }
@@ -0,0 +1,182 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.model;
+
+import com.acmutv.ontoqa.config.WebConfigurer;
+import com.acmutv.ontoqa.core.knowledge.answer.SimpleAnswer;
+import com.acmutv.ontoqa.core.knowledge.answer.StreamingAnswer;
+import com.acmutv.ontoqa.core.knowledge.query.QueryCursor;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.jena.query.Query;
+import org.apache.jena.query.QueryFactory;
+import org.junit.Assert;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * JUnit tests for {@link QAResponse} serialization.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see QAResponse
+ * @see ResponseVerbosity
+ */
+public class QAResponseSerializationTest {
+
+  private static final ObjectMapper MAPPER = new WebConfigurer().getObjectMapper();
+
+  private static final Query QUERY = QueryFactory.create("SELECT ?x WHERE { ?x ?p ?o }");
+
+  /**
+   * Tests {@link QAResponse} serialization.
+   * Verbosity: answer only.
+   * @throws IOException when the response cannot be serialized.
+   */
+  @Test
+  public void test_answer() throws IOException {
+    QAResponse response = new QAResponse("question", new SimpleAnswer("a", "b"), QUERY, null, 10L,
+        ResponseVerbosity.ANSWER);
+    JsonNode actual = MAPPER.readTree(MAPPER.writeValueAsString(response));
+    Assert.assertEquals("question", actual.get("question").asText());
+    Assert.assertEquals(2, actual.get("answer").size());
+    Assert.assertEquals("b", actual.get("answer").get(1).asText());
+    Assert.assertEquals(10L, actual.get("responseTime").asLong());
+    Assert.assertFalse(actual.has("query"));
+    Assert.assertFalse(actual.has("sltag"));
+  }
+
+  /**
+   * Tests {@link QAResponse} serialization.
+   * Verbosity: answer and query.
+   * @throws IOException when the response cannot be serialized.
+   */
+  @Test
+  public void test_query() throws IOException {
+    QAResponse response = new QAResponse("question", new SimpleAnswer("a"), QUERY, null, 10L,
+        ResponseVerbosity.QUERY);
+    JsonNode actual = MAPPER.readTree(MAPPER.writeValueAsString(response));
+    Assert.assertEquals(QUERY.serialize(), actual.get("query").asText());
+    Assert.assertFalse(actual.has("sltag"));
+    Assert.assertFalse(actual.has("verbosity"));
+  }
+
+  /**
+   * Tests {@link QAResponse} serialization.
+   * Verbosity: full debug, with an answer spanning several flushes.
+   * @throws IOException when the response cannot be serialized.
+   */
+  @Test
+  public void test_debug_largeAnswer() throws IOException {
+    SimpleAnswer answer = new SimpleAnswer();
+    for (int i = 0; i < 5000; i++) {
+      answer.add("http://example.org/resource/" + i);
+    }
+    QAResponse response = new QAResponse("question", answer, QUERY, null, 10L, ResponseVerbosity.DEBUG);
+    JsonNode actual = MAPPER.readTree(MAPPER.writeValueAsString(response));
+    Assert.assertEquals(5000, actual.get("answer").size());
+    Assert.assertEquals("http://example.org/resource/4999", actual.get("answer").get(4999).asText());
+    Assert.assertTrue(actual.has("query"));
+    Assert.assertTrue(actual.has("sltag"));
+  }
+
+  /**
+   * Tests {@link QAResponse} serialization.
+   * Verbosity: answer only, with a streamed answer and the cursor of the next page.
+   * @throws IOException when the response cannot be serialized.
+   */
+  @Test
+  public void test_streaming_next() throws IOException {
+    final ValueFactory factory = SimpleValueFactory.getInstance();
+    final List<Value> values = new ArrayList<>();
+    for (int i = 0; i < 3000; i++) {
+      values.add(factory.createIRI("http://example.org/resource/" + i));
+    }
+    StreamingAnswer answer = new QueryCursor(values).toAnswer();
+    QAResponse response = new QAResponse("question", answer, QUERY, null, 10L, ResponseVerbosity.ANSWER);
+    response.setNext("cursor");
+    JsonNode actual = MAPPER.readTree(MAPPER.writeValueAsString(response));
+    Assert.assertEquals(3000, actual.get("answer").size());
+    Assert.assertEquals("http://example.org/resource/2999", actual.get("answer").get(2999).asText());
+    Assert.assertEquals("cursor", actual.get("next").asText());
+
+    QAResponse empty = new QAResponse("question", new QueryCursor(new ArrayList<>()).toAnswer(), QUERY, null,
+        10L, ResponseVerbosity.ANSWER);
+    JsonNode emptyActual = MAPPER.readTree(MAPPER.writeValueAsString(empty));
+    Assert.assertEquals(SimpleAnswer.NO_ANSWER.get(0), emptyActual.get("answer").get(0).asText());
+    Assert.assertFalse(emptyActual.has("next"));
+  }
+
+  /**
+   * Tests {@link QAResponse} serialization.
+   * Verbosity: answer only, with a streamed answer failing after its first values.
+   * @throws IOException when the response cannot be serialized.
+   */
+  @Test
+  public void test_streaming_failure() throws IOException {
+    final Value value = SimpleValueFactory.getInstance().createIRI("http://example.org/resource/1");
+    final Iterable<Value> failing = () -> new Iterator<Value>() {
+
+      private boolean read = false;
+
+      @Override
+      public boolean hasNext() {
+        if (this.read) {
+          throw new IllegalStateException("Deadline expired");
+        }
+        return true;
+      }
+
+      @Override
+      public Value next() {
+        this.read = true;
+        return value;
+      }
+    };
+    StreamingAnswer answer = new StreamingAnswer(Arrays.asList("http://example.org/resource/0"),
+        new QueryCursor(failing));
+    QAResponse response = new QAResponse("question", answer, QUERY, null, 10L, ResponseVerbosity.ANSWER);
+    JsonNode actual = MAPPER.readTree(MAPPER.writeValueAsString(response));
+    Assert.assertEquals(2, actual.get("answer").size());
+    Assert.assertEquals("http://example.org/resource/1", actual.get("answer").get(1).asText());
+    Assert.assertEquals("Deadline expired", actual.get("error").asText());
+    Assert.assertEquals(10L, actual.get("responseTime").asLong());
+
+    JsonNode completed = MAPPER.readTree(MAPPER.writeValueAsString(
+        new QAResponse("question", new SimpleAnswer("a"), QUERY, null, 10L, ResponseVerbosity.ANSWER)));
+    Assert.assertFalse(completed.has("error"));
+  }
+}
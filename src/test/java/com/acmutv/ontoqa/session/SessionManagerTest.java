@@ -0,0 +1,110 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.session;
+
+import com.acmutv.ontoqa.benchmark.Common;
+import com.acmutv.ontoqa.core.grammar.GrammarFormat;
+import com.acmutv.ontoqa.core.knowledge.ontology.OntologyFormat;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * JUnit tests for {@link SessionManager}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see SessionManager
+ * @see ReloadWatcher
+ */
+public class SessionManagerTest {
+
+  /**
+   * Tests that a reload publishes a new session, leaving the one held by questions in flight untouched.
+   * @throws IOException when the session cannot be loaded.
+   */
+  @Test
+  public void test_reload() throws IOException {
+    SessionManager.loadOntology(Common.ONTOLOGY_PATH, OntologyFormat.TURTLE);
+    SessionManager.loadGrammar(Common.GRAMMAR_PATH, GrammarFormat.JSON);
+    final Session before = SessionManager.getSession();
+    final long version = before.getVersion();
+    final long reloaded = SessionManager.reload(null, OntologyFormat.TURTLE, Common.GRAMMAR_PATH, GrammarFormat.JSON);
+    final Session after = SessionManager.getSession();
+    Assert.assertNotSame(before, after);
+    Assert.assertTrue(reloaded > version);
+    Assert.assertEquals(version, before.getVersion());
+    Assert.assertNotSame(before.getGrammar(), after.getGrammar());
+    Assert.assertEquals(before.getGrammar().getAllElementarySLTAG().size(),
+        after.getGrammar().getAllElementarySLTAG().size());
+  }
+
+  /**
+   * Tests that a failed reload keeps the current session.
+   * @throws IOException when the session cannot be loaded.
+   */
+  @Test
+  public void test_reload_failed() throws IOException {
+    SessionManager.loadGrammar(Common.GRAMMAR_PATH, GrammarFormat.JSON);
+    final Session before = SessionManager.getSession();
+    try {
+      SessionManager.reload(null, OntologyFormat.TURTLE, "data/grammar/missing.json", GrammarFormat.JSON);
+      Assert.fail("Missing grammar reloaded");
+    } catch (IOException exc) {
+      Assert.assertNotNull(before.getGrammar());
+    }
+  }
+
+  /**
+   * Tests that a change to the watched grammar file triggers a reload.
+   * @throws Exception when the grammar cannot be copied, or the test is interrupted.
+   */
+  @Test
+  public void test_watch() throws Exception {
+    final Path directory = Files.createTempDirectory("reload");
+    final Path grammar = directory.resolve("grammar.json");
+    Files.copy(Paths.get(Common.GRAMMAR_PATH), grammar);
+    try (ReloadWatcher watcher = new ReloadWatcher(null, OntologyFormat.TURTLE, grammar.toString(),
+        GrammarFormat.JSON, 100)) {
+      watcher.start();
+      Files.copy(Paths.get(Common.GRAMMAR_PATH), grammar, StandardCopyOption.REPLACE_EXISTING);
+      final long deadline = System.currentTimeMillis() + 10000;
+      while (watcher.getReloads() == 0 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(50);
+      }
+      Assert.assertTrue(watcher.getReloads() > 0);
+    } finally {
+      Files.delete(grammar);
+      Files.delete(directory);
+    }
+  }
+}
@@ -0,0 +1,200 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+package com.acmutv.ontoqa.session;
+
+import com.acmutv.ontoqa.benchmark.Common;
+import com.acmutv.ontoqa.core.CoreController;
+import com.acmutv.ontoqa.core.Deadline;
+import com.acmutv.ontoqa.core.grammar.GrammarFormat;
+import com.acmutv.ontoqa.core.knowledge.ontology.OntologyFormat;
+import com.acmutv.ontoqa.model.QAResponse;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+/**
+ * JUnit tests for {@link TenantPool}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see TenantPool
+ */
+public class TenantPoolTest {
+
+  private static Path root;
+
+  /**
+   * Creates two tenants, {@code alpha} and {@code beta}, sharing the benchmark ontology and grammar.
+   * @throws IOException when the tenants cannot be created.
+   */
+  @BeforeClass
+  public static void setup() throws IOException {
+    root = Files.createTempDirectory("tenants");
+    for (String name : Arrays.asList("alpha", "beta")) {
+      final Path tenant = Files.createDirectory(root.resolve(name));
+      Files.createDirectory(tenant.resolve("ontology"));
+      Files.copy(Paths.get(Common.ONTOLOGY_PATH), tenant.resolve("ontology").resolve("organization.ttl"));
+      Files.copy(Paths.get(Common.GRAMMAR_PATH), tenant.resolve("grammar"));
+    }
+  }
+
+  @AfterClass
+  public static void teardown() throws IOException {
+    for (Path path : Files.walk(root).sorted(Collections.reverseOrder()).toArray(Path[]::new)) {
+      Files.delete(path);
+    }
+  }
+
+  private static TenantPool newPool(long tenantMemory, long tenantsMemory, long idleTimeout) throws IOException {
+    return new TenantPool(root.toString(), OntologyFormat.TURTLE, GrammarFormat.YAML,
+        tenantMemory, tenantsMemory, idleTimeout);
+  }
+
+  /**
+   * Tests that tenants are loaded on their first request, and kept resident afterwards.
+   * @throws IOException when a tenant cannot be loaded.
+   */
+  @Test
+  public void test_load() throws IOException {
+    try (TenantPool pool = newPool(Long.MAX_VALUE, Long.MAX_VALUE, 0)) {
+      final Session alpha = pool.getSession("alpha");
+      Assert.assertEquals("alpha", alpha.getName());
+      Assert.assertFalse(alpha.getOntology().isEmpty());
+      Assert.assertFalse(alpha.getGrammar().getAllElementarySLTAG().isEmpty());
+      Assert.assertSame(alpha, pool.getSession("alpha"));
+      Assert.assertNotSame(alpha, pool.getSession("beta"));
+      Assert.assertEquals(Arrays.asList("alpha", "beta"), pool.getResident());
+      Assert.assertEquals(TenantPool.estimate(alpha) * 2, pool.getMemory());
+
+      Assert.assertNull(pool.getSession("gamma"));
+      Assert.assertNull(pool.getSession(".."));
+      Assert.assertNull(pool.getSession("../alpha"));
+    }
+  }
+
+  /**
+   * Tests that the least recently used tenant is evicted when the resident ones exceed their budget,
+   * and that it is reloaded from its snapshot with the same ontology, answering the same.
+   * @throws Exception when a tenant cannot be loaded or a question cannot be answered.
+   */
+  @Test
+  public void test_eviction() throws Exception {
+    final long footprint;
+    try (TenantPool pool = newPool(Long.MAX_VALUE, Long.MAX_VALUE, 0)) {
+      footprint = TenantPool.estimate(pool.getSession("alpha"));
+    }
+    try (TenantPool pool = newPool(Long.MAX_VALUE, footprint + footprint / 2, 0)) {
+      final Session alpha = pool.getSession("alpha");
+      final QAResponse expected = new QAResponse();
+      CoreController.process(alpha, "Who founded Microsoft?", expected, Deadline.NONE);
+
+      pool.getSession("beta");
+      Assert.assertEquals(Collections.singletonList("beta"), pool.getResident());
+      Assert.assertEquals(1, pool.getEvictions());
+
+      final Session reloaded = pool.getSession("alpha");
+      Assert.assertNotSame(alpha, reloaded);
+      Assert.assertEquals(Collections.singletonList("alpha"), pool.getResident());
+      Assert.assertEquals(2, pool.getEvictions());
+      Assert.assertEquals(alpha.getVersion(), reloaded.getVersion());
+      Assert.assertEquals(new HashSet<>(alpha.getOntology()), new HashSet<>(reloaded.getOntology()));
+
+      final QAResponse actual = new QAResponse();
+      CoreController.process(reloaded, "Who founded Microsoft?", actual, Deadline.NONE);
+      Assert.assertEquals(expected.getAnswer(), actual.getAnswer());
+    }
+  }
+
+  /**
+   * Tests that tenants idle for longer than the idle timeout are evicted.
+   * @throws Exception when a tenant cannot be loaded.
+   */
+  @Test
+  public void test_idle() throws Exception {
+    try (TenantPool pool = newPool(Long.MAX_VALUE, Long.MAX_VALUE, 50)) {
+      pool.getSession("alpha");
+      Thread.sleep(100);
+      pool.getSession("beta");
+      Assert.assertEquals(Collections.singletonList("beta"), pool.getResident());
+      Assert.assertEquals(1, pool.getEvictions());
+    }
+  }
+
+  /**
+   * Tests that a tenant beyond its own memory budget is not loaded.
+   * @throws IOException when the tenant cannot be loaded.
+   */
+  @Test(expected = IOException.class)
+  public void test_budget() throws IOException {
+    try (TenantPool pool = newPool(1024, Long.MAX_VALUE, 0)) {
+      pool.getSession("alpha");
+    }
+  }
+
+  /**
+   * Tests that a tenant beyond its own memory budget is rejected at once afterwards, without being loaded again.
+   * @throws IOException when the tenant cannot be created.
+   */
+  @Test
+  public void test_budget_cached() throws IOException {
+    final Path tenant = Files.createDirectory(root.resolve("oversized"));
+    Files.createDirectory(tenant.resolve("ontology"));
+    final Path ontology = Files.copy(Paths.get(Common.ONTOLOGY_PATH),
+        tenant.resolve("ontology").resolve("organization.ttl"));
+    Files.copy(Paths.get(Common.GRAMMAR_PATH), tenant.resolve("grammar"));
+    try (TenantPool pool = newPool(1024, Long.MAX_VALUE, 0)) {
+      String expected = null;
+      try {
+        pool.getSession("oversized");
+        Assert.fail("Expected the tenant to be rejected");
+      } catch (IOException exc) {
+        expected = exc.getMessage();
+      }
+      Files.delete(ontology);
+      try {
+        pool.getSession("oversized");
+        Assert.fail("Expected the tenant to be rejected");
+      } catch (IOException exc) {
+        Assert.assertEquals(expected, exc.getMessage());
+      }
+      Assert.assertTrue(pool.getResident().isEmpty());
+    } finally {
+      for (Path path : Files.walk(tenant).sorted(Collections.reverseOrder()).toArray(Path[]::new)) {
+        Files.delete(path);
+      }
+    }
+  }
+}
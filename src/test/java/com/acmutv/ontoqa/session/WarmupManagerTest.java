@@ -0,0 +1,81 @@
+/*
+  The MIT License (MIT)
+
+  Copyright (c) 2017 Antonella Botte, Giacomo Marciani and Debora Partigianoni
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+  THE SOFTWARE.
+ */
+
+package com.acmutv.ontoqa.session;
+
+import com.acmutv.ontoqa.config.WebConfigurer;
+import com.acmutv.ontoqa.core.grammar.GrammarFormat;
+import com.acmutv.ontoqa.core.knowledge.ontology.OntologyFormat;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * JUnit tests for {@link WarmupManager}.
+ * @author Antonella Botte {@literal <abotte@acm.org>}
+ * @author Giacomo Marciani {@literal <gmarciani@acm.org>}
+ * @author Debora Partigianoni {@literal <dpartigianoni@acm.org>}
+ * @since 1.0
+ * @see WarmupManager
+ */
+public class WarmupManagerTest {
+
+  /**
+   * Tests the reading of the warm-up corpus.
+   * @throws IOException when the corpus cannot be read.
+   */
+  @Test
+  public void test_readCorpus() throws IOException {
+    List<String> actual = WarmupManager.readCorpus("data/warmup/benchmark.questions.txt");
+    Assert.assertEquals(19, actual.size());
+    Assert.assertEquals("Is Satya Nadella the CEO of Microsoft?", actual.get(0));
+    for (String question : actual) {
+      Assert.assertFalse(question.isEmpty());
+      Assert.assertFalse(question.startsWith("#"));
+    }
+  }
+
+  /**
+   * Tests that the app is declared ready after the warm-up, even when some questions fail.
+   * @throws IOException when the session cannot be loaded.
+   */
+  @Test
+  public void test_warmup() throws IOException {
+    SessionManager.loadOntology("data/knowledge/organizationVersion2.ttl", OntologyFormat.TURTLE);
+    SessionManager.loadGrammar("data/grammar/organization.json", GrammarFormat.JSON);
+    List<String> questions = Arrays.asList("Who founded Microsoft?", "Not a question at all");
+    WarmupManager.warmup(questions, 1, 0, null);
+    Assert.assertTrue(WarmupManager.isReady());
+    Assert.assertEquals(questions.size(), WarmupManager.getAnswered() + WarmupManager.getFailed());
+
+    WarmupManager.warmup(questions, 1, 0, new WebConfigurer().getObjectMapper());
+    Assert.assertEquals(1, WarmupManager.getAnswered());
+    Assert.assertEquals(1, WarmupManager.getFailed());
+  }
+}